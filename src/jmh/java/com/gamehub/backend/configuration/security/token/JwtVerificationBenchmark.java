@@ -0,0 +1,68 @@
+package com.gamehub.backend.configuration.security.token;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating one bearer token. {@code rebuildParserAndParseThreeTimes} replays what the
+ * request filter used to do: decode the secret and build a key and parser for each of the three parses of the same
+ * token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "VUd1Jy4wHKG/+wLCqYgn4FMMfvTolPu3UW+1xFMqg0DrxoOplm9EonicfqCc0FgmpE2ukHO1NJMyQw/QsxoM";
+
+    private String token;
+    private JwtVerifier uncachedVerifier;
+    private JwtVerifier cachingVerifier;
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, TimeUnit.HOURS.toMillis(10));
+        token = jwtUtil.generateToken(42L, "benchmark-user", List.of("USER", "COMMUNITY_MANAGER"));
+        uncachedVerifier = new JwtVerifier(jwtUtil, new SimpleMeterRegistry(), 0);
+        cachingVerifier = new JwtVerifier(jwtUtil, new SimpleMeterRegistry(), 10_000);
+    }
+
+    @Benchmark
+    public boolean rebuildParserAndParseThreeTimes() {
+        String username = parseWithFreshParser(token).getSubject();
+        return username.equals(parseWithFreshParser(token).getSubject())
+                && !parseWithFreshParser(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public Claims parseOnceWithSharedParser() {
+        return uncachedVerifier.verify(token);
+    }
+
+    @Benchmark
+    public Claims verifiedTokenCacheHit() {
+        return cachingVerifier.verify(token);
+    }
+
+    private static Claims parseWithFreshParser(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
@@ -9,5 +9,6 @@ public interface ChatMessageService {
     ChatMessage save(ChatMessage chatMessage);
     List<ChatMessage> getChatMessages(Long userId);
     List<ChatMessage> getChatMessagesBetweenUsers(Long userId, Long friendId);
+    List<ChatMessage> getChatMessagesBetweenUsers(Long userId, Long friendId, LocalDateTime before, Long beforeId, int limit);
     void deleteOldMessages(LocalDateTime before);
 }
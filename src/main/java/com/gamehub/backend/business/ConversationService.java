@@ -0,0 +1,12 @@
+package com.gamehub.backend.business;
+
+import com.gamehub.backend.dto.ConversationDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ConversationService {
+    void recordMessage(Long senderId, Long receiverId, String content, LocalDateTime sentAt);
+    List<ConversationDTO> getInbox(Long userId);
+    void markConversationRead(Long userId, Long peerId);
+}
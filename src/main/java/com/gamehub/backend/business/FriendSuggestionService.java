@@ -0,0 +1,10 @@
+package com.gamehub.backend.business;
+
+import com.gamehub.backend.dto.FriendSuggestionDTO;
+
+import java.util.List;
+
+public interface FriendSuggestionService {
+
+    List<FriendSuggestionDTO> getFriendSuggestions(Long userId, int limit);
+}
@@ -1,5 +1,6 @@
 package com.gamehub.backend.business;
 
+import com.gamehub.backend.domain.BroadcastNotification;
 import com.gamehub.backend.domain.Notification;
 import com.gamehub.backend.dto.NotificationDTO;
 
@@ -8,7 +9,15 @@ import java.util.List;
 
 public interface NotificationService {
     Notification save(Notification notification);
+    NotificationDTO send(Notification notification);
+    BroadcastNotification broadcast(BroadcastNotification broadcastNotification);
     List<NotificationDTO> getUnreadNotifications(Long userId);
+    long getUnreadCount(Long userId);
     void deleteOldNotifications(LocalDateTime before);
+    void deleteOldBroadcasts(LocalDateTime before);
     void markAsRead(Long notificationId);
+    int markAsRead(Long userId, List<Long> notificationIds);
+    int markReadUpTo(Long userId, Long upToId, LocalDateTime upTo);
+    void markBroadcastsReadUpTo(Long userId, Long broadcastId);
+    void initializeBroadcastWatermark(Long userId);
 }
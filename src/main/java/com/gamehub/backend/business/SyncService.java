@@ -0,0 +1,7 @@
+package com.gamehub.backend.business;
+
+import com.gamehub.backend.dto.SyncResponseDTO;
+
+public interface SyncService {
+    SyncResponseDTO sync(Long userId, String since, int limit);
+}
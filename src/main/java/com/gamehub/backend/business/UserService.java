@@ -19,8 +19,11 @@ public interface UserService {
     FriendRelationship respondToRequest(Long relationshipId, FriendRelationship.Status status);
     List<FriendRequestDTO> getFriends(Long userId);
     void removeFriend(Long relationshipId);
+    boolean areFriends(Long userId, Long otherId);
+    int countMutualFriends(Long userId, Long otherId);
 
     boolean verifyUsername(String username);
+    List<String> suggestUsernames(String username);
     void requestPasswordReset(String email);
     boolean validateResetToken(String token);
     boolean resetPasswordWithToken(String token, String newPassword);
@@ -0,0 +1,282 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.configuration.cluster.ClusterRelay;
+import com.gamehub.backend.configuration.cluster.RelayFrame;
+import com.gamehub.backend.dto.ChatMessageDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Keeps the newest messages of recently read conversations. A message is appended when it is sent through this node;
+ * once the write-behind pipeline persists it, the other nodes are told over the {@link ClusterRelay} and mark their
+ * copy of the conversation stale, so their next read re-seeds it from the database. A stale window keeps the messages
+ * appended to it, which may not be persisted yet. A read that started before such a notice arrived can still seed the
+ * old rows; the window then lags until the conversation's next message.
+ */
+@Service
+public class ChatHistoryCache {
+
+    private static final long ENTRY_OVERHEAD_BYTES = 96;
+    private static final long MESSAGE_OVERHEAD_BYTES = 120;
+    private static final Comparator<ChatMessageDTO> PAGE_ORDER = Comparator.comparing(ChatMessageDTO::getTimestamp)
+            .thenComparing(ChatMessageDTO::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final int windowSize;
+    private final int maxConversations;
+    private final long maxBytes;
+    private final ClusterRelay clusterRelay;
+    private final LinkedHashMap<String, Window> windows = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter evictionCounter;
+
+    @Autowired
+    public ChatHistoryCache(ClusterRelay clusterRelay,
+                            MeterRegistry meterRegistry,
+                            @Value("${chat.cache.window-size:50}") int windowSize,
+                            @Value("${chat.cache.max-conversations:10000}") int maxConversations,
+                            @Value("${chat.cache.max-bytes:67108864}") long maxBytes) {
+        this.windowSize = windowSize;
+        this.maxConversations = maxConversations;
+        this.maxBytes = maxBytes;
+        this.clusterRelay = clusterRelay;
+        this.hitCounter = meterRegistry.counter("chat.history.cache.hit");
+        this.missCounter = meterRegistry.counter("chat.history.cache.miss");
+        this.evictionCounter = meterRegistry.counter("chat.history.cache.evictions");
+        meterRegistry.gauge("chat.history.cache.conversations", this, ChatHistoryCache::conversationCount);
+        meterRegistry.gauge("chat.history.cache.bytes", this, ChatHistoryCache::estimatedBytes);
+
+        clusterRelay.addListener(this::onFrame);
+    }
+
+    public synchronized void append(String conversationKey, ChatMessageDTO message) {
+        Window window = windows.get(conversationKey);
+        if (window == null) {
+            window = new Window(false);
+            windows.put(conversationKey, window);
+            totalBytes += ENTRY_OVERHEAD_BYTES;
+        }
+        add(window, message);
+        trim(window);
+        evictIfNeeded();
+    }
+
+    /**
+     * Returns the page before the (before, beforeId) cursor, oldest first, if the window covers it. A message still
+     * waiting to be persisted has no id and sorts after every persisted one with the same timestamp.
+     */
+    public Optional<List<ChatMessageDTO>> getPage(String conversationKey, LocalDateTime before, Long beforeId, int limit) {
+        if (limit <= 0 || limit > windowSize) {
+            return Optional.empty();
+        }
+        Optional<List<ChatMessageDTO>> page = lookup(conversationKey, before, beforeId, limit);
+        if (page.isPresent()) {
+            hitCounter.increment();
+        } else {
+            missCounter.increment();
+        }
+        return page;
+    }
+
+    /**
+     * Replaces the window with the newest messages read from the database, keeping messages appended before they were
+     * persisted. A kept message is matched against the seeded ones by its message key, which the pushed copy and the
+     * persisted row share; only rows written before message keys existed fall back to sender, receiver, timestamp and
+     * content. Messages older than an incomplete seed are dropped because the window would no longer be contiguous.
+     */
+    public synchronized void seed(String conversationKey, List<ChatMessageDTO> newestMessages, boolean complete) {
+        Window existing = windows.remove(conversationKey);
+        Window window = new Window(complete);
+        totalBytes += ENTRY_OVERHEAD_BYTES;
+        List<ChatMessageDTO> merged = new ArrayList<>(newestMessages);
+        if (existing != null) {
+            totalBytes -= existing.bytes + ENTRY_OVERHEAD_BYTES;
+            Set<MessageIdentity> seeded = new HashSet<>();
+            for (ChatMessageDTO message : newestMessages) {
+                seeded.add(MessageIdentity.of(message));
+            }
+            LocalDateTime oldestSeeded = complete || newestMessages.isEmpty() ? null : newestMessages.get(0).getTimestamp();
+            for (ChatMessageDTO pending : existing.messages) {
+                if (!seeded.contains(MessageIdentity.of(pending))
+                        && (oldestSeeded == null || !pending.getTimestamp().isBefore(oldestSeeded))) {
+                    merged.add(pending);
+                }
+            }
+            merged.sort(PAGE_ORDER);
+        }
+        for (ChatMessageDTO message : merged) {
+            add(window, message);
+        }
+        windows.put(conversationKey, window);
+        trim(window);
+        evictIfNeeded();
+    }
+
+    /**
+     * Drops cached messages older than {@code cutoff} after the retention cleanup deleted them. A window that lost
+     * messages is no longer treated as complete, since the cleanup may leave some older rows behind.
+     */
+    public synchronized void evictBefore(LocalDateTime cutoff) {
+        Iterator<Window> iterator = windows.values().iterator();
+        while (iterator.hasNext()) {
+            Window window = iterator.next();
+            Iterator<ChatMessageDTO> messages = window.messages.iterator();
+            while (messages.hasNext()) {
+                ChatMessageDTO message = messages.next();
+                if (message.getTimestamp().isBefore(cutoff)) {
+                    messages.remove();
+                    long size = sizeOf(message);
+                    window.bytes -= size;
+                    totalBytes -= size;
+                    window.complete = false;
+                }
+            }
+            if (window.messages.isEmpty() && !window.complete) {
+                iterator.remove();
+                totalBytes -= ENTRY_OVERHEAD_BYTES;
+            }
+        }
+    }
+
+    /**
+     * Tells the other nodes that messages of these conversations were persisted.
+     */
+    public void persisted(Collection<String> conversationKeys) {
+        if (!conversationKeys.isEmpty()) {
+            clusterRelay.publish(RelayFrame.conversationsChanged(clusterRelay.nodeId(), conversationKeys));
+        }
+    }
+
+    /**
+     * Makes the next read of this conversation go to the database, keeping the messages appended to the window.
+     */
+    public synchronized void markStale(String conversationKey) {
+        Window window = windows.get(conversationKey);
+        if (window != null) {
+            window.stale = true;
+        }
+    }
+
+    public synchronized int conversationCount() {
+        return windows.size();
+    }
+
+    public synchronized long estimatedBytes() {
+        return totalBytes;
+    }
+
+    private synchronized Optional<List<ChatMessageDTO>> lookup(String conversationKey, LocalDateTime before, Long beforeId, int limit) {
+        Window window = windows.get(conversationKey);
+        if (window == null || window.stale) {
+            return Optional.empty();
+        }
+        List<ChatMessageDTO> newestFirst = new ArrayList<>(limit);
+        Iterator<ChatMessageDTO> iterator = window.messages.descendingIterator();
+        while (iterator.hasNext() && newestFirst.size() < limit) {
+            ChatMessageDTO message = iterator.next();
+            if (before == null || isBefore(message, before, beforeId)) {
+                newestFirst.add(message);
+            }
+        }
+        if (newestFirst.size() < limit && !window.complete) {
+            return Optional.empty();
+        }
+        List<ChatMessageDTO> page = new ArrayList<>(newestFirst.size());
+        for (int i = newestFirst.size() - 1; i >= 0; i--) {
+            page.add(newestFirst.get(i));
+        }
+        return Optional.of(page);
+    }
+
+    private static boolean isBefore(ChatMessageDTO message, LocalDateTime before, Long beforeId) {
+        if (!message.getTimestamp().isEqual(before)) {
+            return message.getTimestamp().isBefore(before);
+        }
+        return beforeId != null && message.getId() != null && message.getId() < beforeId;
+    }
+
+    private void add(Window window, ChatMessageDTO message) {
+        window.messages.addLast(message);
+        long size = sizeOf(message);
+        window.bytes += size;
+        totalBytes += size;
+    }
+
+    private void trim(Window window) {
+        while (window.messages.size() > windowSize) {
+            long size = sizeOf(window.messages.removeFirst());
+            window.bytes -= size;
+            totalBytes -= size;
+            window.complete = false;
+        }
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Window>> eldest = windows.entrySet().iterator();
+        while ((windows.size() > maxConversations || totalBytes > maxBytes) && eldest.hasNext()) {
+            Window window = eldest.next().getValue();
+            eldest.remove();
+            totalBytes -= window.bytes + ENTRY_OVERHEAD_BYTES;
+            evictionCounter.increment();
+        }
+    }
+
+    private void onFrame(RelayFrame frame) {
+        if (frame.type() == RelayFrame.Type.CONVERSATIONS_CHANGED) {
+            frame.conversationKeys().forEach(this::markStale);
+        }
+    }
+
+    private static long sizeOf(ChatMessageDTO message) {
+        return MESSAGE_OVERHEAD_BYTES
+                + 2L * (length(message.getContent()) + length(message.getSenderUsername()) + length(message.getReceiverUsername()));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    /**
+     * Matches a pushed message with its persisted row by message key; rows written before keys existed fall back to
+     * their sender, receiver, timestamp and content.
+     */
+    private record MessageIdentity(String messageKey, Long senderId, Long receiverId, LocalDateTime timestamp, String content) {
+
+        static MessageIdentity of(ChatMessageDTO message) {
+            if (message.getMessageKey() != null) {
+                return new MessageIdentity(message.getMessageKey(), null, null, null, null);
+            }
+            return new MessageIdentity(null, message.getSenderId(), message.getReceiverId(), message.getTimestamp(), message.getContent());
+        }
+    }
+
+    private static final class Window {
+        private final Deque<ChatMessageDTO> messages = new ArrayDeque<>();
+        private boolean complete;
+        private boolean stale;
+        private long bytes;
+
+        private Window(boolean complete) {
+            this.complete = complete;
+        }
+    }
+}
@@ -3,17 +3,25 @@ package com.gamehub.backend.business.impl;
 import com.gamehub.backend.business.ChatMessageService;
 import com.gamehub.backend.domain.ChatMessage;
 import com.gamehub.backend.persistence.ChatMessageRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.List;
 
 @Service
+@Slf4j
 public class ChatMessageServiceImpl implements ChatMessageService {
 
+    static final int MAX_PAGE_SIZE = 100;
+
     private final ChatMessageRepository chatMessageRepository;
 
     @Autowired
@@ -24,6 +32,10 @@ public class ChatMessageServiceImpl implements ChatMessageService {
     @Override
     public ChatMessage save(ChatMessage chatMessage) {
         chatMessage.setTimestamp(LocalDateTime.now());
+        if (chatMessage.getSender() != null && chatMessage.getReceiver() != null) {
+            chatMessage.setConversationKey(ChatMessage.conversationKeyOf(
+                    chatMessage.getSender().getId(), chatMessage.getReceiver().getId()));
+        }
         return chatMessageRepository.save(chatMessage);
     }
 
@@ -38,30 +50,40 @@ public class ChatMessageServiceImpl implements ChatMessageService {
 
     @Override
     public List<ChatMessage> getChatMessagesBetweenUsers(Long userId, Long friendId) {
-        List<ChatMessage> sentMessages = chatMessageRepository.findBySenderId(userId);
-        List<ChatMessage> receivedMessages = chatMessageRepository.findByReceiverId(userId);
-
-        List<ChatMessage> allMessages = new ArrayList<>();
-
-        for (ChatMessage message : sentMessages) {
-            if (message.getReceiver().getId().equals(friendId)) {
-                allMessages.add(message);
-            }
-        }
+        return chatMessageRepository.findByConversationKeyOrderByTimestampAsc(ChatMessage.conversationKeyOf(userId, friendId));
+    }
 
-        for (ChatMessage message : receivedMessages) {
-            if (message.getSender().getId().equals(friendId)) {
-                allMessages.add(message);
-            }
+    /**
+     * Returns the page of messages before the (before, beforeId) cursor, oldest first. The cursor is the timestamp and
+     * id of the oldest message already shown; without an id only messages strictly older than the timestamp match.
+     */
+    @Override
+    public List<ChatMessage> getChatMessagesBetweenUsers(Long userId, Long friendId, LocalDateTime before, Long beforeId, int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
         }
+        String conversationKey = ChatMessage.conversationKeyOf(userId, friendId);
+        PageRequest page = PageRequest.of(0, limit);
+        List<ChatMessage> newestFirst = before == null
+                ? chatMessageRepository.findByConversationKeyOrderByTimestampDescIdDesc(conversationKey, page)
+                : chatMessageRepository.findPageBefore(conversationKey, before, beforeId != null ? beforeId : 0L, page);
 
-        allMessages.sort(Comparator.comparing(ChatMessage::getTimestamp));
-
-        return allMessages;
+        List<ChatMessage> messages = new ArrayList<>(newestFirst);
+        Collections.reverse(messages);
+        return messages;
     }
 
     @Override
     public void deleteOldMessages(LocalDateTime before) {
         chatMessageRepository.deleteAllByTimestampBefore(before);
     }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void backfillConversationKeys() {
+        int updated = chatMessageRepository.backfillConversationKeys();
+        if (updated > 0) {
+            log.info("Backfilled conversation keys for {} chat messages.", updated);
+        }
+    }
 }
@@ -0,0 +1,351 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.domain.ChatMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Slf4j
+public class ChatPersistencePipeline {
+
+    static final String INSERT_MESSAGE_SQL =
+            "INSERT INTO chat_messages (sender_id, receiver_id, conversation_key, content, timestamp, message_key) VALUES (?, ?, ?, ?, ?, ?)";
+    // Same rules as ConversationRepository.applyMessage: last_message_at goes last so MySQL's left-to-right
+    // assignments still compare against the old value.
+    static final String UPDATE_INBOX_SQL =
+            "UPDATE conversations SET " +
+                    "last_message_preview = CASE WHEN last_message_at IS NULL OR last_message_at <= ? THEN ? ELSE last_message_preview END, " +
+                    "last_sender_id = CASE WHEN last_message_at IS NULL OR last_message_at <= ? THEN ? ELSE last_sender_id END, " +
+                    "unread_count = unread_count + ?, " +
+                    "last_message_at = CASE WHEN last_message_at IS NULL OR last_message_at <= ? THEN ? ELSE last_message_at END " +
+                    "WHERE owner_id = ? AND peer_id = ?";
+    static final String INSERT_INBOX_SQL =
+            "INSERT INTO conversations (owner_id, peer_id, conversation_key, last_message_preview, last_sender_id, last_message_at, unread_count) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationCoalescer notificationCoalescer;
+    private final UnreadNotificationCounter unreadNotificationCounter;
+    private final ChatHistoryCache chatHistoryCache;
+    private final BlockingQueue<PendingChatMessage> queue;
+    // Messages have already been pushed to the receiver by the time they get here, so a failed write is retried
+    // with backoff until it succeeds instead of being dropped. Attempts are keyed by message key.
+    private final DelayQueue<RetryEntry> retries = new DelayQueue<>();
+    private final Map<String, Integer> failedAttempts = new ConcurrentHashMap<>();
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final long retryBackoffMillis;
+    private final long maxRetryBackoffMillis;
+
+    private final Counter enqueuedCounter;
+    private final Counter persistedCounter;
+    private final Counter backpressureCounter;
+    private final Counter failedCounter;
+    private final Counter retriedCounter;
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizeSummary;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    @Autowired
+    public ChatPersistencePipeline(JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   NotificationCoalescer notificationCoalescer,
+                                   UnreadNotificationCounter unreadNotificationCounter,
+                                   ChatHistoryCache chatHistoryCache,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${chat.pipeline.capacity:10000}") int capacity,
+                                   @Value("${chat.pipeline.batch-size:200}") int batchSize,
+                                   @Value("${chat.pipeline.flush-interval-ms:50}") long flushIntervalMillis,
+                                   @Value("${chat.pipeline.offer-timeout-ms:100}") long offerTimeoutMillis,
+                                   @Value("${chat.pipeline.retry-backoff-ms:500}") long retryBackoffMillis,
+                                   @Value("${chat.pipeline.max-retry-backoff-ms:60000}") long maxRetryBackoffMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.notificationCoalescer = notificationCoalescer;
+        this.unreadNotificationCounter = unreadNotificationCounter;
+        this.chatHistoryCache = chatHistoryCache;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.maxRetryBackoffMillis = maxRetryBackoffMillis;
+
+        meterRegistry.gauge("chat.pipeline.queue.depth", queue, BlockingQueue::size);
+        meterRegistry.gauge("chat.pipeline.retry.depth", retries, DelayQueue::size);
+        this.enqueuedCounter = meterRegistry.counter("chat.pipeline.enqueued");
+        this.persistedCounter = meterRegistry.counter("chat.pipeline.persisted");
+        this.backpressureCounter = meterRegistry.counter("chat.pipeline.backpressure");
+        this.failedCounter = meterRegistry.counter("chat.pipeline.failed");
+        this.retriedCounter = meterRegistry.counter("chat.pipeline.retried");
+        this.flushTimer = meterRegistry.timer("chat.pipeline.flush");
+        this.batchSizeSummary = meterRegistry.summary("chat.pipeline.batch.size");
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::runWriter, "chat-write-behind");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writerThread.interrupt();
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        List<PendingChatMessage> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        // One last attempt for messages still waiting out their backoff; there is no later retry to wait for.
+        List<RetryEntry> waiting = new ArrayList<>(retries);
+        retries.clear();
+        for (RetryEntry entry : waiting) {
+            remaining.add(entry.message());
+        }
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+        for (RetryEntry entry : retries) {
+            PendingChatMessage message = entry.message();
+            log.error("Chat message {} from {} to {} was not persisted before shutdown.", message.messageKey(), message.senderId(), message.receiverId());
+        }
+        retries.clear();
+    }
+
+    public void submit(PendingChatMessage message) {
+        boolean accepted;
+        try {
+            accepted = queue.offer(message, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (accepted) {
+            enqueuedCounter.increment();
+            return;
+        }
+        backpressureCounter.increment();
+        log.warn("Chat persistence queue is full ({} pending), writing message on the caller thread.", queue.size());
+        flush(List.of(message));
+    }
+
+    public int pendingCount() {
+        return queue.size();
+    }
+
+    private void runWriter() {
+        List<PendingChatMessage> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    private void collectBatch(List<PendingChatMessage> batch) throws InterruptedException {
+        RetryEntry due;
+        while (batch.size() < batchSize && (due = retries.poll()) != null) {
+            retriedCounter.increment();
+            batch.add(due.message());
+        }
+        if (batch.isEmpty()) {
+            PendingChatMessage first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+            if (first == null) {
+                return;
+            }
+            batch.add(first);
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            PendingChatMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    void flush(List<PendingChatMessage> batch) {
+        batchSizeSummary.record(batch.size());
+        List<PendingChatMessage> persisted = batch;
+        List<Long> newUnreadReceivers = new ArrayList<>();
+        try {
+            flushTimer.record(() -> writeBatch(batch, newUnreadReceivers));
+        } catch (RuntimeException e) {
+            log.error("Batched write of {} chat messages failed, retrying one by one.", batch.size(), e);
+            persisted = new ArrayList<>(batch.size());
+            newUnreadReceivers.clear();
+            for (PendingChatMessage message : batch) {
+                try {
+                    writeBatch(List.of(message), newUnreadReceivers);
+                    persisted.add(message);
+                } catch (RuntimeException single) {
+                    failedCounter.increment();
+                    scheduleRetry(message, single);
+                }
+            }
+        }
+        persistedCounter.increment(persisted.size());
+        newUnreadReceivers.forEach(unreadNotificationCounter::increment);
+        Set<String> conversationKeys = new LinkedHashSet<>();
+        for (PendingChatMessage message : persisted) {
+            if (!failedAttempts.isEmpty()) {
+                failedAttempts.remove(message.messageKey());
+            }
+            conversationKeys.add(ChatMessage.conversationKeyOf(message.senderId(), message.receiverId()));
+        }
+        chatHistoryCache.persisted(conversationKeys);
+    }
+
+    private void scheduleRetry(PendingChatMessage message, RuntimeException cause) {
+        int attempts = failedAttempts.merge(message.messageKey(), 1, Integer::sum);
+        long backoffMillis = Math.min(maxRetryBackoffMillis, retryBackoffMillis << Math.min(attempts - 1, 20));
+        log.error("Write {} of chat message {} from {} to {} failed, retrying in {} ms.",
+                attempts, message.messageKey(), message.senderId(), message.receiverId(), backoffMillis, cause);
+        retries.add(new RetryEntry(message, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMillis)));
+    }
+
+    private void writeBatch(List<PendingChatMessage> batch, List<Long> newUnreadReceivers) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_MESSAGE_SQL, batch, batch.size(), (ps, message) -> {
+                ps.setLong(1, message.senderId());
+                ps.setLong(2, message.receiverId());
+                ps.setString(3, ChatMessage.conversationKeyOf(message.senderId(), message.receiverId()));
+                ps.setString(4, message.content());
+                ps.setTimestamp(5, Timestamp.valueOf(message.timestamp()));
+                ps.setString(6, message.messageKey());
+            });
+            writeInboxUpdates(batch);
+            newUnreadReceivers.addAll(notificationCoalescer.writeMessageNotifications(batch));
+        });
+    }
+
+    /**
+     * Updates both inbox rows of every conversation in the batch with one statement per (owner, peer): the newest
+     * message becomes the preview and the receiver's unread count grows by the number of messages. Rows that do not
+     * exist yet are inserted.
+     */
+    private void writeInboxUpdates(List<PendingChatMessage> batch) {
+        Map<InboxKey, InboxUpdate> updates = new LinkedHashMap<>();
+        for (PendingChatMessage message : batch) {
+            updates.computeIfAbsent(new InboxKey(message.senderId(), message.receiverId()), key -> new InboxUpdate()).add(message, 0);
+            updates.computeIfAbsent(new InboxKey(message.receiverId(), message.senderId()), key -> new InboxUpdate()).add(message, 1);
+        }
+        List<Map.Entry<InboxKey, InboxUpdate>> entries = new ArrayList<>(updates.entrySet());
+
+        int[][] updated = jdbcTemplate.batchUpdate(UPDATE_INBOX_SQL, entries, entries.size(), (ps, entry) -> {
+            InboxUpdate update = entry.getValue();
+            Timestamp sentAt = Timestamp.valueOf(update.latest.timestamp());
+            ps.setTimestamp(1, sentAt);
+            ps.setString(2, ConversationServiceImpl.toPreview(update.latest.content()));
+            ps.setTimestamp(3, sentAt);
+            ps.setLong(4, update.latest.senderId());
+            ps.setInt(5, update.unreadIncrement);
+            ps.setTimestamp(6, sentAt);
+            ps.setTimestamp(7, sentAt);
+            ps.setLong(8, entry.getKey().ownerId());
+            ps.setLong(9, entry.getKey().peerId());
+        });
+
+        // A driver may report SUCCESS_NO_INFO instead of a row count; only an explicit 0 means the row is missing.
+        List<Map.Entry<InboxKey, InboxUpdate>> inserts = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if (updated[0][i] == 0) {
+                inserts.add(entries.get(i));
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_INBOX_SQL, inserts, inserts.size(), (ps, entry) -> {
+                InboxUpdate update = entry.getValue();
+                ps.setLong(1, entry.getKey().ownerId());
+                ps.setLong(2, entry.getKey().peerId());
+                ps.setString(3, ChatMessage.conversationKeyOf(entry.getKey().ownerId(), entry.getKey().peerId()));
+                ps.setString(4, ConversationServiceImpl.toPreview(update.latest.content()));
+                ps.setLong(5, update.latest.senderId());
+                ps.setTimestamp(6, Timestamp.valueOf(update.latest.timestamp()));
+                ps.setInt(7, update.unreadIncrement);
+            });
+        }
+    }
+
+    private record InboxKey(Long ownerId, Long peerId) {
+    }
+
+    private static final class InboxUpdate {
+        private PendingChatMessage latest;
+        private int unreadIncrement;
+
+        private void add(PendingChatMessage message, int unread) {
+            unreadIncrement += unread;
+            if (latest == null || !message.timestamp().isBefore(latest.timestamp())) {
+                latest = message;
+            }
+        }
+    }
+
+    private record RetryEntry(PendingChatMessage message, long dueNanos) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((RetryEntry) other).dueNanos);
+        }
+    }
+
+    public record PendingChatMessage(Long senderId, Long receiverId, String senderUsername, String content, LocalDateTime timestamp,
+                                     String messageKey) {
+
+        public PendingChatMessage(Long senderId, Long receiverId, String senderUsername, String content, LocalDateTime timestamp) {
+            this(senderId, receiverId, senderUsername, content, timestamp, ChatMessage.newMessageKey());
+        }
+    }
+}
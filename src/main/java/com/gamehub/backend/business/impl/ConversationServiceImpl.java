@@ -0,0 +1,97 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.business.ConversationService;
+import com.gamehub.backend.domain.ChatMessage;
+import com.gamehub.backend.domain.Conversation;
+import com.gamehub.backend.dto.ConversationDTO;
+import com.gamehub.backend.persistence.ChatMessageRepository;
+import com.gamehub.backend.persistence.ConversationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@Slf4j
+public class ConversationServiceImpl implements ConversationService {
+
+    static final int PREVIEW_LENGTH = 100;
+
+    private final ConversationRepository conversationRepository;
+    private final ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    public ConversationServiceImpl(ConversationRepository conversationRepository, ChatMessageRepository chatMessageRepository) {
+        this.conversationRepository = conversationRepository;
+        this.chatMessageRepository = chatMessageRepository;
+    }
+
+    @Override
+    public void recordMessage(Long senderId, Long receiverId, String content, LocalDateTime sentAt) {
+        String preview = toPreview(content);
+        upsert(senderId, receiverId, preview, senderId, sentAt, 0);
+        upsert(receiverId, senderId, preview, senderId, sentAt, 1);
+    }
+
+    @Override
+    public List<ConversationDTO> getInbox(Long userId) {
+        return conversationRepository.findInbox(userId);
+    }
+
+    @Override
+    public void markConversationRead(Long userId, Long peerId) {
+        conversationRepository.markRead(userId, peerId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void rebuildFromHistory() {
+        if (conversationRepository.count() > 0) {
+            return;
+        }
+        List<ChatMessage> latestMessages = chatMessageRepository.findLatestMessagePerConversation();
+        for (ChatMessage message : latestMessages) {
+            Long senderId = message.getSender().getId();
+            Long receiverId = message.getReceiver().getId();
+            String preview = toPreview(message.getContent());
+            upsert(senderId, receiverId, preview, senderId, message.getTimestamp(), 0);
+            upsert(receiverId, senderId, preview, senderId, message.getTimestamp(), 0);
+        }
+        if (!latestMessages.isEmpty()) {
+            log.info("Rebuilt inbox entries for {} conversations.", latestMessages.size());
+        }
+    }
+
+    private void upsert(Long ownerId, Long peerId, String preview, Long senderId, LocalDateTime sentAt, int unreadIncrement) {
+        if (conversationRepository.applyMessage(ownerId, peerId, preview, senderId, sentAt, unreadIncrement) > 0) {
+            return;
+        }
+        try {
+            conversationRepository.save(new Conversation(
+                    null,
+                    ownerId,
+                    peerId,
+                    ChatMessage.conversationKeyOf(ownerId, peerId),
+                    preview,
+                    senderId,
+                    sentAt,
+                    unreadIncrement
+            ));
+        } catch (DataIntegrityViolationException e) {
+            conversationRepository.applyMessage(ownerId, peerId, preview, senderId, sentAt, unreadIncrement);
+        }
+    }
+
+    static String toPreview(String content) {
+        if (content == null || content.length() <= PREVIEW_LENGTH) {
+            return content;
+        }
+        return content.substring(0, PREVIEW_LENGTH);
+    }
+}
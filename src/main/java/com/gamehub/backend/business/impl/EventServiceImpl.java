@@ -1,14 +1,19 @@
 package com.gamehub.backend.business.impl;
 
 import com.gamehub.backend.business.EventService;
+import com.gamehub.backend.business.NotificationService;
+import com.gamehub.backend.domain.BroadcastNotification;
 import com.gamehub.backend.domain.Event;
 import com.gamehub.backend.domain.User;
+import com.gamehub.backend.dto.EventParticipantUpdateDTO;
 import com.gamehub.backend.persistence.EventRepository;
 import com.gamehub.backend.persistence.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -16,19 +21,32 @@ import java.util.Set;
 @Service
 public class EventServiceImpl implements EventService {
 
+    static final String EVENTS_DESTINATION = "/queue/events";
+
     private final EventRepository eventRepository;
     private final UserRepository userRepository;
+    private final NotificationService notificationService;
+    private final OutboxService outboxService;
 
     @Autowired
-    public EventServiceImpl(EventRepository eventRepository, UserRepository userRepository) {
+    public EventServiceImpl(EventRepository eventRepository, UserRepository userRepository, NotificationService notificationService, OutboxService outboxService) {
         this.eventRepository = eventRepository;
         this.userRepository = userRepository;
+        this.notificationService = notificationService;
+        this.outboxService = outboxService;
     }
 
     @Override
+    @Transactional
     public Event createEvent(Event event) {
         validateEvent(event);
-        return eventRepository.save(event);
+        Event createdEvent = eventRepository.save(event);
+        BroadcastNotification announcement = new BroadcastNotification();
+        announcement.setMessage("A new event has been created: " + createdEvent.getName());
+        announcement.setType("event");
+        announcement.setEventId(createdEvent.getId());
+        notificationService.broadcast(announcement);
+        return createdEvent;
     }
 
     @Override
@@ -59,6 +77,7 @@ public class EventServiceImpl implements EventService {
     }
 
     @Override
+    @Transactional
     public Event addParticipant(Long eventId, Long userId) {
         Event event = eventRepository.findById(eventId)
                 .orElseThrow(() -> new RuntimeException("Event not found with id " + eventId));
@@ -66,10 +85,12 @@ public class EventServiceImpl implements EventService {
                 .orElseThrow(() -> new RuntimeException("User not found with id " + userId));
         event.getParticipants().add(user);
         eventRepository.save(event);
+        publishParticipantUpdate(event, user, true);
         return event;
     }
 
     @Override
+    @Transactional
     public Event removeParticipant(Long eventId, Long userId) {
         Event event = eventRepository.findById(eventId)
                 .orElseThrow(() -> new RuntimeException("Event not found with id " + eventId));
@@ -77,6 +98,7 @@ public class EventServiceImpl implements EventService {
                 .orElseThrow(() -> new RuntimeException("User not found with id " + userId));
         event.getParticipants().remove(user);
         eventRepository.save(event);
+        publishParticipantUpdate(event, user, false);
         return event;
     }
 
@@ -86,6 +108,21 @@ public class EventServiceImpl implements EventService {
         return event.getParticipants();
     }
 
+    /**
+     * Pushes the change to every participant, and to the user who left, as one outbox entry whose payload is
+     * serialized once for all of them.
+     */
+    private void publishParticipantUpdate(Event event, User user, boolean joined) {
+        List<Long> recipientIds = new ArrayList<>(event.getParticipants().size() + 1);
+        event.getParticipants().forEach(participant -> recipientIds.add(participant.getId()));
+        if (!joined) {
+            recipientIds.add(user.getId());
+        }
+        EventParticipantUpdateDTO update = new EventParticipantUpdateDTO(event.getId(), user.getId(), user.getUsername(),
+                joined, event.getParticipants().size());
+        outboxService.enqueueToUsers(recipientIds, EVENTS_DESTINATION, update);
+    }
+
     private void validateEvent(Event event) {
         if (!StringUtils.hasText(event.getName())) {
             throw new IllegalArgumentException("Event name cannot be empty");
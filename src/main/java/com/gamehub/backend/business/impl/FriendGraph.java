@@ -0,0 +1,307 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.configuration.cluster.ClusterRelay;
+import com.gamehub.backend.configuration.cluster.RelayFrame;
+import com.gamehub.backend.domain.FriendRelationship;
+import com.gamehub.backend.dto.FriendEdgeDTO;
+import com.gamehub.backend.persistence.FriendRelationshipRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Accepted friendships held as an adjacency list: each user maps to a sorted {@code long[]} of friend ids, so friend
+ * lists, friendship checks and mutual-friend counts need no database round trip. The arrays are replaced, never
+ * changed in place, so readers see a consistent list without locking. The graph is rebuilt from
+ * {@code friend_relationships} once the application is ready, kept current by the user service, and follows the
+ * changes other nodes publish over the cluster relay. Until the rebuild finishes, {@link #isLoaded()} is false and
+ * callers should ask the database.
+ * <p>
+ * Changes made before or while a rebuild reads the table are recorded and replayed in order on top of what it read,
+ * so a friendship removed during the read does not come back and one added during it is not lost.
+ */
+@Component
+@Slf4j
+public class FriendGraph {
+
+    private static final long[] NONE = new long[0];
+
+    private final FriendRelationshipRepository friendRelationshipRepository;
+    private final ClusterRelay relay;
+    private final Map<Long, Adjacency> adjacency = new ConcurrentHashMap<>();
+    private final List<ChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private final Object changeLock = new Object();
+    // Changes to replay once the running rebuild has read the table; null while no rebuild is pending.
+    private List<Change> changesToReplay = new ArrayList<>();
+    private volatile boolean loaded;
+
+    @Autowired
+    public FriendGraph(FriendRelationshipRepository friendRelationshipRepository, ClusterRelay relay, MeterRegistry meterRegistry) {
+        this.friendRelationshipRepository = friendRelationshipRepository;
+        this.relay = relay;
+        meterRegistry.gaugeMapSize("friends.graph.users", Tags.empty(), adjacency);
+        relay.addListener(this::onFrame);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (changeLock) {
+            if (changesToReplay == null) {
+                changesToReplay = new ArrayList<>();
+            }
+        }
+        List<FriendEdgeDTO> edges;
+        try {
+            edges = friendRelationshipRepository.findEdgesByStatus(FriendRelationship.Status.ACCEPTED);
+        } catch (RuntimeException e) {
+            synchronized (changeLock) {
+                if (loaded) {
+                    changesToReplay = null;
+                }
+            }
+            throw e;
+        }
+        Map<Long, List<long[]>> grouped = new HashMap<>();
+        for (FriendEdgeDTO edge : edges) {
+            grouped.computeIfAbsent(edge.requesterId(), id -> new ArrayList<>()).add(new long[]{edge.addresseeId(), edge.relationshipId()});
+            grouped.computeIfAbsent(edge.addresseeId(), id -> new ArrayList<>()).add(new long[]{edge.requesterId(), -edge.relationshipId()});
+        }
+        Map<Long, Adjacency> rebuilt = new HashMap<>();
+        grouped.forEach((userId, entries) -> {
+            entries.sort(Comparator.comparingLong(entry -> entry[0]));
+            long[] friendIds = new long[entries.size()];
+            long[] relationshipIds = new long[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                friendIds[i] = entries.get(i)[0];
+                relationshipIds[i] = entries.get(i)[1];
+            }
+            rebuilt.put(userId, new Adjacency(friendIds, relationshipIds));
+        });
+        int replayed;
+        synchronized (changeLock) {
+            adjacency.keySet().retainAll(rebuilt.keySet());
+            adjacency.putAll(rebuilt);
+            // Changes the read already saw are replayed too; each one sets the final state of its friendship, so
+            // applying them again in order ends in the same place.
+            for (Change change : changesToReplay) {
+                change.applyTo(this);
+            }
+            replayed = changesToReplay.size();
+            changesToReplay = null;
+            loaded = true;
+        }
+        log.info("Loaded {} friendships for {} users into the friend graph and replayed {} changes made meanwhile.",
+                edges.size(), grouped.size(), replayed);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Registers a listener told about every friendship added or removed after the rebuild, whether the change was
+     * made on this node or received from another one.
+     */
+    public void addChangeListener(ChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Returns the user's friend ids in ascending order. The array is shared and must not be modified.
+     */
+    public long[] friendIds(long userId) {
+        Adjacency entry = adjacency.get(userId);
+        return entry == null ? NONE : entry.friendIds();
+    }
+
+    public int friendCount(long userId) {
+        return friendIds(userId).length;
+    }
+
+    /**
+     * Returns the user's friendships with the relationship id and direction each one was created with.
+     */
+    public List<FriendEdgeDTO> edges(long userId) {
+        Adjacency entry = adjacency.get(userId);
+        if (entry == null) {
+            return List.of();
+        }
+        List<FriendEdgeDTO> edges = new ArrayList<>(entry.friendIds().length);
+        for (int i = 0; i < entry.friendIds().length; i++) {
+            long relationshipId = entry.relationshipIds()[i];
+            long friendId = entry.friendIds()[i];
+            edges.add(relationshipId > 0
+                    ? new FriendEdgeDTO(relationshipId, userId, friendId)
+                    : new FriendEdgeDTO(-relationshipId, friendId, userId));
+        }
+        return edges;
+    }
+
+    public boolean areFriends(long userId, long otherId) {
+        return Arrays.binarySearch(friendIds(userId), otherId) >= 0;
+    }
+
+    public int mutualFriendCount(long userId, long otherId) {
+        return intersectionSize(friendIds(userId), friendIds(otherId));
+    }
+
+    public void linked(long relationshipId, long requesterId, long addresseeId) {
+        link(relationshipId, requesterId, addresseeId);
+        relay.publish(RelayFrame.friendLinked(relay.nodeId(), relationshipId, requesterId, addresseeId));
+    }
+
+    public void unlinked(long userId, long friendId) {
+        unlink(userId, friendId);
+        relay.publish(RelayFrame.friendUnlinked(relay.nodeId(), userId, friendId));
+    }
+
+    /**
+     * Drops a deleted user and every friendship they were part of.
+     */
+    public void userRemoved(long userId) {
+        for (long friendId : friendIds(userId)) {
+            unlinked(userId, friendId);
+        }
+        adjacency.remove(userId);
+    }
+
+    static int intersectionSize(long[] left, long[] right) {
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    private void link(long relationshipId, long requesterId, long addresseeId) {
+        synchronized (changeLock) {
+            applyLink(relationshipId, requesterId, addresseeId);
+            if (changesToReplay != null) {
+                changesToReplay.add(new Change(true, relationshipId, requesterId, addresseeId));
+            }
+        }
+        notifyChanged(requesterId, addresseeId);
+    }
+
+    private void unlink(long userId, long friendId) {
+        synchronized (changeLock) {
+            applyUnlink(userId, friendId);
+            if (changesToReplay != null) {
+                changesToReplay.add(new Change(false, 0, userId, friendId));
+            }
+        }
+        notifyChanged(userId, friendId);
+    }
+
+    private void applyLink(long relationshipId, long requesterId, long addresseeId) {
+        adjacency.compute(requesterId, (id, entry) -> Adjacency.with(entry, addresseeId, relationshipId));
+        adjacency.compute(addresseeId, (id, entry) -> Adjacency.with(entry, requesterId, -relationshipId));
+    }
+
+    private void applyUnlink(long userId, long friendId) {
+        adjacency.computeIfPresent(userId, (id, entry) -> entry.without(friendId));
+        adjacency.computeIfPresent(friendId, (id, entry) -> entry.without(userId));
+    }
+
+    private void notifyChanged(long userId, long friendId) {
+        for (ChangeListener listener : changeListeners) {
+            listener.friendshipChanged(userId, friendId);
+        }
+    }
+
+    private void onFrame(RelayFrame frame) {
+        if (frame.type() == RelayFrame.Type.FRIEND_LINKED) {
+            long[] ids = frame.friendIds();
+            link(ids[0], ids[1], ids[2]);
+        } else if (frame.type() == RelayFrame.Type.FRIEND_UNLINKED) {
+            long[] ids = frame.friendIds();
+            unlink(ids[0], ids[1]);
+        }
+    }
+
+    private record Change(boolean linked, long relationshipId, long userId, long friendId) {
+
+        void applyTo(FriendGraph graph) {
+            if (linked) {
+                graph.applyLink(relationshipId, userId, friendId);
+            } else {
+                graph.applyUnlink(userId, friendId);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface ChangeListener {
+        void friendshipChanged(long userId, long friendId);
+    }
+
+    /**
+     * One user's friends, sorted by id, with the relationship each came from at the same index. A relationship id is
+     * negative when the user accepted the request rather than sent it.
+     */
+    private record Adjacency(long[] friendIds, long[] relationshipIds) {
+
+        static Adjacency with(Adjacency entry, long friendId, long relationshipId) {
+            if (entry == null) {
+                return new Adjacency(new long[]{friendId}, new long[]{relationshipId});
+            }
+            int index = Arrays.binarySearch(entry.friendIds, friendId);
+            if (index >= 0) {
+                long[] relationshipIds = entry.relationshipIds.clone();
+                relationshipIds[index] = relationshipId;
+                return new Adjacency(entry.friendIds, relationshipIds);
+            }
+            int insertAt = -index - 1;
+            return new Adjacency(insert(entry.friendIds, insertAt, friendId), insert(entry.relationshipIds, insertAt, relationshipId));
+        }
+
+        Adjacency without(long friendId) {
+            int index = Arrays.binarySearch(friendIds, friendId);
+            if (index < 0) {
+                return this;
+            }
+            if (friendIds.length == 1) {
+                return null;
+            }
+            return new Adjacency(remove(friendIds, index), remove(relationshipIds, index));
+        }
+
+        private static long[] insert(long[] values, int index, long value) {
+            long[] result = new long[values.length + 1];
+            System.arraycopy(values, 0, result, 0, index);
+            result[index] = value;
+            System.arraycopy(values, index, result, index + 1, values.length - index);
+            return result;
+        }
+
+        private static long[] remove(long[] values, int index) {
+            long[] result = new long[values.length - 1];
+            System.arraycopy(values, 0, result, 0, index);
+            System.arraycopy(values, index + 1, result, index, values.length - index - 1);
+            return result;
+        }
+    }
+}
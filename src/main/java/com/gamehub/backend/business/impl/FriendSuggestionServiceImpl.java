@@ -0,0 +1,317 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.business.FriendSuggestionService;
+import com.gamehub.backend.domain.User;
+import com.gamehub.backend.dto.FriendSuggestionDTO;
+import com.gamehub.backend.persistence.PurchaseRepository;
+import com.gamehub.backend.persistence.UserRepository;
+import com.gamehub.backend.persistence.mapper.UserMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * "People you may know": ranks friends of friends by how many friends they share with the user, weighted by the games
+ * both have bought. Candidates come from the in-memory {@link FriendGraph}; a user with more friends than
+ * {@code max-friends-scanned}, or a friend with more than {@code max-fanout}, is sampled at an even stride so the walk
+ * stays bounded for users with thousands of friends. The best {@code candidate-pool} candidates then get an exact
+ * mutual-friend count and one purchase query for their shared games, and the top {@value #MAX_RESULTS} are kept.
+ * <p>
+ * Rankings are cached per user until they expire or the friend graph changes around the user: a friendship between
+ * two users invalidates both of them and everyone who is friends with either. Until the graph is loaded, no
+ * suggestions are made.
+ */
+@Service
+public class FriendSuggestionServiceImpl implements FriendSuggestionService {
+
+    static final int MAX_RESULTS = 50;
+
+    private static final Comparator<Suggestion> BEST_FIRST = Comparator.comparingDouble(Suggestion::score).reversed()
+            .thenComparing(Comparator.comparingInt(Suggestion::mutualFriends).reversed())
+            .thenComparingLong(Suggestion::userId);
+
+    private final FriendGraph friendGraph;
+    private final PurchaseRepository purchaseRepository;
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final int maxFriendsScanned;
+    private final int maxFanout;
+    private final int candidatePool;
+    private final double gameWeight;
+    private final long cacheTtlMillis;
+    private final int cacheMaxEntries;
+    private final Map<Long, CachedSuggestions> cache = new ConcurrentHashMap<>();
+    private final AtomicLong graphVersion = new AtomicLong();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Timer rankTimer;
+
+    @Autowired
+    public FriendSuggestionServiceImpl(FriendGraph friendGraph,
+                                       PurchaseRepository purchaseRepository,
+                                       UserRepository userRepository,
+                                       UserMapper userMapper,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${friends.suggestions.max-friends-scanned:500}") int maxFriendsScanned,
+                                       @Value("${friends.suggestions.max-fanout:200}") int maxFanout,
+                                       @Value("${friends.suggestions.candidate-pool:100}") int candidatePool,
+                                       @Value("${friends.suggestions.game-weight:0.5}") double gameWeight,
+                                       @Value("${friends.suggestions.cache.ttl-ms:600000}") long cacheTtlMillis,
+                                       @Value("${friends.suggestions.cache.max-entries:10000}") int cacheMaxEntries) {
+        this.friendGraph = friendGraph;
+        this.purchaseRepository = purchaseRepository;
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.maxFriendsScanned = maxFriendsScanned;
+        this.maxFanout = maxFanout;
+        this.candidatePool = Math.max(candidatePool, MAX_RESULTS);
+        this.gameWeight = gameWeight;
+        this.cacheTtlMillis = cacheTtlMillis;
+        this.cacheMaxEntries = cacheMaxEntries;
+
+        this.hitCounter = meterRegistry.counter("friends.suggestions.cache.hit");
+        this.missCounter = meterRegistry.counter("friends.suggestions.cache.miss");
+        this.rankTimer = meterRegistry.timer("friends.suggestions.rank");
+        meterRegistry.gaugeMapSize("friends.suggestions.cache.size", Tags.empty(), cache);
+        friendGraph.addChangeListener(this::invalidate);
+    }
+
+    @Override
+    public List<FriendSuggestionDTO> getFriendSuggestions(Long userId, int limit) {
+        if (!friendGraph.isLoaded() || limit <= 0) {
+            return List.of();
+        }
+        List<Suggestion> ranked = ranked(userId);
+        List<Suggestion> top = ranked.subList(0, Math.min(limit, ranked.size()));
+        if (top.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, User> users = new HashMap<>();
+        for (User user : userRepository.findAllById(top.stream().map(Suggestion::userId).toList())) {
+            users.put(user.getId(), user);
+        }
+        List<FriendSuggestionDTO> suggestions = new ArrayList<>(top.size());
+        for (Suggestion suggestion : top) {
+            User user = users.get(suggestion.userId());
+            if (user != null) {
+                suggestions.add(new FriendSuggestionDTO(userMapper.toDto(user), suggestion.mutualFriends(), suggestion.sharedGames()));
+            }
+        }
+        return suggestions;
+    }
+
+    private List<Suggestion> ranked(long userId) {
+        long now = System.currentTimeMillis();
+        CachedSuggestions cached = cache.get(userId);
+        if (cached != null && cached.expiresAt() > now) {
+            hitCounter.increment();
+            return cached.suggestions();
+        }
+        missCounter.increment();
+        long version = graphVersion.get();
+        List<Suggestion> suggestions = rankTimer.record(() -> rank(userId));
+        makeRoom(now);
+        CachedSuggestions entry = new CachedSuggestions(suggestions, now + cacheTtlMillis);
+        cache.put(userId, entry);
+        if (graphVersion.get() != version) {
+            // The graph changed while ranking; the result may already be stale, so keep it out of the cache.
+            cache.remove(userId, entry);
+        }
+        return suggestions;
+    }
+
+    private List<Suggestion> rank(long userId) {
+        long[] friends = friendGraph.friendIds(userId);
+        if (friends.length == 0) {
+            return List.of();
+        }
+        LongIntCounter sampledMutuals = new LongIntCounter();
+        int friendStride = stride(friends.length, maxFriendsScanned);
+        for (int i = 0; i < friends.length; i += friendStride) {
+            long[] friendsOfFriend = friendGraph.friendIds(friends[i]);
+            int fanoutStride = stride(friendsOfFriend.length, maxFanout);
+            for (int j = 0; j < friendsOfFriend.length; j += fanoutStride) {
+                long candidate = friendsOfFriend[j];
+                if (candidate != userId && Arrays.binarySearch(friends, candidate) < 0) {
+                    sampledMutuals.increment(candidate);
+                }
+            }
+        }
+        long[] pool = sampledMutuals.top(candidatePool);
+        if (pool.length == 0) {
+            return List.of();
+        }
+
+        Map<Long, Integer> sharedGames = sharedGameCounts(userId, pool);
+        List<Suggestion> suggestions = new ArrayList<>(pool.length);
+        for (long candidate : pool) {
+            int mutualFriends = friendGraph.mutualFriendCount(userId, candidate);
+            int shared = sharedGames.getOrDefault(candidate, 0);
+            suggestions.add(new Suggestion(candidate, mutualFriends, shared, mutualFriends + gameWeight * shared));
+        }
+        suggestions.sort(BEST_FIRST);
+        return List.copyOf(suggestions.subList(0, Math.min(MAX_RESULTS, suggestions.size())));
+    }
+
+    private Map<Long, Integer> sharedGameCounts(long userId, long[] candidates) {
+        List<Long> userIds = new ArrayList<>(candidates.length + 1);
+        userIds.add(userId);
+        for (long candidate : candidates) {
+            userIds.add(candidate);
+        }
+        Set<Long> ownedGameIds = new HashSet<>();
+        List<Object[]> pairs = purchaseRepository.findUserGamePairsByUserIds(userIds);
+        for (Object[] pair : pairs) {
+            if (((Long) pair[0]) == userId) {
+                ownedGameIds.add((Long) pair[1]);
+            }
+        }
+        Map<Long, Integer> counts = new HashMap<>();
+        if (ownedGameIds.isEmpty()) {
+            return counts;
+        }
+        for (Object[] pair : pairs) {
+            Long owner = (Long) pair[0];
+            if (owner != userId && ownedGameIds.contains((Long) pair[1])) {
+                counts.merge(owner, 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Drops the cached rankings a new or removed friendship can change: those of the two users and of everyone who
+     * reaches one of them through the other.
+     */
+    private void invalidate(long userId, long friendId) {
+        graphVersion.incrementAndGet();
+        if (cache.isEmpty()) {
+            return;
+        }
+        cache.remove(userId);
+        cache.remove(friendId);
+        for (long id : friendGraph.friendIds(userId)) {
+            cache.remove(id);
+        }
+        for (long id : friendGraph.friendIds(friendId)) {
+            cache.remove(id);
+        }
+    }
+
+    private void makeRoom(long now) {
+        if (cache.size() < cacheMaxEntries) {
+            return;
+        }
+        cache.values().removeIf(entry -> entry.expiresAt() <= now);
+        Iterator<Long> keys = cache.keySet().iterator();
+        while (cache.size() >= cacheMaxEntries && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    /**
+     * The step that visits at most {@code limit} of {@code length} entries, spread evenly over the whole range.
+     */
+    static int stride(int length, int limit) {
+        if (limit <= 0 || length <= limit) {
+            return 1;
+        }
+        return (length + limit - 1) / limit;
+    }
+
+    record Suggestion(long userId, int mutualFriends, int sharedGames, double score) {
+    }
+
+    private record CachedSuggestions(List<Suggestion> suggestions, long expiresAt) {
+    }
+
+    /**
+     * Counts occurrences of positive user ids in open-addressed primitive arrays, so a walk over many friends of
+     * friends does not box every id it meets. Zero marks a free slot.
+     */
+    static final class LongIntCounter {
+
+        private long[] keys = new long[64];
+        private int[] counts = new int[64];
+        private int size;
+
+        void increment(long key) {
+            int slot = slotOf(keys, key);
+            if (keys[slot] == 0) {
+                keys[slot] = key;
+                size++;
+                if (size * 2 > keys.length) {
+                    grow();
+                    slot = slotOf(keys, key);
+                }
+            }
+            counts[slot]++;
+        }
+
+        /**
+         * Returns up to {@code k} keys with the highest counts, ties going to the lower id, in no particular order.
+         */
+        long[] top(int k) {
+            PriorityQueue<long[]> worstFirst = new PriorityQueue<>(
+                    Comparator.<long[]>comparingLong(entry -> entry[1]).thenComparingLong(entry -> -entry[0]));
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] == 0) {
+                    continue;
+                }
+                if (worstFirst.size() < k) {
+                    worstFirst.add(new long[]{keys[slot], counts[slot]});
+                } else if (k > 0 && beats(keys[slot], counts[slot], worstFirst.peek())) {
+                    worstFirst.poll();
+                    worstFirst.add(new long[]{keys[slot], counts[slot]});
+                }
+            }
+            return worstFirst.stream().mapToLong(entry -> entry[0]).toArray();
+        }
+
+        private static boolean beats(long key, int count, long[] entry) {
+            return count > entry[1] || count == entry[1] && key < entry[0];
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldCounts = counts;
+            keys = new long[oldKeys.length * 2];
+            counts = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = slotOf(keys, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+
+        private static int slotOf(long[] keys, long key) {
+            int mask = keys.length - 1;
+            int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
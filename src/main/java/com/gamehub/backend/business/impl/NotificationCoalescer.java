@@ -0,0 +1,262 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.dto.NotificationDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merges bursts of chat notifications from one sender into a single unread row per (receiver, sender, type)
+ * and limits how often the matching STOMP push goes out for the same key.
+ * <p>
+ * The unread row carries a {@code coalesce_key} that is unique per receiver until the row is read, so two flushes
+ * racing to create it, on this node or another, merge into one row through the upsert instead of inserting two.
+ * MySQL cannot keep that key on a partitioned table, so {@code WeeklyPartitionManager} drops it when it converts
+ * {@code notifications}; the upsert then always inserts, leaving the update-then-insert path, and two nodes racing on
+ * the same key can end up with two unread rows.
+ * A burst whose push is throttled is not dropped: its messages are folded into one trailing push per key, sent once
+ * the interval since the last push has passed.
+ */
+@Component
+public class NotificationCoalescer {
+
+    static final String MESSAGE_TYPE = "message";
+    static final String NOTIFICATIONS_DESTINATION = "/queue/notifications";
+    static final String UPDATE_UNREAD_SQL =
+            "UPDATE notifications SET message = CONCAT('You have ', coalesced_count + ?, ' new messages from ', ?), " +
+                    "timestamp = ?, coalesced_count = coalesced_count + ? " +
+                    "WHERE user_id = ? AND sender_id = ? AND type = '" + MESSAGE_TYPE + "' AND is_read = false";
+    private static final String INSERT_UNREAD =
+            "INSERT INTO notifications (user_id, message, timestamp, is_read, type, sender_id, event_id, coalesced_count, coalesce_key) " +
+                    "VALUES (?, ?, ?, false, '" + MESSAGE_TYPE + "', ?, NULL, ?, ?) ";
+    // MySQL assigns left to right, so the message is built from the count before it is increased.
+    static final String UPSERT_SQL = INSERT_UNREAD + "AS new " +
+            "ON DUPLICATE KEY UPDATE message = CONCAT('You have ', coalesced_count + new.coalesced_count, ' new messages from ', ?), " +
+            "timestamp = new.timestamp, coalesced_count = coalesced_count + new.coalesced_count";
+    // Same statement for databases without MySQL 8's row alias, such as H2 in MySQL mode.
+    static final String UPSERT_VALUES_SQL = INSERT_UNREAD +
+            "ON DUPLICATE KEY UPDATE message = CONCAT('You have ', coalesced_count + VALUES(coalesced_count), ' new messages from ', ?), " +
+            "timestamp = VALUES(timestamp), coalesced_count = coalesced_count + VALUES(coalesced_count)";
+    private static final int UPSERT_INSERTED = 1;
+
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxService outboxService;
+    private final long pushIntervalNanos;
+    private final Map<PushKey, Long> lastPushes = new ConcurrentHashMap<>();
+    private final Map<PushKey, TrailingPush> trailingPushes = new ConcurrentHashMap<>();
+    private volatile String upsertSql;
+
+    private final Counter coalescedCounter;
+    private final Counter throttledCounter;
+
+    @Autowired
+    public NotificationCoalescer(JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 OutboxService outboxService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${notifications.coalescing.push-interval-ms:5000}") long pushIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.outboxService = outboxService;
+        this.pushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(pushIntervalMillis);
+        this.coalescedCounter = meterRegistry.counter("notifications.coalesced");
+        this.throttledCounter = meterRegistry.counter("notifications.push.throttled");
+        meterRegistry.gaugeMapSize("notifications.push.trailing.pending", Tags.empty(), trailingPushes);
+    }
+
+    /**
+     * Writes one notification per (receiver, sender) in the batch, folding it into the receiver's existing unread
+     * row when there is one, and queues a throttled push for each key through the outbox. Must run inside the
+     * caller's transaction.
+     *
+     * @return the receiver ids that got a new unread row; a driver that does not report per-row counts makes every
+     *         upserted receiver count as new, which the unread counter's reconciliation corrects
+     */
+    public List<Long> writeMessageNotifications(List<ChatPersistencePipeline.PendingChatMessage> batch) {
+        Map<PushKey, Burst> bursts = new LinkedHashMap<>();
+        for (ChatPersistencePipeline.PendingChatMessage message : batch) {
+            bursts.computeIfAbsent(new PushKey(message.receiverId(), message.senderId(), MESSAGE_TYPE),
+                            key -> new Burst(message.senderUsername()))
+                    .add(message);
+        }
+        List<Map.Entry<PushKey, Burst>> entries = new ArrayList<>(bursts.entrySet());
+
+        int[][] updated = jdbcTemplate.batchUpdate(UPDATE_UNREAD_SQL, entries, entries.size(), (ps, entry) -> {
+            Burst burst = entry.getValue();
+            ps.setInt(1, burst.count);
+            ps.setString(2, burst.senderUsername);
+            ps.setTimestamp(3, Timestamp.valueOf(burst.latest));
+            ps.setInt(4, burst.count);
+            ps.setLong(5, entry.getKey().receiverId());
+            ps.setLong(6, entry.getKey().senderId());
+        });
+
+        // A driver may report SUCCESS_NO_INFO instead of a row count; only an explicit 0 means no unread row existed.
+        List<Map.Entry<PushKey, Burst>> upserts = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if (updated[0][i] == 0) {
+                upserts.add(entries.get(i));
+            }
+        }
+        List<Long> newUnreadReceivers = new ArrayList<>();
+        if (!upserts.isEmpty()) {
+            int[][] upserted = jdbcTemplate.batchUpdate(upsertSql(), upserts, upserts.size(), (ps, entry) -> {
+                Burst burst = entry.getValue();
+                ps.setLong(1, entry.getKey().receiverId());
+                ps.setString(2, messageText(burst.count, burst.senderUsername));
+                ps.setTimestamp(3, Timestamp.valueOf(burst.latest));
+                ps.setLong(4, entry.getKey().senderId());
+                ps.setInt(5, burst.count);
+                ps.setString(6, coalesceKeyOf(entry.getKey()));
+                ps.setString(7, burst.senderUsername);
+            });
+            // MySQL reports 1 for an inserted row and 2 for one merged into a row another flush inserted first.
+            for (int i = 0; i < upserts.size(); i++) {
+                int count = upserted[0][i];
+                if (count == UPSERT_INSERTED || count == Statement.SUCCESS_NO_INFO) {
+                    newUnreadReceivers.add(upserts.get(i).getKey().receiverId());
+                }
+            }
+        }
+
+        for (Map.Entry<PushKey, Burst> entry : entries) {
+            PushKey key = entry.getKey();
+            Burst burst = entry.getValue();
+            if (tryAcquirePush(key.receiverId(), key.senderId(), key.type())) {
+                int count = burst.count;
+                TrailingPush trailing = trailingPushes.remove(key);
+                if (trailing != null) {
+                    count += trailing.count;
+                }
+                enqueuePush(key, burst.senderUsername, count);
+            } else {
+                trailingPushes.merge(key, new TrailingPush(burst.senderUsername, burst.count),
+                        (pending, added) -> new TrailingPush(added.senderUsername, pending.count + added.count));
+            }
+        }
+
+        coalescedCounter.increment(batch.size() - newUnreadReceivers.size());
+        return newUnreadReceivers;
+    }
+
+    private String upsertSql() {
+        String sql = upsertSql;
+        if (sql == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            sql = product != null && product.toLowerCase().contains("mysql") ? UPSERT_SQL : UPSERT_VALUES_SQL;
+            upsertSql = sql;
+        }
+        return sql;
+    }
+
+    /**
+     * Sends the trailing push for every key whose throttle interval has passed since its last push.
+     */
+    @Scheduled(fixedDelayString = "${notifications.coalescing.trailing-check-ms:1000}")
+    public void flushTrailingPushes() {
+        if (trailingPushes.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        Map<PushKey, TrailingPush> due = new LinkedHashMap<>();
+        for (PushKey key : trailingPushes.keySet()) {
+            Long last = lastPushes.get(key);
+            if (last == null || now - last >= pushIntervalNanos) {
+                TrailingPush trailing = trailingPushes.remove(key);
+                if (trailing != null) {
+                    due.put(key, trailing);
+                }
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> due.forEach((key, trailing) -> {
+            lastPushes.put(key, now);
+            enqueuePush(key, trailing.senderUsername, trailing.count);
+        }));
+    }
+
+    private void enqueuePush(PushKey key, String senderUsername, int count) {
+        NotificationDTO notificationDTO = new NotificationDTO(null, key.receiverId(), messageText(count, senderUsername),
+                key.type(), key.senderId(), null, false, count);
+        outboxService.enqueueToUser(key.receiverId(), NOTIFICATIONS_DESTINATION, notificationDTO);
+    }
+
+    /**
+     * Returns whether a notification push for this key may go out now, recording it if so.
+     */
+    public boolean tryAcquirePush(Long receiverId, Long senderId, String type) {
+        long now = System.nanoTime();
+        PushKey key = new PushKey(receiverId, senderId, type);
+        boolean[] acquired = {false};
+        lastPushes.compute(key, (k, last) -> {
+            if (last == null || now - last >= pushIntervalNanos) {
+                acquired[0] = true;
+                return now;
+            }
+            return last;
+        });
+        if (!acquired[0]) {
+            throttledCounter.increment();
+        } else if (lastPushes.size() > PRUNE_THRESHOLD) {
+            lastPushes.entrySet().removeIf(entry -> now - entry.getValue() >= pushIntervalNanos
+                    && !trailingPushes.containsKey(entry.getKey()));
+        }
+        return acquired[0];
+    }
+
+    static String messageText(int count, String senderUsername) {
+        if (count == 1) {
+            return "You have a new message from " + senderUsername;
+        }
+        return "You have " + count + " new messages from " + senderUsername;
+    }
+
+    private static String coalesceKeyOf(PushKey key) {
+        return key.type() + ":" + key.senderId();
+    }
+
+    private record PushKey(Long receiverId, Long senderId, String type) {
+    }
+
+    private record TrailingPush(String senderUsername, int count) {
+    }
+
+    private static final class Burst {
+        private final String senderUsername;
+        private int count;
+        private LocalDateTime latest;
+
+        private Burst(String senderUsername) {
+            this.senderUsername = senderUsername;
+        }
+
+        private void add(ChatPersistencePipeline.PendingChatMessage message) {
+            count++;
+            if (latest == null || message.timestamp().isAfter(latest)) {
+                latest = message.timestamp();
+            }
+        }
+    }
+}
@@ -1,54 +1,227 @@
 package com.gamehub.backend.business.impl;
 
 import com.gamehub.backend.business.NotificationService;
+import com.gamehub.backend.domain.BroadcastNotification;
+import com.gamehub.backend.domain.BroadcastReadWatermark;
 import com.gamehub.backend.domain.Notification;
 import com.gamehub.backend.dto.NotificationDTO;
+import com.gamehub.backend.persistence.BroadcastNotificationRepository;
+import com.gamehub.backend.persistence.BroadcastReadWatermarkRepository;
 import com.gamehub.backend.persistence.NotificationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 
 @Service
 public class NotificationServiceImpl implements NotificationService {
 
+    static final int MAX_BULK_READ_IDS = 1000;
+    static final String NOTIFICATIONS_DESTINATION = "/queue/notifications";
+
     private final NotificationRepository notificationRepository;
+    private final BroadcastNotificationRepository broadcastNotificationRepository;
+    private final BroadcastReadWatermarkRepository broadcastReadWatermarkRepository;
+    private final UnreadNotificationCounter unreadNotificationCounter;
+    private final OutboxService outboxService;
 
     @Autowired
-    public NotificationServiceImpl(NotificationRepository notificationRepository) {
+    public NotificationServiceImpl(NotificationRepository notificationRepository,
+                                   BroadcastNotificationRepository broadcastNotificationRepository,
+                                   BroadcastReadWatermarkRepository broadcastReadWatermarkRepository,
+                                   UnreadNotificationCounter unreadNotificationCounter,
+                                   OutboxService outboxService) {
         this.notificationRepository = notificationRepository;
+        this.broadcastNotificationRepository = broadcastNotificationRepository;
+        this.broadcastReadWatermarkRepository = broadcastReadWatermarkRepository;
+        this.unreadNotificationCounter = unreadNotificationCounter;
+        this.outboxService = outboxService;
     }
     @Override
     public Notification save(Notification notification) {
+        boolean isNew = notification.getId() == null;
         notification.setTimestamp(LocalDateTime.now());
-        return notificationRepository.save(notification);
+        Notification saved = notificationRepository.save(notification);
+        if (isNew && !saved.isRead() && saved.getUser() != null) {
+            Long userId = saved.getUser().getId();
+            afterCommit(() -> unreadNotificationCounter.increment(userId));
+        }
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public NotificationDTO send(Notification notification) {
+        NotificationDTO notificationDTO = toDto(save(notification));
+        outboxService.enqueueToUser(notificationDTO.getUserId(), NOTIFICATIONS_DESTINATION, notificationDTO);
+        return notificationDTO;
+    }
+
+    @Override
+    @Transactional
+    public BroadcastNotification broadcast(BroadcastNotification broadcastNotification) {
+        broadcastNotification.setTimestamp(LocalDateTime.now());
+        BroadcastNotification saved = broadcastNotificationRepository.save(broadcastNotification);
+        afterCommit(unreadNotificationCounter::broadcastCreated);
+        outboxService.enqueueToConnectedUsers(NOTIFICATIONS_DESTINATION, toDto(saved, null));
+        return saved;
+    }
+
+    /**
+     * Runs a cached counter update once the surrounding transaction commits, so a rollback never leaves the cache
+     * counting a row that was not written. Outside a transaction the row is already committed and the update runs now.
+     */
+    private static void afterCommit(Runnable counterUpdate) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            counterUpdate.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                counterUpdate.run();
+            }
+        });
     }
 
     @Override
     public List<NotificationDTO> getUnreadNotifications(Long userId) {
-        return notificationRepository.findByUserIdAndIsReadFalse(userId).stream()
-                .map(notification -> new NotificationDTO(
-                        notification.getId(),
-                        notification.getUser().getId(),
-                        notification.getMessage(),
-                        notification.getType(),
-                        notification.getSenderId(),
-                        notification.getEventId()
-                ))
-                .toList();
+        List<Notification> personal = notificationRepository.findByUserIdAndIsReadFalse(userId);
+        Long watermark = broadcastReadWatermarkRepository.findById(userId)
+                .map(BroadcastReadWatermark::getLastReadId)
+                .orElse(0L);
+        List<BroadcastNotification> broadcasts = broadcastNotificationRepository.findByIdGreaterThanOrderByIdAsc(watermark);
+        if (broadcasts.isEmpty()) {
+            return personal.stream().map(this::toDto).toList();
+        }
+
+        List<Timestamped> merged = new ArrayList<>(personal.size() + broadcasts.size());
+        personal.forEach(notification -> merged.add(new Timestamped(notification.getTimestamp(), toDto(notification))));
+        broadcasts.forEach(broadcast -> merged.add(new Timestamped(broadcast.getTimestamp(), toDto(broadcast, userId))));
+        merged.sort(Comparator.comparing(Timestamped::timestamp, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return merged.stream().map(Timestamped::notification).toList();
+    }
+
+    @Override
+    public long getUnreadCount(Long userId) {
+        return unreadNotificationCounter.unreadCount(userId);
     }
 
     @Override
     public void deleteOldNotifications(LocalDateTime before) {
         notificationRepository.deleteAllByTimestampBefore(before);
+        unreadNotificationCounter.invalidateAll();
+    }
+
+    @Override
+    public void deleteOldBroadcasts(LocalDateTime before) {
+        broadcastNotificationRepository.deleteAllByTimestampBefore(before);
+        unreadNotificationCounter.invalidateAll();
     }
 
     @Override
     public void markAsRead(Long notificationId) {
         notificationRepository.findById(notificationId).ifPresent(notification -> {
+            boolean wasUnread = !notification.isRead();
             notification.setRead(true);
             notificationRepository.save(notification);
+            if (wasUnread && notification.getUser() != null) {
+                unreadNotificationCounter.decrement(notification.getUser().getId());
+            }
         });
     }
+
+    @Override
+    public int markAsRead(Long userId, List<Long> notificationIds) {
+        if (notificationIds == null || notificationIds.isEmpty()) {
+            return 0;
+        }
+        if (notificationIds.size() > MAX_BULK_READ_IDS) {
+            throw new IllegalArgumentException("Cannot mark more than " + MAX_BULK_READ_IDS + " notifications at once");
+        }
+        int updated = notificationRepository.markReadByIds(userId, new HashSet<>(notificationIds));
+        unreadNotificationCounter.invalidate(userId);
+        return updated;
+    }
+
+    @Override
+    public int markReadUpTo(Long userId, Long upToId, LocalDateTime upTo) {
+        if ((upToId == null) == (upTo == null)) {
+            throw new IllegalArgumentException("Exactly one of an id or a timestamp is required");
+        }
+        int updated;
+        if (upToId != null) {
+            updated = notificationRepository.markReadUpToId(userId, upToId);
+        } else {
+            updated = notificationRepository.markReadUpToTimestamp(userId, upTo);
+            broadcastNotificationRepository.findTopByTimestampLessThanEqualOrderByIdDesc(upTo)
+                    .ifPresent(broadcast -> advanceWatermark(userId, broadcast.getId()));
+        }
+        unreadNotificationCounter.invalidate(userId);
+        return updated;
+    }
+
+    @Override
+    public void markBroadcastsReadUpTo(Long userId, Long broadcastId) {
+        advanceWatermark(userId, broadcastId);
+        unreadNotificationCounter.invalidate(userId);
+    }
+
+    /**
+     * Starts a new account's watermark at the newest broadcast, so announcements made before the user registered do
+     * not show up as unread. Without a row the watermark counts from 0.
+     */
+    @Override
+    public void initializeBroadcastWatermark(Long userId) {
+        advanceWatermark(userId, broadcastNotificationRepository.findMaxId());
+    }
+
+    private void advanceWatermark(Long userId, Long broadcastId) {
+        if (broadcastReadWatermarkRepository.advance(userId, broadcastId) > 0
+                || broadcastReadWatermarkRepository.existsById(userId)) {
+            return;
+        }
+        try {
+            broadcastReadWatermarkRepository.save(new BroadcastReadWatermark(userId, broadcastId));
+        } catch (DataIntegrityViolationException e) {
+            broadcastReadWatermarkRepository.advance(userId, broadcastId);
+        }
+    }
+
+    private NotificationDTO toDto(Notification notification) {
+        return new NotificationDTO(
+                notification.getId(),
+                notification.getUser().getId(),
+                notification.getMessage(),
+                notification.getType(),
+                notification.getSenderId(),
+                notification.getEventId(),
+                false,
+                notification.getCoalescedCount()
+        );
+    }
+
+    private NotificationDTO toDto(BroadcastNotification broadcast, Long userId) {
+        return new NotificationDTO(
+                broadcast.getId(),
+                userId,
+                broadcast.getMessage(),
+                broadcast.getType(),
+                broadcast.getSenderId(),
+                broadcast.getEventId(),
+                true,
+                1
+        );
+    }
+
+    private record Timestamped(LocalDateTime timestamp, NotificationDTO notification) {
+    }
 }
@@ -0,0 +1,297 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.domain.OutboxKind;
+import com.gamehub.backend.domain.OutboxMessage;
+import com.gamehub.backend.persistence.OutboxMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Drains the outbox table. Entries are grouped by recipient and each group is delivered in id order on one worker,
+ * so a user never sees a later push before an earlier one; a failed entry holds back the rest of its group until
+ * its retry, and the poll skips a recipient's entries while an earlier one is still waiting, so newer entries cannot
+ * overtake it either. Every replica runs a dispatcher; each batch is claimed before delivery so an entry goes out once.
+ * <p>
+ * Websocket pushes and emails are polled by two loops on their own threads, each with its own worker pool, so a slow
+ * SMTP server never delays a push, and neither loop takes a thread from the shared {@code @Scheduled} pool.
+ */
+@Component
+@Slf4j
+public class OutboxDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+    static final Set<OutboxKind> PUSH_KINDS = EnumSet.of(OutboxKind.USER, OutboxKind.USERS, OutboxKind.CONNECTED_USERS);
+    static final Set<OutboxKind> MAIL_KINDS = EnumSet.of(OutboxKind.EMAIL);
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final UserMessageSender userMessageSender;
+    private final MailService mailService;
+    private final ExecutorService pushWorkers;
+    private final ExecutorService mailWorkers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final long claimLeaseMillis;
+    private final long pollIntervalMillis;
+    private final List<Thread> pollers = new ArrayList<>();
+    private volatile boolean running;
+
+    private final Counter deliveredCounter;
+    private final Counter retriedCounter;
+    private final Counter deadCounter;
+    private final Timer batchTimer;
+
+    @Autowired
+    public OutboxDispatcher(OutboxMessageRepository outboxMessageRepository,
+                            UserMessageSender userMessageSender,
+                            MailService mailService,
+                            MeterRegistry meterRegistry,
+                            @Value("${outbox.workers:4}") int workerCount,
+                            @Value("${outbox.mail-workers:1}") int mailWorkerCount,
+                            @Value("${outbox.batch-size:100}") int batchSize,
+                            @Value("${outbox.max-attempts:5}") int maxAttempts,
+                            @Value("${outbox.retry-backoff-ms:1000}") long retryBackoffMillis,
+                            @Value("${outbox.claim-lease-ms:30000}") long claimLeaseMillis,
+                            @Value("${outbox.poll-interval-ms:100}") long pollIntervalMillis) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.userMessageSender = userMessageSender;
+        this.mailService = mailService;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.claimLeaseMillis = claimLeaseMillis;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.pushWorkers = workerPool("outbox-dispatcher-", workerCount);
+        this.mailWorkers = workerPool("outbox-mail-", mailWorkerCount);
+
+        this.deliveredCounter = meterRegistry.counter("outbox.delivered");
+        this.retriedCounter = meterRegistry.counter("outbox.retried");
+        this.deadCounter = meterRegistry.counter("outbox.dead");
+        this.batchTimer = meterRegistry.timer("outbox.batch");
+    }
+
+    private static ExecutorService workerPool(String namePrefix, int size) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(size, runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        startPoller("outbox-push-poller", this::dispatchPushes);
+        startPoller("outbox-mail-poller", this::dispatchEmails);
+    }
+
+    private void startPoller(String name, BooleanSupplier dispatchBatch) {
+        Thread poller = new Thread(() -> poll(dispatchBatch), name);
+        poller.setDaemon(true);
+        poller.start();
+        pollers.add(poller);
+    }
+
+    private void poll(BooleanSupplier dispatchBatch) {
+        while (running) {
+            boolean more;
+            try {
+                more = dispatchBatch.getAsBoolean();
+            } catch (RuntimeException e) {
+                log.error("Polling the outbox failed.", e);
+                more = false;
+            }
+            if (!more) {
+                try {
+                    Thread.sleep(pollIntervalMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Delivers one batch of due websocket pushes and returns whether a full batch was found, i.e. more may be due.
+     */
+    boolean dispatchPushes() {
+        return dispatchPending(PUSH_KINDS);
+    }
+
+    /**
+     * Delivers one batch of due emails and returns whether a full batch was found, i.e. more may be due.
+     */
+    boolean dispatchEmails() {
+        return dispatchPending(MAIL_KINDS);
+    }
+
+    private boolean dispatchPending(Set<OutboxKind> kinds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxMessage> batch = outboxMessageRepository.findDeliverable(kinds, now, PageRequest.of(0, batchSize));
+        if (!batch.isEmpty()) {
+            List<OutboxMessage> claimed = claim(batch, now);
+            batchTimer.record(() -> dispatch(claimed));
+        }
+        return batch.size() == batchSize;
+    }
+
+    /**
+     * Leases the batch to this node by pushing its availability past the lease, so other replicas polling the same
+     * table skip it. Entries this node does not get to finish become due again when the lease runs out.
+     */
+    private List<OutboxMessage> claim(List<OutboxMessage> batch, LocalDateTime now) {
+        String claimToken = UUID.randomUUID().toString();
+        LocalDateTime leaseUntil = now.plusNanos(TimeUnit.MILLISECONDS.toNanos(claimLeaseMillis));
+        List<Long> ids = batch.stream().map(OutboxMessage::getId).toList();
+        int claimed = outboxMessageRepository.claim(ids, claimToken, now, leaseUntil);
+        if (claimed == batch.size()) {
+            return batch;
+        }
+        return claimed == 0 ? List.of() : outboxMessageRepository.findByClaimTokenOrderByIdAsc(claimToken);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread poller : pollers) {
+            poller.interrupt();
+            poller.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        pushWorkers.shutdown();
+        mailWorkers.shutdown();
+        pushWorkers.awaitTermination(10, TimeUnit.SECONDS);
+        mailWorkers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    void dispatch(List<OutboxMessage> batch) {
+        Map<String, List<OutboxMessage>> groups = new LinkedHashMap<>();
+        for (OutboxMessage message : batch) {
+            groups.computeIfAbsent(message.getKind() + ":" + message.getRecipient(), key -> new ArrayList<>()).add(message);
+        }
+
+        List<Future<GroupResult>> futures = new ArrayList<>(groups.size());
+        for (List<OutboxMessage> group : groups.values()) {
+            ExecutorService workers = group.get(0).getKind() == OutboxKind.EMAIL ? mailWorkers : pushWorkers;
+            futures.add(workers.submit(() -> deliverGroup(group)));
+        }
+
+        List<Long> finished = new ArrayList<>();
+        List<OutboxMessage> rescheduled = new ArrayList<>();
+        for (Future<GroupResult> future : futures) {
+            try {
+                GroupResult result = future.get();
+                finished.addAll(result.finished());
+                rescheduled.addAll(result.rescheduled());
+            } catch (ExecutionException e) {
+                log.error("Outbox delivery worker failed unexpectedly.", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        if (!finished.isEmpty()) {
+            outboxMessageRepository.deleteAllByIdInBatch(finished);
+        }
+        if (!rescheduled.isEmpty()) {
+            outboxMessageRepository.saveAll(rescheduled);
+        }
+    }
+
+    private GroupResult deliverGroup(List<OutboxMessage> group) {
+        List<Long> finished = new ArrayList<>(group.size());
+        List<OutboxMessage> rescheduled = new ArrayList<>();
+        for (int i = 0; i < group.size(); i++) {
+            OutboxMessage message = group.get(i);
+            try {
+                deliver(message);
+                deliveredCounter.increment();
+                finished.add(message.getId());
+            } catch (Exception e) {
+                int attempts = message.getAttempts() + 1;
+                if (attempts >= maxAttempts) {
+                    deadCounter.increment();
+                    log.error("Giving up on outbox entry {} ({} to {}) after {} attempts.", message.getId(), message.getKind(), message.getRecipient(), attempts, e);
+                    finished.add(message.getId());
+                    continue;
+                }
+                retriedCounter.increment();
+                log.warn("Outbox entry {} ({} to {}) failed on attempt {}, retrying later: {}", message.getId(), message.getKind(), message.getRecipient(), attempts, e.getMessage());
+                LocalDateTime retryAt = LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(retryBackoffMillis * attempts));
+                message.setAttempts(attempts);
+                message.setAvailableAt(retryAt);
+                message.setLastError(truncate(e.toString()));
+                rescheduled.add(message);
+                for (OutboxMessage held : group.subList(i + 1, group.size())) {
+                    held.setAvailableAt(retryAt);
+                    rescheduled.add(held);
+                }
+                break;
+            }
+        }
+        return new GroupResult(finished, rescheduled);
+    }
+
+    private void deliver(OutboxMessage message) throws Exception {
+        if (message.getKind() == OutboxKind.EMAIL) {
+            mailService.sendMail(message.getRecipient(), message.getSubject(), message.getPayload());
+            return;
+        }
+        Message<byte[]> stompMessage = jsonMessage(message.getPayload());
+        if (message.getKind() == OutboxKind.USERS) {
+            List<Long> userIds = Arrays.stream(message.getRecipientIds().split(",")).map(Long::valueOf).toList();
+            userMessageSender.sendToUsers(userIds, message.getDestination(), stompMessage);
+            return;
+        }
+        if (message.getKind() == OutboxKind.USER) {
+            userMessageSender.sendToUser(Long.valueOf(message.getRecipient()), message.getDestination(), stompMessage);
+            return;
+        }
+        userMessageSender.sendToConnectedUsers(message.getDestination(), stompMessage);
+    }
+
+    private static Message<byte[]> jsonMessage(String json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+
+    private static String truncate(String error) {
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private record GroupResult(List<Long> finished, List<OutboxMessage> rescheduled) {
+    }
+}
@@ -0,0 +1,76 @@
+package com.gamehub.backend.business.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gamehub.backend.domain.OutboxKind;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * Records websocket and email side effects in the outbox table. Every method joins the caller's transaction, so an
+ * entry only becomes visible to {@link OutboxDispatcher} if the domain change that produced it commits.
+ */
+@Service
+public class OutboxService {
+
+    static final String INSERT_SQL =
+            "INSERT INTO outbox_messages (kind, recipient, recipient_ids, destination, subject, payload, attempts, available_at, created_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, 0, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public OutboxService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueToUser(Long userId, String destination, Object payload) {
+        insert(OutboxKind.USER, userId.toString(), null, destination, null, toJson(payload));
+    }
+
+    /**
+     * Queues one payload for several users. It is serialized once here and sent as the same bytes to every user.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueToUsers(Collection<Long> userIds, String destination, Object payload) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        String recipientIds = userIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        insert(OutboxKind.USERS, null, recipientIds, destination, null, toJson(payload));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueToConnectedUsers(String destination, Object payload) {
+        insert(OutboxKind.CONNECTED_USERS, null, null, destination, null, toJson(payload));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueEmail(String to, String subject, String html) {
+        insert(OutboxKind.EMAIL, to, null, null, subject, html);
+    }
+
+    private void insert(OutboxKind kind, String recipient, String recipientIds, String destination, String subject, String payload) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(INSERT_SQL, kind.name(), recipient, recipientIds, destination, subject, payload, now, now);
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload cannot be serialized", e);
+        }
+    }
+}
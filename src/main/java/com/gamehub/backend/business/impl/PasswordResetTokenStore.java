@@ -0,0 +1,80 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.domain.PasswordResetToken;
+import com.gamehub.backend.persistence.PasswordResetTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Keeps password-reset tokens in their own table. Only a SHA-256 hash of each token is stored, under a unique index,
+ * so a leaked table cannot be used to reset passwords and a token resolves with one indexed lookup. A user holds at
+ * most one token; it is deleted when used, and a scheduled sweep drops the ones that expired unused.
+ */
+@Component
+@Slf4j
+public class PasswordResetTokenStore {
+
+    static final Duration TOKEN_LIFETIME = Duration.ofMinutes(10);
+    private static final int TOKEN_BYTES = 32;
+
+    private final PasswordResetTokenRepository passwordResetTokenRepository;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Autowired
+    public PasswordResetTokenStore(PasswordResetTokenRepository passwordResetTokenRepository) {
+        this.passwordResetTokenRepository = passwordResetTokenRepository;
+    }
+
+    /**
+     * Replaces the user's outstanding token with a new one and returns the raw token for the reset link.
+     */
+    public String issue(Long userId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        passwordResetTokenRepository.deleteByUserId(userId);
+        passwordResetTokenRepository.save(new PasswordResetToken(null, hash(token), userId, LocalDateTime.now().plus(TOKEN_LIFETIME)));
+        return token;
+    }
+
+    public Optional<PasswordResetToken> find(String token) {
+        return passwordResetTokenRepository.findByTokenHash(hash(token));
+    }
+
+    /**
+     * Deletes a token that is being used. Returns false if another request consumed it first.
+     */
+    public boolean consume(PasswordResetToken resetToken) {
+        return passwordResetTokenRepository.deleteTokenById(resetToken.getId()) == 1;
+    }
+
+    @Scheduled(fixedDelayString = "${password-reset.sweep-interval-ms:300000}")
+    public void sweepExpired() {
+        int removed = passwordResetTokenRepository.deleteExpired(LocalDateTime.now());
+        if (removed > 0) {
+            log.debug("Removed {} expired password reset tokens", removed);
+        }
+    }
+
+    static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
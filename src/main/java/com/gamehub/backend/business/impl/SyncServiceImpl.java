@@ -0,0 +1,187 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.business.SyncService;
+import com.gamehub.backend.domain.BroadcastNotification;
+import com.gamehub.backend.domain.ChatMessage;
+import com.gamehub.backend.domain.Notification;
+import com.gamehub.backend.dto.ChatMessageDTO;
+import com.gamehub.backend.dto.NotificationDTO;
+import com.gamehub.backend.dto.SyncResponseDTO;
+import com.gamehub.backend.persistence.BroadcastNotificationRepository;
+import com.gamehub.backend.persistence.ChatMessageRepository;
+import com.gamehub.backend.persistence.NotificationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Returns what a reconnecting client missed, one page per stream (messages, notifications, broadcasts). Each stream is
+ * read in (timestamp, id) order from its own position in the cursor rather than by id alone: ids are handed out at
+ * insert but rows become visible at commit, so a row with a lower id can show up after a higher one has been synced,
+ * and a coalesced notification keeps its id while its timestamp moves forward.
+ * <p>
+ * A full page advances its stream to the last row returned. Once a stream is drained, its position falls back to
+ * {@code settle-window-ms} before now, so rows committed late, or notifications updated in place, within that window
+ * are returned again on the next sync; clients de-duplicate by id, or by message key for chat messages already
+ * received over STOMP. The window has to cover the chat persistence pipeline's delay and clock skew between nodes.
+ */
+@Service
+public class SyncServiceImpl implements SyncService {
+
+    static final int MAX_SYNC_LIMIT = 500;
+    private static final String CURSOR_SEPARATOR = "-";
+    private static final String POSITION_SEPARATOR = ".";
+    private static final Position START = new Position(LocalDateTime.of(1970, 1, 1, 0, 0), 0L);
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final NotificationRepository notificationRepository;
+    private final BroadcastNotificationRepository broadcastNotificationRepository;
+    private final long settleWindowMillis;
+
+    @Autowired
+    public SyncServiceImpl(ChatMessageRepository chatMessageRepository,
+                           NotificationRepository notificationRepository,
+                           BroadcastNotificationRepository broadcastNotificationRepository,
+                           @Value("${sync.settle-window-ms:30000}") long settleWindowMillis) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.notificationRepository = notificationRepository;
+        this.broadcastNotificationRepository = broadcastNotificationRepository;
+        this.settleWindowMillis = settleWindowMillis;
+    }
+
+    @Override
+    public SyncResponseDTO sync(Long userId, String since, int limit) {
+        if (limit <= 0 || limit > MAX_SYNC_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SYNC_LIMIT);
+        }
+        Position[] cursor = parseCursor(since);
+        Position settled = new Position(LocalDateTime.now().minus(Duration.ofMillis(settleWindowMillis)), 0L);
+        PageRequest page = PageRequest.of(0, limit + 1);
+
+        List<ChatMessage> messages = chatMessageRepository.findForUserAfter(userId, cursor[0].timestamp(), cursor[0].id(), page);
+        List<Notification> notifications = notificationRepository.findForUserAfter(userId, cursor[1].timestamp(), cursor[1].id(), page);
+        List<BroadcastNotification> broadcasts = broadcastNotificationRepository.findAfter(cursor[2].timestamp(), cursor[2].id(), page);
+        boolean hasMore = messages.size() > limit || notifications.size() > limit || broadcasts.size() > limit;
+
+        Position messagePosition = settled;
+        if (messages.size() > limit) {
+            messages = messages.subList(0, limit);
+            ChatMessage last = messages.get(limit - 1);
+            messagePosition = new Position(last.getTimestamp(), last.getId());
+        }
+        Position notificationPosition = settled;
+        if (notifications.size() > limit) {
+            notifications = notifications.subList(0, limit);
+            Notification last = notifications.get(limit - 1);
+            notificationPosition = new Position(last.getTimestamp(), last.getId());
+        }
+        Position broadcastPosition = settled;
+        if (broadcasts.size() > limit) {
+            broadcasts = broadcasts.subList(0, limit);
+            BroadcastNotification last = broadcasts.get(limit - 1);
+            broadcastPosition = new Position(last.getTimestamp(), last.getId());
+        }
+
+        List<NotificationDTO> notificationDtos = new ArrayList<>(notifications.size() + broadcasts.size());
+        notifications.forEach(notification -> notificationDtos.add(toDto(notification)));
+        broadcasts.forEach(broadcast -> notificationDtos.add(toDto(broadcast, userId)));
+
+        return new SyncResponseDTO(
+                messages.stream().map(this::toDto).toList(),
+                notificationDtos,
+                messagePosition.encode() + CURSOR_SEPARATOR + notificationPosition.encode() + CURSOR_SEPARATOR + broadcastPosition.encode(),
+                hasMore
+        );
+    }
+
+    /**
+     * Parses a cursor of three {@code <epoch micros>.<id>} positions; no cursor starts every stream from the beginning.
+     */
+    private Position[] parseCursor(String since) {
+        if (!StringUtils.hasText(since)) {
+            return new Position[]{START, START, START};
+        }
+        String[] parts = since.split(CURSOR_SEPARATOR);
+        try {
+            if (parts.length != 3) {
+                throw new NumberFormatException(since);
+            }
+            return new Position[]{Position.decode(parts[0]), Position.decode(parts[1]), Position.decode(parts[2])};
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid sync cursor: " + since);
+        }
+    }
+
+    private ChatMessageDTO toDto(ChatMessage message) {
+        return new ChatMessageDTO(
+                message.getId(),
+                message.getSender().getId(),
+                message.getReceiver().getId(),
+                message.getSender().getUsername(),
+                message.getReceiver().getUsername(),
+                message.getContent(),
+                message.getTimestamp(),
+                message.getMessageKey()
+        );
+    }
+
+    private NotificationDTO toDto(Notification notification) {
+        return new NotificationDTO(
+                notification.getId(),
+                notification.getUser().getId(),
+                notification.getMessage(),
+                notification.getType(),
+                notification.getSenderId(),
+                notification.getEventId(),
+                false,
+                notification.getCoalescedCount()
+        );
+    }
+
+    private NotificationDTO toDto(BroadcastNotification broadcast, Long userId) {
+        return new NotificationDTO(
+                broadcast.getId(),
+                userId,
+                broadcast.getMessage(),
+                broadcast.getType(),
+                broadcast.getSenderId(),
+                broadcast.getEventId(),
+                true,
+                1
+        );
+    }
+
+    private record Position(LocalDateTime timestamp, long id) {
+
+        String encode() {
+            Instant instant = timestamp.toInstant(ZoneOffset.UTC);
+            long micros = TimeUnit.SECONDS.toMicros(instant.getEpochSecond()) + TimeUnit.NANOSECONDS.toMicros(instant.getNano());
+            return micros + POSITION_SEPARATOR + id;
+        }
+
+        static Position decode(String value) {
+            int separator = value.indexOf(POSITION_SEPARATOR);
+            if (separator <= 0) {
+                throw new NumberFormatException(value);
+            }
+            long micros = Long.parseLong(value.substring(0, separator));
+            long id = Long.parseLong(value.substring(separator + 1));
+            if (micros < 0 || id < 0) {
+                throw new NumberFormatException(value);
+            }
+            Instant instant = Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
+            return new Position(LocalDateTime.ofInstant(instant, ZoneOffset.UTC), id);
+        }
+    }
+}
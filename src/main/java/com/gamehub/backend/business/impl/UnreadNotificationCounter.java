@@ -0,0 +1,293 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.configuration.cluster.ClusterRelay;
+import com.gamehub.backend.configuration.cluster.RelayFrame;
+import com.gamehub.backend.domain.BroadcastReadWatermark;
+import com.gamehub.backend.persistence.BroadcastNotificationRepository;
+import com.gamehub.backend.persistence.BroadcastReadWatermarkRepository;
+import com.gamehub.backend.persistence.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * In-memory unread notification counts per user. Entries are loaded from the database on first use and then kept
+ * up to date by the write paths; once {@code max-users} entries are cached, the least recently used one makes room.
+ * A periodic reconciliation corrects drift from races or bulk deletes. Each run checks at most
+ * {@code reconcile-batch-size} users: first those written to since their last check, then those checked longest ago.
+ * The batch is counted with one query per table. A result is only applied if the entry was not written to while the
+ * queries ran, so an increment made in the meantime is kept.
+ * <p>
+ * Every write is also announced over the {@link ClusterRelay}, and the other nodes drop their entries for the users
+ * concerned, so their next read loads the count again.
+ */
+@Component
+@Slf4j
+public class UnreadNotificationCounter {
+
+    private final NotificationRepository notificationRepository;
+    private final BroadcastNotificationRepository broadcastNotificationRepository;
+    private final BroadcastReadWatermarkRepository broadcastReadWatermarkRepository;
+    private final ClusterRelay clusterRelay;
+    private final int maxUsers;
+    private final int reconcileBatchSize;
+    // Insertion-ordered; a read moves the entry to the end, so the first entry is the least recently read.
+    private final LinkedHashMap<Long, Entry> counts = new LinkedHashMap<>();
+    private long reconcileRound;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter driftCounter;
+    private final Counter evictionCounter;
+
+    @Autowired
+    public UnreadNotificationCounter(NotificationRepository notificationRepository,
+                                     BroadcastNotificationRepository broadcastNotificationRepository,
+                                     BroadcastReadWatermarkRepository broadcastReadWatermarkRepository,
+                                     ClusterRelay clusterRelay,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${notifications.unread-counter.max-users:100000}") int maxUsers,
+                                     @Value("${notifications.unread-counter.reconcile-batch-size:1000}") int reconcileBatchSize) {
+        this.notificationRepository = notificationRepository;
+        this.broadcastNotificationRepository = broadcastNotificationRepository;
+        this.broadcastReadWatermarkRepository = broadcastReadWatermarkRepository;
+        this.clusterRelay = clusterRelay;
+        this.maxUsers = maxUsers;
+        this.reconcileBatchSize = reconcileBatchSize;
+
+        meterRegistry.gauge("notifications.unread.cached.users", this, UnreadNotificationCounter::cachedUserCount);
+        this.hitCounter = meterRegistry.counter("notifications.unread.hit");
+        this.missCounter = meterRegistry.counter("notifications.unread.miss");
+        this.driftCounter = meterRegistry.counter("notifications.unread.drift");
+        this.evictionCounter = meterRegistry.counter("notifications.unread.evictions");
+
+        clusterRelay.addListener(this::onFrame);
+    }
+
+    public long unreadCount(Long userId) {
+        synchronized (this) {
+            Entry entry = counts.remove(userId);
+            if (entry != null) {
+                counts.put(userId, entry);
+                hitCounter.increment();
+                return entry.count;
+            }
+        }
+        missCounter.increment();
+        long loaded = countFromDatabase(userId);
+        synchronized (this) {
+            if (!counts.containsKey(userId)) {
+                // Writes made while the count was loading are lost, so the entry is checked on the next reconcile.
+                Entry entry = new Entry(loaded);
+                entry.dirty = true;
+                counts.put(userId, entry);
+                evictIfNeeded();
+            }
+        }
+        return loaded;
+    }
+
+    public void increment(Long userId) {
+        synchronized (this) {
+            Entry entry = counts.get(userId);
+            if (entry != null) {
+                entry.update(entry.count + 1);
+            }
+        }
+        publishChange(Set.of(userId));
+    }
+
+    public void decrement(Long userId) {
+        synchronized (this) {
+            Entry entry = counts.get(userId);
+            if (entry != null) {
+                entry.update(Math.max(entry.count - 1, 0));
+            }
+        }
+        publishChange(Set.of(userId));
+    }
+
+    public void broadcastCreated() {
+        synchronized (this) {
+            for (Entry entry : counts.values()) {
+                entry.count++;
+                entry.version++;
+            }
+        }
+        publishChange(null);
+    }
+
+    public void invalidate(Long userId) {
+        synchronized (this) {
+            counts.remove(userId);
+        }
+        publishChange(Set.of(userId));
+    }
+
+    public void invalidateAll() {
+        synchronized (this) {
+            counts.clear();
+        }
+        publishChange(null);
+    }
+
+    public synchronized int cachedUserCount() {
+        return counts.size();
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.unread-counter.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        Map<Long, Long> versions = selectForReconcile();
+        if (versions.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> actual = countFromDatabase(versions.keySet());
+
+        long drifted = 0;
+        int cached;
+        synchronized (this) {
+            reconcileRound++;
+            for (Map.Entry<Long, Long> selected : versions.entrySet()) {
+                Entry entry = counts.get(selected.getKey());
+                if (entry == null || entry.version != selected.getValue()) {
+                    continue;
+                }
+                long count = actual.getOrDefault(selected.getKey(), 0L);
+                if (entry.count != count) {
+                    entry.count = count;
+                    drifted++;
+                }
+                entry.dirty = false;
+                entry.reconciledRound = reconcileRound;
+            }
+            cached = counts.size();
+        }
+        if (drifted > 0) {
+            driftCounter.increment(drifted);
+            log.info("Reconciled unread notification counters: {} of {} checked users had drifted ({} cached).", drifted, versions.size(), cached);
+        }
+    }
+
+    /**
+     * Picks the users to reconcile, dirty ones first, and returns the version each entry had when it was picked.
+     */
+    private synchronized Map<Long, Long> selectForReconcile() {
+        Map<Long, Long> versions = new HashMap<>();
+        PriorityQueue<Map.Entry<Long, Entry>> longestAgo = new PriorityQueue<>(
+                Comparator.comparingLong((Map.Entry<Long, Entry> candidate) -> candidate.getValue().reconciledRound).reversed());
+        for (Map.Entry<Long, Entry> candidate : counts.entrySet()) {
+            if (candidate.getValue().dirty) {
+                if (versions.size() < reconcileBatchSize) {
+                    versions.put(candidate.getKey(), candidate.getValue().version);
+                }
+            } else {
+                longestAgo.add(candidate);
+                if (longestAgo.size() > reconcileBatchSize) {
+                    longestAgo.poll();
+                }
+            }
+        }
+        List<Map.Entry<Long, Entry>> sampled = new ArrayList<>(longestAgo);
+        sampled.sort(Comparator.comparingLong(candidate -> candidate.getValue().reconciledRound));
+        for (Map.Entry<Long, Entry> candidate : sampled) {
+            if (versions.size() >= reconcileBatchSize) {
+                break;
+            }
+            versions.put(candidate.getKey(), candidate.getValue().version);
+        }
+        return versions;
+    }
+
+    private void publishChange(Set<Long> userIds) {
+        clusterRelay.publish(RelayFrame.unreadChanged(clusterRelay.nodeId(), userIds));
+    }
+
+    /**
+     * Drops the entries another node changed. Callers write to the counter once their rows are committed, so a count
+     * loaded from here on includes them.
+     */
+    private void onFrame(RelayFrame frame) {
+        if (frame.type() != RelayFrame.Type.UNREAD_CHANGED) {
+            return;
+        }
+        synchronized (this) {
+            if (frame.userIds() == null) {
+                counts.clear();
+            } else {
+                frame.userIds().forEach(counts::remove);
+            }
+        }
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Long> eldest = counts.keySet().iterator();
+        while (counts.size() > maxUsers && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictionCounter.increment();
+        }
+    }
+
+    private long countFromDatabase(Long userId) {
+        long watermark = broadcastReadWatermarkRepository.findById(userId)
+                .map(BroadcastReadWatermark::getLastReadId)
+                .orElse(0L);
+        return notificationRepository.countByUserIdAndIsReadFalse(userId)
+                + broadcastNotificationRepository.countByIdGreaterThan(watermark);
+    }
+
+    private Map<Long, Long> countFromDatabase(Collection<Long> userIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : notificationRepository.countUnreadByUserIds(userIds)) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+        Map<Long, Long> watermarks = new HashMap<>();
+        for (BroadcastReadWatermark watermark : broadcastReadWatermarkRepository.findAllById(userIds)) {
+            watermarks.put(watermark.getUserId(), watermark.getLastReadId());
+        }
+        // Only a week of broadcasts is retained, so their ids are few enough to count above each watermark in memory.
+        long[] broadcastIds = broadcastNotificationRepository.findAllIds().stream().mapToLong(Long::longValue).toArray();
+        for (Long userId : userIds) {
+            long watermark = watermarks.getOrDefault(userId, 0L);
+            int firstUnread = Arrays.binarySearch(broadcastIds, watermark + 1);
+            if (firstUnread < 0) {
+                firstUnread = -firstUnread - 1;
+            }
+            counts.merge(userId, (long) (broadcastIds.length - firstUnread), Long::sum);
+        }
+        return counts;
+    }
+
+    private static final class Entry {
+        private long count;
+        private long version;
+        private boolean dirty;
+        private long reconciledRound;
+
+        private Entry(long count) {
+            this.count = count;
+        }
+
+        private void update(long newCount) {
+            count = newCount;
+            version++;
+            dirty = true;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.configuration.cluster.ClusterRelay;
+import com.gamehub.backend.configuration.cluster.RelayFrame;
+import com.gamehub.backend.persistence.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Holds every taken username and email, trimmed and lower-cased, so availability checks such as the signup form's
+ * per-keystroke username check are answered from memory. The sets are loaded once the application is ready and
+ * kept current by the user service and by the changes other nodes publish over the cluster relay; until the load
+ * finishes, lookups go to the database.
+ */
+@Component
+@Slf4j
+public class UserAvailabilityIndex {
+
+    static final int MAX_USERNAME_LENGTH = 20;
+    private static final int MAX_SUGGESTION_ATTEMPTS = 1000;
+
+    private final UserRepository userRepository;
+    private final ClusterRelay relay;
+    private final Set<String> usernames = ConcurrentHashMap.newKeySet();
+    private final Set<String> emails = ConcurrentHashMap.newKeySet();
+    private final Counter databaseLookupCounter;
+    private volatile boolean loaded;
+
+    @Autowired
+    public UserAvailabilityIndex(UserRepository userRepository, ClusterRelay relay, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.relay = relay;
+        meterRegistry.gaugeCollectionSize("users.availability.usernames", Tags.empty(), usernames);
+        meterRegistry.gaugeCollectionSize("users.availability.emails", Tags.empty(), emails);
+        this.databaseLookupCounter = meterRegistry.counter("users.availability.database.lookups");
+        relay.addListener(this::onFrame);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        userRepository.findAllUsernames().forEach(username -> add(usernames, username));
+        userRepository.findAllEmails().forEach(email -> add(emails, email));
+        loaded = true;
+        log.info("Loaded {} usernames and {} emails into the availability index.", usernames.size(), emails.size());
+    }
+
+    public boolean isUsernameTaken(String username) {
+        if (!loaded) {
+            databaseLookupCounter.increment();
+            return userRepository.existsByUsername(username);
+        }
+        return username != null && usernames.contains(normalize(username));
+    }
+
+    public boolean isEmailTaken(String email) {
+        if (!loaded) {
+            databaseLookupCounter.increment();
+            return userRepository.existsByEmail(email);
+        }
+        return email != null && emails.contains(normalize(email));
+    }
+
+    /**
+     * Like {@link #isUsernameTaken}, but a free answer is checked against the database before it is trusted, for
+     * signups that must not duplicate a name written past the index, such as by another tool. A name found there is
+     * added to the index.
+     */
+    public boolean confirmUsernameTaken(String username) {
+        return isUsernameTaken(username) || loaded && confirmInDatabase(usernames, username, userRepository::existsByUsername);
+    }
+
+    public boolean confirmEmailTaken(String email) {
+        return isEmailTaken(email) || loaded && confirmInDatabase(emails, email, userRepository::existsByEmail);
+    }
+
+    /**
+     * Returns up to {@code limit} free usernames made by appending a number to the requested one, shortened where
+     * needed to stay within the username length limit.
+     */
+    public List<String> suggestUsernames(String username, int limit) {
+        List<String> suggestions = new ArrayList<>(limit);
+        if (!StringUtils.hasText(username)) {
+            return suggestions;
+        }
+        String base = username.trim();
+        for (int n = 1; n <= MAX_SUGGESTION_ATTEMPTS && suggestions.size() < limit; n++) {
+            String suffix = Integer.toString(n);
+            String candidate = base.substring(0, Math.min(base.length(), MAX_USERNAME_LENGTH - suffix.length())) + suffix;
+            if (!isUsernameTaken(candidate)) {
+                suggestions.add(candidate);
+            }
+        }
+        return suggestions;
+    }
+
+    public void registered(String username, String email) {
+        add(usernames, username);
+        add(emails, email);
+        relay.publish(RelayFrame.namesTaken(relay.nodeId(), normalize(username), normalize(email)));
+    }
+
+    public void renamed(String previousUsername, String previousEmail, String username, String email) {
+        String releasedUsername = Objects.equals(normalize(previousUsername), normalize(username)) ? null : previousUsername;
+        String releasedEmail = Objects.equals(normalize(previousEmail), normalize(email)) ? null : previousEmail;
+        if (releasedUsername == null && releasedEmail == null) {
+            return;
+        }
+        removed(releasedUsername, releasedEmail);
+        registered(releasedUsername == null ? null : username, releasedEmail == null ? null : email);
+    }
+
+    public void removed(String username, String email) {
+        remove(usernames, username);
+        remove(emails, email);
+        relay.publish(RelayFrame.namesReleased(relay.nodeId(), normalize(username), normalize(email)));
+    }
+
+    private void onFrame(RelayFrame frame) {
+        if (frame.type() == RelayFrame.Type.NAMES_TAKEN) {
+            String[] names = frame.names();
+            add(usernames, names[0]);
+            add(emails, names[1]);
+        } else if (frame.type() == RelayFrame.Type.NAMES_RELEASED) {
+            String[] names = frame.names();
+            remove(usernames, names[0]);
+            remove(emails, names[1]);
+        }
+    }
+
+    private boolean confirmInDatabase(Set<String> names, String name, Predicate<String> existsInDatabase) {
+        databaseLookupCounter.increment();
+        if (!existsInDatabase.test(name)) {
+            return false;
+        }
+        add(names, name);
+        return true;
+    }
+
+    private static void add(Set<String> names, String name) {
+        if (name != null) {
+            names.add(normalize(name));
+        }
+    }
+
+    private static void remove(Set<String> names, String name) {
+        if (name != null) {
+            names.remove(normalize(name));
+        }
+    }
+
+    private static String normalize(String name) {
+        return name == null ? null : name.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,329 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.configuration.UserSubscriptionTracker;
+import com.gamehub.backend.configuration.cluster.ClusterDirectory;
+import com.gamehub.backend.configuration.cluster.ClusterRelay;
+import com.gamehub.backend.configuration.cluster.RelayFrame;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends STOMP messages to {@code /user/{id}/...} destinations across the cluster. A user subscribed on this node is
+ * sent to directly; a user subscribed on another node is reached through the {@link ClusterRelay}. Otherwise the
+ * simple broker would drop the message, so it is kept in a bounded per-user queue instead and replayed once the user
+ * subscribes to the same destination again, here or on another node.
+ */
+@Component
+@Slf4j
+public class UserMessageSender {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final UserSubscriptionTracker subscriptionTracker;
+    private final ClusterRelay clusterRelay;
+    private final ClusterDirectory clusterDirectory;
+    private final int maxMessagesPerUser;
+    private final int maxUsers;
+    private final long ttlNanos;
+    private final Map<Long, Deque<PendingMessage>> pendingByUser = new ConcurrentHashMap<>();
+
+    private final Counter bufferedCounter;
+    private final Counter droppedCounter;
+    private final Counter replayedCounter;
+    private final Counter relayedCounter;
+
+    @Autowired
+    public UserMessageSender(SimpMessagingTemplate messagingTemplate,
+                             UserSubscriptionTracker subscriptionTracker,
+                             ClusterRelay clusterRelay,
+                             ClusterDirectory clusterDirectory,
+                             MeterRegistry meterRegistry,
+                             @Value("${websocket.offline-buffer.max-messages-per-user:100}") int maxMessagesPerUser,
+                             @Value("${websocket.offline-buffer.max-users:10000}") int maxUsers,
+                             @Value("${websocket.offline-buffer.ttl-ms:600000}") long ttlMillis) {
+        this.messagingTemplate = messagingTemplate;
+        this.subscriptionTracker = subscriptionTracker;
+        this.clusterRelay = clusterRelay;
+        this.clusterDirectory = clusterDirectory;
+        this.maxMessagesPerUser = maxMessagesPerUser;
+        this.maxUsers = maxUsers;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+
+        meterRegistry.gaugeMapSize("websocket.offline.buffered.users", Tags.empty(), pendingByUser);
+        this.bufferedCounter = meterRegistry.counter("websocket.offline.buffered");
+        this.droppedCounter = meterRegistry.counter("websocket.offline.dropped");
+        this.replayedCounter = meterRegistry.counter("websocket.offline.replayed");
+        this.relayedCounter = meterRegistry.counter("websocket.cluster.relayed");
+
+        clusterRelay.addListener(this::onFrame);
+    }
+
+    public void convertAndSendToUser(Long userId, String destination, Object payload) {
+        convertAndSendToUsers(List.of(userId), destination, payload);
+    }
+
+    public void sendToUser(Long userId, String destination, Message<?> message) {
+        sendToUsers(List.of(userId), destination, message);
+    }
+
+    /**
+     * Serializes the payload once and sends the resulting bytes to every user in the list.
+     */
+    public void convertAndSendToUsers(Collection<Long> userIds, String destination, Object payload) {
+        sendToUsers(userIds, destination, messagingTemplate.getMessageConverter().toMessage(payload, null));
+    }
+
+    /**
+     * Sends one pre-built message to several users: directly to those subscribed here, as a single relay frame per
+     * node for those subscribed elsewhere, and into the offline buffer for the rest. A user with sessions on several
+     * nodes, e.g. a phone and a browser, gets the message on each of them. The payload is never re-encoded per
+     * recipient.
+     */
+    public void sendToUsers(Collection<Long> userIds, String destination, Message<?> message) {
+        Map<String, Set<Long>> remoteUsersByNode = new HashMap<>();
+        Set<Long> sentHere = new HashSet<>();
+        for (Long userId : userIds) {
+            if (subscriptionTracker.isConnected(userId)) {
+                messagingTemplate.send(userDestination(userId, destination), message);
+                sentHere.add(userId);
+            }
+            Set<String> nodes = clusterDirectory.nodesFor(userId);
+            if (nodes.isEmpty() && !sentHere.contains(userId)) {
+                buffer(userId, destination, message);
+            }
+            for (String nodeId : nodes) {
+                remoteUsersByNode.computeIfAbsent(nodeId, id -> new HashSet<>()).add(userId);
+            }
+        }
+        if (!remoteUsersByNode.isEmpty()) {
+            relay(remoteUsersByNode, destination, message, sentHere);
+        }
+    }
+
+    /**
+     * Sends a message to every user subscribed on any node.
+     */
+    public void sendToConnectedUsers(String destination, Message<?> message) {
+        sendToLocalUsers(destination, message);
+        clusterRelay.publish(RelayFrame.broadcast(clusterRelay.nodeId(), destination, contentTypeOf(message), payloadOf(message)));
+    }
+
+    /**
+     * Called once the broker has registered a user's subscription on this node: replays what was buffered for that
+     * destination and tells the other nodes where the user now is.
+     */
+    public void userSubscribed(Long userId, String destination) {
+        replay(userId, destination);
+        clusterDirectory.announceLocalSubscription(userId);
+    }
+
+    /**
+     * Sends every message buffered for this user and destination, oldest first.
+     */
+    public void replay(Long userId, String destination) {
+        List<PendingMessage> replayed = drain(userId, destination);
+        for (PendingMessage message : replayed) {
+            messagingTemplate.send(userDestination(userId, destination), message.message());
+        }
+        replayedCounter.increment(replayed.size());
+    }
+
+    public int pendingCount(Long userId) {
+        Deque<PendingMessage> pending = pendingByUser.get(userId);
+        return pending == null ? 0 : pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${websocket.offline-buffer.evict-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        long[] expired = {0};
+        for (Long userId : pendingByUser.keySet()) {
+            pendingByUser.computeIfPresent(userId, (id, pending) -> {
+                while (!pending.isEmpty() && now - pending.peekFirst().bufferedAt() >= ttlNanos) {
+                    pending.pollFirst();
+                    expired[0]++;
+                }
+                return pending.isEmpty() ? null : pending;
+            });
+        }
+        if (expired[0] > 0) {
+            droppedCounter.increment(expired[0]);
+            log.debug("Evicted {} expired offline messages.", expired[0]);
+        }
+    }
+
+    /**
+     * Relays the message to each node; users no node accepted it for are buffered, unless it already reached them here.
+     */
+    private void relay(Map<String, Set<Long>> remoteUsersByNode, String destination, Message<?> message, Set<Long> sentHere) {
+        String contentType = contentTypeOf(message);
+        byte[] payload = payloadOf(message);
+        Set<Long> relayed = new HashSet<>();
+        Set<Long> failed = new LinkedHashSet<>();
+        remoteUsersByNode.forEach((nodeId, nodeUsers) -> {
+            RelayFrame frame = nodeUsers.size() == 1
+                    ? RelayFrame.deliver(clusterRelay.nodeId(), nodeUsers.iterator().next(), destination, contentType, payload)
+                    : RelayFrame.multicast(clusterRelay.nodeId(), nodeUsers, destination, contentType, payload);
+            if (clusterRelay.send(nodeId, frame)) {
+                relayed.addAll(nodeUsers);
+            } else {
+                failed.addAll(nodeUsers);
+            }
+        });
+        relayedCounter.increment(relayed.size());
+        failed.removeAll(relayed);
+        failed.removeAll(sentHere);
+        for (Long userId : failed) {
+            buffer(userId, destination, message);
+        }
+    }
+
+    private void onFrame(RelayFrame frame) {
+        switch (frame.type()) {
+            case DELIVER -> deliverRelayed(Set.of(frame.userId()), frame);
+            case MULTICAST -> deliverRelayed(frame.userIds(), frame);
+            case BROADCAST -> sendToLocalUsers(frame.destination(), messageOf(frame));
+            case USER_UP -> forwardPending(frame.userId(), frame.sourceNodeId());
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Relayed messages are never routed onwards: if a user already left this node the message waits here until the
+     * user shows up again and it is forwarded.
+     */
+    private void deliverRelayed(Set<Long> userIds, RelayFrame frame) {
+        Message<byte[]> message = messageOf(frame);
+        for (Long userId : userIds) {
+            if (subscriptionTracker.isConnected(userId)) {
+                messagingTemplate.send(userDestination(userId, frame.destination()), message);
+            } else {
+                buffer(userId, frame.destination(), message);
+            }
+        }
+    }
+
+    private void sendToLocalUsers(String destination, Message<?> message) {
+        for (Long userId : subscriptionTracker.connectedUserIds()) {
+            messagingTemplate.send(userDestination(userId, destination), message);
+        }
+    }
+
+    private void forwardPending(Long userId, String nodeId) {
+        List<PendingMessage> pending = drain(userId, null);
+        for (PendingMessage message : pending) {
+            RelayFrame frame = RelayFrame.deliver(clusterRelay.nodeId(), userId, message.destination(),
+                    contentTypeOf(message.message()), payloadOf(message.message()));
+            if (clusterRelay.send(nodeId, frame)) {
+                relayedCounter.increment();
+            } else {
+                buffer(userId, message.destination(), message.message());
+            }
+        }
+    }
+
+    /**
+     * Removes and returns the unexpired messages buffered for this user, limited to one destination unless it is null.
+     */
+    private List<PendingMessage> drain(Long userId, String destination) {
+        List<PendingMessage> drained = new ArrayList<>();
+        pendingByUser.computeIfPresent(userId, (id, pending) -> {
+            long now = System.nanoTime();
+            Iterator<PendingMessage> iterator = pending.iterator();
+            while (iterator.hasNext()) {
+                PendingMessage message = iterator.next();
+                if (destination == null || message.destination().equals(destination)) {
+                    iterator.remove();
+                    if (now - message.bufferedAt() < ttlNanos) {
+                        drained.add(message);
+                    } else {
+                        droppedCounter.increment();
+                    }
+                }
+            }
+            return pending.isEmpty() ? null : pending;
+        });
+        return drained;
+    }
+
+    private void buffer(Long userId, String destination, Message<?> message) {
+        if (!pendingByUser.containsKey(userId) && pendingByUser.size() >= maxUsers) {
+            droppedCounter.increment();
+            return;
+        }
+        pendingByUser.compute(userId, (id, pending) -> {
+            Deque<PendingMessage> queue = pending != null ? pending : new ArrayDeque<>();
+            if (queue.size() >= maxMessagesPerUser) {
+                queue.pollFirst();
+                droppedCounter.increment();
+            }
+            queue.addLast(new PendingMessage(destination, message, System.nanoTime()));
+            return queue;
+        });
+        bufferedCounter.increment();
+
+        // The user may have subscribed between the connectivity check and the buffering above, after the replay
+        // for that subscription already ran.
+        if (subscriptionTracker.isConnected(userId)) {
+            replay(userId, destination);
+        }
+    }
+
+    private static String userDestination(Long userId, String destination) {
+        return "/user/" + userId + destination;
+    }
+
+    private static String contentTypeOf(Message<?> message) {
+        Object contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+        return contentType != null ? contentType.toString() : null;
+    }
+
+    private static byte[] payloadOf(Message<?> message) {
+        Object payload = message.getPayload();
+        if (payload instanceof byte[] bytes) {
+            return bytes;
+        }
+        if (payload instanceof String text) {
+            return text.getBytes(StandardCharsets.UTF_8);
+        }
+        throw new IllegalArgumentException("Cannot relay a message with a " + payload.getClass().getName() + " payload");
+    }
+
+    private static Message<byte[]> messageOf(RelayFrame frame) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        if (frame.contentType() != null) {
+            accessor.setContentType(MimeTypeUtils.parseMimeType(frame.contentType()));
+        }
+        return MessageBuilder.createMessage(frame.payload(), accessor.getMessageHeaders());
+    }
+
+    private record PendingMessage(String destination, Message<?> message, long bufferedAt) {
+    }
+}
@@ -1,45 +1,69 @@
 package com.gamehub.backend.business.impl;
 
+import com.gamehub.backend.configuration.exception.PasswordHashingBusyException;
 import com.gamehub.backend.configuration.exception.UserNotFoundException;
 import com.gamehub.backend.domain.FriendRelationship;
+import com.gamehub.backend.domain.PasswordResetToken;
+import com.gamehub.backend.dto.FriendEdgeDTO;
 import com.gamehub.backend.dto.FriendRequestDTO;
 import com.gamehub.backend.dto.UserDTO;
+import com.gamehub.backend.business.NotificationService;
 import com.gamehub.backend.business.UserService;
 import com.gamehub.backend.configuration.security.token.JwtUtil;
+import com.gamehub.backend.configuration.security.token.TokenDenylist;
 import com.gamehub.backend.domain.Role;
 import com.gamehub.backend.domain.User;
 import com.gamehub.backend.persistence.FriendRelationshipRepository;
 import com.gamehub.backend.persistence.UserRepository;
 import com.gamehub.backend.persistence.mapper.UserMapper;
-import jakarta.mail.MessagingException;
 import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.Set;
 
 @Service
+@Slf4j
 public class UserServiceImpl implements UserService {
+    private static final int USERNAME_SUGGESTIONS = 3;
+
     private final UserRepository userRepository;
     private final FriendRelationshipRepository friendRelationshipRepository;
     private final JwtUtil jwtUtil;
+    private final TokenDenylist tokenDenylist;
     private final PasswordEncoder passwordEncoder;
     private final UserMapper userMapper;
-    private final MailService mailService;
+    private final OutboxService outboxService;
+    private final PasswordResetTokenStore passwordResetTokenStore;
+    private final UserAvailabilityIndex userAvailabilityIndex;
+    private final FriendGraph friendGraph;
+    private final NotificationService notificationService;
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, FriendRelationshipRepository friendRelationshipRepository, JwtUtil jwtUtil, PasswordEncoder passwordEncoder, UserMapper userMapper, MailService mailService) {
+    public UserServiceImpl(UserRepository userRepository, FriendRelationshipRepository friendRelationshipRepository, JwtUtil jwtUtil, TokenDenylist tokenDenylist, PasswordEncoder passwordEncoder, UserMapper userMapper, OutboxService outboxService, PasswordResetTokenStore passwordResetTokenStore, UserAvailabilityIndex userAvailabilityIndex, FriendGraph friendGraph, NotificationService notificationService) {
         this.userRepository = userRepository;
         this.friendRelationshipRepository = friendRelationshipRepository;
         this.jwtUtil = jwtUtil;
+        this.tokenDenylist = tokenDenylist;
         this.passwordEncoder = passwordEncoder;
         this.userMapper = userMapper;
-        this.mailService = mailService;
+        this.outboxService = outboxService;
+        this.passwordResetTokenStore = passwordResetTokenStore;
+        this.userAvailabilityIndex = userAvailabilityIndex;
+        this.friendGraph = friendGraph;
+        this.notificationService = notificationService;
     }
 
     @Override
@@ -47,6 +71,8 @@ public class UserServiceImpl implements UserService {
         validateUserDTO(userDTO);
         User user = prepareUserEntity(userDTO);
         user = userRepository.save(user);
+        userAvailabilityIndex.registered(user.getUsername(), user.getEmail());
+        notificationService.initializeBroadcastWatermark(user.getId());
         return buildUserDTOwithJwt(user);
     }
 
@@ -68,6 +94,9 @@ public class UserServiceImpl implements UserService {
     public UserDTO updateUser(Long id, UserDTO userDTO) {
         return userRepository.findById(id)
                 .map(existingUser -> {
+                    String previousUsername = existingUser.getUsername();
+                    String previousEmail = existingUser.getEmail();
+                    Set<Role> previousRoles = rolesOf(existingUser);
                     existingUser.setUsername(userDTO.getUsername());
                     existingUser.setEmail(userDTO.getEmail());
                     if (userDTO.getPassword() != null && !userDTO.getPassword().isEmpty() &&
@@ -79,6 +108,11 @@ public class UserServiceImpl implements UserService {
                         existingUser.setRoles(userDTO.getRole().stream().map(Role::valueOf).toList());
                     }
                     userRepository.save(existingUser);
+                    userAvailabilityIndex.renamed(previousUsername, previousEmail, existingUser.getUsername(), existingUser.getEmail());
+                    if (!Objects.equals(previousUsername, existingUser.getUsername())
+                            || !previousRoles.equals(rolesOf(existingUser))) {
+                        tokenDenylist.revoke(existingUser.getId());
+                    }
                     return mapToDto(existingUser);
                 }).orElseThrow(() -> new UserNotFoundException("User not found"));
     }
@@ -94,7 +128,11 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public void deleteUser(Long id) {
+        Optional<User> user = userRepository.findById(id);
         userRepository.deleteById(id);
+        tokenDenylist.revokeAll(id);
+        friendGraph.userRemoved(id);
+        user.ifPresent(deleted -> userAvailabilityIndex.removed(deleted.getUsername(), deleted.getEmail()));
     }
 
     private User prepareUserEntity(UserDTO userDTO) {
@@ -110,7 +148,7 @@ public class UserServiceImpl implements UserService {
 
     private UserDTO buildUserDTOwithJwt(User user) {
         UserDTO dto = userMapper.toDto(user);
-        dto.setJwt(jwtUtil.generateToken(dto.getUsername()));
+        dto.setJwt(generateToken(user));
         return dto;
     }
 
@@ -118,19 +156,51 @@ public class UserServiceImpl implements UserService {
     public Optional<UserDTO> login(UserDTO userDTO) {
         return userRepository.findByUsername(userDTO.getUsername())
                 .filter(user -> passwordEncoder.matches(userDTO.getPassword(), user.getPasswordHash()))
-                .map(this::mapToDto);
+                .map(user -> {
+                    upgradePasswordHash(user, userDTO.getPassword());
+                    return mapToDto(user);
+                });
+    }
+
+    /**
+     * Re-hashes a verified password whose stored hash was made with a weaker setting than the current one. The login
+     * already succeeded, so when the hashing pool is busy the upgrade waits for the next login instead of failing it.
+     */
+    private void upgradePasswordHash(User user, String rawPassword) {
+        if (!passwordEncoder.upgradeEncoding(user.getPasswordHash())) {
+            return;
+        }
+        try {
+            user.setPasswordHash(passwordEncoder.encode(rawPassword));
+        } catch (PasswordHashingBusyException e) {
+            log.debug("Skipping the password hash upgrade of user {}: {}", user.getId(), e.getMessage());
+            return;
+        }
+        userRepository.save(user);
     }
 
     private UserDTO mapToDto(User user) {
         UserDTO dto = userMapper.toDto(user);
-        dto.setJwt(jwtUtil.generateToken(user.getUsername()));
+        dto.setJwt(generateToken(user));
         return dto;
     }
 
+    private static Set<Role> rolesOf(User user) {
+        return user.getRoles() == null ? Set.of() : Set.copyOf(user.getRoles());
+    }
+
+    private String generateToken(User user) {
+        List<String> roles = user.getRoles() == null ? List.of() : user.getRoles().stream().map(Role::name).toList();
+        return jwtUtil.generateToken(user.getId(), user.getUsername(), roles);
+    }
+
     @Override
     public FriendRelationship sendRequest(Long userId, Long friendId) {
         User user = userRepository.findById(userId).orElseThrow(() -> new EntityNotFoundException("User not found with id " + userId));
         User friend = userRepository.findById(friendId).orElseThrow(() -> new EntityNotFoundException("Friend not found with id " + friendId));
+        if (friendGraph.areFriends(userId, friendId)) {
+            throw new IllegalArgumentException("Friend request already sent or user is already your friend");
+        }
 
         boolean friendRequestExists = friendRelationshipRepository.existsByUserAndFriend(user, friend) ||
                 friendRelationshipRepository.existsByUserAndFriend(friend, user);
@@ -172,12 +242,16 @@ public class UserServiceImpl implements UserService {
         relationship.setStatus(status);
         if (status == FriendRelationship.Status.ACCEPTED) {
             relationship = friendRelationshipRepository.save(relationship);
+            friendGraph.linked(relationship.getId(), relationship.getUser().getId(), relationship.getFriend().getId());
         }
         return relationship;
     }
 
     @Override
     public List<FriendRequestDTO> getFriends(Long userId) {
+        if (friendGraph.isLoaded()) {
+            return getFriendsFromGraph(userId);
+        }
         User user = userRepository.findById(userId).orElseThrow(() -> new EntityNotFoundException("User not found with id " + userId));
         List<FriendRelationship> friendRelationships = friendRelationshipRepository.findByUserAndStatusOrFriendAndStatus(user, FriendRelationship.Status.ACCEPTED, user, FriendRelationship.Status.ACCEPTED);
 
@@ -195,16 +269,73 @@ public class UserServiceImpl implements UserService {
         FriendRelationship relationship = friendRelationshipRepository.findById(relationshipId)
                 .orElseThrow(() -> new EntityNotFoundException("Friend relationship not found with id " + relationshipId));
         friendRelationshipRepository.delete(relationship);
+        if (relationship.getStatus() == FriendRelationship.Status.ACCEPTED) {
+            friendGraph.unlinked(relationship.getUser().getId(), relationship.getFriend().getId());
+        }
+    }
+
+    @Override
+    public boolean areFriends(Long userId, Long otherId) {
+        if (friendGraph.isLoaded()) {
+            return friendGraph.areFriends(userId, otherId);
+        }
+        return friendIdsFromDatabase(userId).contains(otherId);
+    }
+
+    @Override
+    public int countMutualFriends(Long userId, Long otherId) {
+        if (friendGraph.isLoaded()) {
+            return friendGraph.mutualFriendCount(userId, otherId);
+        }
+        Set<Long> mutual = friendIdsFromDatabase(userId);
+        mutual.retainAll(friendIdsFromDatabase(otherId));
+        return mutual.size();
+    }
+
+    private Set<Long> friendIdsFromDatabase(Long userId) {
+        Set<Long> friendIds = new HashSet<>();
+        for (FriendRequestDTO relationship : getFriends(userId)) {
+            friendIds.add(userId.equals(relationship.getUser().getId()) ? relationship.getFriend().getId() : relationship.getUser().getId());
+        }
+        return friendIds;
+    }
+
+    /**
+     * Builds the friend list from the graph's edges with one primary-key lookup for the user and all friends, and maps
+     * each of them once rather than once per relationship.
+     */
+    private List<FriendRequestDTO> getFriendsFromGraph(Long userId) {
+        List<FriendEdgeDTO> edges = friendGraph.edges(userId);
+        List<Long> ids = new ArrayList<>(edges.size() + 1);
+        ids.add(userId);
+        for (long friendId : friendGraph.friendIds(userId)) {
+            ids.add(friendId);
+        }
+        Map<Long, UserDTO> users = new HashMap<>();
+        for (User found : userRepository.findAllById(ids)) {
+            users.put(found.getId(), userMapper.toDto(found));
+        }
+        if (!users.containsKey(userId)) {
+            throw new EntityNotFoundException("User not found with id " + userId);
+        }
+        return edges.stream()
+                .filter(edge -> users.containsKey(edge.requesterId()) && users.containsKey(edge.addresseeId()))
+                .map(edge -> new FriendRequestDTO(
+                        edge.relationshipId(),
+                        users.get(edge.requesterId()),
+                        users.get(edge.addresseeId()),
+                        FriendRelationship.Status.ACCEPTED))
+                .toList();
     }
 
     private void validateUserDTO(UserDTO userDTO) {
         if (!StringUtils.hasText(userDTO.getUsername()) || !StringUtils.hasText(userDTO.getEmail()) || !StringUtils.hasText(userDTO.getPassword())) {
             throw new IllegalArgumentException("Username, email, and password must not be empty");
         }
-        if (userRepository.existsByUsername(userDTO.getUsername())) {
+        if (userAvailabilityIndex.confirmUsernameTaken(userDTO.getUsername())) {
             throw new IllegalArgumentException("Username already exists");
         }
-        if (userRepository.existsByEmail(userDTO.getEmail())) {
+        if (userAvailabilityIndex.confirmEmailTaken(userDTO.getEmail())) {
             throw new IllegalArgumentException("Email already exists");
         }
         if (userDTO.getPassword().length() < 8) {
@@ -217,18 +348,21 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public boolean verifyUsername(String username) {
-        return userRepository.existsByUsername(username);
+        return userAvailabilityIndex.isUsernameTaken(username);
+    }
+
+    @Override
+    public List<String> suggestUsernames(String username) {
+        return userAvailabilityIndex.suggestUsernames(username, USERNAME_SUGGESTIONS);
     }
 
     @Override
+    @Transactional
     public void requestPasswordReset(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new EntityNotFoundException("User not found with email: " + email));
 
-        String token = UUID.randomUUID().toString();
-        user.setResetToken(token);
-        user.setTokenExpiryDate(LocalDateTime.now().plusMinutes(10));
-        userRepository.save(user);
+        String token = passwordResetTokenStore.issue(user.getId());
 
         String resetUrl = "http://localhost:5173/forgot-password?token=" + token;
         String subject = "Password Reset Request";
@@ -237,43 +371,42 @@ public class UserServiceImpl implements UserService {
                 + "<p>This reset request will expire in 10 minutes. If it expired, you can request a new one.</p>"
                 + "<p>If this wasn't requested by you, you can ignore this email.</p>";
 
-        try {
-            mailService.sendMail(user.getEmail(), subject, text);
-        } catch (MessagingException e) {
-            throw new RuntimeException("Failed to send email", e);
-        }
+        outboxService.enqueueEmail(user.getEmail(), subject, text);
     }
 
     @Override
     public boolean validateResetToken(String token) {
-        User user = userRepository.findByResetToken(token)
-                .orElseThrow(() -> new EntityNotFoundException("Invalid token"));
-
-        if (user.getTokenExpiryDate().isBefore(LocalDateTime.now())) {
-            throw new IllegalArgumentException("Invalid or expired token");
-        }
-
+        findUsableResetToken(token);
         return true;
     }
 
     @Override
+    @Transactional
     public boolean resetPasswordWithToken(String token, String newPassword) {
-        if (!validateResetToken(token)) {
-            throw new IllegalArgumentException("Invalid or expired token");
-        }
-
-        User user = userRepository.findByResetToken(token)
-                .orElseThrow(() -> new EntityNotFoundException("Invalid or expired token"));
+        PasswordResetToken resetToken = findUsableResetToken(token);
 
         validateNewPassword(newPassword);
 
+        if (!passwordResetTokenStore.consume(resetToken)) {
+            throw new IllegalArgumentException("Invalid or expired token");
+        }
+        User user = userRepository.findById(resetToken.getUserId())
+                .orElseThrow(() -> new EntityNotFoundException("Invalid or expired token"));
         user.setPasswordHash(passwordEncoder.encode(newPassword));
-        user.setResetToken(null);
-        user.setTokenExpiryDate(null);
         userRepository.save(user);
         return true;
     }
 
+    private PasswordResetToken findUsableResetToken(String token) {
+        PasswordResetToken resetToken = passwordResetTokenStore.find(token)
+                .orElseThrow(() -> new EntityNotFoundException("Invalid token"));
+
+        if (resetToken.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Invalid or expired token");
+        }
+        return resetToken;
+    }
+
     private void validateNewPassword(String password) {
         if (password.length() < 8) {
             throw new IllegalArgumentException("Password must be at least 8 characters long");
@@ -0,0 +1,43 @@
+package com.gamehub.backend.configuration;
+
+import com.gamehub.backend.business.impl.UserMessageSender;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Replays messages buffered for an offline user, and announces the user to the other nodes, once the broker has
+ * handled their SUBSCRIBE to a {@code /user/{id}/queue/...} destination. Replaying from the subscribe event itself would race the broker
+ * registering the subscription.
+ */
+@Component
+public class OfflineReplayInterceptor implements ExecutorChannelInterceptor {
+
+    private final ObjectProvider<UserMessageSender> userMessageSender;
+
+    public OfflineReplayInterceptor(ObjectProvider<UserMessageSender> userMessageSender) {
+        this.userMessageSender = userMessageSender;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (ex != null || !(handler instanceof AbstractBrokerMessageHandler)) {
+            return;
+        }
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        if (accessor.getMessageType() != SimpMessageType.SUBSCRIBE) {
+            return;
+        }
+        String destination = accessor.getDestination();
+        Long userId = UserSubscriptionTracker.userIdOf(destination);
+        if (userId != null) {
+            userMessageSender.getObject().userSubscribed(userId, UserSubscriptionTracker.queueDestinationOf(destination));
+        }
+    }
+}
@@ -2,28 +2,56 @@ package com.gamehub.backend.configuration;
 
 import com.gamehub.backend.business.ChatMessageService;
 import com.gamehub.backend.business.NotificationService;
+import com.gamehub.backend.business.impl.ChatHistoryCache;
+import com.gamehub.backend.persistence.partition.WeeklyPartitionManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
+/**
+ * Nightly storage maintenance. Upcoming weekly partitions are always created when partitioning is active; deleting
+ * chat messages, notifications and broadcasts older than one week only happens with
+ * {@code storage.cleanup.enabled=true}.
+ */
 @Component
 public class ScheduledCleanupTask {
 
     private final ChatMessageService chatMessageService;
     private final NotificationService notificationService;
+    private final WeeklyPartitionManager weeklyPartitionManager;
+    private final ChatHistoryCache chatHistoryCache;
+    private final boolean cleanupEnabled;
 
     @Autowired
-    public ScheduledCleanupTask(ChatMessageService chatMessageService, NotificationService notificationService) {
+    public ScheduledCleanupTask(ChatMessageService chatMessageService, NotificationService notificationService, WeeklyPartitionManager weeklyPartitionManager, ChatHistoryCache chatHistoryCache,
+                                @Value("${storage.cleanup.enabled:false}") boolean cleanupEnabled) {
         this.chatMessageService = chatMessageService;
         this.notificationService = notificationService;
+        this.weeklyPartitionManager = weeklyPartitionManager;
+        this.chatHistoryCache = chatHistoryCache;
+        this.cleanupEnabled = cleanupEnabled;
     }
 
     @Scheduled(cron = "0 0 0 * * ?")
     public void cleanupOldMessages() {
+        if (weeklyPartitionManager.isActive()) {
+            weeklyPartitionManager.createUpcomingPartitions(LocalDate.now());
+        }
+        if (!cleanupEnabled) {
+            return;
+        }
         LocalDateTime oneWeekAgo = LocalDateTime.now().minusWeeks(1);
-        chatMessageService.deleteOldMessages(oneWeekAgo);
-        notificationService.deleteOldNotifications(oneWeekAgo);
+        notificationService.deleteOldBroadcasts(oneWeekAgo);
+        if (weeklyPartitionManager.isActive()) {
+            weeklyPartitionManager.dropPartitionsBefore(oneWeekAgo);
+        } else {
+            chatMessageService.deleteOldMessages(oneWeekAgo);
+            notificationService.deleteOldNotifications(oneWeekAgo);
+        }
+        chatHistoryCache.evictBefore(oneWeekAgo);
     }
 }
@@ -0,0 +1,275 @@
+package com.gamehub.backend.configuration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Watches the outbound backlog of every websocket session. A frame counts as pending from the moment the broker
+ * hands it to the client outbound channel until a socket write carrying its payload goes out; writes are matched to
+ * pending frames by body, so frames the STOMP handler writes directly, such as ERROR frames, leave the backlog of
+ * other frames alone. Once a session is over its soft
+ * limits, MESSAGE frames for droppable destinations are discarded before they reach the session's send buffer, so
+ * chat messages and protocol frames still get through. A session whose current write has been stuck for longer than
+ * the send time limit is closed; the transport's own buffer and time limits remain the hard backstop.
+ */
+@Component
+@Slf4j
+public class SlowConsumerMonitor implements ChannelInterceptor, WebSocketHandlerDecoratorFactory {
+
+    private static final byte[] EMPTY_BODY = new byte[0];
+    private static final byte[] ERROR_COMMAND = "ERROR\n".getBytes(StandardCharsets.UTF_8);
+
+    private final long softBufferBytes;
+    private final int softQueueDepth;
+    private final long softSendTimeNanos;
+    private final long sendTimeLimitNanos;
+    private final List<String> droppableDestinations;
+    private final Map<String, SessionBacklog> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger slowSessions = new AtomicInteger();
+
+    private final DistributionSummary queueDepthSummary;
+    private final DistributionSummary bufferedBytesSummary;
+    private final Timer sendLatencyTimer;
+    private final Counter droppedCounter;
+    private final Counter evictedCounter;
+
+    @Autowired
+    public SlowConsumerMonitor(MeterRegistry meterRegistry,
+                               @Value("${websocket.slow-consumer.soft-buffer-bytes:131072}") long softBufferBytes,
+                               @Value("${websocket.slow-consumer.soft-queue-depth:200}") int softQueueDepth,
+                               @Value("${websocket.slow-consumer.soft-send-time-ms:2000}") long softSendTimeMillis,
+                               @Value("${websocket.send-time-limit-ms:10000}") long sendTimeLimitMillis,
+                               @Value("${websocket.slow-consumer.droppable-destinations:/queue/notifications,/queue/events}") List<String> droppableDestinations) {
+        this.softBufferBytes = softBufferBytes;
+        this.softQueueDepth = softQueueDepth;
+        this.softSendTimeNanos = TimeUnit.MILLISECONDS.toNanos(softSendTimeMillis);
+        this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMillis);
+        this.droppableDestinations = List.copyOf(droppableDestinations);
+
+        meterRegistry.gaugeMapSize("websocket.sessions.monitored", Tags.empty(), sessions);
+        meterRegistry.gauge("websocket.sessions.slow", slowSessions);
+        this.queueDepthSummary = meterRegistry.summary("websocket.session.queue.depth");
+        this.bufferedBytesSummary = meterRegistry.summary("websocket.session.buffered.bytes");
+        this.sendLatencyTimer = meterRegistry.timer("websocket.session.send.latency");
+        this.droppedCounter = meterRegistry.counter("websocket.frames.dropped");
+        this.evictedCounter = meterRegistry.counter("websocket.sessions.evicted");
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                SessionBacklog backlog = new SessionBacklog(session);
+                sessions.put(session.getId(), backlog);
+                super.afterConnectionEstablished(new MonitoredSession(session, backlog));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                if (CloseStatus.SESSION_NOT_RELIABLE.equalsCode(closeStatus)) {
+                    evictedCounter.increment();
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * Runs on the client outbound channel before a frame is queued for its session.
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        SessionBacklog backlog = sessionId == null ? null : sessions.get(sessionId);
+        if (backlog == null) {
+            return message;
+        }
+        if (isDroppable(message) && backlog.isSlow(System.nanoTime())) {
+            droppedCounter.increment();
+            return null;
+        }
+        backlog.accepted(payloadOf(message));
+        queueDepthSummary.record(backlog.pendingFrames.get());
+        bufferedBytesSummary.record(backlog.pendingBytes.get());
+        return message;
+    }
+
+    @Scheduled(fixedDelayString = "${websocket.slow-consumer.check-interval-ms:1000}")
+    public void checkSessions() {
+        long now = System.nanoTime();
+        int slow = 0;
+        for (SessionBacklog backlog : sessions.values()) {
+            long sendStartedAt = backlog.sendStartedAt;
+            if (sendStartedAt != 0 && now - sendStartedAt >= sendTimeLimitNanos) {
+                closeStalled(backlog, now - sendStartedAt);
+            } else if (backlog.isSlow(now)) {
+                slow++;
+            }
+        }
+        slowSessions.set(slow);
+    }
+
+    private void closeStalled(SessionBacklog backlog, long stalledNanos) {
+        log.warn("Closing websocket session {}: a send has been blocked for {} ms with {} frames ({} bytes) pending.",
+                backlog.session.getId(), TimeUnit.NANOSECONDS.toMillis(stalledNanos), backlog.pendingFrames.get(), backlog.pendingBytes.get());
+        sessions.remove(backlog.session.getId());
+        evictedCounter.increment();
+        try {
+            backlog.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.debug("Closing slow websocket session {} failed: {}", backlog.session.getId(), e.getMessage());
+        }
+    }
+
+    private boolean isDroppable(Message<?> message) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return false;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        return destination != null && droppableDestinations.stream().anyMatch(destination::endsWith);
+    }
+
+    private static byte[] payloadOf(Message<?> message) {
+        return message.getPayload() instanceof byte[] bytes ? bytes : EMPTY_BODY;
+    }
+
+    /**
+     * Returns the body of an encoded STOMP frame: everything between the blank line that ends the headers and the
+     * trailing NUL. Heartbeats have none. Returns null for ERROR frames, which the STOMP handler writes without going
+     * through the outbound channel and follows by closing the session.
+     */
+    private static byte[] frameBody(WebSocketMessage<?> message) {
+        byte[] frame;
+        if (message instanceof TextMessage text) {
+            frame = text.asBytes();
+        } else if (message instanceof BinaryMessage binary) {
+            ByteBuffer buffer = binary.getPayload().duplicate();
+            frame = new byte[buffer.remaining()];
+            buffer.get(frame);
+        } else {
+            return EMPTY_BODY;
+        }
+        if (startsWith(frame, ERROR_COMMAND)) {
+            return null;
+        }
+        for (int i = 0; i + 1 < frame.length; i++) {
+            if (frame[i] == '\n' && frame[i + 1] == '\n') {
+                int end = frame.length > i + 2 && frame[frame.length - 1] == 0 ? frame.length - 1 : frame.length;
+                return Arrays.copyOfRange(frame, i + 2, end);
+            }
+        }
+        return EMPTY_BODY;
+    }
+
+    private static boolean startsWith(byte[] frame, byte[] prefix) {
+        return frame.length >= prefix.length && Arrays.equals(frame, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    private final class SessionBacklog {
+        private final WebSocketSession session;
+        private final Queue<byte[]> pendingPayloads = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingFrames = new AtomicInteger();
+        private final AtomicLong pendingBytes = new AtomicLong();
+        private volatile long sendStartedAt;
+
+        private SessionBacklog(WebSocketSession session) {
+            this.session = session;
+        }
+
+        private boolean isSlow(long now) {
+            long started = sendStartedAt;
+            return pendingBytes.get() > softBufferBytes
+                    || pendingFrames.get() > softQueueDepth
+                    || (started != 0 && now - started > softSendTimeNanos);
+        }
+
+        private void accepted(byte[] payload) {
+            pendingPayloads.add(payload);
+            pendingFrames.incrementAndGet();
+            pendingBytes.addAndGet(payload.length);
+        }
+
+        /**
+         * Takes off the oldest pending frame with the written body. Frames usually go out in the order they were
+         * accepted, so that is the head of the queue; a write that matches no accepted frame takes nothing off.
+         */
+        private void written(byte[] body) {
+            if (body == null) {
+                return;
+            }
+            Iterator<byte[]> iterator = pendingPayloads.iterator();
+            while (iterator.hasNext()) {
+                byte[] payload = iterator.next();
+                if (Arrays.equals(payload, body)) {
+                    iterator.remove();
+                    pendingFrames.decrementAndGet();
+                    pendingBytes.addAndGet(-payload.length);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sits below the transport's own send buffer, so it only sees frames at the moment they are written out.
+     */
+    private final class MonitoredSession extends WebSocketSessionDecorator {
+        private final SessionBacklog backlog;
+
+        private MonitoredSession(WebSocketSession session, SessionBacklog backlog) {
+            super(session);
+            this.backlog = backlog;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            long start = System.nanoTime();
+            backlog.sendStartedAt = start;
+            try {
+                super.sendMessage(message);
+            } finally {
+                backlog.sendStartedAt = 0;
+                sendLatencyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                backlog.written(frameBody(message));
+            }
+        }
+    }
+}
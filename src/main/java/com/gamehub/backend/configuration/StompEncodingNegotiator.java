@@ -0,0 +1,172 @@
+package com.gamehub.backend.configuration;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeType;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lets a STOMP client opt into CBOR payloads by sending {@code accept-content-type:application/cbor} on CONNECT.
+ * JSON MESSAGE frames for such a session are transcoded on the client outbound channel and go out with
+ * {@code content-type:application/cbor}. Spring only uses binary websocket frames for octet-stream bodies, so the
+ * session decorator turns the encoded text frames of these sessions back into binary ones before they hit the socket.
+ * Sessions that do not ask keep getting JSON text frames.
+ */
+@Component
+@Slf4j
+public class StompEncodingNegotiator implements ChannelInterceptor, WebSocketHandlerDecoratorFactory {
+
+    static final String ACCEPT_CONTENT_TYPE_HEADER = "accept-content-type";
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final CBORFactory cborFactory = new CBORFactory();
+    private final Set<String> cborSessions = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<Transcoded> lastTranscoded = new AtomicReference<>();
+    private final Counter transcodedCounter;
+
+    public StompEncodingNegotiator(MeterRegistry meterRegistry) {
+        meterRegistry.gaugeCollectionSize("websocket.sessions.cbor", Tags.empty(), cborSessions);
+        this.transcodedCounter = meterRegistry.counter("websocket.frames.transcoded");
+    }
+
+    @EventListener
+    public void onConnect(SessionConnectEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String accepted = accessor.getFirstNativeHeader(ACCEPT_CONTENT_TYPE_HEADER);
+        if (accessor.getSessionId() != null && accepted != null && acceptsCbor(accepted)) {
+            cborSessions.add(accessor.getSessionId());
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        cborSessions.remove(event.getSessionId());
+    }
+
+    public boolean prefersCbor(String sessionId) {
+        return sessionId != null && cborSessions.contains(sessionId);
+    }
+
+    /**
+     * Runs on the client outbound channel, after the broker has picked the session a frame is for.
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE || !prefersCbor(accessor.getSessionId())
+                || !(message.getPayload() instanceof byte[] json)) {
+            return message;
+        }
+        MimeType contentType = accessor.getContentType();
+        if (contentType == null || !MediaType.APPLICATION_JSON.isCompatibleWith(contentType)) {
+            return message;
+        }
+        byte[] cbor;
+        try {
+            cbor = toCbor(json);
+        } catch (IOException e) {
+            log.warn("Sending JSON to session {}: the payload could not be transcoded to CBOR: {}", accessor.getSessionId(), e.getMessage());
+            return message;
+        }
+        accessor.setContentType(MediaType.APPLICATION_CBOR);
+        accessor.removeNativeHeader(StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER);
+        transcodedCounter.increment();
+        return MessageBuilder.createMessage(cbor, accessor.getMessageHeaders());
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                super.afterConnectionEstablished(new BinaryFramingSession(session));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                cborSessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * The broker hands the same payload array to every subscriber of a destination, so the last result is kept to
+     * transcode a fan-out once rather than once per session.
+     */
+    byte[] toCbor(byte[] json) throws IOException {
+        Transcoded last = lastTranscoded.get();
+        if (last != null && last.json() == json) {
+            return last.cbor();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        try (JsonParser parser = jsonFactory.createParser(json);
+             JsonGenerator generator = cborFactory.createGenerator(out)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        }
+        byte[] cbor = out.toByteArray();
+        lastTranscoded.set(new Transcoded(json, cbor));
+        return cbor;
+    }
+
+    private static boolean acceptsCbor(String accepted) {
+        try {
+            return MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(MimeType.valueOf(accepted.trim()));
+        } catch (InvalidMimeTypeException e) {
+            return false;
+        }
+    }
+
+    private record Transcoded(byte[] json, byte[] cbor) {
+    }
+
+    private final class BinaryFramingSession extends WebSocketSessionDecorator {
+
+        private BinaryFramingSession(WebSocketSession session) {
+            super(session);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            if (message instanceof TextMessage text && text.getPayloadLength() > 1 && prefersCbor(getId())) {
+                super.sendMessage(new BinaryMessage(text.asBytes()));
+                return;
+            }
+            super.sendMessage(message);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.gamehub.backend.configuration;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks which users currently hold a STOMP subscription on one of their {@code /user/{id}/queue/...}
+ * destinations, so server-side producers can skip pushes nobody is listening for.
+ */
+@Component
+public class UserSubscriptionTracker {
+
+    private static final String USER_PREFIX = "/user/";
+    private static final String QUEUE_SEGMENT = "/queue/";
+
+    private final Map<String, Map<String, Long>> subscriptionsBySession = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> subscriptionCounts = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Long userId = userIdOf(accessor.getDestination());
+        if (userId == null || accessor.getSessionId() == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        Long previous = subscriptionsBySession
+                .computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>())
+                .put(accessor.getSubscriptionId(), userId);
+        if (previous != null) {
+            release(previous);
+        }
+        subscriptionCounts.merge(userId, 1, Integer::sum);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, Long> subscriptions = accessor.getSessionId() == null ? null : subscriptionsBySession.get(accessor.getSessionId());
+        if (subscriptions == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        Long userId = subscriptions.remove(accessor.getSubscriptionId());
+        if (userId != null) {
+            release(userId);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, Long> subscriptions = subscriptionsBySession.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::release);
+        }
+    }
+
+    public boolean isConnected(Long userId) {
+        return subscriptionCounts.containsKey(userId);
+    }
+
+    public Set<Long> connectedUserIds() {
+        return Set.copyOf(subscriptionCounts.keySet());
+    }
+
+    private void release(Long userId) {
+        subscriptionCounts.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    static Long userIdOf(String destination) {
+        if (destination == null || !destination.startsWith(USER_PREFIX)) {
+            return null;
+        }
+        int end = destination.indexOf(QUEUE_SEGMENT, USER_PREFIX.length());
+        if (end <= USER_PREFIX.length()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(destination.substring(USER_PREFIX.length(), end));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the {@code /queue/...} part of a destination already accepted by {@link #userIdOf(String)}.
+     */
+    static String queueDestinationOf(String destination) {
+        return destination.substring(destination.indexOf(QUEUE_SEGMENT, USER_PREFIX.length()));
+    }
+}
@@ -1,14 +1,46 @@
 package com.gamehub.backend.configuration;
 
+import com.gamehub.backend.configuration.security.token.StompAuthenticationInterceptor;
+import com.gamehub.backend.configuration.serialization.CBORConfig;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.util.List;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    private final StompAuthenticationInterceptor stompAuthenticationInterceptor;
+    private final OfflineReplayInterceptor offlineReplayInterceptor;
+    private final SlowConsumerMonitor slowConsumerMonitor;
+    private final StompEncodingNegotiator stompEncodingNegotiator;
+    private final int sendTimeLimitMillis;
+    private final int sendBufferSizeLimit;
+    private final int messageSizeLimit;
+
+    public WebSocketConfig(StompAuthenticationInterceptor stompAuthenticationInterceptor,
+                           OfflineReplayInterceptor offlineReplayInterceptor,
+                           SlowConsumerMonitor slowConsumerMonitor,
+                           StompEncodingNegotiator stompEncodingNegotiator,
+                           @Value("${websocket.send-time-limit-ms:10000}") int sendTimeLimitMillis,
+                           @Value("${websocket.send-buffer-size-limit:524288}") int sendBufferSizeLimit,
+                           @Value("${websocket.message-size-limit:65536}") int messageSizeLimit) {
+        this.stompAuthenticationInterceptor = stompAuthenticationInterceptor;
+        this.offlineReplayInterceptor = offlineReplayInterceptor;
+        this.slowConsumerMonitor = slowConsumerMonitor;
+        this.stompEncodingNegotiator = stompEncodingNegotiator;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
+        this.messageSizeLimit = messageSizeLimit;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic", "/user");
@@ -16,9 +48,33 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         config.setApplicationDestinationPrefixes("/app");
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(stompAuthenticationInterceptor, offlineReplayInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(slowConsumerMonitor, stompEncodingNegotiator);
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        messageConverters.add(CBORConfig.cborMessageConverter());
+        return true;
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMillis)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(slowConsumerMonitor)
+                .addDecoratorFactory(stompEncodingNegotiator);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws").setAllowedOrigins("http://localhost:5173");
     }
 }
-
@@ -0,0 +1,122 @@
+package com.gamehub.backend.configuration.cluster;
+
+import com.gamehub.backend.configuration.UserSubscriptionTracker;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Knows which other nodes hold a session for which user. Each node publishes its full list of subscribed users on
+ * every heartbeat and announces new subscriptions immediately; a node that misses several heartbeats is forgotten.
+ * Heartbeats run on their own thread, since a busy shared scheduler would delay them long enough for healthy nodes
+ * to expire each other.
+ */
+@Component
+@Slf4j
+public class ClusterDirectory {
+
+    private static final int MISSED_HEARTBEATS_BEFORE_EXPIRY = 3;
+
+    private final ClusterRelay relay;
+    private final UserSubscriptionTracker subscriptionTracker;
+    private final long heartbeatIntervalMillis;
+    private final long nodeExpiryNanos;
+    private final Map<String, NodeUsers> usersByNode = new ConcurrentHashMap<>();
+    private ScheduledExecutorService heartbeatThread;
+
+    @Autowired
+    public ClusterDirectory(ClusterRelay relay,
+                            UserSubscriptionTracker subscriptionTracker,
+                            @Value("${cluster.heartbeat-interval-ms:2000}") long heartbeatIntervalMillis) {
+        this.relay = relay;
+        this.subscriptionTracker = subscriptionTracker;
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+        this.nodeExpiryNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatIntervalMillis * MISSED_HEARTBEATS_BEFORE_EXPIRY);
+        relay.addListener(this::onFrame);
+    }
+
+    public String localNodeId() {
+        return relay.nodeId();
+    }
+
+    /**
+     * Returns the other nodes on which this user currently has a subscription.
+     */
+    public Set<String> nodesFor(Long userId) {
+        long now = System.nanoTime();
+        Set<String> nodes = new HashSet<>();
+        usersByNode.forEach((nodeId, node) -> {
+            if (now - node.lastSeen < nodeExpiryNanos && node.userIds.contains(userId)) {
+                nodes.add(nodeId);
+            }
+        });
+        return nodes;
+    }
+
+    public void announceLocalSubscription(Long userId) {
+        relay.publish(RelayFrame.userUp(relay.nodeId(), userId));
+    }
+
+    @PostConstruct
+    public void start() {
+        heartbeatThread = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cluster-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeatThread.scheduleWithFixedDelay(this::heartbeatSafely, 0, heartbeatIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (heartbeatThread != null) {
+            heartbeatThread.shutdownNow();
+        }
+    }
+
+    private void heartbeatSafely() {
+        try {
+            heartbeat();
+        } catch (RuntimeException e) {
+            // An exception would cancel every later run of the scheduled task.
+            log.error("Cluster heartbeat failed.", e);
+        }
+    }
+
+    public void heartbeat() {
+        relay.publish(RelayFrame.heartbeat(relay.nodeId(), subscriptionTracker.connectedUserIds()));
+        long now = System.nanoTime();
+        usersByNode.entrySet().removeIf(entry -> {
+            boolean expired = now - entry.getValue().lastSeen >= nodeExpiryNanos;
+            if (expired) {
+                log.info("Cluster node {} stopped sending heartbeats; forgetting its {} users.", entry.getKey(), entry.getValue().userIds.size());
+            }
+            return expired;
+        });
+    }
+
+    private void onFrame(RelayFrame frame) {
+        if (frame.type() == RelayFrame.Type.HEARTBEAT) {
+            Set<Long> userIds = ConcurrentHashMap.newKeySet(frame.userIds().size());
+            userIds.addAll(frame.userIds());
+            usersByNode.put(frame.sourceNodeId(), new NodeUsers(userIds, System.nanoTime()));
+        } else if (frame.type() == RelayFrame.Type.USER_UP) {
+            usersByNode.computeIfAbsent(frame.sourceNodeId(), nodeId -> new NodeUsers(ConcurrentHashMap.newKeySet(), System.nanoTime()))
+                    .userIds.add(frame.userId());
+        }
+    }
+
+    private record NodeUsers(Set<Long> userIds, long lastSeen) {
+    }
+}
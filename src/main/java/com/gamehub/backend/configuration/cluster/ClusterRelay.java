@@ -0,0 +1,34 @@
+package com.gamehub.backend.configuration.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries {@link RelayFrame}s between backend nodes so STOMP user destinations work no matter which node holds the
+ * user's session. Implementations deliver frames to every registered listener on the receiving node and never echo
+ * a node's own frames back to it.
+ */
+public interface ClusterRelay {
+
+    String nodeId();
+
+    void addListener(Consumer<RelayFrame> listener);
+
+    /**
+     * Registers a callback that receives a node's id whenever a connection to it is established, including after it
+     * was lost. Frames published while a node was unreachable never reach it, so listeners use this to send it the
+     * state it may have missed.
+     */
+    void addConnectionListener(Consumer<String> listener);
+
+    /**
+     * Sends a frame to every other node that is currently reachable.
+     */
+    void publish(RelayFrame frame);
+
+    /**
+     * Sends a frame to one node.
+     *
+     * @return whether the frame was handed to that node
+     */
+    boolean send(String nodeId, RelayFrame frame);
+}
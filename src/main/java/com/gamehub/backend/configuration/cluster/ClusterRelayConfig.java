@@ -0,0 +1,53 @@
+package com.gamehub.backend.configuration.cluster;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Selects the relay with {@code cluster.relay}: {@code loopback} (the default) runs a single node, {@code socket}
+ * connects to the replicas listed in {@code cluster.socket.peers} as comma-separated {@code host:port} pairs.
+ */
+@Configuration
+public class ClusterRelayConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "cluster.relay", havingValue = "loopback", matchIfMissing = true)
+    public ClusterRelay loopbackClusterRelay(@Value("${cluster.node-id:}") String nodeId) {
+        return new LoopbackClusterRelay(resolveNodeId(nodeId));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "cluster.relay", havingValue = "socket")
+    public ClusterRelay socketClusterRelay(@Value("${cluster.node-id:}") String nodeId,
+                                           @Value("${cluster.socket.port:7400}") int port,
+                                           @Value("${cluster.socket.peers:}") List<String> peers,
+                                           @Value("${cluster.socket.reconnect-interval-ms:2000}") long reconnectMillis) throws IOException {
+        List<InetSocketAddress> peerAddresses = peers.stream()
+                .filter(peer -> !peer.isBlank())
+                .map(ClusterRelayConfig::parsePeer)
+                .toList();
+        SocketClusterRelay relay = new SocketClusterRelay(resolveNodeId(nodeId), port, peerAddresses, reconnectMillis);
+        relay.start();
+        return relay;
+    }
+
+    static InetSocketAddress parsePeer(String peer) {
+        String trimmed = peer.trim();
+        int separator = trimmed.lastIndexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Cluster peer must be host:port but was " + peer);
+        }
+        return InetSocketAddress.createUnresolved(trimmed.substring(0, separator), Integer.parseInt(trimmed.substring(separator + 1)));
+    }
+
+    private static String resolveNodeId(String nodeId) {
+        return nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+    }
+}
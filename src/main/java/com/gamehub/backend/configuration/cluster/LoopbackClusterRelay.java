@@ -0,0 +1,80 @@
+package com.gamehub.backend.configuration.cluster;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process relay. A standalone instance is a single-node cluster; instances created through {@link #join(String)}
+ * share one network and deliver frames to each other synchronously, which lets tests run several nodes in one JVM.
+ * Nodes never disconnect, so connection listeners only hear about nodes that join after them.
+ */
+public class LoopbackClusterRelay implements ClusterRelay {
+
+    private final String nodeId;
+    private final Map<String, LoopbackClusterRelay> network;
+    private final List<Consumer<RelayFrame>> listeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<String>> connectionListeners = new CopyOnWriteArrayList<>();
+
+    public LoopbackClusterRelay(String nodeId) {
+        this(nodeId, new ConcurrentHashMap<>());
+    }
+
+    private LoopbackClusterRelay(String nodeId, Map<String, LoopbackClusterRelay> network) {
+        if (network.putIfAbsent(nodeId, this) != null) {
+            throw new IllegalArgumentException("Node " + nodeId + " already joined this relay");
+        }
+        this.nodeId = nodeId;
+        this.network = network;
+    }
+
+    public LoopbackClusterRelay join(String otherNodeId) {
+        LoopbackClusterRelay joined = new LoopbackClusterRelay(otherNodeId, network);
+        for (LoopbackClusterRelay node : network.values()) {
+            if (node != joined) {
+                node.connectionListeners.forEach(listener -> listener.accept(otherNodeId));
+            }
+        }
+        return joined;
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void addListener(Consumer<RelayFrame> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void addConnectionListener(Consumer<String> listener) {
+        connectionListeners.add(listener);
+    }
+
+    @Override
+    public void publish(RelayFrame frame) {
+        for (LoopbackClusterRelay node : network.values()) {
+            if (node != this) {
+                node.receive(frame);
+            }
+        }
+    }
+
+    @Override
+    public boolean send(String targetNodeId, RelayFrame frame) {
+        LoopbackClusterRelay node = network.get(targetNodeId);
+        if (node == null || node == this) {
+            return false;
+        }
+        node.receive(frame);
+        return true;
+    }
+
+    private void receive(RelayFrame frame) {
+        listeners.forEach(listener -> listener.accept(frame));
+    }
+}
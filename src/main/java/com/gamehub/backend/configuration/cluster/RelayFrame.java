@@ -0,0 +1,156 @@
+package com.gamehub.backend.configuration.cluster;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A unit of traffic between backend nodes. Which fields are set depends on the {@link Type}.
+ */
+public record RelayFrame(Type type, String sourceNodeId, Long userId, Set<Long> userIds,
+                         String destination, String contentType, byte[] payload) {
+
+    public enum Type {
+        /** Full list of users with a subscription on the source node, sent periodically. */
+        HEARTBEAT,
+        /** A user just subscribed on the source node. */
+        USER_UP,
+        /** A message for one user whose session lives on the receiving node. */
+        DELIVER,
+        /** A message for every user connected to the receiving node. */
+        BROADCAST,
+        /** One message for several users whose sessions live on the receiving node. */
+        MULTICAST,
+        /** A user's tokens issued before the epoch millis in the payload are no longer valid. */
+        REVOKE,
+        /** A username and email pair, in the payload, was taken by a new or renamed account. */
+        NAMES_TAKEN,
+        /** A username and email pair, in the payload, was freed by a deleted or renamed account. */
+        NAMES_RELEASED,
+        /** A friend request was accepted; the payload holds the relationship, requester and addressee ids. */
+        FRIEND_LINKED,
+        /** Two users stopped being friends; the payload holds both user ids. */
+        FRIEND_UNLINKED,
+        /** Messages of the conversations whose keys are in the payload were persisted on the source node. */
+        CONVERSATIONS_CHANGED,
+        /** The unread counts of the listed users changed on the source node; no list means every user's did. */
+        UNREAD_CHANGED,
+        /** Every revocation the source node holds, sent when it connects to the receiving node. */
+        REVOCATIONS
+    }
+
+    public static RelayFrame heartbeat(String sourceNodeId, Set<Long> userIds) {
+        return new RelayFrame(Type.HEARTBEAT, sourceNodeId, null, userIds, null, null, null);
+    }
+
+    public static RelayFrame userUp(String sourceNodeId, Long userId) {
+        return new RelayFrame(Type.USER_UP, sourceNodeId, userId, null, null, null, null);
+    }
+
+    public static RelayFrame deliver(String sourceNodeId, Long userId, String destination, String contentType, byte[] payload) {
+        return new RelayFrame(Type.DELIVER, sourceNodeId, userId, null, destination, contentType, payload);
+    }
+
+    public static RelayFrame multicast(String sourceNodeId, Set<Long> userIds, String destination, String contentType, byte[] payload) {
+        return new RelayFrame(Type.MULTICAST, sourceNodeId, null, userIds, destination, contentType, payload);
+    }
+
+    public static RelayFrame broadcast(String sourceNodeId, String destination, String contentType, byte[] payload) {
+        return new RelayFrame(Type.BROADCAST, sourceNodeId, null, null, destination, contentType, payload);
+    }
+
+    public static RelayFrame revoke(String sourceNodeId, Long userId, long notBeforeMillis) {
+        return new RelayFrame(Type.REVOKE, sourceNodeId, userId, null, null, null, ByteBuffer.allocate(Long.BYTES).putLong(notBeforeMillis).array());
+    }
+
+    public static RelayFrame namesTaken(String sourceNodeId, String username, String email) {
+        return new RelayFrame(Type.NAMES_TAKEN, sourceNodeId, null, null, null, null, encodeNames(username, email));
+    }
+
+    public static RelayFrame namesReleased(String sourceNodeId, String username, String email) {
+        return new RelayFrame(Type.NAMES_RELEASED, sourceNodeId, null, null, null, null, encodeNames(username, email));
+    }
+
+    /**
+     * Returns the username and email carried by a {@link Type#NAMES_TAKEN} or {@link Type#NAMES_RELEASED} frame;
+     * either may be null.
+     */
+    public String[] names() {
+        String[] names = new String(payload, StandardCharsets.UTF_8).split("\n", -1);
+        return new String[]{names[0].isEmpty() ? null : names[0], names[1].isEmpty() ? null : names[1]};
+    }
+
+    private static byte[] encodeNames(String username, String email) {
+        return ((username == null ? "" : username) + "\n" + (email == null ? "" : email)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static RelayFrame friendLinked(String sourceNodeId, long relationshipId, long requesterId, long addresseeId) {
+        byte[] payload = ByteBuffer.allocate(3 * Long.BYTES).putLong(relationshipId).putLong(requesterId).putLong(addresseeId).array();
+        return new RelayFrame(Type.FRIEND_LINKED, sourceNodeId, null, null, null, null, payload);
+    }
+
+    public static RelayFrame friendUnlinked(String sourceNodeId, long userId, long friendId) {
+        byte[] payload = ByteBuffer.allocate(2 * Long.BYTES).putLong(userId).putLong(friendId).array();
+        return new RelayFrame(Type.FRIEND_UNLINKED, sourceNodeId, null, null, null, null, payload);
+    }
+
+    /**
+     * Returns the ids carried by a {@link Type#FRIEND_LINKED} or {@link Type#FRIEND_UNLINKED} frame, in the order
+     * they were given.
+     */
+    public long[] friendIds() {
+        return payloadLongs();
+    }
+
+    public static RelayFrame conversationsChanged(String sourceNodeId, Collection<String> conversationKeys) {
+        byte[] payload = String.join("\n", conversationKeys).getBytes(StandardCharsets.UTF_8);
+        return new RelayFrame(Type.CONVERSATIONS_CHANGED, sourceNodeId, null, null, null, null, payload);
+    }
+
+    /**
+     * Returns the conversation keys carried by a {@link Type#CONVERSATIONS_CHANGED} frame.
+     */
+    public List<String> conversationKeys() {
+        return List.of(new String(payload, StandardCharsets.UTF_8).split("\n"));
+    }
+
+    public static RelayFrame unreadChanged(String sourceNodeId, Set<Long> userIds) {
+        return new RelayFrame(Type.UNREAD_CHANGED, sourceNodeId, null, userIds, null, null, null);
+    }
+
+    /**
+     * Returns the cut-off carried by a {@link Type#REVOKE} frame.
+     */
+    public long notBeforeMillis() {
+        return ByteBuffer.wrap(payload).getLong();
+    }
+
+    /**
+     * Builds a {@link Type#REVOCATIONS} frame from consecutive (user id, not-before millis, expires-at millis) triples.
+     */
+    public static RelayFrame revocations(String sourceNodeId, long[] revocations) {
+        ByteBuffer payload = ByteBuffer.allocate(revocations.length * Long.BYTES);
+        for (long value : revocations) {
+            payload.putLong(value);
+        }
+        return new RelayFrame(Type.REVOCATIONS, sourceNodeId, null, null, null, null, payload.array());
+    }
+
+    /**
+     * Returns the (user id, not-before millis, expires-at millis) triples carried by a {@link Type#REVOCATIONS} frame.
+     */
+    public long[] revocations() {
+        return payloadLongs();
+    }
+
+    private long[] payloadLongs() {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        long[] values = new long[payload.length / Long.BYTES];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = buffer.getLong();
+        }
+        return values;
+    }
+}
@@ -0,0 +1,308 @@
+package com.gamehub.backend.configuration.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * TCP relay for multi-node deployments. Every node listens on one port and keeps an outbound connection to each
+ * configured peer, so the cluster forms a full mesh: frames are written on outbound connections and read on inbound
+ * ones. On connect the accepting node sends its node id, which is how {@link #send(String, RelayFrame)} finds a peer.
+ * <p>
+ * Connections are neither authenticated nor encrypted; the port must only be reachable from the other replicas.
+ */
+@Slf4j
+public class SocketClusterRelay implements ClusterRelay, AutoCloseable {
+
+    static final int MAX_FRAME_BYTES = 16 * 1024 * 1024;
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+
+    private final String nodeId;
+    private final int port;
+    private final List<InetSocketAddress> peers;
+    private final long reconnectMillis;
+    private final List<Consumer<RelayFrame>> listeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<String>> connectionListeners = new CopyOnWriteArrayList<>();
+    private final Map<String, PeerConnection> connections = new ConcurrentHashMap<>();
+    private final ExecutorService threads;
+    private volatile ServerSocket serverSocket;
+    private volatile boolean running;
+
+    public SocketClusterRelay(String nodeId, int port, List<InetSocketAddress> peers, long reconnectMillis) {
+        this.nodeId = nodeId;
+        this.port = port;
+        this.peers = List.copyOf(peers);
+        this.reconnectMillis = reconnectMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.threads = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "cluster-relay-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() throws IOException {
+        running = true;
+        serverSocket = new ServerSocket(port);
+        threads.execute(this::acceptLoop);
+        for (InetSocketAddress peer : peers) {
+            threads.execute(() -> connectLoop(peer));
+        }
+        log.info("Cluster relay node {} listening on port {} with {} peers.", nodeId, serverSocket.getLocalPort(), peers.size());
+    }
+
+    public int localPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public Set<String> connectedNodeIds() {
+        return Set.copyOf(connections.keySet());
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void addListener(Consumer<RelayFrame> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void addConnectionListener(Consumer<String> listener) {
+        connectionListeners.add(listener);
+    }
+
+    @Override
+    public void publish(RelayFrame frame) {
+        byte[] encoded = encode(frame);
+        connections.forEach((peerNodeId, connection) -> connection.write(peerNodeId, encoded));
+    }
+
+    @Override
+    public boolean send(String targetNodeId, RelayFrame frame) {
+        PeerConnection connection = connections.get(targetNodeId);
+        return connection != null && connection.write(targetNodeId, encode(frame));
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+        connections.values().forEach(PeerConnection::close);
+        threads.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                threads.execute(() -> readInbound(socket));
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Cluster relay failed to accept a connection: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void readInbound(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeUTF(nodeId);
+            out.flush();
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            while (running) {
+                int length = in.readInt();
+                if (length < 0 || length > MAX_FRAME_BYTES) {
+                    throw new IOException("Invalid relay frame length " + length);
+                }
+                byte[] encoded = new byte[length];
+                in.readFully(encoded);
+                dispatch(decode(encoded));
+            }
+        } catch (EOFException e) {
+            log.debug("Cluster peer {} closed its connection.", socket.getRemoteSocketAddress());
+        } catch (IOException e) {
+            if (running) {
+                log.warn("Cluster relay connection from {} failed: {}", socket.getRemoteSocketAddress(), e.getMessage());
+            }
+        }
+    }
+
+    private void connectLoop(InetSocketAddress peer) {
+        while (running) {
+            try (Socket socket = new Socket()) {
+                // Resolved on every attempt so a replica that comes back under a new address is found again.
+                socket.connect(new InetSocketAddress(peer.getHostString(), peer.getPort()), CONNECT_TIMEOUT_MILLIS);
+                socket.setTcpNoDelay(true);
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                String peerNodeId = in.readUTF();
+                if (peerNodeId.equals(nodeId)) {
+                    log.warn("Cluster peer {} is this node; not connecting to it.", peer);
+                    return;
+                }
+                PeerConnection connection = new PeerConnection(socket);
+                connections.put(peerNodeId, connection);
+                log.info("Connected to cluster node {} at {}.", peerNodeId, peer);
+                notifyConnected(peerNodeId);
+                try {
+                    // The accepting side never writes after the handshake, so this only returns once the socket closes.
+                    while (in.read() != -1) {
+                        // discard
+                    }
+                } finally {
+                    connections.remove(peerNodeId, connection);
+                    log.info("Lost connection to cluster node {}.", peerNodeId);
+                }
+            } catch (IOException e) {
+                log.debug("Cluster peer {} is not reachable: {}", peer, e.getMessage());
+            }
+            try {
+                Thread.sleep(reconnectMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void notifyConnected(String peerNodeId) {
+        for (Consumer<String> listener : connectionListeners) {
+            try {
+                listener.accept(peerNodeId);
+            } catch (RuntimeException e) {
+                log.error("Cluster relay connection listener failed for node {}.", peerNodeId, e);
+            }
+        }
+    }
+
+    private void dispatch(RelayFrame frame) {
+        for (Consumer<RelayFrame> listener : listeners) {
+            try {
+                listener.accept(frame);
+            } catch (RuntimeException e) {
+                log.error("Cluster relay listener failed on a {} frame from {}.", frame.type(), frame.sourceNodeId(), e);
+            }
+        }
+    }
+
+    static byte[] encode(RelayFrame frame) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeByte(frame.type().ordinal());
+            out.writeUTF(frame.sourceNodeId());
+            out.writeBoolean(frame.userId() != null);
+            if (frame.userId() != null) {
+                out.writeLong(frame.userId());
+            }
+            out.writeInt(frame.userIds() == null ? -1 : frame.userIds().size());
+            if (frame.userIds() != null) {
+                for (Long userId : frame.userIds()) {
+                    out.writeLong(userId);
+                }
+            }
+            writeNullableString(out, frame.destination());
+            writeNullableString(out, frame.contentType());
+            out.writeInt(frame.payload() == null ? -1 : frame.payload().length);
+            if (frame.payload() != null) {
+                out.write(frame.payload());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to an in-memory buffer cannot fail", e);
+        }
+        return buffer.toByteArray();
+    }
+
+    static RelayFrame decode(byte[] encoded) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded));
+        RelayFrame.Type type = RelayFrame.Type.values()[in.readUnsignedByte()];
+        String sourceNodeId = in.readUTF();
+        Long userId = in.readBoolean() ? in.readLong() : null;
+        int userCount = in.readInt();
+        Set<Long> userIds = null;
+        if (userCount >= 0) {
+            userIds = new HashSet<>(userCount);
+            for (int i = 0; i < userCount; i++) {
+                userIds.add(in.readLong());
+            }
+        }
+        String destination = readNullableString(in);
+        String contentType = readNullableString(in);
+        int payloadLength = in.readInt();
+        byte[] payload = null;
+        if (payloadLength >= 0) {
+            payload = new byte[payloadLength];
+            in.readFully(payload);
+        }
+        return new RelayFrame(type, sourceNodeId, userId, userIds, destination, contentType, payload);
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static final class PeerConnection {
+        private final Socket socket;
+        private final DataOutputStream out;
+
+        private PeerConnection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        private boolean write(String peerNodeId, byte[] encoded) {
+            try {
+                synchronized (out) {
+                    out.writeInt(encoded.length);
+                    out.write(encoded);
+                    out.flush();
+                }
+                return true;
+            } catch (IOException e) {
+                log.warn("Dropping connection to cluster node {} after a failed write: {}", peerNodeId, e.getMessage());
+                close();
+                return false;
+            }
+        }
+
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.debug("Closing a cluster connection failed: {}", e.getMessage());
+            }
+        }
+    }
+}
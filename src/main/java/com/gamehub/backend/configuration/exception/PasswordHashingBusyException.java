@@ -0,0 +1,7 @@
+package com.gamehub.backend.configuration.exception;
+
+public class PasswordHashingBusyException extends RuntimeException {
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
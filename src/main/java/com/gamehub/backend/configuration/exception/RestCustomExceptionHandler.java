@@ -89,6 +89,13 @@ public class RestCustomExceptionHandler extends ResponseEntityExceptionHandler {
         log.error("UserNotFoundException with status {} occurred.", HttpStatus.NOT_FOUND, error);
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error.getMessage());
     }
+    @ExceptionHandler(value = {PasswordHashingBusyException.class})
+    public ResponseEntity<Object> handlePasswordHashingBusyException(final PasswordHashingBusyException error) {
+        log.warn("Password hashing is saturated, answering with status {}: {}", HttpStatus.SERVICE_UNAVAILABLE, error.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Too many sign-in attempts right now. Please try again shortly.");
+    }
     private ProblemDetail convertToProblemDetail(final List<ValidationErrorDTO> errors) {
         return convertToProblemDetail(HttpStatus.BAD_REQUEST, errors);
     }
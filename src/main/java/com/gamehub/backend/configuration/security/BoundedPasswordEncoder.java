@@ -0,0 +1,117 @@
+package com.gamehub.backend.configuration.security;
+
+import com.gamehub.backend.configuration.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the hashing and verification of a delegate encoder on a small fixed pool with a bounded queue, so a burst of
+ * logins cannot take every request thread's CPU time with it. Once the queue is full, or a queued call has waited
+ * longer than the timeout for a thread, the call fails with {@link PasswordHashingBusyException} instead of piling up.
+ * The timeout only covers the wait in the queue: a call that got a thread runs to the end, since its hash is already
+ * costing the CPU time a retry would spend again.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    private final Counter rejectedCounter;
+    private final Timer queueWaitTimer;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate,
+                                  MeterRegistry meterRegistry,
+                                  int threads,
+                                  int queueCapacity,
+                                  long timeoutMillis) {
+        this.delegate = delegate;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        meterRegistry.gauge("password.hashing.queue.depth", Tags.empty(), executor, pool -> pool.getQueue().size());
+        meterRegistry.gauge("password.hashing.active", Tags.empty(), executor, ThreadPoolExecutor::getActiveCount);
+        this.rejectedCounter = meterRegistry.counter("password.hashing.rejected");
+        this.queueWaitTimer = meterRegistry.timer("password.hashing.queue.wait");
+        this.encodeTimer = meterRegistry.timer("password.hashing", "operation", "encode");
+        this.matchesTimer = meterRegistry.timer("password.hashing", "operation", "matches");
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Only inspects the stored hash, so it stays on the caller's thread.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private <T> T run(Timer timer, Callable<T> task) {
+        long queuedAt = System.nanoTime();
+        CountDownLatch started = new CountDownLatch(1);
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                started.countDown();
+                return timer.recordCallable(task);
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new PasswordHashingBusyException("Password hashing queue is full");
+        }
+        try {
+            // Cancelling fails if a thread picked the call up in the meantime; it is then waited for like any other.
+            if (!started.await(timeoutMillis, TimeUnit.MILLISECONDS) && future.cancel(false)) {
+                executor.remove((Runnable) future);
+                rejectedCounter.increment();
+                throw new PasswordHashingBusyException("Password hashing timed out in the queue");
+            }
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Interrupted while waiting for password hashing");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
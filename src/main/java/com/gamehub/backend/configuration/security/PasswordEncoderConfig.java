@@ -1,5 +1,7 @@
 package com.gamehub.backend.configuration.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -8,8 +10,15 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 @Configuration
 public class PasswordEncoderConfig {
 
+    /**
+     * Stored hashes with a lower cost than {@code security.bcrypt.strength} are upgraded on the owner's next login.
+     */
     @Bean
-    public PasswordEncoder createBCryptPasswordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder createBCryptPasswordEncoder(MeterRegistry meterRegistry,
+                                                       @Value("${security.bcrypt.strength:10}") int strength,
+                                                       @Value("${security.password-hashing.threads:4}") int threads,
+                                                       @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity,
+                                                       @Value("${security.password-hashing.timeout-ms:5000}") long timeoutMillis) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), meterRegistry, threads, queueCapacity, timeoutMillis);
     }
 }
@@ -27,6 +27,7 @@ public class SecurityConfig {
                         .requestMatchers("/images/**").permitAll()
                         .requestMatchers("/categories/**", "/genres/**").permitAll()
                         .requestMatchers("/chat/**", "/notifications/**").permitAll()
+                        .requestMatchers("/sync/**").authenticated()
                         .requestMatchers("/games/**", "/reviews/**", "/forum/**", "/purchases/**", "/recommendations/**").authenticated()
                         .requestMatchers("/events/**").hasAnyAuthority("USER", "ADMINISTRATOR", "COMMUNITY_MANAGER")
                         .requestMatchers("/admin/**").hasAuthority("ADMINISTRATOR")
@@ -1,66 +1,75 @@
 package com.gamehub.backend.configuration.security.token;
 
+import com.gamehub.backend.configuration.security.CustomUserDetails;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.util.Collection;
 import java.util.Date;
-import java.util.function.Function;
+import java.util.List;
 
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secretKey;
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLES_CLAIM = "roles";
 
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private final Key signingKey;
+    private final long expirationMillis;
+
+    @Autowired
+    public JwtUtil(@Value("${jwt.secret}") String secretKey,
+                   @Value("${jwt.expiration-ms:36000000}") long expirationMillis) {
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.expirationMillis = expirationMillis;
+    }
+
+    Key getSigningKey() {
+        return signingKey;
     }
 
-    public String generateToken(String username) {
+    /**
+     * Issues a token that carries the user's id and roles, so requests can be authenticated from the token alone.
+     */
+    public String generateToken(Long userId, String username, Collection<String> roles) {
         return Jwts.builder()
                 .setSubject(username)
+                .claim(USER_ID_CLAIM, userId)
+                .claim(ROLES_CLAIM, List.copyOf(roles))
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10))
-                .signWith(getSigningKey())
+                .setExpiration(new Date(System.currentTimeMillis() + expirationMillis))
+                .signWith(signingKey)
                 .compact();
     }
 
-    public boolean validateToken(String token, String username) {
-        try {
-            final String usernameFromToken = extractUsername(token);
-            return username.equals(usernameFromToken) && !isTokenExpired(token);
-        } catch (Exception e) {
-            return false;
-        }
+    public long getExpirationMillis() {
+        return expirationMillis;
     }
 
-    private boolean isTokenExpired(String token) {
-        final Date expiration = extractAllClaims(token).getExpiration();
-        return expiration.before(new Date());
-    }
-
-
-
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
-    }
-
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Builds the authenticated user from verified claims, or returns {@code null} for tokens issued before they
+     * carried the user id and roles.
+     */
+    public static CustomUserDetails userDetailsOf(Claims claims) {
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        if (userId == null || roles == null || claims.getSubject() == null) {
+            return null;
+        }
+        return new CustomUserDetails(
+                userId.longValue(),
+                claims.getSubject(),
+                null,
+                roles.stream()
+                        .map(role -> new SimpleGrantedAuthority(role.toString()))
+                        .toList()
+        );
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,106 @@
+package com.gamehub.backend.configuration.security.token;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Verifies bearer tokens with a parser built once at startup and parses each token only once. Claims of recently
+ * verified tokens are kept, keyed by the token's SHA-256 digest rather than the token itself, until the token expires;
+ * clients send the same token on every request, so most requests skip the signature check and claim parsing. The
+ * cache is bounded: once full, expired entries are purged and, if that is not enough, an arbitrary entry makes room.
+ */
+@Component
+public class JwtVerifier {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private final JwtParser parser;
+    private final int maxEntries;
+    private final Map<ByteBuffer, VerifiedToken> verified = new ConcurrentHashMap<>();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    @Autowired
+    public JwtVerifier(JwtUtil jwtUtil,
+                       MeterRegistry meterRegistry,
+                       @Value("${jwt.verified-cache.max-entries:10000}") int maxEntries) {
+        this.parser = Jwts.parserBuilder().setSigningKey(jwtUtil.getSigningKey()).build();
+        this.maxEntries = maxEntries;
+        this.hitCounter = meterRegistry.counter("jwt.verified.cache.hit");
+        this.missCounter = meterRegistry.counter("jwt.verified.cache.miss");
+        meterRegistry.gaugeMapSize("jwt.verified.cache.size", Tags.empty(), verified);
+    }
+
+    /**
+     * Verifies the signature and expiry of a token and returns its claims. The returned claims are shared between
+     * callers and must not be modified.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+     */
+    public Claims verify(String token) {
+        ByteBuffer digest = digestOf(token);
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verified.get(digest);
+        if (cached != null) {
+            if (cached.expiresAt() > now) {
+                hitCounter.increment();
+                return cached.claims();
+            }
+            verified.remove(digest, cached);
+        }
+        missCounter.increment();
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Date expiration = claims.getExpiration();
+        if (expiration != null && maxEntries > 0) {
+            makeRoom(now);
+            verified.put(digest, new VerifiedToken(claims, expiration.getTime()));
+        }
+        return claims;
+    }
+
+    int cachedTokenCount() {
+        return verified.size();
+    }
+
+    private void makeRoom(long now) {
+        if (verified.size() < maxEntries) {
+            return;
+        }
+        verified.values().removeIf(token -> token.expiresAt() <= now);
+        Iterator<ByteBuffer> keys = verified.keySet().iterator();
+        while (verified.size() >= maxEntries && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static ByteBuffer digestOf(String token) {
+        return ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private record VerifiedToken(Claims claims, long expiresAt) {
+    }
+}
@@ -0,0 +1,84 @@
+package com.gamehub.backend.configuration.security.token;
+
+import com.gamehub.backend.configuration.security.CustomUserDetails;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Authenticates a STOMP session once, on its CONNECT frame. The bearer token from the {@code Authorization} header
+ * is validated and the resulting user is bound to the session, so later frames carry it as their principal without
+ * another token check or user lookup. Subscriptions to another user's {@code /user/{id}/...} destinations are
+ * refused.
+ */
+@Component
+public class StompAuthenticationInterceptor implements ChannelInterceptor {
+
+    private static final String AUTHORIZATION_HEADER = "Authorization";
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String USER_PREFIX = "/user/";
+
+    private final TokenUserResolver tokenUserResolver;
+
+    public StompAuthenticationInterceptor(TokenUserResolver tokenUserResolver) {
+        this.tokenUserResolver = tokenUserResolver;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        if (accessor.getCommand() == StompCommand.CONNECT) {
+            accessor.setUser(authenticate(accessor.getFirstNativeHeader(AUTHORIZATION_HEADER)));
+        } else if (accessor.getCommand() == StompCommand.SUBSCRIBE) {
+            checkSubscription(accessor.getDestination(), accessor.getUser());
+        }
+        return message;
+    }
+
+    /**
+     * Returns the user bound to a STOMP session at CONNECT.
+     */
+    public static CustomUserDetails userOf(Principal principal) {
+        if (principal instanceof Authentication authentication && authentication.getPrincipal() instanceof CustomUserDetails user) {
+            return user;
+        }
+        throw new AccessDeniedException("STOMP session is not authenticated");
+    }
+
+    private Authentication authenticate(String authorizationHeader) {
+        if (authorizationHeader == null || !authorizationHeader.startsWith(BEARER_PREFIX)) {
+            throw new BadCredentialsException("Missing bearer token on STOMP CONNECT");
+        }
+        UserDetails userDetails = tokenUserResolver.resolve(authorizationHeader.substring(BEARER_PREFIX.length()));
+        if (!(userDetails instanceof CustomUserDetails details)) {
+            throw new BadCredentialsException("Invalid bearer token on STOMP CONNECT");
+        }
+        CustomUserDetails principal = new CustomUserDetails(details.getId(), details.getUsername(), null, details.getAuthorities());
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+
+    private static void checkSubscription(String destination, Principal principal) {
+        if (destination == null || !destination.startsWith(USER_PREFIX)) {
+            return;
+        }
+        int end = destination.indexOf('/', USER_PREFIX.length());
+        String owner = end < 0 ? destination.substring(USER_PREFIX.length()) : destination.substring(USER_PREFIX.length(), end);
+        if (!owner.equals(String.valueOf(userOf(principal).getId()))) {
+            throw new AccessDeniedException("Cannot subscribe to another user's destination: " + destination);
+        }
+    }
+}
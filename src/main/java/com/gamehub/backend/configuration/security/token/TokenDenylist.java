@@ -0,0 +1,128 @@
+package com.gamehub.backend.configuration.security.token;
+
+import com.gamehub.backend.configuration.cluster.ClusterRelay;
+import com.gamehub.backend.configuration.cluster.RelayFrame;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revokes tokens that were issued before a user's roles or username changed, or before the user was deleted. Tokens
+ * are otherwise trusted on their claims alone, so an entry only has to outlive the tokens it can match: it is dropped
+ * once the token lifetime has passed. Revocations are shared with the other nodes over the cluster relay, and every
+ * node sends all it holds to a peer each time it connects to it, so a node that was down or cut off catches up.
+ * <p>
+ * Entries only live in memory. Until a peer reconnects, which takes up to the relay's reconnect interval, it still
+ * accepts the revoked tokens, and a revocation is lost for good if every node holding it restarts before handing it
+ * on; the tokens it matched are then valid again until they expire.
+ * <p>
+ * Issue times only have second precision, so a token issued in the same second as a change stays valid.
+ */
+@Component
+public class TokenDenylist {
+
+    private static final long REVOKE_ALL = Long.MAX_VALUE;
+
+    private final ClusterRelay relay;
+    private final long ttlMillis;
+    private final Map<Long, Revocation> revocations = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TokenDenylist(ClusterRelay relay,
+                         MeterRegistry meterRegistry,
+                         @Value("${jwt.denylist.ttl-ms:${jwt.expiration-ms:36000000}}") long ttlMillis) {
+        this.relay = relay;
+        this.ttlMillis = ttlMillis;
+        meterRegistry.gaugeMapSize("jwt.denylist.size", Tags.empty(), revocations);
+        relay.addListener(this::onFrame);
+        relay.addConnectionListener(this::sendRevocations);
+    }
+
+    /**
+     * Rejects the user's tokens issued before now; tokens issued afterwards carry the new claims.
+     */
+    public void revoke(Long userId) {
+        long now = System.currentTimeMillis();
+        record(userId, now - now % 1000);
+    }
+
+    /**
+     * Rejects every token of a user who can no longer sign in, such as a deleted one.
+     */
+    public void revokeAll(Long userId) {
+        record(userId, REVOKE_ALL);
+    }
+
+    public boolean isRevoked(Long userId, Date issuedAt) {
+        Revocation revocation = revocations.get(userId);
+        if (revocation == null) {
+            return false;
+        }
+        if (revocation.expiresAt() <= System.currentTimeMillis()) {
+            revocations.remove(userId, revocation);
+            return false;
+        }
+        return issuedAt == null || issuedAt.getTime() < revocation.notBefore();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.denylist.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revocations.values().removeIf(revocation -> revocation.expiresAt() <= now);
+    }
+
+    private void record(Long userId, long notBefore) {
+        apply(userId, new Revocation(notBefore, System.currentTimeMillis() + ttlMillis));
+        relay.publish(RelayFrame.revoke(relay.nodeId(), userId, notBefore));
+    }
+
+    /**
+     * Keeps the later cut-off; for equal ones the later expiry, so re-sent entries never outlive the original.
+     */
+    private void apply(Long userId, Revocation revocation) {
+        revocations.merge(userId, revocation, (existing, added) -> {
+            if (existing.notBefore() != added.notBefore()) {
+                return existing.notBefore() > added.notBefore() ? existing : added;
+            }
+            return existing.expiresAt() >= added.expiresAt() ? existing : added;
+        });
+    }
+
+    private void sendRevocations(String nodeId) {
+        long now = System.currentTimeMillis();
+        List<Long> triples = new ArrayList<>();
+        revocations.forEach((userId, revocation) -> {
+            if (revocation.expiresAt() > now) {
+                triples.add(userId);
+                triples.add(revocation.notBefore());
+                triples.add(revocation.expiresAt());
+            }
+        });
+        if (!triples.isEmpty()) {
+            relay.send(nodeId, RelayFrame.revocations(relay.nodeId(), triples.stream().mapToLong(Long::longValue).toArray()));
+        }
+    }
+
+    private void onFrame(RelayFrame frame) {
+        if (frame.type() == RelayFrame.Type.REVOKE) {
+            apply(frame.userId(), new Revocation(frame.notBeforeMillis(), System.currentTimeMillis() + ttlMillis));
+        } else if (frame.type() == RelayFrame.Type.REVOCATIONS) {
+            long[] triples = frame.revocations();
+            for (int i = 0; i + 2 < triples.length; i += 3) {
+                apply(triples[i], new Revocation(triples[i + 1], triples[i + 2]));
+            }
+        }
+    }
+
+    private record Revocation(long notBefore, long expiresAt) {
+    }
+}
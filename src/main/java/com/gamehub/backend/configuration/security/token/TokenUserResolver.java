@@ -0,0 +1,56 @@
+package com.gamehub.backend.configuration.security.token;
+
+import com.gamehub.backend.configuration.security.CustomUserDetails;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns a bearer token into the user it authenticates. Tokens carrying the user id and roles are trusted on their
+ * verified claims unless the {@link TokenDenylist} revoked them; older tokens without those claims still go through
+ * a user lookup until they expire.
+ */
+@Component
+public class TokenUserResolver {
+
+    private final JwtVerifier jwtVerifier;
+    private final UserDetailsService userDetailsService;
+    private final TokenDenylist tokenDenylist;
+
+    public TokenUserResolver(JwtVerifier jwtVerifier, UserDetailsService userDetailsService, TokenDenylist tokenDenylist) {
+        this.jwtVerifier = jwtVerifier;
+        this.userDetailsService = userDetailsService;
+        this.tokenDenylist = tokenDenylist;
+    }
+
+    /**
+     * Returns the authenticated user, or {@code null} if the token is invalid, expired or revoked.
+     */
+    public UserDetails resolve(String token) {
+        Claims claims;
+        try {
+            claims = jwtVerifier.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        CustomUserDetails user = JwtUtil.userDetailsOf(claims);
+        if (user == null) {
+            return loadUser(claims.getSubject());
+        }
+        return tokenDenylist.isRevoked(user.getId(), claims.getIssuedAt()) ? null : user;
+    }
+
+    private UserDetails loadUser(String username) {
+        if (username == null) {
+            return null;
+        }
+        try {
+            return userDetailsService.loadUserByUsername(username);
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+    }
+}
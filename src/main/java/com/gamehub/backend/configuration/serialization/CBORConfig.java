@@ -0,0 +1,37 @@
+package com.gamehub.backend.configuration.serialization;
+
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+
+/**
+ * CBOR as an opt-in alternative to JSON. REST clients ask for it with {@code Accept} / {@code Content-Type:
+ * application/cbor}; JSON stays first in the converter list and remains the default. The mapper is deliberately not
+ * exposed as a bean, so {@code ObjectMapper} injection points keep resolving to the JSON mapper.
+ */
+@Configuration
+public class CBORConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter() {
+        return new MappingJackson2CborHttpMessageConverter(cborMapper());
+    }
+
+    /**
+     * Decodes STOMP frames sent with {@code content-type:application/cbor}. The strict content type match keeps it
+     * from claiming frames and outgoing payloads that carry no content type.
+     */
+    public static MappingJackson2MessageConverter cborMessageConverter() {
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter(MediaType.APPLICATION_CBOR);
+        converter.setObjectMapper(cborMapper());
+        converter.setStrictContentTypeMatch(true);
+        return converter;
+    }
+
+    public static CBORMapper cborMapper() {
+        return JSONConfig.withDefaults(new CBORMapper());
+    }
+}
@@ -25,10 +25,18 @@ public class JSONConfig {
     @Bean
     public ObjectMapper getObjectMapper() {
 
-        return new ObjectMapper()
-                .registerModule(new JavaTimeModule())
+        return withDefaults(new ObjectMapper());
+    }
+
+    /**
+     * Applies the application's mapping settings to a mapper of any data format, so binary encodings map the same
+     * way JSON does.
+     */
+    public static <T extends ObjectMapper> T withDefaults(T mapper) {
+        mapper.registerModule(new JavaTimeModule())
                 .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
                 .disable(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE)
                 .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        return mapper;
     }
 }
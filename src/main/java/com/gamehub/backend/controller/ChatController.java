@@ -1,104 +1,138 @@
 package com.gamehub.backend.controller;
 
 import com.gamehub.backend.business.ChatMessageService;
-import com.gamehub.backend.business.NotificationService;
+import com.gamehub.backend.business.ConversationService;
+import com.gamehub.backend.business.impl.ChatHistoryCache;
+import com.gamehub.backend.business.impl.ChatPersistencePipeline;
+import com.gamehub.backend.business.impl.UserMessageSender;
+import com.gamehub.backend.configuration.security.CustomUserDetails;
+import com.gamehub.backend.configuration.security.token.StompAuthenticationInterceptor;
 import com.gamehub.backend.domain.ChatMessage;
-import com.gamehub.backend.domain.Notification;
 import com.gamehub.backend.dto.ChatMessageDTO;
-import com.gamehub.backend.dto.NotificationDTO;
+import com.gamehub.backend.dto.ConversationDTO;
 import com.gamehub.backend.persistence.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/chat")
 @CrossOrigin(origins = "http://localhost:5173", exposedHeaders = "Authorization")
 @Validated
 public class ChatController {
+    private static final int DEFAULT_HISTORY_PAGE_SIZE = 50;
+
     private final ChatMessageService chatMessageService;
+    private final ConversationService conversationService;
     private final UserRepository userRepository;
-    private final NotificationService notificationService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ChatPersistencePipeline chatPersistencePipeline;
+    private final ChatHistoryCache chatHistoryCache;
+    private final UserMessageSender userMessageSender;
 
     @Autowired
-    public ChatController(ChatMessageService chatMessageService, UserRepository userRepository, NotificationService notificationService, SimpMessagingTemplate messagingTemplate) {
+    public ChatController(ChatMessageService chatMessageService, ConversationService conversationService, UserRepository userRepository, ChatPersistencePipeline chatPersistencePipeline, ChatHistoryCache chatHistoryCache, UserMessageSender userMessageSender) {
         this.chatMessageService = chatMessageService;
+        this.conversationService = conversationService;
         this.userRepository = userRepository;
-        this.notificationService = notificationService;
-        this.messagingTemplate = messagingTemplate;
+        this.chatPersistencePipeline = chatPersistencePipeline;
+        this.chatHistoryCache = chatHistoryCache;
+        this.userMessageSender = userMessageSender;
     }
 
     @MessageMapping("/chat.send")
-    public void sendMessage(ChatMessageDTO messageDTO) {
-        userRepository.findById(messageDTO.getSenderId())
-                .flatMap(sender -> userRepository.findById(messageDTO.getReceiverId())
-                        .map(receiver -> {
-                            ChatMessage message = new ChatMessage();
-                            message.setSender(sender);
-                            message.setReceiver(receiver);
-                            message.setContent(messageDTO.getContent());
-                            message.setTimestamp(messageDTO.getTimestamp());
-                            chatMessageService.save(message);
-
-                            ChatMessageDTO responseDTO = new ChatMessageDTO(
-                                    sender.getId(),
-                                    receiver.getId(),
-                                    sender.getUsername(),
-                                    receiver.getUsername(),
-                                    messageDTO.getContent(),
-                                    message.getTimestamp()
-                            );
-
-                            messagingTemplate.convertAndSendToUser(
-                                    messageDTO.getReceiverId().toString(), "/queue/messages", responseDTO
-                            );
-
-                            messagingTemplate.convertAndSendToUser(
-                                    messageDTO.getSenderId().toString(), "/queue/messages", responseDTO
-                            );
-
-                            NotificationDTO notificationDTO = new NotificationDTO(
-                                    null,
-                                    receiver.getId(),
-                                    "You have a new message from " + sender.getUsername(),
-                                    "message",
-                                    sender.getId(),
-                                    null
-                            );
-                            messagingTemplate.convertAndSendToUser(
-                                    receiver.getId().toString(), "/queue/notifications", notificationDTO
-                            );
-                            notificationService.save(new Notification(
-                                    null,
-                                    receiver,
-                                    "You have a new message from " + sender.getUsername(),
-                                    message.getTimestamp(),
-                                    false,
-                                    "message",
-                                    sender.getId(),
-                                    null
-                            ));
-
-                            return responseDTO;
-                        }))
-                .orElseThrow(() -> new IllegalArgumentException("Sender or Receiver not found"));
+    public void sendMessage(ChatMessageDTO messageDTO, Principal principal) {
+        CustomUserDetails sender = StompAuthenticationInterceptor.userOf(principal);
+        Long senderId = sender.getId();
+        String receiverUsername = userRepository.findUsernameById(messageDTO.getReceiverId())
+                .orElseThrow(() -> new IllegalArgumentException("Receiver not found"));
+        // Stored columns keep microseconds, so the pushed copy and the persisted row carry the same timestamp.
+        LocalDateTime sentAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        // The row id is only known after the batch insert; clients match the pushed copy to synced rows by this key.
+        String messageKey = ChatMessage.newMessageKey();
+
+        ChatMessageDTO responseDTO = new ChatMessageDTO(
+                null,
+                senderId,
+                messageDTO.getReceiverId(),
+                sender.getUsername(),
+                receiverUsername,
+                messageDTO.getContent(),
+                sentAt,
+                messageKey
+        );
+
+        chatHistoryCache.append(ChatMessage.conversationKeyOf(senderId, messageDTO.getReceiverId()), responseDTO);
+
+        userMessageSender.convertAndSendToUsers(
+                List.of(messageDTO.getReceiverId(), senderId), "/queue/messages", responseDTO
+        );
+
+        chatPersistencePipeline.submit(new ChatPersistencePipeline.PendingChatMessage(
+                senderId,
+                messageDTO.getReceiverId(),
+                sender.getUsername(),
+                messageDTO.getContent(),
+                sentAt,
+                messageKey
+        ));
     }
 
     @GetMapping("/history")
-    public List<ChatMessageDTO> getChatHistory(@RequestParam Long userId, @RequestParam Long friendId) {
-        return chatMessageService.getChatMessagesBetweenUsers(userId, friendId).stream()
+    public List<ChatMessageDTO> getChatHistory(@RequestParam Long userId,
+                                               @RequestParam Long friendId,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+                                               @RequestParam(required = false) Long beforeId,
+                                               @RequestParam(required = false) Integer limit) {
+        if (before == null && limit == null) {
+            return toDtos(chatMessageService.getChatMessagesBetweenUsers(userId, friendId));
+        }
+
+        String conversationKey = ChatMessage.conversationKeyOf(userId, friendId);
+        int pageSize = limit != null ? limit : DEFAULT_HISTORY_PAGE_SIZE;
+        Optional<List<ChatMessageDTO>> cached = chatHistoryCache.getPage(conversationKey, before, beforeId, pageSize);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        List<ChatMessageDTO> page = toDtos(chatMessageService.getChatMessagesBetweenUsers(userId, friendId, before, beforeId, pageSize));
+        if (before == null) {
+            chatHistoryCache.seed(conversationKey, page, page.size() < pageSize);
+        }
+        return page;
+    }
+
+    @GetMapping("/inbox")
+    @PreAuthorize("#userId == principal.id")
+    public List<ConversationDTO> getInbox(@RequestParam Long userId) {
+        return conversationService.getInbox(userId);
+    }
+
+    @PostMapping("/inbox/read")
+    @PreAuthorize("#userId == principal.id")
+    public void markConversationRead(@RequestParam Long userId, @RequestParam Long peerId) {
+        conversationService.markConversationRead(userId, peerId);
+    }
+
+    private List<ChatMessageDTO> toDtos(List<ChatMessage> messages) {
+        return messages.stream()
                 .map(msg -> new ChatMessageDTO(
+                        msg.getId(),
                         msg.getSender().getId(),
                         msg.getReceiver().getId(),
                         msg.getSender().getUsername(),
                         msg.getReceiver().getUsername(),
                         msg.getContent(),
-                        msg.getTimestamp()
+                        msg.getTimestamp(),
+                        msg.getMessageKey()
                 ))
                 .toList();
     }
@@ -5,11 +5,13 @@ import com.gamehub.backend.domain.Notification;
 import com.gamehub.backend.dto.NotificationDTO;
 import com.gamehub.backend.persistence.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -19,13 +21,11 @@ import java.util.List;
 public class NotificationController {
     private final NotificationService notificationService;
     private final UserRepository userRepository;
-    private final SimpMessagingTemplate messagingTemplate;
 
     @Autowired
-    public NotificationController(NotificationService notificationService, UserRepository userRepository, SimpMessagingTemplate messagingTemplate) {
+    public NotificationController(NotificationService notificationService, UserRepository userRepository) {
         this.notificationService = notificationService;
         this.userRepository = userRepository;
-        this.messagingTemplate = messagingTemplate;
     }
 
     @MessageMapping("/notifications/send")
@@ -38,17 +38,7 @@ public class NotificationController {
                     notification.setType(notificationDTO.getType());
                     notification.setSenderId(notificationDTO.getSenderId());
                     notification.setEventId(notificationDTO.getEventId());
-                    Notification savedNotification = notificationService.save(notification);
-                    NotificationDTO result = new NotificationDTO(
-                            savedNotification.getId(),
-                            user.getId(),
-                            savedNotification.getMessage(),
-                            savedNotification.getType(),
-                            savedNotification.getSenderId(),
-                            savedNotification.getEventId()
-                    );
-                    messagingTemplate.convertAndSend("/user/" + notificationDTO.getUserId() + "/queue/notifications", result);
-                    return result;
+                    return notificationService.send(notification);
                 })
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
     }
@@ -58,9 +48,35 @@ public class NotificationController {
         return notificationService.getUnreadNotifications(userId);
     }
 
+    @GetMapping("/unread-count")
+    @PreAuthorize("isAuthenticated() and #userId == principal.id")
+    public long getUnreadCount(@RequestParam Long userId) {
+        return notificationService.getUnreadCount(userId);
+    }
+
     @PostMapping("/read/{id}")
     public void markAsRead(@PathVariable Long id) {
         notificationService.markAsRead(id);
     }
+
+    @PostMapping("/read")
+    @PreAuthorize("isAuthenticated() and #userId == principal.id")
+    public int markAsRead(@RequestParam Long userId, @RequestBody List<Long> ids) {
+        return notificationService.markAsRead(userId, ids);
+    }
+
+    @PostMapping("/read-up-to")
+    @PreAuthorize("isAuthenticated() and #userId == principal.id")
+    public int markReadUpTo(@RequestParam Long userId,
+                            @RequestParam(required = false) Long id,
+                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before) {
+        return notificationService.markReadUpTo(userId, id, before);
+    }
+
+    @PostMapping("/broadcasts/read/{id}")
+    @PreAuthorize("isAuthenticated() and #userId == principal.id")
+    public void markBroadcastsRead(@PathVariable Long id, @RequestParam Long userId) {
+        notificationService.markBroadcastsReadUpTo(userId, id);
+    }
 }
 
@@ -0,0 +1,32 @@
+package com.gamehub.backend.controller;
+
+import com.gamehub.backend.business.SyncService;
+import com.gamehub.backend.dto.SyncResponseDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/sync")
+@CrossOrigin(origins = "http://localhost:5173", exposedHeaders = "Authorization")
+@Validated
+public class SyncController {
+    private static final int DEFAULT_SYNC_LIMIT = 200;
+
+    private final SyncService syncService;
+
+    @Autowired
+    public SyncController(SyncService syncService) {
+        this.syncService = syncService;
+    }
+
+    @GetMapping
+    @PreAuthorize("#userId == principal.id")
+    public ResponseEntity<SyncResponseDTO> sync(@RequestParam Long userId,
+                                                @RequestParam(required = false) String since,
+                                                @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(syncService.sync(userId, since, limit != null ? limit : DEFAULT_SYNC_LIMIT));
+    }
+}
@@ -3,8 +3,10 @@ package com.gamehub.backend.controller;
 import com.gamehub.backend.configuration.security.token.JwtUtil;
 import com.gamehub.backend.domain.FriendRelationship;
 import com.gamehub.backend.dto.FriendRequestDTO;
+import com.gamehub.backend.dto.FriendSuggestionDTO;
 import com.gamehub.backend.dto.LoginDTO;
 import com.gamehub.backend.dto.UserDTO;
+import com.gamehub.backend.business.FriendSuggestionService;
 import com.gamehub.backend.business.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -24,11 +26,13 @@ import java.util.Map;
 public class UserController {
     private final UserService userService;
     private final JwtUtil jwtUtil;
+    private final FriendSuggestionService friendSuggestionService;
 
     @Autowired
-    public UserController(UserService userService, JwtUtil jwtUtil) {
+    public UserController(UserService userService, JwtUtil jwtUtil, FriendSuggestionService friendSuggestionService) {
         this.userService = userService;
         this.jwtUtil = jwtUtil;
+        this.friendSuggestionService = friendSuggestionService;
     }
 
     @PostMapping
@@ -104,6 +108,24 @@ public class UserController {
         return ResponseEntity.ok(friends);
     }
 
+    @GetMapping("/friends/{userId}/contains/{otherId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Boolean> areFriends(@PathVariable Long userId, @PathVariable Long otherId) {
+        return ResponseEntity.ok(userService.areFriends(userId, otherId));
+    }
+
+    @GetMapping("/friends/{userId}/mutual/{otherId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Integer> countMutualFriends(@PathVariable Long userId, @PathVariable Long otherId) {
+        return ResponseEntity.ok(userService.countMutualFriends(userId, otherId));
+    }
+
+    @GetMapping("/friends/{userId}/suggestions")
+    @PreAuthorize("#userId == principal.id")
+    public ResponseEntity<List<FriendSuggestionDTO>> getFriendSuggestions(@PathVariable Long userId, @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(friendSuggestionService.getFriendSuggestions(userId, limit));
+    }
+
     @DeleteMapping("/friends/remove/{relationshipId}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Void> removeFriend(@PathVariable Long relationshipId) {
@@ -117,6 +139,11 @@ public class UserController {
         boolean exists = userService.verifyUsername(username);
         return ResponseEntity.ok(exists);
     }
+
+    @GetMapping("/username-suggestions")
+    public ResponseEntity<List<String>> suggestUsernames(@RequestParam String username) {
+        return ResponseEntity.ok(userService.suggestUsernames(username));
+    }
     @PostMapping("/request-password-reset")
     public ResponseEntity<String> requestPasswordReset(@RequestBody Map<String, String> request) {
         String email = request.get("email");
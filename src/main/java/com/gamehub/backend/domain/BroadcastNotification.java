@@ -0,0 +1,29 @@
+package com.gamehub.backend.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "broadcast_notifications", indexes = @Index(name = "idx_broadcast_notifications_time", columnList = "timestamp"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BroadcastNotification {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String message;
+
+    private LocalDateTime timestamp;
+
+    private String type;
+    private Long senderId;
+    private Long eventId;
+}
@@ -0,0 +1,22 @@
+package com.gamehub.backend.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "broadcast_read_watermarks")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BroadcastReadWatermark {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "last_read_id", nullable = false)
+    private Long lastReadId;
+}
@@ -5,9 +5,14 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Entity
-@Table(name = "chat_messages")
+@Table(name = "chat_messages", indexes = {
+        @Index(name = "idx_chat_messages_conversation", columnList = "conversation_key, timestamp"),
+        @Index(name = "idx_chat_messages_sender_time", columnList = "sender_id, timestamp"),
+        @Index(name = "idx_chat_messages_receiver_time", columnList = "receiver_id, timestamp")
+})
 @Data
 @Getter
 @Setter
@@ -26,7 +31,34 @@ public class ChatMessage {
     @JoinColumn(name = "receiver_id")
     private User receiver;
 
+    @Column(name = "conversation_key", length = 41)
+    private String conversationKey;
+
     private String content;
 
     private LocalDateTime timestamp;
+
+    /**
+     * Identifies the message to clients before it has a row id: the copy pushed over STOMP carries the same key as
+     * the row later returned by history and sync.
+     */
+    @Column(name = "message_key", length = 36)
+    private String messageKey;
+
+    @PrePersist
+    void assignMessageKey() {
+        if (messageKey == null) {
+            messageKey = newMessageKey();
+        }
+    }
+
+    public static String newMessageKey() {
+        return UUID.randomUUID().toString();
+    }
+
+    public static String conversationKeyOf(Long userId, Long otherUserId) {
+        long low = Math.min(userId, otherUserId);
+        long high = Math.max(userId, otherUserId);
+        return low + ":" + high;
+    }
 }
@@ -0,0 +1,44 @@
+package com.gamehub.backend.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "conversations",
+        uniqueConstraints = @UniqueConstraint(name = "uk_conversations_owner_peer", columnNames = {"owner_id", "peer_id"}),
+        indexes = @Index(name = "idx_conversations_owner_last_message", columnList = "owner_id, last_message_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class Conversation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(name = "peer_id", nullable = false)
+    private Long peerId;
+
+    @Column(name = "conversation_key", length = 41, nullable = false)
+    private String conversationKey;
+
+    @Column(name = "last_message_preview")
+    private String lastMessagePreview;
+
+    @Column(name = "last_sender_id")
+    private Long lastSenderId;
+
+    @Column(name = "last_message_at")
+    private LocalDateTime lastMessageAt;
+
+    @Column(name = "unread_count", nullable = false)
+    private int unreadCount;
+}
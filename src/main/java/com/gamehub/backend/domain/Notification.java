@@ -2,11 +2,17 @@ package com.gamehub.backend.domain;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications",
+        indexes = {
+                @Index(name = "idx_notifications_user_unread", columnList = "user_id, is_read, sender_id"),
+                @Index(name = "idx_notifications_user_time", columnList = "user_id, timestamp")
+        },
+        uniqueConstraints = @UniqueConstraint(name = "uk_notifications_coalesce_key", columnNames = {"user_id", "coalesce_key"}))
 @Data
 @Setter
 @Getter
@@ -30,4 +36,26 @@ public class Notification {
     private String type;
     private Long senderId;
     private Long eventId;
+
+    @ColumnDefault("1")
+    @Column(name = "coalesced_count", nullable = false)
+    private int coalescedCount = 1;
+
+    /**
+     * Set while a coalesced notification is unread and cleared when it is read, so the unique key allows one unread
+     * row per receiver and key but any number of read ones.
+     */
+    @Column(name = "coalesce_key", length = 64)
+    private String coalesceKey;
+
+    public Notification(Long id, User user, String message, LocalDateTime timestamp, boolean isRead, String type, Long senderId, Long eventId) {
+        this(id, user, message, timestamp, isRead, type, senderId, eventId, 1, null);
+    }
+
+    public void setRead(boolean isRead) {
+        this.isRead = isRead;
+        if (isRead) {
+            coalesceKey = null;
+        }
+    }
 }
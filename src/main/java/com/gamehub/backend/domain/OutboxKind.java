@@ -0,0 +1,8 @@
+package com.gamehub.backend.domain;
+
+public enum OutboxKind {
+    USER,
+    USERS,
+    CONNECTED_USERS,
+    EMAIL
+}
@@ -0,0 +1,57 @@
+package com.gamehub.backend.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbox_messages",
+        indexes = {
+                @Index(name = "idx_outbox_available", columnList = "available_at, id"),
+                @Index(name = "idx_outbox_recipient", columnList = "kind, recipient, id")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OutboxKind kind;
+
+    private String recipient;
+
+    @Column(name = "recipient_ids", columnDefinition = "TEXT")
+    private String recipientIds;
+
+    private String destination;
+
+    private String subject;
+
+    @Lob
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String payload;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+}
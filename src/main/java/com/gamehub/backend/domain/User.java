@@ -4,7 +4,6 @@ package com.gamehub.backend.domain;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -56,7 +55,5 @@ public class User {
 
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
     private List<FriendRelationship> friendRelationships = new ArrayList<>();
-    private String resetToken;
-    private LocalDateTime tokenExpiryDate;
 
 }
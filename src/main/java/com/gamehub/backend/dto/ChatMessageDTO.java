@@ -12,6 +12,7 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 public class ChatMessageDTO {
+    private Long id;
     @NotNull(message = "Sender ID cannot be null")
     private Long senderId;
     @NotNull(message = "Receiver ID cannot be null")
@@ -22,4 +23,9 @@ public class ChatMessageDTO {
     private String content;
     @NotNull(message = "Timestamp cannot be null")
     private LocalDateTime timestamp;
+    private String messageKey;
+
+    public ChatMessageDTO(Long id, Long senderId, Long receiverId, String senderUsername, String receiverUsername, String content, LocalDateTime timestamp) {
+        this(id, senderId, receiverId, senderUsername, receiverUsername, content, timestamp, null);
+    }
 }
@@ -0,0 +1,20 @@
+package com.gamehub.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConversationDTO {
+    private Long peerId;
+    private String peerUsername;
+    private String peerProfilePicture;
+    private String lastMessagePreview;
+    private Long lastSenderId;
+    private LocalDateTime lastMessageAt;
+    private int unreadCount;
+}
@@ -0,0 +1,16 @@
+package com.gamehub.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventParticipantUpdateDTO {
+    private Long eventId;
+    private Long userId;
+    private String username;
+    private boolean joined;
+    private int participantCount;
+}
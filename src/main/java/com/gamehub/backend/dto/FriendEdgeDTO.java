@@ -0,0 +1,7 @@
+package com.gamehub.backend.dto;
+
+/**
+ * An accepted friendship: who sent the request, who accepted it, and the relationship row it came from.
+ */
+public record FriendEdgeDTO(Long relationshipId, Long requesterId, Long addresseeId) {
+}
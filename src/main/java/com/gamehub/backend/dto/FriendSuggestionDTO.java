@@ -0,0 +1,16 @@
+package com.gamehub.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class FriendSuggestionDTO {
+    private UserDTO user;
+    private int mutualFriends;
+    private int sharedGames;
+}
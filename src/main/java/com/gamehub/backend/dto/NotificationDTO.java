@@ -19,4 +19,10 @@ public class NotificationDTO {
     private String type;
     private Long senderId;
     private Long eventId;
+    private boolean broadcast;
+    private int count = 1;
+
+    public NotificationDTO(Long id, Long userId, String message, String type, Long senderId, Long eventId) {
+        this(id, userId, message, type, senderId, eventId, false, 1);
+    }
 }
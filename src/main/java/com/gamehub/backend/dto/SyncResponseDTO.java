@@ -0,0 +1,17 @@
+package com.gamehub.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SyncResponseDTO {
+    private List<ChatMessageDTO> messages;
+    private List<NotificationDTO> notifications;
+    private String cursor;
+    private boolean hasMore;
+}
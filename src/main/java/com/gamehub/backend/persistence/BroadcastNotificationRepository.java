@@ -0,0 +1,28 @@
+package com.gamehub.backend.persistence;
+
+import com.gamehub.backend.domain.BroadcastNotification;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface BroadcastNotificationRepository extends JpaRepository<BroadcastNotification, Long> {
+    List<BroadcastNotification> findByIdGreaterThanOrderByIdAsc(Long id);
+    long countByIdGreaterThan(Long id);
+    @Query("SELECT COALESCE(MAX(b.id), 0) FROM BroadcastNotification b")
+    long findMaxId();
+    @Query("SELECT b.id FROM BroadcastNotification b ORDER BY b.id ASC")
+    List<Long> findAllIds();
+    Optional<BroadcastNotification> findTopByTimestampLessThanEqualOrderByIdDesc(LocalDateTime timestamp);
+    @Transactional
+    void deleteAllByTimestampBefore(LocalDateTime before);
+
+    @Query("SELECT b FROM BroadcastNotification b WHERE b.timestamp > :since OR (b.timestamp = :since AND b.id > :sinceId) " +
+            "ORDER BY b.timestamp ASC, b.id ASC")
+    List<BroadcastNotification> findAfter(@Param("since") LocalDateTime since, @Param("sinceId") Long sinceId, Pageable pageable);
+}
@@ -0,0 +1,15 @@
+package com.gamehub.backend.persistence;
+
+import com.gamehub.backend.domain.BroadcastReadWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface BroadcastReadWatermarkRepository extends JpaRepository<BroadcastReadWatermark, Long> {
+    @Transactional
+    @Modifying
+    @Query("UPDATE BroadcastReadWatermark w SET w.lastReadId = :lastReadId WHERE w.userId = :userId AND w.lastReadId < :lastReadId")
+    int advance(@Param("userId") Long userId, @Param("lastReadId") Long lastReadId);
+}
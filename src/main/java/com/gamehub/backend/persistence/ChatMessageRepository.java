@@ -1,7 +1,12 @@
 package com.gamehub.backend.persistence;
 
 import com.gamehub.backend.domain.ChatMessage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -9,5 +14,34 @@ import java.util.List;
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
     List<ChatMessage> findBySenderId(Long senderId);
     List<ChatMessage> findByReceiverId(Long receiverId);
+    List<ChatMessage> findByConversationKeyOrderByTimestampAsc(String conversationKey);
+    List<ChatMessage> findByConversationKeyOrderByTimestampDescIdDesc(String conversationKey, Pageable pageable);
+
+    /**
+     * Messages older than the (timestamp, id) cursor, newest first; the id breaks ties between messages sent in the
+     * same instant, so none is skipped at a page boundary.
+     */
+    @Query("SELECT m FROM ChatMessage m WHERE m.conversationKey = :conversationKey " +
+            "AND (m.timestamp < :before OR (m.timestamp = :before AND m.id < :beforeId)) ORDER BY m.timestamp DESC, m.id DESC")
+    List<ChatMessage> findPageBefore(@Param("conversationKey") String conversationKey, @Param("before") LocalDateTime before,
+                                     @Param("beforeId") Long beforeId, Pageable pageable);
+    @Transactional
     void deleteAllByTimestampBefore(LocalDateTime before);
+
+    @Query("SELECT m FROM ChatMessage m WHERE (m.sender.id = :userId OR m.receiver.id = :userId) " +
+            "AND (m.timestamp > :since OR (m.timestamp = :since AND m.id > :sinceId)) ORDER BY m.timestamp ASC, m.id ASC")
+    List<ChatMessage> findForUserAfter(@Param("userId") Long userId, @Param("since") LocalDateTime since,
+                                       @Param("sinceId") Long sinceId, Pageable pageable);
+
+    @Query("SELECT m FROM ChatMessage m WHERE m.conversationKey IS NOT NULL AND m.timestamp = " +
+            "(SELECT MAX(latest.timestamp) FROM ChatMessage latest WHERE latest.conversationKey = m.conversationKey)")
+    List<ChatMessage> findLatestMessagePerConversation();
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ChatMessage m SET m.conversationKey = CASE " +
+            "WHEN m.sender.id < m.receiver.id THEN CONCAT(CAST(m.sender.id AS String), ':', CAST(m.receiver.id AS String)) " +
+            "ELSE CONCAT(CAST(m.receiver.id AS String), ':', CAST(m.sender.id AS String)) END " +
+            "WHERE m.conversationKey IS NULL")
+    int backfillConversationKeys();
 }
@@ -0,0 +1,44 @@
+package com.gamehub.backend.persistence;
+
+import com.gamehub.backend.domain.Conversation;
+import com.gamehub.backend.dto.ConversationDTO;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ConversationRepository extends JpaRepository<Conversation, Long> {
+    @Query("SELECT new com.gamehub.backend.dto.ConversationDTO(c.peerId, u.username, u.profilePicture, c.lastMessagePreview, c.lastSenderId, c.lastMessageAt, c.unreadCount) " +
+            "FROM Conversation c JOIN User u ON u.id = c.peerId " +
+            "WHERE c.ownerId = :ownerId ORDER BY c.lastMessageAt DESC")
+    List<ConversationDTO> findInbox(@Param("ownerId") Long ownerId);
+
+    /**
+     * Counts a message towards the conversation's unread total and, unless a newer message is already shown, makes it
+     * the preview. {@code lastMessageAt} is assigned last because MySQL evaluates assignments left to right, so the
+     * earlier conditions still see the old value.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Conversation c SET " +
+            "c.lastMessagePreview = CASE WHEN c.lastMessageAt IS NULL OR c.lastMessageAt <= :sentAt THEN :preview ELSE c.lastMessagePreview END, " +
+            "c.lastSenderId = CASE WHEN c.lastMessageAt IS NULL OR c.lastMessageAt <= :sentAt THEN :senderId ELSE c.lastSenderId END, " +
+            "c.unreadCount = c.unreadCount + :unreadIncrement, " +
+            "c.lastMessageAt = CASE WHEN c.lastMessageAt IS NULL OR c.lastMessageAt <= :sentAt THEN :sentAt ELSE c.lastMessageAt END " +
+            "WHERE c.ownerId = :ownerId AND c.peerId = :peerId")
+    int applyMessage(@Param("ownerId") Long ownerId,
+                     @Param("peerId") Long peerId,
+                     @Param("preview") String preview,
+                     @Param("senderId") Long senderId,
+                     @Param("sentAt") LocalDateTime sentAt,
+                     @Param("unreadIncrement") int unreadIncrement);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Conversation c SET c.unreadCount = 0 WHERE c.ownerId = :ownerId AND c.peerId = :peerId")
+    int markRead(@Param("ownerId") Long ownerId, @Param("peerId") Long peerId);
+}
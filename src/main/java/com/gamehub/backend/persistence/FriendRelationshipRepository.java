@@ -2,7 +2,10 @@ package com.gamehub.backend.persistence;
 
 import com.gamehub.backend.domain.FriendRelationship;
 import com.gamehub.backend.domain.User;
+import com.gamehub.backend.dto.FriendEdgeDTO;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -16,4 +19,8 @@ public interface FriendRelationshipRepository extends JpaRepository<FriendRelati
     boolean existsByUserAndFriendAndStatus(User user, User friend, FriendRelationship.Status status);
     boolean existsByFriendAndStatus(User friend, FriendRelationship.Status status);
     boolean existsByUserAndStatus(User user, FriendRelationship.Status status);
+
+    @Query("SELECT new com.gamehub.backend.dto.FriendEdgeDTO(r.id, r.user.id, r.friend.id) " +
+            "FROM FriendRelationship r WHERE r.status = :status")
+    List<FriendEdgeDTO> findEdgesByStatus(@Param("status") FriendRelationship.Status status);
 }
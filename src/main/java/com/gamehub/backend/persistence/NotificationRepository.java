@@ -1,13 +1,43 @@
 package com.gamehub.backend.persistence;
 
 import com.gamehub.backend.domain.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     List<Notification> findByUserId(Long userId);
     List<Notification> findByUserIdAndIsReadFalse(Long userId);
+    long countByUserIdAndIsReadFalse(Long userId);
+    @Query("SELECT n.user.id, COUNT(n) FROM Notification n WHERE n.user.id IN :userIds AND n.isRead = false GROUP BY n.user.id")
+    List<Object[]> countUnreadByUserIds(@Param("userIds") Collection<Long> userIds);
+    @Transactional
     void deleteAllByTimestampBefore(LocalDateTime before);
+
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId " +
+            "AND (n.timestamp > :since OR (n.timestamp = :since AND n.id > :sinceId)) ORDER BY n.timestamp ASC, n.id ASC")
+    List<Notification> findForUserAfter(@Param("userId") Long userId, @Param("since") LocalDateTime since,
+                                        @Param("sinceId") Long sinceId, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true, n.coalesceKey = NULL WHERE n.user.id = :userId AND n.id IN :ids AND n.isRead = false")
+    int markReadByIds(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true, n.coalesceKey = NULL WHERE n.user.id = :userId AND n.id <= :upToId AND n.isRead = false")
+    int markReadUpToId(@Param("userId") Long userId, @Param("upToId") Long upToId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true, n.coalesceKey = NULL WHERE n.user.id = :userId AND n.timestamp <= :upTo AND n.isRead = false")
+    int markReadUpToTimestamp(@Param("userId") Long userId, @Param("upTo") LocalDateTime upTo);
 }
@@ -0,0 +1,34 @@
+package com.gamehub.backend.persistence;
+
+import com.gamehub.backend.domain.OutboxKind;
+import com.gamehub.backend.domain.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+    /**
+     * Due entries of the given kinds, leaving out any entry whose recipient still has an earlier one waiting for a
+     * retry or leased to another node, so a recipient's entries are never delivered out of order.
+     */
+    @Query("SELECT m FROM OutboxMessage m WHERE m.kind IN :kinds AND m.availableAt <= :now AND NOT EXISTS (" +
+            "SELECT 1 FROM OutboxMessage earlier WHERE earlier.kind = m.kind AND earlier.id < m.id AND earlier.availableAt > :now " +
+            "AND (earlier.recipient = m.recipient OR (earlier.recipient IS NULL AND m.recipient IS NULL))) ORDER BY m.id ASC")
+    List<OutboxMessage> findDeliverable(@Param("kinds") Collection<OutboxKind> kinds, @Param("now") LocalDateTime now, Pageable pageable);
+
+    List<OutboxMessage> findByClaimTokenOrderByIdAsc(String claimToken);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.claimToken = :claimToken, m.availableAt = :leaseUntil " +
+            "WHERE m.id IN :ids AND m.availableAt <= :now")
+    int claim(@Param("ids") Collection<Long> ids, @Param("claimToken") String claimToken,
+              @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+}
@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -28,6 +29,9 @@ public interface PurchaseRepository extends JpaRepository<Purchase, Long> {
     @Query("SELECT CASE WHEN COUNT(p) > 0 THEN true ELSE false END FROM Purchase p WHERE p.user.id = :userId AND p.game.id = :gameId")
     boolean existsByUserIdAndGameId(@Param("userId") Long userId, @Param("gameId") Long gameId);
 
+    @Query("SELECT DISTINCT p.user.id, p.game.id FROM Purchase p WHERE p.user.id IN :userIds")
+    List<Object[]> findUserGamePairsByUserIds(@Param("userIds") Collection<Long> userIds);
+
     @Query("SELECT g.title, " +
             "(SELECT COUNT(p) FROM Purchase p WHERE p.game.id = g.id AND (:startDate IS NULL OR p.purchaseDate >= :startDate) AND (:endDate IS NULL OR p.purchaseDate <= :endDate)), " +
             "(SELECT SUM(p.amount) FROM Purchase p WHERE p.game.id = g.id AND (:startDate IS NULL OR p.purchaseDate >= :startDate) AND (:endDate IS NULL OR p.purchaseDate <= :endDate)), " +
@@ -0,0 +1,179 @@
+package com.gamehub.backend.persistence.partition;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Weekly {@code RANGE COLUMNS(timestamp)} partitions for {@code chat_messages} and {@code notifications} on MySQL, so
+ * the retention cleanup can drop whole weeks instead of deleting rows. Off unless
+ * {@code storage.partitioning.enabled=true}.
+ * <p>
+ * Tables that are not partitioned yet are only converted with {@code storage.partitioning.convert-tables=true}, since
+ * the conversion cannot be undone in place: MySQL does not allow foreign keys on partitioned tables, so the tables'
+ * foreign keys are dropped, and the primary key becomes {@code (id, timestamp)}. Every unique key has to include the
+ * partitioning column too, so other unique keys are dropped as well; for {@code notifications} that is the coalescing
+ * key, and {@code NotificationCoalescer} falls back to updating the unread row and inserting when there is none. To
+ * migrate, back up both tables, start one instance with both properties set, then remove {@code convert-tables}
+ * again. Because Hibernate cannot re-add the dropped keys, run migrated databases with {@code spring.jpa.hibernate.ddl-auto=validate} or {@code none};
+ * with {@code update} it logs a failed {@code ALTER TABLE} on every startup. Without the opt-in, unpartitioned tables
+ * are left alone and the cleanup keeps using row deletes.
+ */
+@Component
+@Slf4j
+public class WeeklyPartitionManager {
+
+    static final List<String> PARTITIONED_TABLES = List.of("chat_messages", "notifications");
+    static final String MAX_PARTITION = "pmax";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+    private static final DateTimeFormatter PARTITION_BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd 00:00:00");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final boolean convertTables;
+    private final int weeksAhead;
+    private volatile boolean active;
+
+    @Autowired
+    public WeeklyPartitionManager(JdbcTemplate jdbcTemplate,
+                                  @Value("${storage.partitioning.enabled:false}") boolean enabled,
+                                  @Value("${storage.partitioning.convert-tables:false}") boolean convertTables,
+                                  @Value("${storage.partitioning.weeks-ahead:2}") int weeksAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.convertTables = convertTables;
+        this.weeksAhead = weeksAhead;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preparePartitions() {
+        if (!enabled) {
+            return;
+        }
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (product == null || !product.toLowerCase().contains("mysql")) {
+            log.warn("Weekly partitioning is only supported on MySQL, keeping row deletes on {}.", product);
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        List<String> unpartitioned = PARTITIONED_TABLES.stream().filter(table -> listPartitionWeeks(table).isEmpty()).toList();
+        if (!unpartitioned.isEmpty() && !convertTables) {
+            log.warn("Tables {} are not partitioned and storage.partitioning.convert-tables is off; keeping row deletes. " +
+                    "Converting drops their foreign keys, see WeeklyPartitionManager for the migration steps.", unpartitioned);
+            return;
+        }
+        for (String table : unpartitioned) {
+            partitionTable(table, today);
+        }
+        active = true;
+        createUpcomingPartitions(today);
+    }
+
+    public void createUpcomingPartitions(LocalDate today) {
+        if (!active) {
+            return;
+        }
+        LocalDate lastWeek = weekStart(today).plusWeeks(weeksAhead);
+        for (String table : PARTITIONED_TABLES) {
+            List<LocalDate> weeks = listPartitionWeeks(table);
+            LocalDate next = weeks.isEmpty() ? weekStart(today) : weeks.get(weeks.size() - 1).plusWeeks(1);
+            if (next.isAfter(lastWeek)) {
+                continue;
+            }
+            StringJoiner partitions = new StringJoiner(", ");
+            for (LocalDate week = next; !week.isAfter(lastWeek); week = week.plusWeeks(1)) {
+                partitions.add(partitionDefinition(week));
+            }
+            partitions.add("PARTITION " + MAX_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+            jdbcTemplate.execute("ALTER TABLE " + table + " REORGANIZE PARTITION " + MAX_PARTITION + " INTO (" + partitions + ")");
+            log.info("Added weekly partitions to {} up to the week of {}.", table, lastWeek);
+        }
+    }
+
+    public void dropPartitionsBefore(LocalDateTime cutoff) {
+        if (!active) {
+            return;
+        }
+        for (String table : PARTITIONED_TABLES) {
+            for (LocalDate week : listPartitionWeeks(table)) {
+                if (!week.plusWeeks(1).atStartOfDay().isAfter(cutoff)) {
+                    jdbcTemplate.execute("ALTER TABLE " + table + " DROP PARTITION " + week.format(PARTITION_NAME));
+                    log.info("Dropped partition {} of {}.", week.format(PARTITION_NAME), table);
+                }
+            }
+        }
+    }
+
+    List<LocalDate> listPartitionWeeks(String table) {
+        List<String> names = jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL " +
+                        "ORDER BY PARTITION_ORDINAL_POSITION",
+                String.class, table);
+        List<LocalDate> weeks = new ArrayList<>();
+        for (String name : names) {
+            if (!MAX_PARTITION.equals(name)) {
+                weeks.add(LocalDate.parse(name, PARTITION_NAME));
+            }
+        }
+        return weeks;
+    }
+
+    private void partitionTable(String table, LocalDate today) {
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(timestamp) FROM " + table, Timestamp.class);
+        LocalDate firstWeek = weekStart(oldest != null ? oldest.toLocalDateTime().toLocalDate() : today);
+
+        List<String> foreignKeys = jdbcTemplate.queryForList(
+                "SELECT CONSTRAINT_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS " +
+                        "WHERE CONSTRAINT_SCHEMA = DATABASE() AND TABLE_NAME = ?",
+                String.class, table);
+        for (String foreignKey : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP FOREIGN KEY `" + foreignKey + "`");
+        }
+        List<String> uniqueKeys = jdbcTemplate.queryForList(
+                "SELECT CONSTRAINT_NAME FROM information_schema.TABLE_CONSTRAINTS " +
+                        "WHERE CONSTRAINT_SCHEMA = DATABASE() AND TABLE_NAME = ? AND CONSTRAINT_TYPE = 'UNIQUE'",
+                String.class, table);
+        for (String uniqueKey : uniqueKeys) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP INDEX `" + uniqueKey + "`");
+        }
+        jdbcTemplate.update("UPDATE " + table + " SET timestamp = NOW(6) WHERE timestamp IS NULL");
+        jdbcTemplate.execute("ALTER TABLE " + table + " MODIFY timestamp DATETIME(6) NOT NULL, " +
+                "DROP PRIMARY KEY, ADD PRIMARY KEY (id, timestamp)");
+
+        StringJoiner partitions = new StringJoiner(", ");
+        for (LocalDate week = firstWeek; !week.isAfter(weekStart(today)); week = week.plusWeeks(1)) {
+            partitions.add(partitionDefinition(week));
+        }
+        partitions.add("PARTITION " + MAX_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+        jdbcTemplate.execute("ALTER TABLE " + table + " PARTITION BY RANGE COLUMNS(timestamp) (" + partitions + ")");
+        log.info("Converted {} to weekly partitions starting at the week of {}.", table, firstWeek);
+    }
+
+    private static String partitionDefinition(LocalDate week) {
+        return "PARTITION " + week.format(PARTITION_NAME) + " VALUES LESS THAN ('" + week.plusWeeks(1).format(PARTITION_BOUND) + "')";
+    }
+
+    static LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+}
@@ -0,0 +1,213 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.configuration.cluster.LoopbackClusterRelay;
+import com.gamehub.backend.dto.ChatMessageDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatHistoryCacheTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    private SimpleMeterRegistry meterRegistry;
+    private ChatHistoryCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ChatHistoryCache(new LoopbackClusterRelay("a"), meterRegistry, 5, 2, Long.MAX_VALUE);
+    }
+
+    private ChatMessageDTO message(int minute) {
+        return new ChatMessageDTO(null, 1L, 2L, "sender", "receiver", "Message " + minute, START.plusMinutes(minute));
+    }
+
+    private List<ChatMessageDTO> messages(int from, int to) {
+        List<ChatMessageDTO> result = new ArrayList<>();
+        for (int i = from; i <= to; i++) {
+            result.add(message(i));
+        }
+        return result;
+    }
+
+    @Test
+    void unknownConversationIsAMiss() {
+        assertTrue(cache.getPage("1:2", null, null, 3).isEmpty());
+        assertEquals(1.0, meterRegistry.counter("chat.history.cache.miss").count());
+    }
+
+    @Test
+    void seededWindowServesLatestPageOldestFirst() {
+        cache.seed("1:2", messages(1, 5), false);
+
+        Optional<List<ChatMessageDTO>> page = cache.getPage("1:2", null, null, 3);
+
+        assertTrue(page.isPresent());
+        assertEquals(List.of(message(3), message(4), message(5)), page.get());
+        assertEquals(1.0, meterRegistry.counter("chat.history.cache.hit").count());
+    }
+
+    @Test
+    void pageBeforeCursorIsServedWhileTheWindowCoversIt() {
+        cache.seed("1:2", messages(1, 5), false);
+
+        assertEquals(List.of(message(2), message(3)), cache.getPage("1:2", START.plusMinutes(4), null, 2).orElseThrow());
+        assertTrue(cache.getPage("1:2", START.plusMinutes(3), null, 3).isEmpty());
+    }
+
+    @Test
+    void pageBeforeCursorBreaksTimestampTiesById() {
+        LocalDateTime sameInstant = START.plusMinutes(1);
+        List<ChatMessageDTO> burst = new ArrayList<>();
+        for (long id = 1; id <= 4; id++) {
+            burst.add(new ChatMessageDTO(id, 1L, 2L, "sender", "receiver", "Burst " + id, sameInstant));
+        }
+        cache.seed("1:2", burst, true);
+
+        List<ChatMessageDTO> firstPage = cache.getPage("1:2", null, null, 2).orElseThrow();
+        ChatMessageDTO oldest = firstPage.get(0);
+        List<ChatMessageDTO> secondPage = cache.getPage("1:2", oldest.getTimestamp(), oldest.getId(), 2).orElseThrow();
+
+        assertEquals(List.of(burst.get(2), burst.get(3)), firstPage);
+        assertEquals(List.of(burst.get(0), burst.get(1)), secondPage);
+    }
+
+    @Test
+    void completeWindowAnswersShortPages() {
+        cache.seed("1:2", messages(1, 2), true);
+
+        assertEquals(List.of(message(1), message(2)), cache.getPage("1:2", null, null, 5).orElseThrow());
+        assertEquals(List.of(), cache.getPage("1:2", START.plusMinutes(1), null, 5).orElseThrow());
+    }
+
+    @Test
+    void appendTrimsTheWindowAndDropsCompleteness() {
+        cache.seed("1:2", messages(1, 5), true);
+
+        cache.append("1:2", message(6));
+
+        assertEquals(List.of(message(2), message(3), message(4), message(5), message(6)), cache.getPage("1:2", null, null, 5).orElseThrow());
+        assertTrue(cache.getPage("1:2", START.plusMinutes(3), null, 2).isEmpty());
+    }
+
+    @Test
+    void appendToUnknownConversationOnlyServesWhatItHolds() {
+        cache.append("1:2", message(7));
+
+        assertEquals(List.of(message(7)), cache.getPage("1:2", null, null, 1).orElseThrow());
+        assertTrue(cache.getPage("1:2", null, null, 2).isEmpty());
+    }
+
+    @Test
+    void seedKeepsMessagesAppendedBeforeTheyWerePersisted() {
+        cache.append("1:2", message(4));
+
+        cache.seed("1:2", messages(1, 3), true);
+
+        assertEquals(List.of(message(1), message(2), message(3), message(4)), cache.getPage("1:2", null, null, 5).orElseThrow());
+    }
+
+    @Test
+    void seedKeepsAPendingMessageSentInTheSameInstantAsTheNewestSeededOne() {
+        ChatMessageDTO pending = new ChatMessageDTO(null, 2L, 1L, "receiver", "sender", "Reply", START.plusMinutes(3));
+        cache.append("1:2", pending);
+
+        cache.seed("1:2", messages(1, 3), true);
+
+        assertEquals(List.of(message(1), message(2), message(3), pending), cache.getPage("1:2", null, null, 5).orElseThrow());
+    }
+
+    @Test
+    void seedDoesNotDuplicateAPendingMessageThatWasPersisted() {
+        cache.append("1:2", message(3));
+        ChatMessageDTO persisted = message(3);
+        persisted.setId(42L);
+
+        cache.seed("1:2", List.of(message(1), message(2), persisted), true);
+
+        assertEquals(List.of(message(1), message(2), persisted), cache.getPage("1:2", null, null, 5).orElseThrow());
+    }
+
+    @Test
+    void seedKeepsTwoIdenticalMessagesWithDifferentKeys() {
+        ChatMessageDTO first = message(3);
+        first.setMessageKey("key-1");
+        ChatMessageDTO second = message(3);
+        second.setMessageKey("key-2");
+        cache.append("1:2", second);
+
+        cache.seed("1:2", List.of(message(1), message(2), first), true);
+
+        assertEquals(List.of(message(1), message(2), first, second), cache.getPage("1:2", null, null, 5).orElseThrow());
+    }
+
+    @Test
+    void evictBeforeDropsDeletedMessagesAndCompleteness() {
+        cache.seed("1:2", messages(1, 3), true);
+        cache.seed("1:3", messages(1, 1), true);
+
+        cache.evictBefore(START.plusMinutes(2));
+
+        assertEquals(1, cache.conversationCount());
+        assertEquals(List.of(message(2), message(3)), cache.getPage("1:2", null, null, 2).orElseThrow());
+        assertTrue(cache.getPage("1:2", null, null, 3).isEmpty());
+    }
+
+    @Test
+    void leastRecentlyUsedConversationIsEvicted() {
+        cache.seed("1:2", messages(1, 2), true);
+        cache.seed("1:3", messages(1, 2), true);
+        cache.getPage("1:2", null, null, 1);
+
+        cache.seed("1:4", messages(1, 2), true);
+
+        assertEquals(2, cache.conversationCount());
+        assertTrue(cache.getPage("1:2", null, null, 1).isPresent());
+        assertTrue(cache.getPage("1:3", null, null, 1).isEmpty());
+        assertEquals(1.0, meterRegistry.counter("chat.history.cache.evictions").count());
+    }
+
+    @Test
+    void memoryCapEvictsConversations() {
+        cache = new ChatHistoryCache(new LoopbackClusterRelay("a"), meterRegistry, 5, 100, 600);
+
+        cache.seed("1:2", messages(1, 2), true);
+        cache.seed("1:3", messages(1, 2), true);
+
+        assertTrue(cache.estimatedBytes() <= 600);
+        assertEquals(1, cache.conversationCount());
+    }
+
+    @Test
+    void pagesLargerThanTheWindowGoToTheDatabase() {
+        cache.seed("1:2", messages(1, 2), true);
+
+        assertTrue(cache.getPage("1:2", null, null, 6).isEmpty());
+        assertTrue(cache.getPage("1:2", null, null, 0).isEmpty());
+    }
+
+    @Test
+    void persistedMessagesMakeOtherNodesReseedTheConversation() {
+        LoopbackClusterRelay relayA = new LoopbackClusterRelay("a");
+        ChatHistoryCache cacheA = new ChatHistoryCache(relayA, meterRegistry, 5, 2, Long.MAX_VALUE);
+        cache = new ChatHistoryCache(relayA.join("b"), meterRegistry, 5, 2, Long.MAX_VALUE);
+        cache.seed("1:2", messages(1, 2), true);
+        cache.seed("1:3", messages(1, 2), true);
+        cache.append("1:2", message(4));
+
+        cacheA.persisted(List.of("1:2"));
+
+        assertTrue(cache.getPage("1:2", null, null, 1).isEmpty());
+        assertTrue(cache.getPage("1:3", null, null, 1).isPresent());
+        cache.seed("1:2", messages(1, 3), true);
+        assertEquals(List.of(message(1), message(2), message(3), message(4)), cache.getPage("1:2", null, null, 5).orElseThrow());
+    }
+}
@@ -11,13 +11,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,8 +43,8 @@ class ChatMessageServiceImplTest {
 
     @BeforeEach
     void setUp() {
-        sender = new User(1L, "sender", "sender@example.com", "hashedPassword", "profilePic", "description", List.of(Role.USER), null, null, null, null, null);
-        receiver = new User(2L, "receiver", "receiver@example.com", "hashedPassword", "profilePic", "description", List.of(Role.USER), null, null, null, null, null);
+        sender = new User(1L, "sender", "sender@example.com", "hashedPassword", "profilePic", "description", List.of(Role.USER), null, null, null);
+        receiver = new User(2L, "receiver", "receiver@example.com", "hashedPassword", "profilePic", "description", List.of(Role.USER), null, null, null);
 
         FriendRelationship friendRelationship = new FriendRelationship();
         friendRelationship.setId(1L);
@@ -104,52 +109,73 @@ class ChatMessageServiceImplTest {
         verify(chatMessageRepository).findByReceiverId(1L);
     }
 
+    @Test
+    void saveChatMessage_setsConversationKey() {
+        when(chatMessageRepository.save(any(ChatMessage.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ChatMessage savedMessage = chatMessageService.save(receivedMessage);
+
+        assertEquals("1:2", savedMessage.getConversationKey());
+    }
+
     @Test
     void getChatMessagesBetweenUsers() {
-        when(chatMessageRepository.findBySenderId(1L)).thenReturn(List.of(chatMessage, sentMessageToFriend));
-        when(chatMessageRepository.findByReceiverId(1L)).thenReturn(List.of(receivedMessage, receivedMessageFromFriend));
+        when(chatMessageRepository.findByConversationKeyOrderByTimestampAsc("1:2"))
+                .thenReturn(List.of(chatMessage, receivedMessage, sentMessageToFriend, receivedMessageFromFriend));
 
         List<ChatMessage> messages = chatMessageService.getChatMessagesBetweenUsers(1L, 2L);
 
         assertNotNull(messages);
         assertEquals(4, messages.size());
         assertEquals(chatMessage.getId(), messages.get(0).getId());
-        assertEquals(sentMessageToFriend.getId(), messages.get(1).getId());
-        assertEquals(receivedMessage.getId(), messages.get(2).getId());
         assertEquals(receivedMessageFromFriend.getId(), messages.get(3).getId());
-        verify(chatMessageRepository).findBySenderId(1L);
-        verify(chatMessageRepository).findByReceiverId(1L);
+        verify(chatMessageRepository).findByConversationKeyOrderByTimestampAsc("1:2");
+        verify(chatMessageRepository, never()).findBySenderId(anyLong());
+        verify(chatMessageRepository, never()).findByReceiverId(anyLong());
     }
 
     @Test
-    void getChatMessagesBetweenUsers_withMixedConditions() {
-        ChatMessage sentMessageToOtherUser = new ChatMessage();
-        sentMessageToOtherUser.setId(5L);
-        sentMessageToOtherUser.setSender(sender);
-        sentMessageToOtherUser.setReceiver(new User(3L, "otherUser", "otherUser@example.com", "hashedPassword", "profilePic", "description", List.of(Role.USER), null, null, null, null, null));
-        sentMessageToOtherUser.setContent("Message to other user");
-        sentMessageToOtherUser.setTimestamp(LocalDateTime.now());
-
-        ChatMessage receivedMessageFromOtherUser = new ChatMessage();
-        receivedMessageFromOtherUser.setId(6L);
-        receivedMessageFromOtherUser.setSender(new User(3L, "otherUser", "otherUser@example.com", "hashedPassword", "profilePic", "description", List.of(Role.USER), null, null, null, null, null));
-        receivedMessageFromOtherUser.setReceiver(sender);
-        receivedMessageFromOtherUser.setContent("Message from other user");
-        receivedMessageFromOtherUser.setTimestamp(LocalDateTime.now());
-
-        when(chatMessageRepository.findBySenderId(1L)).thenReturn(List.of(chatMessage, sentMessageToFriend, sentMessageToOtherUser));
-        when(chatMessageRepository.findByReceiverId(1L)).thenReturn(List.of(receivedMessage, receivedMessageFromFriend, receivedMessageFromOtherUser));
+    void getChatMessagesBetweenUsers_sameConversationFromBothSides() {
+        when(chatMessageRepository.findByConversationKeyOrderByTimestampAsc("1:2")).thenReturn(List.of(chatMessage));
 
-        List<ChatMessage> messages = chatMessageService.getChatMessagesBetweenUsers(1L, 2L);
+        assertEquals(1, chatMessageService.getChatMessagesBetweenUsers(1L, 2L).size());
+        assertEquals(1, chatMessageService.getChatMessagesBetweenUsers(2L, 1L).size());
 
-        assertNotNull(messages);
-        assertEquals(4, messages.size());
+        verify(chatMessageRepository, times(2)).findByConversationKeyOrderByTimestampAsc("1:2");
+    }
+
+    @Test
+    void getChatMessagesBetweenUsers_latestPageIsReturnedOldestFirst() {
+        when(chatMessageRepository.findByConversationKeyOrderByTimestampDescIdDesc(eq("1:2"), any(Pageable.class)))
+                .thenReturn(List.of(receivedMessageFromFriend, sentMessageToFriend));
+
+        List<ChatMessage> messages = chatMessageService.getChatMessagesBetweenUsers(1L, 2L, null, null, 2);
+
+        assertEquals(2, messages.size());
+        assertEquals(sentMessageToFriend.getId(), messages.get(0).getId());
+        assertEquals(receivedMessageFromFriend.getId(), messages.get(1).getId());
+        verify(chatMessageRepository).findByConversationKeyOrderByTimestampDescIdDesc("1:2", PageRequest.of(0, 2));
+    }
+
+    @Test
+    void getChatMessagesBetweenUsers_pageBeforeCursor() {
+        LocalDateTime before = LocalDateTime.now();
+        when(chatMessageRepository.findPageBefore(eq("1:2"), eq(before), eq(9L), any(Pageable.class)))
+                .thenReturn(List.of(receivedMessage, chatMessage));
+
+        List<ChatMessage> messages = chatMessageService.getChatMessagesBetweenUsers(2L, 1L, before, 9L, 20);
+
+        assertEquals(2, messages.size());
         assertEquals(chatMessage.getId(), messages.get(0).getId());
-        assertEquals(sentMessageToFriend.getId(), messages.get(1).getId());
-        assertEquals(receivedMessage.getId(), messages.get(2).getId());
-        assertEquals(receivedMessageFromFriend.getId(), messages.get(3).getId());
-        verify(chatMessageRepository).findBySenderId(1L);
-        verify(chatMessageRepository).findByReceiverId(1L);
+        verify(chatMessageRepository).findPageBefore("1:2", before, 9L, PageRequest.of(0, 20));
+    }
+
+    @Test
+    void getChatMessagesBetweenUsers_invalidLimit() {
+        assertThrows(IllegalArgumentException.class, () -> chatMessageService.getChatMessagesBetweenUsers(1L, 2L, null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> chatMessageService.getChatMessagesBetweenUsers(1L, 2L, null, null, 101));
+
+        verifyNoInteractions(chatMessageRepository);
     }
 
     @Test
@@ -0,0 +1,93 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.domain.ChatMessage;
+import com.gamehub.backend.domain.User;
+import com.gamehub.backend.persistence.UserRepository;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:gamehub-mysql;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+@Transactional
+class ChatPersistencePipelineIntegrationTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @Autowired
+    private ChatPersistencePipeline pipeline;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setup() {
+        alice = createUser("pipelineAlice", "pipeline-alice@example.com");
+        bob = createUser("pipelineBob", "pipeline-bob@example.com");
+    }
+
+    private User createUser(String username, String email) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setPasswordHash("hashedPassword");
+        return userRepository.save(user);
+    }
+
+    private ChatPersistencePipeline.PendingChatMessage message(User from, User to, String content, int minute) {
+        return new ChatPersistencePipeline.PendingChatMessage(from.getId(), to.getId(), from.getUsername(), content, START.plusMinutes(minute));
+    }
+
+    @Test
+    void flushedBatchIsReadableFromEveryTable() {
+        pipeline.flush(List.of(
+                message(alice, bob, "Hi", 1),
+                message(alice, bob, "Are you there?", 2),
+                message(bob, alice, "Yes", 3)));
+
+        List<String> contents = jdbcTemplate.queryForList(
+                "SELECT content FROM chat_messages WHERE conversation_key = ? ORDER BY timestamp",
+                String.class, ChatMessage.conversationKeyOf(alice.getId(), bob.getId()));
+        assertEquals(List.of("Hi", "Are you there?", "Yes"), contents);
+
+        Map<String, Object> bobsInbox = inboxRow(bob, alice);
+        assertEquals("Yes", bobsInbox.get("last_message_preview"));
+        assertEquals(2, ((Number) bobsInbox.get("unread_count")).intValue());
+        Map<String, Object> alicesInbox = inboxRow(alice, bob);
+        assertEquals("Yes", alicesInbox.get("last_message_preview"));
+        assertEquals(1, ((Number) alicesInbox.get("unread_count")).intValue());
+
+        Map<String, Object> bobsNotification = jdbcTemplate.queryForMap(
+                "SELECT message, coalesced_count, coalesce_key, is_read FROM notifications WHERE user_id = ? AND sender_id = ?",
+                bob.getId(), alice.getId());
+        assertEquals("You have 2 new messages from pipelineAlice", bobsNotification.get("message"));
+        assertEquals(2, ((Number) bobsNotification.get("coalesced_count")).intValue());
+        assertEquals(false, bobsNotification.get("is_read"));
+        assertNotNull(bobsNotification.get("coalesce_key"));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT coalesced_count FROM notifications WHERE user_id = ? AND sender_id = ?", Integer.class, alice.getId(), bob.getId()));
+    }
+
+    private Map<String, Object> inboxRow(User owner, User peer) {
+        return jdbcTemplate.queryForMap(
+                "SELECT last_message_preview, unread_count FROM conversations WHERE owner_id = ? AND peer_id = ?",
+                owner.getId(), peer.getId());
+    }
+}
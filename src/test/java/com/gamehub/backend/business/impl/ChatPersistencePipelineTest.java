@@ -0,0 +1,203 @@
+package com.gamehub.backend.business.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChatPersistencePipelineTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private NotificationCoalescer notificationCoalescer;
+    @Mock
+    private UnreadNotificationCounter unreadNotificationCounter;
+    @Mock
+    private ChatHistoryCache chatHistoryCache;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ChatPersistencePipeline pipeline;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        lenient().when(jdbcTemplate.batchUpdate(eq(ChatPersistencePipeline.UPDATE_INBOX_SQL), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    int[] counts = new int[invocation.<Collection<?>>getArgument(1).size()];
+                    Arrays.fill(counts, 1);
+                    return new int[][]{counts};
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Collection<?>> inboxBatches(String sql) {
+        ArgumentCaptor<Collection<?>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate, atLeastOnce()).batchUpdate(eq(sql), captor.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        return captor.getAllValues();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    private ChatPersistencePipeline.PendingChatMessage message(String content) {
+        return new ChatPersistencePipeline.PendingChatMessage(1L, 2L, "sender", content, LocalDateTime.now());
+    }
+
+    @Test
+    void submittedMessagesAreWrittenInBatchesByTheWriterThread() {
+        pipeline = new ChatPersistencePipeline(jdbcTemplate, transactionTemplate, notificationCoalescer, unreadNotificationCounter, chatHistoryCache, meterRegistry, 100, 10, 20, 10, 10, 1000);
+        pipeline.start();
+
+        for (int i = 0; i < 5; i++) {
+            pipeline.submit(message("Hello " + i));
+        }
+
+        verify(notificationCoalescer, timeout(2000).atLeastOnce()).writeMessageNotifications(anyList());
+        verify(jdbcTemplate, timeout(2000).atLeastOnce()).batchUpdate(eq(ChatPersistencePipeline.UPDATE_INBOX_SQL), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        verify(jdbcTemplate, atLeastOnce()).batchUpdate(eq(ChatPersistencePipeline.INSERT_MESSAGE_SQL), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        verify(notificationCoalescer, atLeastOnce()).writeMessageNotifications(anyList());
+        assertEquals(5.0, meterRegistry.counter("chat.pipeline.persisted").count());
+        assertEquals(5.0, meterRegistry.counter("chat.pipeline.enqueued").count());
+    }
+
+    @Test
+    void onlyNewUnreadNotificationRowsBumpTheUnreadCounter() {
+        pipeline = new ChatPersistencePipeline(jdbcTemplate, transactionTemplate, notificationCoalescer, unreadNotificationCounter, chatHistoryCache, meterRegistry, 10, 10, 20, 1, 10, 1000);
+        when(notificationCoalescer.writeMessageNotifications(anyList())).thenReturn(List.of(2L));
+
+        pipeline.flush(List.of(message("one"), message("two"), message("three")));
+
+        verify(notificationCoalescer).writeMessageNotifications(anyList());
+        verify(unreadNotificationCounter, times(1)).increment(2L);
+        assertEquals(3.0, meterRegistry.counter("chat.pipeline.persisted").count());
+        pipeline = null;
+    }
+
+    @Test
+    void persistedConversationsAreAnnouncedOnce() {
+        pipeline = new ChatPersistencePipeline(jdbcTemplate, transactionTemplate, notificationCoalescer, unreadNotificationCounter, chatHistoryCache, meterRegistry, 10, 10, 20, 1, 10, 1000);
+
+        pipeline.flush(List.of(message("one"), message("two")));
+
+        verify(chatHistoryCache).persisted(Set.of("1:2"));
+        pipeline = null;
+    }
+
+    @Test
+    void fullQueueFallsBackToWritingOnTheCallerThread() {
+        pipeline = new ChatPersistencePipeline(jdbcTemplate, transactionTemplate, notificationCoalescer, unreadNotificationCounter, chatHistoryCache, meterRegistry, 1, 10, 20, 1, 10, 1000);
+
+        pipeline.submit(message("queued"));
+        pipeline.submit(message("overflow"));
+
+        assertEquals(1, pipeline.pendingCount());
+        assertEquals(1.0, meterRegistry.counter("chat.pipeline.backpressure").count());
+        assertEquals(1.0, meterRegistry.counter("chat.pipeline.persisted").count());
+        pipeline = null;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedBatchIsRetriedMessageByMessage() {
+        pipeline = new ChatPersistencePipeline(jdbcTemplate, transactionTemplate, notificationCoalescer, unreadNotificationCounter, chatHistoryCache, meterRegistry, 10, 10, 20, 1, 10, 1000);
+        when(jdbcTemplate.batchUpdate(eq(ChatPersistencePipeline.INSERT_MESSAGE_SQL), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    Collection<ChatPersistencePipeline.PendingChatMessage> batch = invocation.getArgument(1);
+                    if (batch.size() > 1 || batch.iterator().next().content().equals("bad")) {
+                        throw new IllegalStateException("write failed");
+                    }
+                    return new int[][]{{1}};
+                });
+
+        pipeline.flush(List.of(message("good"), message("bad")));
+
+        assertEquals(1.0, meterRegistry.counter("chat.pipeline.persisted").count());
+        assertEquals(1.0, meterRegistry.counter("chat.pipeline.failed").count());
+        assertEquals(1.0, meterRegistry.get("chat.pipeline.retry.depth").gauge().value());
+        pipeline = null;
+    }
+
+    @Test
+    void failedMessageIsKeptAndWrittenOnALaterAttempt() {
+        pipeline = new ChatPersistencePipeline(jdbcTemplate, transactionTemplate, notificationCoalescer, unreadNotificationCounter, chatHistoryCache, meterRegistry, 10, 10, 20, 1, 10, 1000);
+        AtomicInteger writes = new AtomicInteger();
+        when(jdbcTemplate.batchUpdate(eq(ChatPersistencePipeline.INSERT_MESSAGE_SQL), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    if (writes.incrementAndGet() <= 2) {
+                        throw new IllegalStateException("database unavailable");
+                    }
+                    return new int[][]{{1}};
+                });
+        pipeline.start();
+
+        pipeline.submit(message("flaky"));
+
+        verify(chatHistoryCache, timeout(2000)).persisted(Set.of("1:2"));
+        assertEquals(1.0, meterRegistry.counter("chat.pipeline.persisted").count());
+        assertEquals(1.0, meterRegistry.counter("chat.pipeline.retried").count());
+        assertEquals(0.0, meterRegistry.get("chat.pipeline.retry.depth").gauge().value());
+    }
+
+    @Test
+    void inboxRowsAreUpdatedOncePerConversationSide() {
+        pipeline = new ChatPersistencePipeline(jdbcTemplate, transactionTemplate, notificationCoalescer, unreadNotificationCounter, chatHistoryCache, meterRegistry, 10, 10, 20, 1, 10, 1000);
+
+        pipeline.flush(List.of(message("one"), message("two"), message("three")));
+
+        List<Collection<?>> batches = inboxBatches(ChatPersistencePipeline.UPDATE_INBOX_SQL);
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).size());
+        verify(jdbcTemplate, never()).batchUpdate(eq(ChatPersistencePipeline.INSERT_INBOX_SQL), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        pipeline = null;
+    }
+
+    @Test
+    void missingInboxRowsAreInserted() {
+        pipeline = new ChatPersistencePipeline(jdbcTemplate, transactionTemplate, notificationCoalescer, unreadNotificationCounter, chatHistoryCache, meterRegistry, 10, 10, 20, 1, 10, 1000);
+        lenient().doReturn(new int[][]{{1, 0}}).when(jdbcTemplate)
+                .batchUpdate(eq(ChatPersistencePipeline.UPDATE_INBOX_SQL), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+
+        pipeline.flush(List.of(message("one")));
+
+        List<Collection<?>> inserts = inboxBatches(ChatPersistencePipeline.INSERT_INBOX_SQL);
+        assertEquals(1, inserts.get(0).size());
+        pipeline = null;
+    }
+}
@@ -0,0 +1,135 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.domain.ChatMessage;
+import com.gamehub.backend.domain.Conversation;
+import com.gamehub.backend.domain.Role;
+import com.gamehub.backend.domain.User;
+import com.gamehub.backend.dto.ConversationDTO;
+import com.gamehub.backend.persistence.ChatMessageRepository;
+import com.gamehub.backend.persistence.ConversationRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConversationServiceImplTest {
+
+    @Mock
+    private ConversationRepository conversationRepository;
+
+    @Mock
+    private ChatMessageRepository chatMessageRepository;
+
+    @InjectMocks
+    private ConversationServiceImpl conversationService;
+
+    @Test
+    void recordMessage_updatesExistingEntries() {
+        LocalDateTime sentAt = LocalDateTime.now();
+        when(conversationRepository.applyMessage(anyLong(), anyLong(), any(), anyLong(), any(), anyInt())).thenReturn(1);
+
+        conversationService.recordMessage(1L, 2L, "Hello!", sentAt);
+
+        verify(conversationRepository).applyMessage(1L, 2L, "Hello!", 1L, sentAt, 0);
+        verify(conversationRepository).applyMessage(2L, 1L, "Hello!", 1L, sentAt, 1);
+        verify(conversationRepository, never()).save(any(Conversation.class));
+    }
+
+    @Test
+    void recordMessage_createsMissingEntries() {
+        LocalDateTime sentAt = LocalDateTime.now();
+        when(conversationRepository.applyMessage(anyLong(), anyLong(), any(), anyLong(), any(), anyInt())).thenReturn(0);
+
+        conversationService.recordMessage(1L, 2L, "Hello!", sentAt);
+
+        ArgumentCaptor<Conversation> captor = ArgumentCaptor.forClass(Conversation.class);
+        verify(conversationRepository, times(2)).save(captor.capture());
+        Conversation senderEntry = captor.getAllValues().get(0);
+        Conversation receiverEntry = captor.getAllValues().get(1);
+        assertEquals(1L, senderEntry.getOwnerId());
+        assertEquals(0, senderEntry.getUnreadCount());
+        assertEquals(2L, receiverEntry.getOwnerId());
+        assertEquals(1, receiverEntry.getUnreadCount());
+        assertEquals("1:2", receiverEntry.getConversationKey());
+    }
+
+    @Test
+    void recordMessage_retriesUpdateWhenConcurrentInsertWins() {
+        LocalDateTime sentAt = LocalDateTime.now();
+        when(conversationRepository.applyMessage(anyLong(), anyLong(), any(), anyLong(), any(), anyInt())).thenReturn(0);
+        when(conversationRepository.save(any(Conversation.class))).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        conversationService.recordMessage(1L, 2L, "Hello!", sentAt);
+
+        verify(conversationRepository, times(2)).applyMessage(2L, 1L, "Hello!", 1L, sentAt, 1);
+    }
+
+    @Test
+    void recordMessage_truncatesPreview() {
+        String content = "x".repeat(ConversationServiceImpl.PREVIEW_LENGTH + 20);
+        when(conversationRepository.applyMessage(anyLong(), anyLong(), any(), anyLong(), any(), anyInt())).thenReturn(1);
+
+        conversationService.recordMessage(1L, 2L, content, LocalDateTime.now());
+
+        verify(conversationRepository, times(2)).applyMessage(anyLong(), anyLong(), eq("x".repeat(ConversationServiceImpl.PREVIEW_LENGTH)), anyLong(), any(), anyInt());
+    }
+
+    @Test
+    void getInbox() {
+        ConversationDTO entry = new ConversationDTO(2L, "receiver", null, "Hello!", 1L, LocalDateTime.now(), 3);
+        when(conversationRepository.findInbox(1L)).thenReturn(List.of(entry));
+
+        List<ConversationDTO> inbox = conversationService.getInbox(1L);
+
+        assertEquals(1, inbox.size());
+        assertEquals(3, inbox.get(0).getUnreadCount());
+        verify(conversationRepository).findInbox(1L);
+    }
+
+    @Test
+    void markConversationRead() {
+        conversationService.markConversationRead(2L, 1L);
+
+        verify(conversationRepository).markRead(2L, 1L);
+    }
+
+    @Test
+    void rebuildFromHistory_skipsWhenEntriesExist() {
+        when(conversationRepository.count()).thenReturn(5L);
+
+        conversationService.rebuildFromHistory();
+
+        verifyNoInteractions(chatMessageRepository);
+    }
+
+    @Test
+    void rebuildFromHistory_createsEntriesFromLatestMessages() {
+        User sender = new User(1L, "sender", "sender@example.com", "hashedPassword", "profilePic", "description", List.of(Role.USER), null, null, null);
+        User receiver = new User(2L, "receiver", "receiver@example.com", "hashedPassword", "profilePic", "description", List.of(Role.USER), null, null, null);
+        ChatMessage latest = new ChatMessage();
+        latest.setSender(sender);
+        latest.setReceiver(receiver);
+        latest.setContent("Latest");
+        latest.setTimestamp(LocalDateTime.now());
+        when(conversationRepository.count()).thenReturn(0L);
+        when(chatMessageRepository.findLatestMessagePerConversation()).thenReturn(List.of(latest));
+
+        conversationService.rebuildFromHistory();
+
+        verify(conversationRepository, times(2)).save(any(Conversation.class));
+    }
+}
@@ -1,8 +1,11 @@
 package com.gamehub.backend.business.impl;
 
 import org.junit.jupiter.api.Test;
+import com.gamehub.backend.business.NotificationService;
+import com.gamehub.backend.domain.BroadcastNotification;
 import com.gamehub.backend.domain.User;
 import com.gamehub.backend.domain.Event;
+import com.gamehub.backend.dto.EventParticipantUpdateDTO;
 import com.gamehub.backend.persistence.UserRepository;
 import com.gamehub.backend.persistence.EventRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,6 +26,10 @@ class EventServiceImplTest {
     private EventRepository eventRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private OutboxService outboxService;
     @InjectMocks
     private EventServiceImpl eventService;
 
@@ -52,6 +59,8 @@ class EventServiceImplTest {
         assertNotNull(createdEvent);
         assertEquals(event.getId(), createdEvent.getId());
         verify(eventRepository).save(any(Event.class));
+        verify(notificationService).broadcast(argThat((BroadcastNotification broadcast) ->
+                broadcast.getEventId().equals(event.getId()) && broadcast.getMessage().contains(event.getName())));
     }
 
     @Test
@@ -166,6 +175,8 @@ class EventServiceImplTest {
         assertTrue(updatedEvent.getParticipants().contains(participant));
         assertEquals(1, updatedEvent.getParticipants().size());
         verify(eventRepository).save(event);
+        verify(outboxService).enqueueToUsers(eq(List.of(2L)), eq("/queue/events"), argThat((EventParticipantUpdateDTO update) ->
+                update.getEventId().equals(1L) && update.getUserId().equals(2L) && update.isJoined() && update.getParticipantCount() == 1));
     }
 
     @Test
@@ -175,6 +186,23 @@ class EventServiceImplTest {
         assertThrows(RuntimeException.class, () -> {
             eventService.addParticipant(999L, 2L);
         });
+        verifyNoInteractions(outboxService);
+    }
+
+    @Test
+    void addParticipantNotifiesEveryParticipantWithOneEntry() {
+        User participant = new User();
+        participant.setId(2L);
+        participant.setUsername("Joiner");
+        event.setParticipants(new HashSet<>(Set.of(user)));
+
+        when(eventRepository.findById(1L)).thenReturn(Optional.of(event));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(participant));
+
+        eventService.addParticipant(1L, 2L);
+
+        verify(outboxService, times(1)).enqueueToUsers(argThat(ids -> Set.copyOf(ids).equals(Set.of(1L, 2L))), eq("/queue/events"),
+                argThat((EventParticipantUpdateDTO update) -> update.getUsername().equals("Joiner") && update.getParticipantCount() == 2));
     }
 
     @Test
@@ -196,6 +224,8 @@ class EventServiceImplTest {
         assertFalse(updatedEvent.getParticipants().contains(participant));
         assertEquals(0, updatedEvent.getParticipants().size());
         verify(eventRepository).save(event);
+        verify(outboxService).enqueueToUsers(eq(List.of(2L)), eq("/queue/events"), argThat((EventParticipantUpdateDTO update) ->
+                update.getUserId().equals(2L) && !update.isJoined() && update.getParticipantCount() == 0));
     }
 
     @Test
@@ -0,0 +1,145 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.configuration.cluster.LoopbackClusterRelay;
+import com.gamehub.backend.domain.FriendRelationship;
+import com.gamehub.backend.dto.FriendEdgeDTO;
+import com.gamehub.backend.persistence.FriendRelationshipRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FriendGraphTest {
+
+    @Mock
+    private FriendRelationshipRepository friendRelationshipRepository;
+
+    private FriendGraph graph(LoopbackClusterRelay relay, List<FriendEdgeDTO> edges) {
+        when(friendRelationshipRepository.findEdgesByStatus(FriendRelationship.Status.ACCEPTED)).thenReturn(edges);
+        FriendGraph graph = new FriendGraph(friendRelationshipRepository, relay, new SimpleMeterRegistry());
+        graph.rebuild();
+        return graph;
+    }
+
+    @Test
+    void rebuildsSortedAdjacencyFromAcceptedEdges() {
+        FriendGraph graph = graph(new LoopbackClusterRelay("node-a"), List.of(
+                new FriendEdgeDTO(10L, 1L, 5L),
+                new FriendEdgeDTO(11L, 3L, 1L),
+                new FriendEdgeDTO(12L, 1L, 2L)));
+
+        assertTrue(graph.isLoaded());
+        assertArrayEquals(new long[]{2L, 3L, 5L}, graph.friendIds(1L));
+        assertArrayEquals(new long[]{1L}, graph.friendIds(3L));
+        assertEquals(0, graph.friendCount(4L));
+        assertTrue(graph.areFriends(3L, 1L));
+        assertFalse(graph.areFriends(2L, 3L));
+    }
+
+    @Test
+    void edgesKeepTheDirectionOfTheRequest() {
+        FriendGraph graph = graph(new LoopbackClusterRelay("node-a"), List.of(
+                new FriendEdgeDTO(10L, 1L, 5L),
+                new FriendEdgeDTO(11L, 3L, 1L)));
+
+        assertEquals(List.of(new FriendEdgeDTO(11L, 3L, 1L), new FriendEdgeDTO(10L, 1L, 5L)), graph.edges(1L));
+        assertEquals(List.of(new FriendEdgeDTO(11L, 3L, 1L)), graph.edges(3L));
+    }
+
+    @Test
+    void countsMutualFriends() {
+        FriendGraph graph = graph(new LoopbackClusterRelay("node-a"), List.of(
+                new FriendEdgeDTO(1L, 1L, 10L),
+                new FriendEdgeDTO(2L, 1L, 11L),
+                new FriendEdgeDTO(3L, 1L, 12L),
+                new FriendEdgeDTO(4L, 2L, 11L),
+                new FriendEdgeDTO(5L, 2L, 12L),
+                new FriendEdgeDTO(6L, 2L, 13L)));
+
+        assertEquals(2, graph.mutualFriendCount(1L, 2L));
+        assertEquals(0, graph.mutualFriendCount(1L, 99L));
+    }
+
+    @Test
+    void linkAndUnlinkUpdateBothSides() {
+        FriendGraph graph = graph(new LoopbackClusterRelay("node-a"), List.of());
+
+        graph.linked(7L, 1L, 2L);
+        assertTrue(graph.areFriends(1L, 2L));
+        assertTrue(graph.areFriends(2L, 1L));
+
+        graph.unlinked(2L, 1L);
+        assertFalse(graph.areFriends(1L, 2L));
+        assertEquals(0, graph.friendCount(2L));
+    }
+
+    @Test
+    void removedUserLeavesEveryFriendList() {
+        FriendGraph graph = graph(new LoopbackClusterRelay("node-a"), List.of(
+                new FriendEdgeDTO(1L, 1L, 2L),
+                new FriendEdgeDTO(2L, 3L, 1L),
+                new FriendEdgeDTO(3L, 2L, 3L)));
+
+        graph.userRemoved(1L);
+
+        assertEquals(0, graph.friendCount(1L));
+        assertArrayEquals(new long[]{3L}, graph.friendIds(2L));
+        assertArrayEquals(new long[]{2L}, graph.friendIds(3L));
+    }
+
+    @Test
+    void changesReachOtherNodes() {
+        LoopbackClusterRelay relayA = new LoopbackClusterRelay("node-a");
+        LoopbackClusterRelay relayB = relayA.join("node-b");
+        FriendGraph nodeA = graph(relayA, List.of());
+        FriendGraph nodeB = graph(relayB, List.of());
+
+        nodeA.linked(7L, 1L, 2L);
+        assertEquals(List.of(new FriendEdgeDTO(7L, 1L, 2L)), nodeB.edges(1L));
+
+        nodeA.unlinked(1L, 2L);
+        assertFalse(nodeB.areFriends(1L, 2L));
+    }
+
+    @Test
+    void friendshipRemovedWhileTheRebuildReadsIsNotRestored() {
+        FriendGraph graph = new FriendGraph(friendRelationshipRepository, new LoopbackClusterRelay("node-a"), new SimpleMeterRegistry());
+        when(friendRelationshipRepository.findEdgesByStatus(FriendRelationship.Status.ACCEPTED)).thenAnswer(invocation -> {
+            graph.unlinked(1L, 2L);
+            return List.of(new FriendEdgeDTO(7L, 1L, 2L), new FriendEdgeDTO(8L, 1L, 3L));
+        });
+
+        graph.rebuild();
+
+        assertFalse(graph.areFriends(1L, 2L));
+        assertEquals(0, graph.friendCount(2L));
+        assertTrue(graph.areFriends(1L, 3L));
+    }
+
+    @Test
+    void friendshipsAddedBeforeOrWhileTheRebuildReadsAreKept() {
+        LoopbackClusterRelay relayA = new LoopbackClusterRelay("node-a");
+        FriendGraph other = new FriendGraph(friendRelationshipRepository, relayA, new SimpleMeterRegistry());
+        FriendGraph graph = new FriendGraph(friendRelationshipRepository, relayA.join("node-b"), new SimpleMeterRegistry());
+        other.linked(6L, 4L, 5L);
+        when(friendRelationshipRepository.findEdgesByStatus(FriendRelationship.Status.ACCEPTED)).thenAnswer(invocation -> {
+            graph.linked(7L, 1L, 2L);
+            return List.of();
+        });
+
+        graph.rebuild();
+
+        assertEquals(List.of(new FriendEdgeDTO(7L, 1L, 2L)), graph.edges(1L));
+        assertTrue(graph.areFriends(5L, 4L));
+
+        graph.unlinked(1L, 2L);
+        assertFalse(graph.areFriends(1L, 2L));
+    }
+}
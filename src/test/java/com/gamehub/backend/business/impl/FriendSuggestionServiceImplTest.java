@@ -0,0 +1,179 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.configuration.cluster.LoopbackClusterRelay;
+import com.gamehub.backend.domain.FriendRelationship;
+import com.gamehub.backend.domain.User;
+import com.gamehub.backend.dto.FriendEdgeDTO;
+import com.gamehub.backend.dto.FriendSuggestionDTO;
+import com.gamehub.backend.dto.UserDTO;
+import com.gamehub.backend.persistence.FriendRelationshipRepository;
+import com.gamehub.backend.persistence.PurchaseRepository;
+import com.gamehub.backend.persistence.UserRepository;
+import com.gamehub.backend.persistence.mapper.UserMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FriendSuggestionServiceImplTest {
+
+    @Mock
+    private FriendRelationshipRepository friendRelationshipRepository;
+    @Mock
+    private PurchaseRepository purchaseRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private UserMapper userMapper;
+
+    private FriendGraph graph(List<FriendEdgeDTO> edges) {
+        when(friendRelationshipRepository.findEdgesByStatus(FriendRelationship.Status.ACCEPTED)).thenReturn(edges);
+        FriendGraph graph = new FriendGraph(friendRelationshipRepository, new LoopbackClusterRelay("node-a"), new SimpleMeterRegistry());
+        graph.rebuild();
+        return graph;
+    }
+
+    private FriendSuggestionServiceImpl service(FriendGraph graph) {
+        return new FriendSuggestionServiceImpl(graph, purchaseRepository, userRepository, userMapper,
+                new SimpleMeterRegistry(), 500, 200, 100, 0.5, 600000, 10000);
+    }
+
+    private void stubUsers() {
+        when(userRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<User> users = new ArrayList<>();
+            for (Object id : (Iterable<?>) invocation.getArgument(0)) {
+                User user = new User();
+                user.setId((Long) id);
+                users.add(user);
+            }
+            return users;
+        });
+        when(userMapper.toDto(any(User.class))).thenAnswer(invocation -> {
+            UserDTO dto = new UserDTO();
+            dto.setId(((User) invocation.getArgument(0)).getId());
+            return dto;
+        });
+    }
+
+    private static List<Long> suggestedIds(List<FriendSuggestionDTO> suggestions) {
+        return suggestions.stream().map(suggestion -> suggestion.getUser().getId()).toList();
+    }
+
+    @Test
+    void ranksFriendsOfFriendsByMutualFriends() {
+        FriendGraph graph = graph(List.of(
+                new FriendEdgeDTO(1L, 1L, 10L),
+                new FriendEdgeDTO(2L, 1L, 11L),
+                new FriendEdgeDTO(3L, 1L, 12L),
+                new FriendEdgeDTO(4L, 10L, 11L),
+                new FriendEdgeDTO(5L, 10L, 20L),
+                new FriendEdgeDTO(6L, 11L, 20L),
+                new FriendEdgeDTO(7L, 12L, 20L),
+                new FriendEdgeDTO(8L, 10L, 21L),
+                new FriendEdgeDTO(9L, 11L, 22L),
+                new FriendEdgeDTO(10L, 12L, 22L)));
+        when(purchaseRepository.findUserGamePairsByUserIds(anyCollection())).thenReturn(List.of());
+        stubUsers();
+
+        List<FriendSuggestionDTO> suggestions = service(graph).getFriendSuggestions(1L, 10);
+
+        assertEquals(List.of(20L, 22L, 21L), suggestedIds(suggestions));
+        assertEquals(List.of(3, 2, 1), suggestions.stream().map(FriendSuggestionDTO::getMutualFriends).toList());
+    }
+
+    @Test
+    void sharedGamesWeighTheRanking() {
+        FriendGraph graph = graph(List.of(
+                new FriendEdgeDTO(1L, 1L, 10L),
+                new FriendEdgeDTO(2L, 10L, 21L),
+                new FriendEdgeDTO(3L, 10L, 22L)));
+        when(purchaseRepository.findUserGamePairsByUserIds(anyCollection())).thenReturn(List.of(
+                new Object[]{1L, 100L},
+                new Object[]{1L, 101L},
+                new Object[]{21L, 200L},
+                new Object[]{22L, 100L},
+                new Object[]{22L, 101L}));
+        stubUsers();
+
+        List<FriendSuggestionDTO> suggestions = service(graph).getFriendSuggestions(1L, 10);
+
+        assertEquals(List.of(22L, 21L), suggestedIds(suggestions));
+        assertEquals(2, suggestions.get(0).getSharedGames());
+        assertEquals(0, suggestions.get(1).getSharedGames());
+    }
+
+    @Test
+    void cachesRankingUntilTheGraphChangesAroundTheUser() {
+        FriendGraph graph = graph(List.of(
+                new FriendEdgeDTO(1L, 1L, 10L),
+                new FriendEdgeDTO(2L, 10L, 20L)));
+        when(purchaseRepository.findUserGamePairsByUserIds(anyCollection())).thenReturn(List.of());
+        stubUsers();
+        FriendSuggestionServiceImpl service = service(graph);
+
+        assertEquals(List.of(20L), suggestedIds(service.getFriendSuggestions(1L, 10)));
+        assertEquals(List.of(20L), suggestedIds(service.getFriendSuggestions(1L, 10)));
+        verify(purchaseRepository, times(1)).findUserGamePairsByUserIds(anyCollection());
+
+        graph.linked(3L, 10L, 30L);
+
+        assertEquals(List.of(20L, 30L), suggestedIds(service.getFriendSuggestions(1L, 10)));
+        verify(purchaseRepository, times(2)).findUserGamePairsByUserIds(anyCollection());
+    }
+
+    @Test
+    void limitsTheNumberOfSuggestions() {
+        FriendGraph graph = graph(List.of(
+                new FriendEdgeDTO(1L, 1L, 10L),
+                new FriendEdgeDTO(2L, 10L, 20L),
+                new FriendEdgeDTO(3L, 10L, 21L),
+                new FriendEdgeDTO(4L, 10L, 22L)));
+        when(purchaseRepository.findUserGamePairsByUserIds(anyCollection())).thenReturn(List.of());
+        stubUsers();
+
+        assertEquals(List.of(20L, 21L), suggestedIds(service(graph).getFriendSuggestions(1L, 2)));
+    }
+
+    @Test
+    void suggestsNothingUntilTheGraphIsLoaded() {
+        FriendGraph graph = new FriendGraph(friendRelationshipRepository, new LoopbackClusterRelay("node-a"), new SimpleMeterRegistry());
+
+        assertTrue(service(graph).getFriendSuggestions(1L, 10).isEmpty());
+        verifyNoInteractions(purchaseRepository, userRepository);
+    }
+
+    @Test
+    void strideVisitsAtMostTheLimit() {
+        assertEquals(1, FriendSuggestionServiceImpl.stride(150, 200));
+        assertEquals(5, FriendSuggestionServiceImpl.stride(1000, 200));
+        assertEquals(6, FriendSuggestionServiceImpl.stride(1001, 200));
+        assertEquals(1, FriendSuggestionServiceImpl.stride(1000, 0));
+    }
+
+    @Test
+    void counterKeepsTheHighestCounts() {
+        FriendSuggestionServiceImpl.LongIntCounter counter = new FriendSuggestionServiceImpl.LongIntCounter();
+        for (long id = 1; id <= 1000; id++) {
+            counter.increment(id);
+        }
+        counter.increment(500L);
+        counter.increment(500L);
+        counter.increment(700L);
+
+        long[] top = counter.top(3);
+        Arrays.sort(top);
+        assertArrayEquals(new long[]{1L, 500L, 700L}, top);
+    }
+}
@@ -0,0 +1,110 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.domain.User;
+import com.gamehub.backend.persistence.NotificationRepository;
+import com.gamehub.backend.persistence.UserRepository;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:gamehub-mysql;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+@Transactional
+class NotificationCoalescerIntegrationTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 12, 0);
+    private static final String UNREAD_ROWS =
+            "SELECT id, message, coalesced_count, coalesce_key, is_read FROM notifications WHERE user_id = ? AND sender_id = ? ORDER BY id";
+
+    @Autowired
+    private NotificationCoalescer coalescer;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User sender;
+    private User receiver;
+
+    @BeforeEach
+    void setup() {
+        sender = createUser("coalesceSender", "coalesce-sender@example.com");
+        receiver = createUser("coalesceReceiver", "coalesce-receiver@example.com");
+    }
+
+    private User createUser(String username, String email) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setPasswordHash("hashedPassword");
+        return userRepository.save(user);
+    }
+
+    private ChatPersistencePipeline.PendingChatMessage message(int minute) {
+        return new ChatPersistencePipeline.PendingChatMessage(sender.getId(), receiver.getId(), sender.getUsername(), "Hi", START.plusMinutes(minute));
+    }
+
+    private int upsert(int count, int minute) {
+        return jdbcTemplate.update(NotificationCoalescer.UPSERT_VALUES_SQL, receiver.getId(),
+                NotificationCoalescer.messageText(count, sender.getUsername()), Timestamp.valueOf(START.plusMinutes(minute)),
+                sender.getId(), count, "message:" + sender.getId(), sender.getUsername());
+    }
+
+    @Test
+    void laterBurstsAreFoldedIntoTheUnreadRow() {
+        assertEquals(List.of(receiver.getId()), coalescer.writeMessageNotifications(List.of(message(1), message(2))));
+        assertEquals(List.of(), coalescer.writeMessageNotifications(List.of(message(3))));
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(UNREAD_ROWS, receiver.getId(), sender.getId());
+        assertEquals(1, rows.size());
+        assertEquals(3, ((Number) rows.get(0).get("coalesced_count")).intValue());
+        assertEquals("You have 3 new messages from coalesceSender", rows.get(0).get("message"));
+    }
+
+    @Test
+    void upsertOnAnUnreadKeyMergesIntoTheExistingRow() {
+        upsert(1, 1);
+        upsert(2, 2);
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(UNREAD_ROWS, receiver.getId(), sender.getId());
+        assertEquals(1, rows.size());
+        assertEquals(3, ((Number) rows.get(0).get("coalesced_count")).intValue());
+        assertEquals("You have 3 new messages from coalesceSender", rows.get(0).get("message"));
+    }
+
+    @Test
+    void readRowIsLeftAloneAndANewUnreadRowIsInserted() {
+        coalescer.writeMessageNotifications(List.of(message(1), message(2)));
+        Long readId = jdbcTemplate.queryForObject("SELECT id FROM notifications WHERE user_id = ?", Long.class, receiver.getId());
+        notificationRepository.markReadByIds(receiver.getId(), List.of(readId));
+
+        assertEquals(List.of(receiver.getId()), coalescer.writeMessageNotifications(List.of(message(3))));
+        upsert(1, 4);
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(UNREAD_ROWS, receiver.getId(), sender.getId());
+        assertEquals(2, rows.size());
+        assertEquals(readId, ((Number) rows.get(0).get("id")).longValue());
+        assertEquals(true, rows.get(0).get("is_read"));
+        assertNull(rows.get(0).get("coalesce_key"));
+        assertEquals(2, ((Number) rows.get(0).get("coalesced_count")).intValue());
+        assertEquals(false, rows.get(1).get("is_read"));
+        assertEquals(2, ((Number) rows.get(1).get("coalesced_count")).intValue());
+    }
+}
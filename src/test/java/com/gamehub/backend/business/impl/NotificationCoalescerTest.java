@@ -0,0 +1,177 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.dto.NotificationDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationCoalescerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private OutboxService outboxService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationCoalescer coalescer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new NotificationCoalescer(jdbcTemplate, transactionTemplate, outboxService, meterRegistry, 60_000);
+        lenient().doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private ChatPersistencePipeline.PendingChatMessage message(Long senderId, Long receiverId) {
+        return new ChatPersistencePipeline.PendingChatMessage(senderId, receiverId, "sender" + senderId, "Hi", LocalDateTime.now());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void burstFromOneSenderBecomesOneRowPerReceiver() {
+        when(jdbcTemplate.batchUpdate(eq(NotificationCoalescer.UPDATE_UNREAD_SQL), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{0, 0}});
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("MySQL");
+        when(jdbcTemplate.batchUpdate(eq(NotificationCoalescer.UPSERT_SQL), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{1, 1}});
+
+        List<Long> newUnread = coalescer.writeMessageNotifications(List.of(
+                message(1L, 2L), message(1L, 2L), message(1L, 2L), message(3L, 2L)));
+
+        assertEquals(List.of(2L, 2L), newUnread);
+        ArgumentCaptor<Collection<?>> inserted = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(eq(NotificationCoalescer.UPSERT_SQL), inserted.capture(), eq(2), any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(2, inserted.getValue().size());
+        assertEquals(2.0, meterRegistry.counter("notifications.coalesced").count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void existingUnreadRowIsUpdatedInsteadOfInserting() {
+        when(jdbcTemplate.batchUpdate(eq(NotificationCoalescer.UPDATE_UNREAD_SQL), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{1}});
+
+        List<Long> newUnread = coalescer.writeMessageNotifications(List.of(message(1L, 2L)));
+
+        assertTrue(newUnread.isEmpty());
+        verify(jdbcTemplate, never()).batchUpdate(eq(NotificationCoalescer.UPSERT_SQL), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(1.0, meterRegistry.counter("notifications.coalesced").count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rowInsertedConcurrentlyIsMergedRatherThanCountedAsNew() {
+        when(jdbcTemplate.batchUpdate(eq(NotificationCoalescer.UPDATE_UNREAD_SQL), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{0, 0}});
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("MySQL");
+        when(jdbcTemplate.batchUpdate(eq(NotificationCoalescer.UPSERT_SQL), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{2, 1}});
+
+        List<Long> newUnread = coalescer.writeMessageNotifications(List.of(message(1L, 2L), message(3L, 4L)));
+
+        assertEquals(List.of(4L), newUnread);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void databasesWithoutTheRowAliasGetTheValuesUpsert() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+        when(jdbcTemplate.batchUpdate(eq(NotificationCoalescer.UPDATE_UNREAD_SQL), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{0}});
+        when(jdbcTemplate.batchUpdate(eq(NotificationCoalescer.UPSERT_VALUES_SQL), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{1}});
+
+        assertEquals(List.of(2L), coalescer.writeMessageNotifications(List.of(message(1L, 2L))));
+        assertTrue(NotificationCoalescer.UPSERT_SQL.contains("AS new ON DUPLICATE KEY UPDATE"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void throttledBurstsAreSentAsOneTrailingPush() throws InterruptedException {
+        coalescer = new NotificationCoalescer(jdbcTemplate, transactionTemplate, outboxService, meterRegistry, 200);
+        when(jdbcTemplate.batchUpdate(eq(NotificationCoalescer.UPDATE_UNREAD_SQL), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{1}});
+        coalescer.writeMessageNotifications(List.of(message(1L, 2L)));
+        coalescer.writeMessageNotifications(List.of(message(1L, 2L), message(1L, 2L)));
+        coalescer.writeMessageNotifications(List.of(message(1L, 2L)));
+
+        coalescer.flushTrailingPushes();
+        verify(outboxService, times(1)).enqueueToUser(eq(2L), eq("/queue/notifications"), any(NotificationDTO.class));
+
+        Thread.sleep(250);
+        coalescer.flushTrailingPushes();
+        coalescer.flushTrailingPushes();
+
+        verify(outboxService).enqueueToUser(eq(2L), eq("/queue/notifications"), argThat((NotificationDTO dto) ->
+                dto.getCount() == 3 && dto.getMessage().equals("You have 3 new messages from sender1")));
+        verify(outboxService, times(2)).enqueueToUser(eq(2L), eq("/queue/notifications"), any(NotificationDTO.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pushForABurstIsQueuedOnceThroughTheOutbox() {
+        when(jdbcTemplate.batchUpdate(eq(NotificationCoalescer.UPDATE_UNREAD_SQL), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{1}}, new int[][]{{1}});
+
+        coalescer.writeMessageNotifications(List.of(message(1L, 2L), message(1L, 2L)));
+        coalescer.writeMessageNotifications(List.of(message(1L, 2L)));
+
+        verify(outboxService, times(1)).enqueueToUser(eq(2L), eq("/queue/notifications"), argThat((NotificationDTO dto) ->
+                dto.getCount() == 2 && dto.getSenderId().equals(1L) && dto.getMessage().equals("You have 2 new messages from sender1")));
+        verifyNoMoreInteractions(outboxService);
+    }
+
+    @Test
+    void pushesAreThrottledPerKey() {
+        assertTrue(coalescer.tryAcquirePush(2L, 1L, "message"));
+        assertFalse(coalescer.tryAcquirePush(2L, 1L, "message"));
+        assertTrue(coalescer.tryAcquirePush(2L, 3L, "message"));
+        assertTrue(coalescer.tryAcquirePush(4L, 1L, "message"));
+
+        assertEquals(1.0, meterRegistry.counter("notifications.push.throttled").count());
+    }
+
+    @Test
+    void pushIsAllowedAgainAfterTheInterval() {
+        coalescer = new NotificationCoalescer(jdbcTemplate, transactionTemplate, outboxService, meterRegistry, 0);
+
+        assertTrue(coalescer.tryAcquirePush(2L, 1L, "message"));
+        assertTrue(coalescer.tryAcquirePush(2L, 1L, "message"));
+    }
+
+    @Test
+    void messageTextReflectsTheCount() {
+        assertEquals("You have a new message from alice", NotificationCoalescer.messageText(1, "alice"));
+        assertEquals("You have 3 new messages from alice", NotificationCoalescer.messageText(3, "alice"));
+    }
+}
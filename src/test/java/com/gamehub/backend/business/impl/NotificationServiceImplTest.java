@@ -1,9 +1,13 @@
 package com.gamehub.backend.business.impl;
 
+import com.gamehub.backend.domain.BroadcastNotification;
+import com.gamehub.backend.domain.BroadcastReadWatermark;
 import com.gamehub.backend.domain.Notification;
 import com.gamehub.backend.domain.Role;
 import com.gamehub.backend.domain.User;
 import com.gamehub.backend.dto.NotificationDTO;
+import com.gamehub.backend.persistence.BroadcastNotificationRepository;
+import com.gamehub.backend.persistence.BroadcastReadWatermarkRepository;
 import com.gamehub.backend.persistence.NotificationRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,13 +15,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,6 +36,18 @@ class NotificationServiceImplTest {
     @Mock
     private NotificationRepository notificationRepository;
 
+    @Mock
+    private BroadcastNotificationRepository broadcastNotificationRepository;
+
+    @Mock
+    private BroadcastReadWatermarkRepository broadcastReadWatermarkRepository;
+
+    @Mock
+    private UnreadNotificationCounter unreadNotificationCounter;
+
+    @Mock
+    private OutboxService outboxService;
+
     @InjectMocks
     private NotificationServiceImpl notificationService;
 
@@ -35,7 +57,7 @@ class NotificationServiceImplTest {
     void setUp() {
         notification = new Notification();
         notification.setId(1L);
-        notification.setUser(new User(1L, "user", "user@example.com", "hashedPassword", "profilePic", "description", List.of(Role.USER), null, null, null, null, null));
+        notification.setUser(new User(1L, "user", "user@example.com", "hashedPassword", "profilePic", "description", List.of(Role.USER), null, null, null));
         notification.setMessage("New friend request");
         notification.setTimestamp(LocalDateTime.now());
         notification.setRead(false);
@@ -55,6 +77,16 @@ class NotificationServiceImplTest {
         verify(notificationRepository).save(any(Notification.class));
     }
 
+    @Test
+    void saveNewNotificationIncrementsUnreadCounter() {
+        notification.setId(null);
+        when(notificationRepository.save(notification)).thenReturn(notification);
+
+        notificationService.save(notification);
+
+        verify(unreadNotificationCounter).increment(1L);
+    }
+
     @Test
     void saveNotification_nullNotification() {
         assertThrows(NullPointerException.class, () -> {
@@ -105,6 +137,25 @@ class NotificationServiceImplTest {
 
         assertEquals(true, notification.isRead());
         verify(notificationRepository).save(notification);
+        verify(unreadNotificationCounter).decrement(1L);
+    }
+
+    @Test
+    void markAsRead_alreadyReadDoesNotDecrement() {
+        notification.setRead(true);
+        when(notificationRepository.findById(1L)).thenReturn(java.util.Optional.of(notification));
+
+        notificationService.markAsRead(1L);
+
+        verify(unreadNotificationCounter, never()).decrement(any());
+    }
+
+    @Test
+    void getUnreadCountReadsTheCounter() {
+        when(unreadNotificationCounter.unreadCount(1L)).thenReturn(4L);
+
+        assertEquals(4L, notificationService.getUnreadCount(1L));
+        verifyNoInteractions(notificationRepository);
     }
 
     @Test
@@ -115,4 +166,224 @@ class NotificationServiceImplTest {
 
         verify(notificationRepository, never()).save(any(Notification.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void broadcastStoresASingleRow() {
+        BroadcastNotification broadcast = new BroadcastNotification(null, "A new event has been created: LAN", null, "event", null, 3L);
+        when(broadcastNotificationRepository.save(broadcast)).thenReturn(broadcast);
+
+        BroadcastNotification saved = notificationService.broadcast(broadcast);
+
+        assertNotNull(saved.getTimestamp());
+        verify(broadcastNotificationRepository).save(broadcast);
+        verify(unreadNotificationCounter).broadcastCreated();
+        verifyNoInteractions(notificationRepository);
+    }
+
+    @Test
+    void broadcastCountsTowardsCachedUnreadCountsOnlyAfterCommit() {
+        BroadcastNotification broadcast = new BroadcastNotification(null, "A new event has been created: LAN", null, "event", null, 3L);
+        when(broadcastNotificationRepository.save(broadcast)).thenReturn(broadcast);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            notificationService.broadcast(broadcast);
+            verify(unreadNotificationCounter, never()).broadcastCreated();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(unreadNotificationCounter).broadcastCreated();
+    }
+
+    @Test
+    void rolledBackBroadcastLeavesCachedUnreadCountsAlone() {
+        BroadcastNotification broadcast = new BroadcastNotification(null, "A new event has been created: LAN", null, "event", null, 3L);
+        when(broadcastNotificationRepository.save(broadcast)).thenReturn(broadcast);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            notificationService.broadcast(broadcast);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(unreadNotificationCounter, never()).broadcastCreated();
+    }
+
+    @Test
+    void broadcastQueuesPushForConnectedUsers() {
+        BroadcastNotification broadcast = new BroadcastNotification(7L, "A new event has been created: LAN", null, "event", null, 3L);
+        when(broadcastNotificationRepository.save(broadcast)).thenReturn(broadcast);
+
+        notificationService.broadcast(broadcast);
+
+        verify(outboxService).enqueueToConnectedUsers(eq("/queue/notifications"), argThat((NotificationDTO dto) ->
+                dto.getId().equals(7L) && dto.getUserId() == null && dto.isBroadcast() && dto.getEventId().equals(3L)));
+    }
+
+    @Test
+    void sendSavesAndQueuesPushForReceiver() {
+        when(notificationRepository.save(notification)).thenReturn(notification);
+
+        NotificationDTO sent = notificationService.send(notification);
+
+        assertEquals(1L, sent.getUserId());
+        assertEquals("New friend request", sent.getMessage());
+        verify(outboxService).enqueueToUser(1L, "/queue/notifications", sent);
+    }
+
+    @Test
+    void getUnreadNotifications_mergesBroadcastsAfterTheWatermark() {
+        notification.setTimestamp(LocalDateTime.now().minusHours(1));
+        BroadcastNotification older = new BroadcastNotification(7L, "Old event", LocalDateTime.now().minusHours(2), "event", null, 1L);
+        BroadcastNotification newer = new BroadcastNotification(8L, "New event", LocalDateTime.now(), "event", null, 2L);
+        when(notificationRepository.findByUserIdAndIsReadFalse(1L)).thenReturn(List.of(notification));
+        when(broadcastReadWatermarkRepository.findById(1L)).thenReturn(Optional.of(new BroadcastReadWatermark(1L, 6L)));
+        when(broadcastNotificationRepository.findByIdGreaterThanOrderByIdAsc(6L)).thenReturn(List.of(older, newer));
+
+        List<NotificationDTO> notifications = notificationService.getUnreadNotifications(1L);
+
+        assertEquals(3, notifications.size());
+        assertEquals(7L, notifications.get(0).getId());
+        assertTrue(notifications.get(0).isBroadcast());
+        assertEquals(1L, notifications.get(0).getUserId());
+        assertEquals(notification.getId(), notifications.get(1).getId());
+        assertFalse(notifications.get(1).isBroadcast());
+        assertEquals(8L, notifications.get(2).getId());
+    }
+
+    @Test
+    void getUnreadNotifications_withoutWatermarkIncludesAllBroadcasts() {
+        when(notificationRepository.findByUserIdAndIsReadFalse(1L)).thenReturn(Collections.emptyList());
+        when(broadcastReadWatermarkRepository.findById(1L)).thenReturn(Optional.empty());
+        when(broadcastNotificationRepository.findByIdGreaterThanOrderByIdAsc(0L))
+                .thenReturn(List.of(new BroadcastNotification(1L, "Event", LocalDateTime.now(), "event", null, 1L)));
+
+        List<NotificationDTO> notifications = notificationService.getUnreadNotifications(1L);
+
+        assertEquals(1, notifications.size());
+        assertTrue(notifications.get(0).isBroadcast());
+    }
+
+    @Test
+    void markBroadcastsReadUpTo_advancesExistingWatermark() {
+        when(broadcastReadWatermarkRepository.advance(1L, 9L)).thenReturn(1);
+
+        notificationService.markBroadcastsReadUpTo(1L, 9L);
+
+        verify(broadcastReadWatermarkRepository, never()).save(any(BroadcastReadWatermark.class));
+        verify(unreadNotificationCounter).invalidate(1L);
+    }
+
+    @Test
+    void markBroadcastsReadUpTo_neverMovesTheWatermarkBackwards() {
+        when(broadcastReadWatermarkRepository.advance(1L, 3L)).thenReturn(0);
+        when(broadcastReadWatermarkRepository.existsById(1L)).thenReturn(true);
+
+        notificationService.markBroadcastsReadUpTo(1L, 3L);
+
+        verify(broadcastReadWatermarkRepository, never()).save(any(BroadcastReadWatermark.class));
+    }
+
+    @Test
+    void markBroadcastsReadUpTo_createsTheFirstWatermark() {
+        when(broadcastReadWatermarkRepository.advance(1L, 9L)).thenReturn(0);
+        when(broadcastReadWatermarkRepository.existsById(1L)).thenReturn(false);
+
+        notificationService.markBroadcastsReadUpTo(1L, 9L);
+
+        verify(broadcastReadWatermarkRepository).save(argThat(watermark -> watermark.getUserId().equals(1L) && watermark.getLastReadId().equals(9L)));
+    }
+
+    @Test
+    void markBroadcastsReadUpTo_concurrentInsertFallsBackToAdvance() {
+        when(broadcastReadWatermarkRepository.advance(1L, 9L)).thenReturn(0);
+        when(broadcastReadWatermarkRepository.existsById(1L)).thenReturn(false);
+        when(broadcastReadWatermarkRepository.save(any(BroadcastReadWatermark.class))).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        notificationService.markBroadcastsReadUpTo(1L, 9L);
+
+        verify(broadcastReadWatermarkRepository, times(2)).advance(1L, 9L);
+    }
+
+    @Test
+    void initializeBroadcastWatermark_startsAtTheNewestBroadcast() {
+        when(broadcastNotificationRepository.findMaxId()).thenReturn(12L);
+        when(broadcastReadWatermarkRepository.advance(1L, 12L)).thenReturn(0);
+        when(broadcastReadWatermarkRepository.existsById(1L)).thenReturn(false);
+
+        notificationService.initializeBroadcastWatermark(1L);
+
+        verify(broadcastReadWatermarkRepository).save(argThat(watermark -> watermark.getUserId().equals(1L) && watermark.getLastReadId().equals(12L)));
+    }
+
+    @Test
+    void deleteOldBroadcasts() {
+        LocalDateTime timestamp = LocalDateTime.now().minusWeeks(1);
+
+        notificationService.deleteOldBroadcasts(timestamp);
+
+        verify(broadcastNotificationRepository).deleteAllByTimestampBefore(timestamp);
+    }
+
+    @Test
+    void markAsRead_bulkRunsOneUpdateScopedToTheUser() {
+        when(notificationRepository.markReadByIds(eq(1L), anyCollection())).thenReturn(2);
+
+        int updated = notificationService.markAsRead(1L, List.of(1L, 2L, 2L));
+
+        assertEquals(2, updated);
+        verify(notificationRepository).markReadByIds(1L, java.util.Set.of(1L, 2L));
+        verify(notificationRepository, never()).save(any(Notification.class));
+        verify(unreadNotificationCounter).invalidate(1L);
+    }
+
+    @Test
+    void markAsRead_bulkWithNoIdsDoesNothing() {
+        assertEquals(0, notificationService.markAsRead(1L, List.of()));
+
+        verifyNoInteractions(notificationRepository, unreadNotificationCounter);
+    }
+
+    @Test
+    void markAsRead_bulkRejectsOversizedLists() {
+        List<Long> ids = java.util.stream.LongStream.rangeClosed(1, NotificationServiceImpl.MAX_BULK_READ_IDS + 1).boxed().toList();
+
+        assertThrows(IllegalArgumentException.class, () -> notificationService.markAsRead(1L, ids));
+        verifyNoInteractions(notificationRepository);
+    }
+
+    @Test
+    void markReadUpTo_id() {
+        when(notificationRepository.markReadUpToId(1L, 10L)).thenReturn(4);
+
+        assertEquals(4, notificationService.markReadUpTo(1L, 10L, null));
+
+        verifyNoInteractions(broadcastNotificationRepository, broadcastReadWatermarkRepository);
+        verify(unreadNotificationCounter).invalidate(1L);
+    }
+
+    @Test
+    void markReadUpTo_timestampAlsoAdvancesTheBroadcastWatermark() {
+        LocalDateTime upTo = LocalDateTime.now();
+        when(notificationRepository.markReadUpToTimestamp(1L, upTo)).thenReturn(3);
+        when(broadcastNotificationRepository.findTopByTimestampLessThanEqualOrderByIdDesc(upTo))
+                .thenReturn(Optional.of(new BroadcastNotification(12L, "Event", upTo, "event", null, 1L)));
+        when(broadcastReadWatermarkRepository.advance(1L, 12L)).thenReturn(1);
+
+        assertEquals(3, notificationService.markReadUpTo(1L, null, upTo));
+
+        verify(broadcastReadWatermarkRepository).advance(1L, 12L);
+        verify(unreadNotificationCounter).invalidate(1L);
+    }
+
+    @Test
+    void markReadUpTo_requiresExactlyOneBound() {
+        assertThrows(IllegalArgumentException.class, () -> notificationService.markReadUpTo(1L, null, null));
+        assertThrows(IllegalArgumentException.class, () -> notificationService.markReadUpTo(1L, 1L, LocalDateTime.now()));
+        verifyNoInteractions(notificationRepository);
+    }
+}
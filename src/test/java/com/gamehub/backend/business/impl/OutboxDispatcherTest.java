@@ -0,0 +1,250 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.domain.OutboxKind;
+import com.gamehub.backend.domain.OutboxMessage;
+import com.gamehub.backend.persistence.OutboxMessageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxDispatcherTest {
+
+    @Mock
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Mock
+    private UserMessageSender userMessageSender;
+
+    @Mock
+    private MailService mailService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new OutboxDispatcher(outboxMessageRepository, userMessageSender, mailService,
+                meterRegistry, 2, 1, 100, 3, 1000, 30_000, 100);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.shutdown();
+    }
+
+    private OutboxMessage userPush(Long id, String recipient, String payload) {
+        OutboxMessage message = new OutboxMessage();
+        message.setId(id);
+        message.setKind(OutboxKind.USER);
+        message.setRecipient(recipient);
+        message.setDestination("/queue/notifications");
+        message.setPayload(payload);
+        message.setAvailableAt(LocalDateTime.now());
+        return message;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deliversEachRecipientInOrderAndDeletesDeliveredEntries() {
+        dispatcher.dispatch(List.of(userPush(1L, "5", "{\"n\":1}"), userPush(2L, "6", "{\"n\":2}"), userPush(3L, "5", "{\"n\":3}")));
+
+        ArgumentCaptor<Message<?>> sent = ArgumentCaptor.forClass(Message.class);
+        verify(userMessageSender, times(2)).sendToUser(eq(5L), eq("/queue/notifications"), sent.capture());
+        assertEquals("{\"n\":1}", new String((byte[]) sent.getAllValues().get(0).getPayload(), StandardCharsets.UTF_8));
+        assertEquals("{\"n\":3}", new String((byte[]) sent.getAllValues().get(1).getPayload(), StandardCharsets.UTF_8));
+        verify(userMessageSender).sendToUser(eq(6L), eq("/queue/notifications"), any(Message.class));
+
+        ArgumentCaptor<Iterable<Long>> deleted = ArgumentCaptor.forClass(Iterable.class);
+        verify(outboxMessageRepository).deleteAllByIdInBatch(deleted.capture());
+        assertEquals(Set.of(1L, 2L, 3L), Set.copyOf((List<Long>) deleted.getValue()));
+        verify(outboxMessageRepository, never()).saveAll(anyCollection());
+        assertEquals(3.0, meterRegistry.counter("outbox.delivered").count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedEntryIsRetriedLaterAndHoldsBackTheRestOfItsGroup() {
+        OutboxMessage first = userPush(1L, "5", "{}");
+        OutboxMessage second = userPush(2L, "5", "{}");
+        doThrow(new MessageDeliveryException("broker down"))
+                .when(userMessageSender).sendToUser(eq(5L), eq("/queue/notifications"), any(Message.class));
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.dispatch(List.of(first, second));
+
+        verify(userMessageSender, times(1)).sendToUser(any(), anyString(), any(Message.class));
+        ArgumentCaptor<Iterable<OutboxMessage>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(outboxMessageRepository).saveAll(saved.capture());
+        assertEquals(List.of(first, second), saved.getValue());
+        assertEquals(1, first.getAttempts());
+        assertEquals(0, second.getAttempts());
+        assertTrue(first.getAvailableAt().isAfter(before.plusNanos(900_000_000)));
+        assertEquals(first.getAvailableAt(), second.getAvailableAt());
+        assertTrue(first.getLastError().contains("broker down"));
+        verify(outboxMessageRepository, never()).deleteAllByIdInBatch(any());
+        assertEquals(1.0, meterRegistry.counter("outbox.retried").count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void entryIsDroppedAfterMaxAttempts() {
+        OutboxMessage message = userPush(1L, "5", "{}");
+        message.setAttempts(2);
+        doThrow(new MessageDeliveryException("broker down"))
+                .when(userMessageSender).sendToUser(any(), anyString(), any(Message.class));
+
+        dispatcher.dispatch(List.of(message));
+
+        verify(outboxMessageRepository).deleteAllByIdInBatch(List.of(1L));
+        verify(outboxMessageRepository, never()).saveAll(anyCollection());
+        assertEquals(1.0, meterRegistry.counter("outbox.dead").count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void connectedUsersEntryIsSentToEveryConnectedUser() {
+        OutboxMessage message = userPush(1L, null, "{}");
+        message.setKind(OutboxKind.CONNECTED_USERS);
+
+        dispatcher.dispatch(List.of(message));
+
+        verify(userMessageSender).sendToConnectedUsers(eq("/queue/notifications"), any(Message.class));
+        verify(userMessageSender, never()).sendToUser(any(), anyString(), any(Message.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void multiUserEntryBuildsOneMessageForAllRecipients() {
+        OutboxMessage message = userPush(1L, null, "{\"eventId\":3}");
+        message.setKind(OutboxKind.USERS);
+        message.setRecipientIds("5,6,7");
+
+        dispatcher.dispatch(List.of(message));
+
+        verify(userMessageSender).sendToUsers(eq(List.of(5L, 6L, 7L)), eq("/queue/notifications"), any(Message.class));
+        verify(outboxMessageRepository).deleteAllByIdInBatch(List.of(1L));
+    }
+
+    @Test
+    void emailEntryIsSentThroughMailService() throws MessagingException {
+        OutboxMessage message = new OutboxMessage();
+        message.setId(1L);
+        message.setKind(OutboxKind.EMAIL);
+        message.setRecipient("user@example.com");
+        message.setSubject("Password Reset Request");
+        message.setPayload("<p>Hello</p>");
+
+        dispatcher.dispatch(List.of(message));
+
+        verify(mailService).sendMail("user@example.com", "Password Reset Request", "<p>Hello</p>");
+        verifyNoInteractions(userMessageSender);
+    }
+
+    @Test
+    void dispatchPushesReportsAShortBatch() {
+        when(outboxMessageRepository.findDeliverable(eq(OutboxDispatcher.PUSH_KINDS), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(userPush(1L, "5", "{}")));
+        when(outboxMessageRepository.claim(eq(List.of(1L)), anyString(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+
+        assertFalse(dispatcher.dispatchPushes());
+
+        verify(outboxMessageRepository, times(1)).findDeliverable(eq(OutboxDispatcher.PUSH_KINDS), any(LocalDateTime.class), any(Pageable.class));
+        verify(outboxMessageRepository, never()).findByClaimTokenOrderByIdAsc(anyString());
+        verify(outboxMessageRepository).deleteAllByIdInBatch(List.of(1L));
+    }
+
+    @Test
+    void dispatchPushesOnlyDeliversEntriesThisNodeClaimed() {
+        OutboxMessage mine = userPush(2L, "6", "{}");
+        when(outboxMessageRepository.findDeliverable(eq(OutboxDispatcher.PUSH_KINDS), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(userPush(1L, "5", "{}"), mine));
+        ArgumentCaptor<String> claimToken = ArgumentCaptor.forClass(String.class);
+        when(outboxMessageRepository.claim(eq(List.of(1L, 2L)), claimToken.capture(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+        when(outboxMessageRepository.findByClaimTokenOrderByIdAsc(anyString())).thenReturn(List.of(mine));
+
+        dispatcher.dispatchPushes();
+
+        verify(outboxMessageRepository).findByClaimTokenOrderByIdAsc(claimToken.getValue());
+        verify(userMessageSender).sendToUser(eq(6L), eq("/queue/notifications"), any(Message.class));
+        verify(userMessageSender, never()).sendToUser(eq(5L), anyString(), any(Message.class));
+        verify(outboxMessageRepository).deleteAllByIdInBatch(List.of(2L));
+    }
+
+    @Test
+    void dispatchPushesSkipsABatchClaimedByAnotherNode() {
+        when(outboxMessageRepository.findDeliverable(eq(OutboxDispatcher.PUSH_KINDS), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(userPush(1L, "5", "{}")));
+        when(outboxMessageRepository.claim(anyCollection(), anyString(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(0);
+
+        dispatcher.dispatchPushes();
+
+        verifyNoInteractions(userMessageSender);
+        verify(outboxMessageRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void emailsArePolledSeparatelyFromPushes() {
+        when(outboxMessageRepository.findDeliverable(eq(OutboxDispatcher.MAIL_KINDS), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        assertFalse(dispatcher.dispatchEmails());
+
+        verify(outboxMessageRepository, never()).findDeliverable(eq(OutboxDispatcher.PUSH_KINDS), any(LocalDateTime.class), any(Pageable.class));
+    }
+
+    @Test
+    void slowEmailDoesNotHoldUpPushes() throws Exception {
+        OutboxMessage email = new OutboxMessage();
+        email.setId(1L);
+        email.setKind(OutboxKind.EMAIL);
+        email.setRecipient("user@example.com");
+        email.setSubject("Password Reset Request");
+        email.setPayload("<p>Hello</p>");
+        email.setAvailableAt(LocalDateTime.now());
+        CountDownLatch mailStarted = new CountDownLatch(1);
+        CountDownLatch releaseMail = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            mailStarted.countDown();
+            releaseMail.await();
+            return null;
+        }).when(mailService).sendMail(anyString(), anyString(), anyString());
+
+        Thread mailPoller = new Thread(() -> dispatcher.dispatch(List.of(email)));
+        mailPoller.start();
+        assertTrue(mailStarted.await(5, TimeUnit.SECONDS));
+        try {
+            // Both push workers stay free while the only mail worker is busy.
+            dispatcher.dispatch(List.of(userPush(2L, "5", "{}"), userPush(3L, "6", "{}")));
+            verify(userMessageSender, times(2)).sendToUser(anyLong(), eq("/queue/notifications"), any(Message.class));
+        } finally {
+            releaseMail.countDown();
+            mailPoller.join();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.domain.PasswordResetToken;
+import com.gamehub.backend.persistence.PasswordResetTokenRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PasswordResetTokenStoreTest {
+
+    @Mock
+    private PasswordResetTokenRepository passwordResetTokenRepository;
+
+    @InjectMocks
+    private PasswordResetTokenStore passwordResetTokenStore;
+
+    @Test
+    void issueStoresOnlyTheHashAndReplacesEarlierTokens() {
+        String token = passwordResetTokenStore.issue(7L);
+
+        ArgumentCaptor<PasswordResetToken> saved = ArgumentCaptor.forClass(PasswordResetToken.class);
+        InOrder inOrder = inOrder(passwordResetTokenRepository);
+        inOrder.verify(passwordResetTokenRepository).deleteByUserId(7L);
+        inOrder.verify(passwordResetTokenRepository).save(saved.capture());
+        assertEquals(7L, saved.getValue().getUserId());
+        assertEquals(PasswordResetTokenStore.hash(token), saved.getValue().getTokenHash());
+        assertNotEquals(token, saved.getValue().getTokenHash());
+        assertTrue(saved.getValue().getExpiresAt().isAfter(LocalDateTime.now().plusMinutes(9)));
+    }
+
+    @Test
+    void issuedTokensAreUnique() {
+        assertNotEquals(passwordResetTokenStore.issue(7L), passwordResetTokenStore.issue(7L));
+    }
+
+    @Test
+    void findLooksUpByHash() {
+        PasswordResetToken stored = new PasswordResetToken(1L, PasswordResetTokenStore.hash("rawToken"), 7L, LocalDateTime.now());
+        when(passwordResetTokenRepository.findByTokenHash(PasswordResetTokenStore.hash("rawToken"))).thenReturn(Optional.of(stored));
+
+        assertSame(stored, passwordResetTokenStore.find("rawToken").orElseThrow());
+    }
+
+    @Test
+    void consumeSucceedsOnlyForTheFirstCaller() {
+        PasswordResetToken stored = new PasswordResetToken(1L, "hash", 7L, LocalDateTime.now());
+        when(passwordResetTokenRepository.deleteTokenById(1L)).thenReturn(1, 0);
+
+        assertTrue(passwordResetTokenStore.consume(stored));
+        assertFalse(passwordResetTokenStore.consume(stored));
+    }
+
+    @Test
+    void sweepDeletesExpiredTokens() {
+        passwordResetTokenStore.sweepExpired();
+
+        verify(passwordResetTokenRepository).deleteExpired(any(LocalDateTime.class));
+    }
+}
@@ -0,0 +1,213 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.configuration.cluster.LoopbackClusterRelay;
+import com.gamehub.backend.domain.BroadcastReadWatermark;
+import com.gamehub.backend.persistence.BroadcastNotificationRepository;
+import com.gamehub.backend.persistence.BroadcastReadWatermarkRepository;
+import com.gamehub.backend.persistence.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UnreadNotificationCounterTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+    @Mock
+    private BroadcastNotificationRepository broadcastNotificationRepository;
+    @Mock
+    private BroadcastReadWatermarkRepository broadcastReadWatermarkRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UnreadNotificationCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        counter = new UnreadNotificationCounter(notificationRepository, broadcastNotificationRepository, broadcastReadWatermarkRepository, new LoopbackClusterRelay("a"), meterRegistry, 2, 2);
+    }
+
+    private void databaseCount(Long userId, long personal, long watermark, long broadcasts) {
+        when(broadcastReadWatermarkRepository.findById(userId)).thenReturn(Optional.of(new BroadcastReadWatermark(userId, watermark)));
+        when(notificationRepository.countByUserIdAndIsReadFalse(userId)).thenReturn(personal);
+        when(broadcastNotificationRepository.countByIdGreaterThan(watermark)).thenReturn(broadcasts);
+    }
+
+    @Test
+    void firstReadLoadsFromTheDatabaseAndLaterReadsHitMemory() {
+        databaseCount(1L, 3L, 5L, 2L);
+
+        assertEquals(5L, counter.unreadCount(1L));
+        assertEquals(5L, counter.unreadCount(1L));
+
+        verify(notificationRepository, times(1)).countByUserIdAndIsReadFalse(1L);
+        assertEquals(1.0, meterRegistry.counter("notifications.unread.miss").count());
+        assertEquals(1.0, meterRegistry.counter("notifications.unread.hit").count());
+    }
+
+    @Test
+    void missingWatermarkCountsEveryBroadcast() {
+        when(broadcastReadWatermarkRepository.findById(1L)).thenReturn(Optional.empty());
+        when(notificationRepository.countByUserIdAndIsReadFalse(1L)).thenReturn(1L);
+        when(broadcastNotificationRepository.countByIdGreaterThan(0L)).thenReturn(4L);
+
+        assertEquals(5L, counter.unreadCount(1L));
+    }
+
+    @Test
+    void writesAdjustCachedCounts() {
+        databaseCount(1L, 3L, 0L, 0L);
+        counter.unreadCount(1L);
+
+        counter.increment(1L);
+        counter.increment(1L);
+        counter.decrement(1L);
+        counter.broadcastCreated();
+
+        assertEquals(5L, counter.unreadCount(1L));
+    }
+
+    @Test
+    void decrementNeverGoesBelowZero() {
+        databaseCount(1L, 0L, 0L, 0L);
+        counter.unreadCount(1L);
+
+        counter.decrement(1L);
+
+        assertEquals(0L, counter.unreadCount(1L));
+    }
+
+    @Test
+    void writesForUncachedUsersAreIgnored() {
+        counter.increment(9L);
+        counter.decrement(9L);
+
+        verifyNoInteractions(notificationRepository);
+    }
+
+    @Test
+    void invalidateForcesAReload() {
+        databaseCount(1L, 3L, 0L, 0L);
+        counter.unreadCount(1L);
+
+        counter.invalidate(1L);
+        counter.unreadCount(1L);
+
+        verify(notificationRepository, times(2)).countByUserIdAndIsReadFalse(1L);
+    }
+
+    @Test
+    void fullCacheEvictsTheLeastRecentlyReadUser() {
+        databaseCount(1L, 1L, 0L, 0L);
+        databaseCount(2L, 1L, 0L, 0L);
+        databaseCount(3L, 1L, 0L, 0L);
+        counter.unreadCount(1L);
+        counter.unreadCount(2L);
+        counter.unreadCount(1L);
+
+        counter.unreadCount(3L);
+        counter.unreadCount(3L);
+        counter.unreadCount(1L);
+        counter.unreadCount(2L);
+
+        verify(notificationRepository, times(1)).countByUserIdAndIsReadFalse(3L);
+        verify(notificationRepository, times(1)).countByUserIdAndIsReadFalse(1L);
+        verify(notificationRepository, times(2)).countByUserIdAndIsReadFalse(2L);
+        assertEquals(2, counter.cachedUserCount());
+        assertEquals(2.0, meterRegistry.counter("notifications.unread.evictions").count());
+    }
+
+    private void batchCounts(List<Object[]> personal, List<BroadcastReadWatermark> watermarks, List<Long> broadcastIds) {
+        when(notificationRepository.countUnreadByUserIds(anyCollection())).thenReturn(personal);
+        when(broadcastReadWatermarkRepository.findAllById(anyCollection())).thenReturn(watermarks);
+        when(broadcastNotificationRepository.findAllIds()).thenReturn(broadcastIds);
+    }
+
+    @Test
+    void reconcileReplacesDriftedCountsWithOneQueryPerTable() {
+        databaseCount(1L, 3L, 0L, 0L);
+        databaseCount(2L, 0L, 6L, 0L);
+        counter.unreadCount(1L);
+        counter.unreadCount(2L);
+        counter.increment(1L);
+        batchCounts(List.<Object[]>of(new Object[]{1L, 3L}), List.of(new BroadcastReadWatermark(2L, 6L)), List.of(4L, 7L));
+
+        counter.reconcile();
+
+        // User 1 has no watermark, so both retained broadcasts are unread; user 2 has read up to 6.
+        assertEquals(5L, counter.unreadCount(1L));
+        assertEquals(1L, counter.unreadCount(2L));
+        assertEquals(2.0, meterRegistry.counter("notifications.unread.drift").count());
+        verify(notificationRepository, times(1)).countUnreadByUserIds(anyCollection());
+    }
+
+    @Test
+    void reconcileKeepsWritesMadeWhileCounting() {
+        databaseCount(1L, 3L, 0L, 0L);
+        counter.unreadCount(1L);
+        when(notificationRepository.countUnreadByUserIds(anyCollection())).thenAnswer(invocation -> {
+            counter.increment(1L);
+            return List.<Object[]>of(new Object[]{1L, 3L});
+        });
+        when(broadcastReadWatermarkRepository.findAllById(anyCollection())).thenReturn(List.of());
+        when(broadcastNotificationRepository.findAllIds()).thenReturn(List.of());
+
+        counter.reconcile();
+
+        assertEquals(4L, counter.unreadCount(1L));
+    }
+
+    @Test
+    void reconcileChecksWrittenUsersBeforeTheOthers() {
+        counter = new UnreadNotificationCounter(notificationRepository, broadcastNotificationRepository, broadcastReadWatermarkRepository, new LoopbackClusterRelay("a"), meterRegistry, 10, 1);
+        databaseCount(1L, 0L, 0L, 0L);
+        databaseCount(2L, 0L, 0L, 0L);
+        counter.unreadCount(1L);
+        counter.unreadCount(2L);
+        batchCounts(List.of(), List.of(), List.of());
+        counter.reconcile();
+        counter.reconcile();
+
+        counter.increment(2L);
+        counter.reconcile();
+
+        ArgumentCaptor<Collection<Long>> checked = ArgumentCaptor.forClass(Collection.class);
+        verify(notificationRepository, times(3)).countUnreadByUserIds(checked.capture());
+        assertEquals(List.of(1L), List.copyOf(checked.getAllValues().get(0)));
+        assertEquals(List.of(2L), List.copyOf(checked.getAllValues().get(1)));
+        assertEquals(List.of(2L), List.copyOf(checked.getAllValues().get(2)));
+        assertEquals(0L, counter.unreadCount(2L));
+    }
+
+    @Test
+    void writesOnAnotherNodeDropTheCachedCount() {
+        LoopbackClusterRelay relayA = new LoopbackClusterRelay("a");
+        UnreadNotificationCounter counterA = new UnreadNotificationCounter(notificationRepository, broadcastNotificationRepository,
+                broadcastReadWatermarkRepository, relayA, meterRegistry, 10, 10);
+        counter = new UnreadNotificationCounter(notificationRepository, broadcastNotificationRepository,
+                broadcastReadWatermarkRepository, relayA.join("b"), meterRegistry, 10, 10);
+        databaseCount(1L, 3L, 0L, 0L);
+        databaseCount(2L, 1L, 0L, 0L);
+        counter.unreadCount(1L);
+        counter.unreadCount(2L);
+
+        counterA.increment(1L);
+
+        assertEquals(1, counter.cachedUserCount());
+        counterA.broadcastCreated();
+        assertEquals(0, counter.cachedUserCount());
+    }
+}
@@ -0,0 +1,104 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.configuration.cluster.LoopbackClusterRelay;
+import com.gamehub.backend.persistence.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserAvailabilityIndexTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserAvailabilityIndex loadedIndex(LoopbackClusterRelay relay, List<String> usernames, List<String> emails) {
+        when(userRepository.findAllUsernames()).thenReturn(usernames);
+        when(userRepository.findAllEmails()).thenReturn(emails);
+        UserAvailabilityIndex index = new UserAvailabilityIndex(userRepository, relay, new SimpleMeterRegistry());
+        index.load();
+        return index;
+    }
+
+    @Test
+    void answersFromMemoryOnceLoaded() {
+        UserAvailabilityIndex index = loadedIndex(new LoopbackClusterRelay("node-a"), List.of("Alice"), List.of("alice@example.com"));
+
+        assertTrue(index.isUsernameTaken(" alice "));
+        assertTrue(index.isEmailTaken("ALICE@example.com"));
+        assertFalse(index.isUsernameTaken("bob"));
+        assertFalse(index.isEmailTaken("bob@example.com"));
+        verify(userRepository, never()).existsByUsername(anyString());
+        verify(userRepository, never()).existsByEmail(anyString());
+    }
+
+    @Test
+    void asksTheDatabaseUntilLoaded() {
+        UserAvailabilityIndex index = new UserAvailabilityIndex(userRepository, new LoopbackClusterRelay("node-a"), new SimpleMeterRegistry());
+        when(userRepository.existsByUsername("alice")).thenReturn(true);
+
+        assertTrue(index.isUsernameTaken("alice"));
+    }
+
+    @Test
+    void signupChecksConfirmFreeNamesWithTheDatabase() {
+        UserAvailabilityIndex index = loadedIndex(new LoopbackClusterRelay("node-a"), List.of(), List.of());
+        when(userRepository.existsByUsername("seeded")).thenReturn(true);
+
+        assertFalse(index.isUsernameTaken("seeded"));
+        assertTrue(index.confirmUsernameTaken("seeded"));
+        assertTrue(index.isUsernameTaken("seeded"));
+        verify(userRepository).existsByUsername("seeded");
+    }
+
+    @Test
+    void tracksRegistrationsRenamesAndRemovals() {
+        UserAvailabilityIndex index = loadedIndex(new LoopbackClusterRelay("node-a"), List.of(), List.of());
+
+        index.registered("alice", "alice@example.com");
+        assertTrue(index.isUsernameTaken("alice"));
+
+        index.renamed("alice", "alice@example.com", "alicia", "alice@example.com");
+        assertFalse(index.isUsernameTaken("alice"));
+        assertTrue(index.isUsernameTaken("alicia"));
+        assertTrue(index.isEmailTaken("alice@example.com"));
+
+        index.removed("alicia", "alice@example.com");
+        assertFalse(index.isUsernameTaken("alicia"));
+        assertFalse(index.isEmailTaken("alice@example.com"));
+    }
+
+    @Test
+    void changesReachOtherNodes() {
+        LoopbackClusterRelay relayA = new LoopbackClusterRelay("node-a");
+        LoopbackClusterRelay relayB = relayA.join("node-b");
+        UserAvailabilityIndex nodeA = loadedIndex(relayA, List.of(), List.of());
+        UserAvailabilityIndex nodeB = loadedIndex(relayB, List.of(), List.of());
+
+        nodeA.registered("Alice", "alice@example.com");
+        assertTrue(nodeB.isUsernameTaken("alice"));
+        assertTrue(nodeB.isEmailTaken("alice@example.com"));
+
+        nodeA.removed("Alice", "alice@example.com");
+        assertFalse(nodeB.isUsernameTaken("alice"));
+        assertFalse(nodeB.isEmailTaken("alice@example.com"));
+    }
+
+    @Test
+    void suggestsFreeNamesWithinTheLengthLimit() {
+        UserAvailabilityIndex index = loadedIndex(new LoopbackClusterRelay("node-a"),
+                List.of("gamer", "gamer1", "gamer3"), List.of());
+
+        assertEquals(List.of("gamer2", "gamer4", "gamer5"), index.suggestUsernames("gamer", 3));
+        assertEquals("abcdefghijklmnopqrs1", index.suggestUsernames("abcdefghijklmnopqrst", 1).get(0));
+        assertTrue(index.suggestUsernames(" ", 3).isEmpty());
+    }
+}
@@ -0,0 +1,274 @@
+package com.gamehub.backend.business.impl;
+
+import com.gamehub.backend.configuration.UserSubscriptionTracker;
+import com.gamehub.backend.configuration.cluster.ClusterDirectory;
+import com.gamehub.backend.configuration.cluster.ClusterRelay;
+import com.gamehub.backend.configuration.cluster.LoopbackClusterRelay;
+import com.gamehub.backend.configuration.cluster.RelayFrame;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserMessageSenderTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private UserSubscriptionTracker subscriptionTracker;
+
+    @Mock
+    private ClusterRelay clusterRelay;
+
+    @Mock
+    private ClusterDirectory clusterDirectory;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserMessageSender sender;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sender = new UserMessageSender(messagingTemplate, subscriptionTracker, clusterRelay, clusterDirectory, meterRegistry, 2, 1, 60_000);
+    }
+
+    private Message<String> message(String payload) {
+        return MessageBuilder.withPayload(payload).build();
+    }
+
+    @Test
+    void connectedUserIsSentToDirectly() {
+        when(subscriptionTracker.isConnected(5L)).thenReturn(true);
+        Message<String> message = message("hi");
+
+        sender.sendToUser(5L, "/queue/messages", message);
+
+        verify(messagingTemplate).send("/user/5/queue/messages", message);
+        assertEquals(0, sender.pendingCount(5L));
+    }
+
+    @Test
+    void offlineUserIsBufferedAndReplayedInOrderOnSubscribe() {
+        Message<String> first = message("first");
+        Message<String> second = message("second");
+        Message<String> notification = message("notification");
+
+        sender.sendToUser(5L, "/queue/messages", first);
+        sender.sendToUser(5L, "/queue/messages", second);
+        verify(messagingTemplate, never()).send(anyString(), any(Message.class));
+        assertEquals(2, sender.pendingCount(5L));
+
+        sender.replay(5L, "/queue/messages");
+
+        InOrder inOrder = inOrder(messagingTemplate);
+        inOrder.verify(messagingTemplate).send("/user/5/queue/messages", first);
+        inOrder.verify(messagingTemplate).send("/user/5/queue/messages", second);
+        assertEquals(0, sender.pendingCount(5L));
+        assertEquals(2.0, meterRegistry.counter("websocket.offline.replayed").count());
+
+        sender.sendToUser(5L, "/queue/notifications", notification);
+        sender.replay(5L, "/queue/messages");
+        verify(messagingTemplate, never()).send("/user/5/queue/notifications", notification);
+        assertEquals(1, sender.pendingCount(5L));
+    }
+
+    @Test
+    void oldestMessageIsDroppedWhenAUsersBufferIsFull() {
+        Message<String> dropped = message("1");
+
+        sender.sendToUser(5L, "/queue/messages", dropped);
+        sender.sendToUser(5L, "/queue/messages", message("2"));
+        sender.sendToUser(5L, "/queue/messages", message("3"));
+        sender.replay(5L, "/queue/messages");
+
+        verify(messagingTemplate, never()).send("/user/5/queue/messages", dropped);
+        verify(messagingTemplate, times(2)).send(anyString(), any(Message.class));
+        assertEquals(1.0, meterRegistry.counter("websocket.offline.dropped").count());
+    }
+
+    @Test
+    void newUsersAreNotBufferedOnceTheUserLimitIsReached() {
+        sender.sendToUser(5L, "/queue/messages", message("a"));
+        sender.sendToUser(6L, "/queue/messages", message("b"));
+
+        assertEquals(1, sender.pendingCount(5L));
+        assertEquals(0, sender.pendingCount(6L));
+        assertEquals(1.0, meterRegistry.counter("websocket.offline.dropped").count());
+    }
+
+    @Test
+    void expiredMessagesAreEvictedAndNotReplayed() {
+        sender = new UserMessageSender(messagingTemplate, subscriptionTracker, clusterRelay, clusterDirectory, meterRegistry, 2, 10, 0);
+        sender.sendToUser(5L, "/queue/messages", message("stale"));
+
+        sender.evictExpired();
+        sender.replay(5L, "/queue/messages");
+
+        assertEquals(0, sender.pendingCount(5L));
+        verify(messagingTemplate, never()).send(anyString(), any(Message.class));
+    }
+
+    @Test
+    void messageBufferedWhileTheUserSubscribesIsReplayedImmediately() {
+        when(subscriptionTracker.isConnected(5L)).thenReturn(false, true);
+        Message<String> message = message("racing");
+
+        sender.sendToUser(5L, "/queue/messages", message);
+
+        verify(messagingTemplate).send("/user/5/queue/messages", message);
+        assertEquals(0, sender.pendingCount(5L));
+    }
+
+    @Test
+    void userOnAnotherNodeIsReachedThroughTheRelay() {
+        when(clusterRelay.nodeId()).thenReturn("a");
+        when(clusterDirectory.nodesFor(5L)).thenReturn(Set.of("b"));
+        when(clusterRelay.send(eq("b"), any(RelayFrame.class))).thenReturn(true);
+
+        sender.sendToUser(5L, "/queue/messages", message("hi"));
+
+        ArgumentCaptor<RelayFrame> frame = ArgumentCaptor.forClass(RelayFrame.class);
+        verify(clusterRelay).send(eq("b"), frame.capture());
+        assertEquals(RelayFrame.Type.DELIVER, frame.getValue().type());
+        assertEquals(5L, frame.getValue().userId());
+        assertEquals("/queue/messages", frame.getValue().destination());
+        assertEquals("hi", new String(frame.getValue().payload(), StandardCharsets.UTF_8));
+        assertEquals(0, sender.pendingCount(5L));
+        verify(messagingTemplate, never()).send(anyString(), any(Message.class));
+    }
+
+    @Test
+    void userConnectedHereAndOnAnotherNodeGetsTheMessageOnBoth() {
+        when(clusterRelay.nodeId()).thenReturn("a");
+        when(subscriptionTracker.isConnected(5L)).thenReturn(true);
+        when(clusterDirectory.nodesFor(5L)).thenReturn(Set.of("b"));
+        when(clusterRelay.send(eq("b"), any(RelayFrame.class))).thenReturn(false);
+        Message<String> message = message("hi");
+
+        sender.sendToUser(5L, "/queue/messages", message);
+
+        verify(messagingTemplate).send("/user/5/queue/messages", message);
+        verify(clusterRelay).send(eq("b"), any(RelayFrame.class));
+        // Already delivered here, so a failed relay must not buffer a copy that would be replayed to this session.
+        assertEquals(0, sender.pendingCount(5L));
+    }
+
+    @Test
+    void messageIsBufferedWhenTheOwningNodeIsUnreachable() {
+        when(clusterRelay.nodeId()).thenReturn("a");
+        when(clusterDirectory.nodesFor(5L)).thenReturn(Set.of("b"));
+        when(clusterRelay.send(eq("b"), any(RelayFrame.class))).thenReturn(false);
+
+        sender.sendToUser(5L, "/queue/messages", message("hi"));
+
+        assertEquals(1, sender.pendingCount(5L));
+    }
+
+    @Test
+    void subscribingReplaysAndAnnouncesTheUser() {
+        Message<String> message = message("hi");
+        sender.sendToUser(5L, "/queue/messages", message);
+
+        sender.userSubscribed(5L, "/queue/messages");
+
+        verify(messagingTemplate).send("/user/5/queue/messages", message);
+        verify(clusterDirectory).announceLocalSubscription(5L);
+    }
+
+    @Test
+    void twoNodesRouteUserMessagesAndBroadcastsToEachOther() {
+        LoopbackClusterRelay relayA = new LoopbackClusterRelay("a");
+        LoopbackClusterRelay relayB = relayA.join("b");
+        UserSubscriptionTracker trackerB = mock(UserSubscriptionTracker.class);
+        SimpMessagingTemplate templateB = mock(SimpMessagingTemplate.class);
+        when(trackerB.isConnected(5L)).thenReturn(true);
+        when(trackerB.connectedUserIds()).thenReturn(Set.of(5L));
+        when(subscriptionTracker.connectedUserIds()).thenReturn(Set.of(6L));
+
+        ClusterDirectory directoryA = new ClusterDirectory(relayA, subscriptionTracker, 60_000);
+        ClusterDirectory directoryB = new ClusterDirectory(relayB, trackerB, 60_000);
+        UserMessageSender senderA = new UserMessageSender(messagingTemplate, subscriptionTracker, relayA, directoryA, meterRegistry, 10, 10, 60_000);
+        new UserMessageSender(templateB, trackerB, relayB, directoryB, meterRegistry, 10, 10, 60_000);
+        directoryB.heartbeat();
+
+        senderA.sendToUser(5L, "/queue/messages", message("for five"));
+        senderA.sendToConnectedUsers("/queue/notifications", message("everyone"));
+
+        ArgumentCaptor<Message<?>> delivered = ArgumentCaptor.forClass(Message.class);
+        verify(templateB).send(eq("/user/5/queue/messages"), delivered.capture());
+        assertEquals("for five", new String((byte[]) delivered.getValue().getPayload(), StandardCharsets.UTF_8));
+        verify(templateB).send(eq("/user/5/queue/notifications"), any(Message.class));
+        verify(messagingTemplate).send(eq("/user/6/queue/notifications"), any(Message.class));
+        assertEquals(0, senderA.pendingCount(5L));
+    }
+
+    @Test
+    void messagesBufferedOnOneNodeFollowTheUserToAnother() {
+        LoopbackClusterRelay relayA = new LoopbackClusterRelay("a");
+        LoopbackClusterRelay relayB = relayA.join("b");
+        UserSubscriptionTracker trackerB = mock(UserSubscriptionTracker.class);
+        SimpMessagingTemplate templateB = mock(SimpMessagingTemplate.class);
+
+        UserMessageSender senderA = new UserMessageSender(messagingTemplate, subscriptionTracker, relayA,
+                new ClusterDirectory(relayA, subscriptionTracker, 60_000), meterRegistry, 10, 10, 60_000);
+        UserMessageSender senderB = new UserMessageSender(templateB, trackerB, relayB,
+                new ClusterDirectory(relayB, trackerB, 60_000), meterRegistry, 10, 10, 60_000);
+
+        senderA.sendToUser(7L, "/queue/messages", message("while offline"));
+        assertEquals(1, senderA.pendingCount(7L));
+
+        when(trackerB.isConnected(7L)).thenReturn(true);
+        senderB.userSubscribed(7L, "/queue/messages");
+
+        assertEquals(0, senderA.pendingCount(7L));
+        ArgumentCaptor<Message<?>> delivered = ArgumentCaptor.forClass(Message.class);
+        verify(templateB).send(eq("/user/7/queue/messages"), delivered.capture());
+        assertEquals("while offline", new String((byte[]) delivered.getValue().getPayload(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void multiUserSendConvertsOnceAndSendsOneFramePerNode() {
+        MessageConverter converter = mock(MessageConverter.class);
+        Message<byte[]> converted = MessageBuilder.withPayload("{}".getBytes(StandardCharsets.UTF_8)).build();
+        when(messagingTemplate.getMessageConverter()).thenReturn(converter);
+        when(converter.toMessage("payload", null)).thenReturn((Message) converted);
+        when(clusterRelay.nodeId()).thenReturn("a");
+        when(subscriptionTracker.isConnected(1L)).thenReturn(true);
+        when(clusterDirectory.nodesFor(1L)).thenReturn(Set.of());
+        when(clusterDirectory.nodesFor(2L)).thenReturn(Set.of("b"));
+        when(clusterDirectory.nodesFor(3L)).thenReturn(Set.of("b"));
+        when(clusterRelay.send(eq("b"), any(RelayFrame.class))).thenReturn(true);
+        sender = new UserMessageSender(messagingTemplate, subscriptionTracker, clusterRelay, clusterDirectory, meterRegistry, 2, 10, 60_000);
+
+        sender.convertAndSendToUsers(List.of(1L, 2L, 3L, 4L), "/queue/events", "payload");
+
+        verify(converter, times(1)).toMessage("payload", null);
+        verify(messagingTemplate).send("/user/1/queue/events", converted);
+        ArgumentCaptor<RelayFrame> frame = ArgumentCaptor.forClass(RelayFrame.class);
+        verify(clusterRelay, times(1)).send(eq("b"), frame.capture());
+        assertEquals(RelayFrame.Type.MULTICAST, frame.getValue().type());
+        assertEquals(Set.of(2L, 3L), frame.getValue().userIds());
+        assertSame(converted.getPayload(), frame.getValue().payload());
+        assertEquals(1, sender.pendingCount(4L));
+    }
+}
@@ -1,15 +1,19 @@
 package com.gamehub.backend.business.impl;
 
+import com.gamehub.backend.configuration.exception.PasswordHashingBusyException;
+import com.gamehub.backend.business.NotificationService;
 import com.gamehub.backend.domain.FriendRelationship;
+import com.gamehub.backend.domain.PasswordResetToken;
 import com.gamehub.backend.domain.Role;
+import com.gamehub.backend.dto.FriendEdgeDTO;
 import com.gamehub.backend.dto.FriendRequestDTO;
 import com.gamehub.backend.dto.UserDTO;
 import com.gamehub.backend.configuration.security.token.JwtUtil;
+import com.gamehub.backend.configuration.security.token.TokenDenylist;
 import com.gamehub.backend.domain.User;
 import com.gamehub.backend.persistence.FriendRelationshipRepository;
 import com.gamehub.backend.persistence.UserRepository;
 import com.gamehub.backend.persistence.mapper.UserMapper;
-import jakarta.mail.MessagingException;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -43,9 +47,19 @@ class UserServiceImplTest {
     @Mock
     private JwtUtil jwtUtil;
     @Mock
-    private MailService mailService;
+    private TokenDenylist tokenDenylist;
+    @Mock
+    private OutboxService outboxService;
     @Mock
     private PasswordEncoder passwordEncoder;
+    @Mock
+    private PasswordResetTokenStore passwordResetTokenStore;
+    @Mock
+    private UserAvailabilityIndex userAvailabilityIndex;
+    @Mock
+    private FriendGraph friendGraph;
+    @Mock
+    private NotificationService notificationService;
 
     @Mock
     private UserMapper userMapper;
@@ -87,7 +101,7 @@ class UserServiceImplTest {
         friendRelationship.setFriend(friend);
         friendRelationship.setStatus(FriendRelationship.Status.PENDING);
 
-        lenient().when(jwtUtil.generateToken(anyString())).thenReturn("dummyToken");
+        lenient().when(jwtUtil.generateToken(any(), anyString(), anyCollection())).thenReturn("dummyToken");
         lenient().when(passwordEncoder.encode(anyString())).thenReturn("hashedPassword");
         lenient().when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
 
@@ -97,7 +111,7 @@ class UserServiceImplTest {
             dto.setId(model.getId());
             dto.setUsername(model.getUsername());
             dto.setEmail(model.getEmail());
-            dto.setJwt(jwtUtil.generateToken(model.getUsername()));
+            dto.setJwt(jwtUtil.generateToken(model.getId(), model.getUsername(), List.of()));
             dto.setRole(model.getRoles().stream().map(Role::name).toList());
             return dto;
         });
@@ -116,7 +130,7 @@ class UserServiceImplTest {
     @BeforeEach
     void resetMocks() {
         Mockito.reset(jwtUtil, userRepository);
-        when(jwtUtil.generateToken(anyString())).thenReturn("dummyToken");
+        when(jwtUtil.generateToken(any(), anyString(), anyCollection())).thenReturn("dummyToken");
     }
 
     @ParameterizedTest
@@ -126,9 +140,9 @@ class UserServiceImplTest {
     })
     void createUser_existingUsernameOrEmail_throwsException(String field, String expectedMessage) {
         if (field.equals("username")) {
-            when(userRepository.existsByUsername(userDTO.getUsername())).thenReturn(true);
+            when(userAvailabilityIndex.confirmUsernameTaken(userDTO.getUsername())).thenReturn(true);
         } else if (field.equals("email")) {
-            when(userRepository.existsByEmail(userDTO.getEmail())).thenReturn(true);
+            when(userAvailabilityIndex.confirmEmailTaken(userDTO.getEmail())).thenReturn(true);
         }
 
         Exception exception = assertThrows(IllegalArgumentException.class, () -> {
@@ -141,8 +155,8 @@ class UserServiceImplTest {
 
     @Test
     void createUser_validData_success() {
-        when(userRepository.existsByUsername(userDTO.getUsername())).thenReturn(false);
-        when(userRepository.existsByEmail(userDTO.getEmail())).thenReturn(false);
+        when(userAvailabilityIndex.confirmUsernameTaken(userDTO.getUsername())).thenReturn(false);
+        when(userAvailabilityIndex.confirmEmailTaken(userDTO.getEmail())).thenReturn(false);
         when(userRepository.save(any(User.class))).thenReturn(user);
 
         UserDTO createdUserDTO = userService.createUser(userDTO);
@@ -151,6 +165,31 @@ class UserServiceImplTest {
         verify(userRepository).save(any(User.class));
     }
 
+    @Test
+    void createUser_registersNamesInIndex() {
+        when(userRepository.save(any(User.class))).thenReturn(user);
+
+        userService.createUser(userDTO);
+
+        verify(userAvailabilityIndex).registered("testUser", "test@example.com");
+    }
+
+    @Test
+    void createUser_startsTheBroadcastWatermarkAtTheNewestBroadcast() {
+        when(userRepository.save(any(User.class))).thenReturn(user);
+
+        userService.createUser(userDTO);
+
+        verify(notificationService).initializeBroadcastWatermark(1L);
+    }
+
+    @Test
+    void suggestUsernames_usesIndex() {
+        when(userAvailabilityIndex.suggestUsernames("testUser", 3)).thenReturn(List.of("testUser1", "testUser2", "testUser3"));
+
+        assertEquals(List.of("testUser1", "testUser2", "testUser3"), userService.suggestUsernames("testUser"));
+    }
+
     @Test
     void createUser_weakPassword_throwsException() {
         userDTO.setPassword("weakpass");
@@ -216,13 +255,13 @@ class UserServiceImplTest {
     @Test
     void getUserById() {
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(jwtUtil.generateToken(anyString())).thenReturn("dummyToken");
+        when(jwtUtil.generateToken(any(), anyString(), anyCollection())).thenReturn("dummyToken");
 
         Optional<UserDTO> foundUserDTO = userService.getUserById(1L);
 
         assertTrue(foundUserDTO.isPresent());
         assertEquals("dummyToken", foundUserDTO.get().getJwt());
-        verify(jwtUtil).generateToken(user.getUsername());
+        verify(jwtUtil).generateToken(user.getId(), user.getUsername(), List.of());
     }
 
     @Test
@@ -235,8 +274,8 @@ class UserServiceImplTest {
 
         List<User> userList = Arrays.asList(user, secondUser);
         when(userRepository.findAll()).thenReturn(userList);
-        when(jwtUtil.generateToken(user.getUsername())).thenReturn("dummyToken");
-        when(jwtUtil.generateToken(secondUser.getUsername())).thenReturn("dummyToken");
+        when(jwtUtil.generateToken(user.getId(), user.getUsername(), List.of())).thenReturn("dummyToken");
+        when(jwtUtil.generateToken(secondUser.getId(), secondUser.getUsername(), List.of())).thenReturn("dummyToken");
         List<UserDTO> users = userService.getAllUsers();
 
         assertFalse(users.isEmpty(), "The user list should not be empty.");
@@ -247,7 +286,7 @@ class UserServiceImplTest {
         }
 
         verify(userRepository).findAll();
-        verify(jwtUtil, times(userList.size())).generateToken(anyString());
+        verify(jwtUtil, times(userList.size())).generateToken(any(), anyString(), anyCollection());
     }
 
     @Test
@@ -293,6 +332,18 @@ class UserServiceImplTest {
         assertEquals(user.getId(), updatedUserDTO.getId());
         assertEquals(Arrays.asList("ADMINISTRATOR", "USER"), updatedUserDTO.getRole());
         verify(userRepository).save(user);
+        verify(tokenDenylist).revoke(1L);
+    }
+
+    @Test
+    void updateUser_usernameChangeRevokesTokens() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        userDTO.setUsername("renamedUser");
+
+        userService.updateUser(1L, userDTO);
+
+        verify(tokenDenylist).revoke(1L);
+        verify(userAvailabilityIndex).renamed("testUser", "test@example.com", "renamedUser", "test@example.com");
     }
 
     @Test
@@ -312,6 +363,16 @@ class UserServiceImplTest {
         doNothing().when(userRepository).deleteById(1L);
         userService.deleteUser(1L);
         verify(userRepository).deleteById(1L);
+        verify(tokenDenylist).revokeAll(1L);
+    }
+
+    @Test
+    void deleteUserReleasesNames() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        userService.deleteUser(1L);
+
+        verify(userAvailabilityIndex).removed("testUser", "test@example.com");
     }
 
     @Test
@@ -323,6 +384,7 @@ class UserServiceImplTest {
         assertEquals(userDTO.getUsername(), result.get().getUsername());
         assertEquals("dummyToken", result.get().getJwt());
         verify(passwordEncoder).matches("Password@123", "hashedPassword");
+        verify(jwtUtil).generateToken(1L, "testUser", List.of("USER"));
     }
 
     @Test
@@ -336,6 +398,42 @@ class UserServiceImplTest {
         verify(passwordEncoder).matches("Password@123", "hashedPassword");
     }
 
+    @Test
+    void loginUpgradesOutdatedPasswordHash() {
+        when(userRepository.findByUsername(user.getUsername())).thenReturn(Optional.of(user));
+        when(passwordEncoder.upgradeEncoding("hashedPassword")).thenReturn(true);
+        when(passwordEncoder.encode("Password@123")).thenReturn("strongerHash");
+
+        Optional<UserDTO> result = userService.login(userDTO);
+
+        assertTrue(result.isPresent());
+        assertEquals("strongerHash", user.getPasswordHash());
+        verify(userRepository).save(user);
+    }
+
+    @Test
+    void loginSucceedsWithoutTheUpgradeWhenHashingIsBusy() {
+        when(userRepository.findByUsername(user.getUsername())).thenReturn(Optional.of(user));
+        when(passwordEncoder.upgradeEncoding("hashedPassword")).thenReturn(true);
+        when(passwordEncoder.encode("Password@123")).thenThrow(new PasswordHashingBusyException("Password hashing queue is full"));
+
+        Optional<UserDTO> result = userService.login(userDTO);
+
+        assertTrue(result.isPresent());
+        assertEquals("hashedPassword", user.getPasswordHash());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    void loginKeepsCurrentPasswordHash() {
+        when(userRepository.findByUsername(user.getUsername())).thenReturn(Optional.of(user));
+
+        userService.login(userDTO);
+
+        assertEquals("hashedPassword", user.getPasswordHash());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
     @Test
     void updateUserProfilePicture_success() {
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
@@ -460,6 +558,71 @@ class UserServiceImplTest {
         verify(friendRelationshipRepository).delete(friendRelationship);
     }
 
+    @Test
+    void removeFriend_unlinksAcceptedFriendship() {
+        friendRelationship.setStatus(FriendRelationship.Status.ACCEPTED);
+        when(friendRelationshipRepository.findById(1L)).thenReturn(Optional.of(friendRelationship));
+
+        userService.removeFriend(1L);
+
+        verify(friendGraph).unlinked(1L, 2L);
+    }
+
+    @Test
+    void respondToRequest_acceptLinksFriendship() {
+        when(friendRelationshipRepository.findById(1L)).thenReturn(Optional.of(friendRelationship));
+        when(friendRelationshipRepository.save(any(FriendRelationship.class))).thenReturn(friendRelationship);
+
+        userService.respondToRequest(1L, FriendRelationship.Status.ACCEPTED);
+
+        verify(friendGraph).linked(1L, 1L, 2L);
+    }
+
+    @Test
+    void getFriends_fromGraph() {
+        when(friendGraph.isLoaded()).thenReturn(true);
+        when(friendGraph.edges(2L)).thenReturn(List.of(new FriendEdgeDTO(7L, 1L, 2L)));
+        when(friendGraph.friendIds(2L)).thenReturn(new long[]{1L});
+        when(userRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(friend, user));
+
+        List<FriendRequestDTO> result = userService.getFriends(2L);
+
+        assertEquals(1, result.size());
+        assertEquals(7L, result.get(0).getId());
+        assertEquals(1L, result.get(0).getUser().getId());
+        assertEquals(2L, result.get(0).getFriend().getId());
+        assertEquals(FriendRelationship.Status.ACCEPTED, result.get(0).getStatus());
+        verify(friendRelationshipRepository, never()).findByUserAndStatusOrFriendAndStatus(any(), any(), any(), any());
+    }
+
+    @Test
+    void getFriends_fromGraph_userNotFound() {
+        when(friendGraph.isLoaded()).thenReturn(true);
+        when(friendGraph.friendIds(9L)).thenReturn(new long[0]);
+
+        assertThrows(EntityNotFoundException.class, () -> userService.getFriends(9L));
+    }
+
+    @Test
+    void sendRequest_alreadyFriendsInGraph_throwsException() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(friend));
+        when(friendGraph.areFriends(1L, 2L)).thenReturn(true);
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> userService.sendRequest(1L, 2L));
+
+        assertEquals("Friend request already sent or user is already your friend", exception.getMessage());
+        verify(friendRelationshipRepository, never()).existsByUserAndFriend(any(), any());
+    }
+
+    @Test
+    void countMutualFriends_fromGraph() {
+        when(friendGraph.isLoaded()).thenReturn(true);
+        when(friendGraph.mutualFriendCount(1L, 2L)).thenReturn(4);
+
+        assertEquals(4, userService.countMutualFriends(1L, 2L));
+    }
+
     @Test
     void updateUserProfilePicture_userNotFound() {
         when(userRepository.findById(1L)).thenReturn(Optional.empty());
@@ -556,11 +719,12 @@ class UserServiceImplTest {
         assertEquals(user.getId(), updatedUserDTO.getId());
         verify(passwordEncoder, never()).encode(anyString());
         verify(userRepository).save(user);
+        verify(tokenDenylist, never()).revoke(any());
     }
 
     @Test
     void createUser_existingUsernameOrEmail_throwsException() {
-        when(userRepository.existsByUsername(userDTO.getUsername())).thenReturn(true);
+        when(userAvailabilityIndex.confirmUsernameTaken(userDTO.getUsername())).thenReturn(true);
 
         Exception exception = assertThrows(IllegalArgumentException.class, () -> {
             userService.createUser(userDTO);
@@ -569,8 +733,8 @@ class UserServiceImplTest {
         assertEquals("Username already exists", exception.getMessage());
         verify(userRepository, never()).save(any(User.class));
 
-        reset(userRepository);
-        when(userRepository.existsByEmail(userDTO.getEmail())).thenReturn(true);
+        reset(userRepository, userAvailabilityIndex);
+        when(userAvailabilityIndex.confirmEmailTaken(userDTO.getEmail())).thenReturn(true);
 
         exception = assertThrows(IllegalArgumentException.class, () -> {
             userService.createUser(userDTO);
@@ -715,7 +879,7 @@ class UserServiceImplTest {
     }
     @Test
     void createUser_existingUsername_throwsException() {
-        when(userRepository.existsByUsername(userDTO.getUsername())).thenReturn(true);
+        when(userAvailabilityIndex.confirmUsernameTaken(userDTO.getUsername())).thenReturn(true);
 
         Exception exception = assertThrows(IllegalArgumentException.class, () -> {
             userService.createUser(userDTO);
@@ -727,8 +891,8 @@ class UserServiceImplTest {
 
     @Test
     void createUser_existingEmail_throwsException() {
-        when(userRepository.existsByUsername(userDTO.getUsername())).thenReturn(false);
-        when(userRepository.existsByEmail(userDTO.getEmail())).thenReturn(true);
+        when(userAvailabilityIndex.confirmUsernameTaken(userDTO.getUsername())).thenReturn(false);
+        when(userAvailabilityIndex.confirmEmailTaken(userDTO.getEmail())).thenReturn(true);
 
         Exception exception = assertThrows(IllegalArgumentException.class, () -> {
             userService.createUser(userDTO);
@@ -739,7 +903,7 @@ class UserServiceImplTest {
     }
     @Test
     void verifyUsername_exists() {
-        when(userRepository.existsByUsername(user.getUsername())).thenReturn(true);
+        when(userAvailabilityIndex.isUsernameTaken(user.getUsername())).thenReturn(true);
 
         boolean result = userService.verifyUsername(user.getUsername());
 
@@ -748,24 +912,26 @@ class UserServiceImplTest {
 
     @Test
     void verifyUsername_notExists() {
-        when(userRepository.existsByUsername(user.getUsername())).thenReturn(false);
+        when(userAvailabilityIndex.isUsernameTaken(user.getUsername())).thenReturn(false);
 
         boolean result = userService.verifyUsername(user.getUsername());
 
         assertFalse(result);
     }
     @Test
-    void requestPasswordReset_success() throws MessagingException {
+    void requestPasswordReset_success() {
         when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(passwordResetTokenStore.issue(1L)).thenReturn("rawToken");
 
         userService.requestPasswordReset(user.getEmail());
 
-        verify(userRepository).save(any(User.class));
-        verify(mailService).sendMail(anyString(), anyString(), anyString());
+        verify(passwordResetTokenStore).issue(1L);
+        verify(userRepository, never()).save(any(User.class));
+        verify(outboxService).enqueueEmail(eq(user.getEmail()), anyString(), anyString());
     }
 
     @Test
-    void requestPasswordReset_userNotFound() throws MessagingException {
+    void requestPasswordReset_userNotFound() {
         when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.empty());
 
         Exception exception = assertThrows(EntityNotFoundException.class, () -> {
@@ -773,34 +939,32 @@ class UserServiceImplTest {
         });
 
         assertEquals("User not found with email: " + user.getEmail(), exception.getMessage());
-        verify(userRepository, never()).save(any(User.class));
-        verify(mailService, never()).sendMail(anyString(), anyString(), anyString());
+        verify(passwordResetTokenStore, never()).issue(anyLong());
+        verify(outboxService, never()).enqueueEmail(anyString(), anyString(), anyString());
     }
     @Test
-    void requestPasswordReset_emailSendFailure() throws MessagingException {
+    void requestPasswordReset_emailContainsResetToken() {
         when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
-        doThrow(new MessagingException("Failed to send email")).when(mailService).sendMail(anyString(), anyString(), anyString());
+        when(passwordResetTokenStore.issue(1L)).thenReturn("rawToken");
 
-        Exception exception = assertThrows(RuntimeException.class, () -> userService.requestPasswordReset(user.getEmail()));
+        userService.requestPasswordReset(user.getEmail());
 
-        assertEquals("Failed to send email", exception.getMessage());
-        verify(userRepository).save(any(User.class));
-        verify(mailService).sendMail(anyString(), anyString(), anyString());
+        verify(outboxService).enqueueEmail(eq(user.getEmail()), eq("Password Reset Request"),
+                contains("forgot-password?token=rawToken"));
     }
     @Test
     void validateResetToken_valid() {
-        user.setResetToken(UUID.randomUUID().toString());
-        user.setTokenExpiryDate(LocalDateTime.now().plusMinutes(10));
-        when(userRepository.findByResetToken(user.getResetToken())).thenReturn(Optional.of(user));
+        when(passwordResetTokenStore.find("rawToken")).thenReturn(Optional.of(resetToken(LocalDateTime.now().plusMinutes(10))));
 
-        boolean result = userService.validateResetToken(user.getResetToken());
+        boolean result = userService.validateResetToken("rawToken");
 
         assertTrue(result);
+        verify(passwordResetTokenStore, never()).consume(any());
     }
 
     @Test
     void validateResetToken_invalidToken() {
-        when(userRepository.findByResetToken(anyString())).thenReturn(Optional.empty());
+        when(passwordResetTokenStore.find(anyString())).thenReturn(Optional.empty());
 
         Exception exception = assertThrows(EntityNotFoundException.class, () -> {
             userService.validateResetToken("invalidToken");
@@ -811,13 +975,10 @@ class UserServiceImplTest {
 
     @Test
     void validateResetToken_expiredToken() {
-        String token = UUID.randomUUID().toString();
-        user.setResetToken(token);
-        user.setTokenExpiryDate(LocalDateTime.now().minusMinutes(10));
-        when(userRepository.findByResetToken(token)).thenReturn(Optional.of(user));
+        when(passwordResetTokenStore.find("rawToken")).thenReturn(Optional.of(resetToken(LocalDateTime.now().minusMinutes(10))));
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
-            userService.validateResetToken(token);
+            userService.validateResetToken("rawToken");
         });
 
         assertEquals("Invalid or expired token", exception.getMessage());
@@ -825,23 +986,23 @@ class UserServiceImplTest {
 
     @Test
     void resetPasswordWithToken_success() {
-        user.setResetToken(UUID.randomUUID().toString());
-        user.setTokenExpiryDate(LocalDateTime.now().plusMinutes(10));
-        when(userRepository.findByResetToken(user.getResetToken())).thenReturn(Optional.of(user));
+        PasswordResetToken resetToken = resetToken(LocalDateTime.now().plusMinutes(10));
+        when(passwordResetTokenStore.find("rawToken")).thenReturn(Optional.of(resetToken));
+        when(passwordResetTokenStore.consume(resetToken)).thenReturn(true);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
 
-        boolean result = userService.resetPasswordWithToken(user.getResetToken(), "NewPassword@123");
+        boolean result = userService.resetPasswordWithToken("rawToken", "NewPassword@123");
 
         assertTrue(result);
+        verify(passwordResetTokenStore, times(1)).find("rawToken");
         verify(userRepository).save(user);
-        assertNull(user.getResetToken());
-        assertNull(user.getTokenExpiryDate());
         assertEquals("encodedPassword", user.getPasswordHash());
     }
 
     @Test
     void resetPasswordWithToken_invalidToken() {
-        when(userRepository.findByResetToken(anyString())).thenReturn(Optional.empty());
+        when(passwordResetTokenStore.find(anyString())).thenReturn(Optional.empty());
 
         Exception exception = assertThrows(EntityNotFoundException.class, () -> {
             userService.resetPasswordWithToken("invalidToken", "NewPassword@123");
@@ -850,14 +1011,13 @@ class UserServiceImplTest {
         assertEquals("Invalid token", exception.getMessage());
     }
     @Test
-    void resetPasswordWithToken_validateResetTokenFalse() {
-        String token = UUID.randomUUID().toString();
-
-        UserServiceImpl spyUserService = spy(userService);
-        doReturn(false).when(spyUserService).validateResetToken(token);
+    void resetPasswordWithToken_alreadyConsumed() {
+        PasswordResetToken resetToken = resetToken(LocalDateTime.now().plusMinutes(10));
+        when(passwordResetTokenStore.find("rawToken")).thenReturn(Optional.of(resetToken));
+        when(passwordResetTokenStore.consume(resetToken)).thenReturn(false);
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
-            spyUserService.resetPasswordWithToken(token, "NewPassword@123");
+            userService.resetPasswordWithToken("rawToken", "NewPassword@123");
         });
 
         assertEquals("Invalid or expired token", exception.getMessage());
@@ -865,16 +1025,28 @@ class UserServiceImplTest {
     }
     @Test
     void resetPasswordWithToken_expiredToken() {
-        user.setResetToken(UUID.randomUUID().toString());
-        user.setTokenExpiryDate(LocalDateTime.now().minusMinutes(10));
-        when(userRepository.findByResetToken(user.getResetToken())).thenReturn(Optional.of(user));
+        when(passwordResetTokenStore.find("rawToken")).thenReturn(Optional.of(resetToken(LocalDateTime.now().minusMinutes(10))));
 
-        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> userService.resetPasswordWithToken(user.getResetToken(), "NewPassword@123"));
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> userService.resetPasswordWithToken("rawToken", "NewPassword@123"));
 
         assertEquals("Invalid or expired token", exception.getMessage());
+        verify(passwordResetTokenStore, never()).consume(any());
         verify(userRepository, never()).save(any(User.class));
     }
 
+    @Test
+    void resetPasswordWithToken_invalidPasswordKeepsToken() {
+        when(passwordResetTokenStore.find("rawToken")).thenReturn(Optional.of(resetToken(LocalDateTime.now().plusMinutes(10))));
+
+        assertThrows(IllegalArgumentException.class, () -> userService.resetPasswordWithToken("rawToken", "weak"));
+
+        verify(passwordResetTokenStore, never()).consume(any());
+    }
+
+    private PasswordResetToken resetToken(LocalDateTime expiresAt) {
+        return new PasswordResetToken(5L, "hash", 1L, expiresAt);
+    }
+
     @ParameterizedTest
     @MethodSource("provideInvalidPasswords")
     void validateNewPassword_invalid(String password, String expectedMessage) throws Exception {
@@ -0,0 +1,180 @@
+package com.gamehub.backend.configuration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SlowConsumerMonitorTest {
+
+    @Mock
+    private WebSocketHandler handler;
+
+    @Mock
+    private WebSocketSession session;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().when(session.getId()).thenReturn("s1");
+    }
+
+    private SlowConsumerMonitor monitor(int softQueueDepth, long sendTimeLimitMillis) {
+        return new SlowConsumerMonitor(meterRegistry, 1_000_000, softQueueDepth, 60_000, sendTimeLimitMillis,
+                List.of("/queue/notifications", "/queue/events"));
+    }
+
+    private WebSocketSession connect(SlowConsumerMonitor monitor) throws Exception {
+        monitor.decorate(handler).afterConnectionEstablished(session);
+        ArgumentCaptor<WebSocketSession> decorated = ArgumentCaptor.forClass(WebSocketSession.class);
+        verify(handler).afterConnectionEstablished(decorated.capture());
+        return decorated.getValue();
+    }
+
+    private Message<byte[]> frame(SimpMessageType type, String destination) {
+        return frame(type, destination, "0123456789");
+    }
+
+    private Message<byte[]> frame(SimpMessageType type, String destination, String body) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId("s1");
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(body.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+
+    private TextMessage encoded(String command, String body) {
+        return new TextMessage(command + "\ndestination:/user/1/queue/messages\ncontent-length:" + body.length() + "\n\n" + body + "\0");
+    }
+
+    @Test
+    void framesPassWhileSessionKeepsUp() throws Exception {
+        SlowConsumerMonitor monitor = monitor(2, 10_000);
+        connect(monitor);
+
+        assertNotNull(monitor.preSend(frame(SimpMessageType.MESSAGE, "/user/1/queue/notifications"), null));
+        assertNotNull(monitor.preSend(frame(SimpMessageType.MESSAGE, "/user/1/queue/notifications"), null));
+
+        assertEquals(2, meterRegistry.summary("websocket.session.queue.depth").count());
+        assertEquals(20, meterRegistry.summary("websocket.session.buffered.bytes").max());
+        assertEquals(0, meterRegistry.counter("websocket.frames.dropped").count());
+    }
+
+    @Test
+    void slowSessionDropsNonCriticalFramesFirst() throws Exception {
+        SlowConsumerMonitor monitor = monitor(2, 10_000);
+        connect(monitor);
+        for (int i = 0; i < 3; i++) {
+            monitor.preSend(frame(SimpMessageType.MESSAGE, "/user/1/queue/messages"), null);
+        }
+
+        assertNull(monitor.preSend(frame(SimpMessageType.MESSAGE, "/user/1/queue/notifications"), null));
+        assertNull(monitor.preSend(frame(SimpMessageType.MESSAGE, "/user/1/queue/events"), null));
+        assertNotNull(monitor.preSend(frame(SimpMessageType.MESSAGE, "/user/1/queue/messages"), null));
+        assertNotNull(monitor.preSend(frame(SimpMessageType.DISCONNECT_ACK, null), null));
+        assertEquals(2, meterRegistry.counter("websocket.frames.dropped").count());
+    }
+
+    @Test
+    void writtenFramesDrainTheBacklog() throws Exception {
+        SlowConsumerMonitor monitor = monitor(2, 10_000);
+        WebSocketSession decorated = connect(monitor);
+        for (int i = 0; i < 3; i++) {
+            monitor.preSend(frame(SimpMessageType.MESSAGE, "/user/1/queue/messages"), null);
+        }
+        assertNull(monitor.preSend(frame(SimpMessageType.MESSAGE, "/user/1/queue/notifications"), null));
+
+        decorated.sendMessage(encoded("MESSAGE", "0123456789"));
+        decorated.sendMessage(encoded("MESSAGE", "0123456789"));
+
+        assertNotNull(monitor.preSend(frame(SimpMessageType.MESSAGE, "/user/1/queue/notifications"), null));
+        verify(session, times(2)).sendMessage(any());
+        assertEquals(2, meterRegistry.timer("websocket.session.send.latency").count());
+    }
+
+    @Test
+    void writesOfFramesThatWereNotAcceptedLeaveTheBacklogAlone() throws Exception {
+        SlowConsumerMonitor monitor = monitor(2, 10_000);
+        WebSocketSession decorated = connect(monitor);
+        monitor.preSend(frame(SimpMessageType.MESSAGE, "/user/1/queue/messages", "first"), null);
+        monitor.preSend(frame(SimpMessageType.MESSAGE, "/user/1/queue/messages", "second"), null);
+        monitor.preSend(frame(SimpMessageType.MESSAGE, "/user/1/queue/messages", "third"), null);
+
+        decorated.sendMessage(new TextMessage("ERROR\nmessage:Session closed.\ncontent-length:0\n\n\0"));
+        decorated.sendMessage(encoded("MESSAGE", "unrelated"));
+        assertNull(monitor.preSend(frame(SimpMessageType.MESSAGE, "/user/1/queue/notifications"), null));
+
+        decorated.sendMessage(encoded("MESSAGE", "second"));
+        assertNotNull(monitor.preSend(frame(SimpMessageType.MESSAGE, "/user/1/queue/notifications"), null));
+    }
+
+    @Test
+    void framesForUnknownSessionsAreLeftAlone() {
+        SlowConsumerMonitor monitor = monitor(0, 10_000);
+
+        assertNotNull(monitor.preSend(frame(SimpMessageType.MESSAGE, "/user/1/queue/notifications"), null));
+        assertEquals(0, meterRegistry.summary("websocket.session.queue.depth").count());
+    }
+
+    @Test
+    void stalledSendClosesTheSession() throws Exception {
+        SlowConsumerMonitor monitor = monitor(2, 0);
+        WebSocketSession decorated = connect(monitor);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            sending.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(session).sendMessage(any());
+        Thread writer = new Thread(() -> {
+            try {
+                decorated.sendMessage(new TextMessage("stuck"));
+            } catch (Exception ignored) {
+            }
+        });
+        writer.start();
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        monitor.checkSessions();
+
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(1, meterRegistry.counter("websocket.sessions.evicted").count());
+        release.countDown();
+        writer.join();
+    }
+
+    @Test
+    void closedSessionIsForgotten() throws Exception {
+        SlowConsumerMonitor monitor = monitor(0, 10_000);
+        WebSocketHandler decorated = monitor.decorate(handler);
+        decorated.afterConnectionEstablished(session);
+
+        decorated.afterConnectionClosed(session, CloseStatus.SESSION_NOT_RELIABLE);
+
+        assertNotNull(monitor.preSend(frame(SimpMessageType.MESSAGE, "/user/1/queue/notifications"), null));
+        assertEquals(1, meterRegistry.counter("websocket.sessions.evicted").count());
+        verify(handler).afterConnectionClosed(session, CloseStatus.SESSION_NOT_RELIABLE);
+    }
+}
@@ -0,0 +1,128 @@
+package com.gamehub.backend.configuration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.gamehub.backend.configuration.serialization.CBORConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StompEncodingNegotiatorTest {
+
+    private static final byte[] JSON = "{\"content\":\"hi\",\"senderId\":7}".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private WebSocketHandler handler;
+
+    @Mock
+    private WebSocketSession session;
+
+    private SimpleMeterRegistry meterRegistry;
+    private StompEncodingNegotiator negotiator;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        negotiator = new StompEncodingNegotiator(meterRegistry);
+    }
+
+    private void connect(String sessionId, String acceptContentType) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(sessionId);
+        if (acceptContentType != null) {
+            accessor.setNativeHeader(StompEncodingNegotiator.ACCEPT_CONTENT_TYPE_HEADER, acceptContentType);
+        }
+        negotiator.onConnect(new SessionConnectEvent(this, MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders())));
+    }
+
+    private Message<byte[]> jsonFrame(String sessionId, byte[] payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination("/user/7/queue/messages");
+        accessor.setContentType(MediaType.APPLICATION_JSON);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    @Test
+    void sessionsWithoutPreferenceKeepJson() {
+        connect("s1", null);
+        Message<byte[]> frame = jsonFrame("s1", JSON);
+
+        assertSame(frame, negotiator.preSend(frame, null));
+        assertFalse(negotiator.prefersCbor("s1"));
+    }
+
+    @Test
+    void cborSessionsReceiveTranscodedPayloads() throws Exception {
+        connect("s1", "application/cbor");
+
+        Message<?> sent = negotiator.preSend(jsonFrame("s1", JSON), null);
+
+        assertEquals(MediaType.APPLICATION_CBOR, sent.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        JsonNode decoded = CBORConfig.cborMapper().readTree((byte[]) sent.getPayload());
+        assertEquals("hi", decoded.get("content").asText());
+        assertEquals(7, decoded.get("senderId").asInt());
+        assertEquals(1, meterRegistry.counter("websocket.frames.transcoded").count());
+    }
+
+    @Test
+    void fanOutOfOnePayloadIsTranscodedOnce() throws Exception {
+        byte[] first = negotiator.toCbor(JSON);
+
+        assertSame(first, negotiator.toCbor(JSON));
+        assertNotSame(first, negotiator.toCbor(JSON.clone()));
+    }
+
+    @Test
+    void wildcardOrInvalidPreferenceDoesNotOptIn() {
+        connect("s1", "*/*");
+        connect("s2", "not a mime type");
+
+        assertFalse(negotiator.prefersCbor("s1"));
+        assertFalse(negotiator.prefersCbor("s2"));
+    }
+
+    @Test
+    void cborSessionsGetBinaryWebSocketFrames() throws Exception {
+        when(session.getId()).thenReturn("s1");
+        negotiator.decorate(handler).afterConnectionEstablished(session);
+        ArgumentCaptor<WebSocketSession> decorated = ArgumentCaptor.forClass(WebSocketSession.class);
+        verify(handler).afterConnectionEstablished(decorated.capture());
+        decorated.getValue().sendMessage(new TextMessage("CONNECTED\n\n\0"));
+
+        connect("s1", "application/cbor");
+        byte[] frame = "MESSAGE\n\n\0".getBytes(StandardCharsets.UTF_8);
+        decorated.getValue().sendMessage(new TextMessage(frame));
+        decorated.getValue().sendMessage(new TextMessage("\n"));
+
+        ArgumentCaptor<WebSocketMessage<?>> sent = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(session, times(3)).sendMessage(sent.capture());
+        assertInstanceOf(TextMessage.class, sent.getAllValues().get(0));
+        assertInstanceOf(BinaryMessage.class, sent.getAllValues().get(1));
+        assertArrayEquals(frame, ((BinaryMessage) sent.getAllValues().get(1)).getPayload().array());
+        assertInstanceOf(TextMessage.class, sent.getAllValues().get(2));
+    }
+}
@@ -0,0 +1,79 @@
+package com.gamehub.backend.configuration.cluster;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SocketClusterRelayTest {
+
+    private SocketClusterRelay nodeA;
+    private SocketClusterRelay nodeB;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (nodeA != null) {
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+    }
+
+    @Test
+    void framesSurviveEncoding() throws IOException {
+        RelayFrame deliver = RelayFrame.deliver("a", 5L, "/queue/messages", "application/json", "{\"n\":1}".getBytes(StandardCharsets.UTF_8));
+        RelayFrame heartbeat = RelayFrame.heartbeat("a", Set.of(1L, 2L, 3L));
+
+        RelayFrame decodedDeliver = SocketClusterRelay.decode(SocketClusterRelay.encode(deliver));
+        RelayFrame decodedHeartbeat = SocketClusterRelay.decode(SocketClusterRelay.encode(heartbeat));
+
+        assertEquals(RelayFrame.Type.DELIVER, decodedDeliver.type());
+        assertEquals("a", decodedDeliver.sourceNodeId());
+        assertEquals(5L, decodedDeliver.userId());
+        assertNull(decodedDeliver.userIds());
+        assertEquals("/queue/messages", decodedDeliver.destination());
+        assertEquals("application/json", decodedDeliver.contentType());
+        assertArrayEquals(deliver.payload(), decodedDeliver.payload());
+        assertEquals(Set.of(1L, 2L, 3L), decodedHeartbeat.userIds());
+        assertNull(decodedHeartbeat.userId());
+        assertNull(decodedHeartbeat.payload());
+    }
+
+    @Test
+    void nodeSendsFramesToAConfiguredPeer() throws Exception {
+        nodeB = new SocketClusterRelay("b", 0, List.of(), 50);
+        nodeB.start();
+        BlockingQueue<RelayFrame> received = new LinkedBlockingQueue<>();
+        nodeB.addListener(received::add);
+
+        nodeA = new SocketClusterRelay("a", 0, List.of(new InetSocketAddress("localhost", nodeB.localPort())), 50);
+        nodeA.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!nodeA.connectedNodeIds().contains("b") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertTrue(nodeA.send("b", RelayFrame.userUp("a", 7L)));
+        nodeA.publish(RelayFrame.broadcast("a", "/queue/notifications", null, new byte[]{1, 2}));
+        assertFalse(nodeA.send("c", RelayFrame.userUp("a", 7L)));
+
+        RelayFrame first = received.poll(5, TimeUnit.SECONDS);
+        RelayFrame second = received.poll(5, TimeUnit.SECONDS);
+        assertNotNull(first);
+        assertEquals(RelayFrame.Type.USER_UP, first.type());
+        assertEquals(7L, first.userId());
+        assertNotNull(second);
+        assertEquals(RelayFrame.Type.BROADCAST, second.type());
+        assertArrayEquals(new byte[]{1, 2}, second.payload());
+    }
+}
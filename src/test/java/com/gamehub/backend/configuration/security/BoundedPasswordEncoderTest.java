@@ -0,0 +1,124 @@
+package com.gamehub.backend.configuration.security;
+
+import com.gamehub.backend.configuration.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BoundedPasswordEncoderTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BoundedPasswordEncoder encoder;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        callers.shutdownNow();
+        if (encoder != null) {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void hashesAndVerifiesOnThePool() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), meterRegistry, 2, 4, 5_000);
+
+        String hash = encoder.encode("Password@123");
+
+        assertTrue(encoder.matches("Password@123", hash));
+        assertFalse(encoder.matches("wrong", hash));
+        assertEquals(1, meterRegistry.timer("password.hashing", "operation", "encode").count());
+        assertEquals(2, meterRegistry.timer("password.hashing", "operation", "matches").count());
+    }
+
+    @Test
+    void reportsHashesBelowTheConfiguredCost() {
+        String weak = new BCryptPasswordEncoder(4).encode("Password@123");
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(5), meterRegistry, 1, 1, 5_000);
+
+        assertTrue(encoder.upgradeEncoding(weak));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("Password@123")));
+    }
+
+    @Test
+    void rejectsWhenTheQueueIsFull() throws Exception {
+        CountDownLatch hashing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slow = mock(PasswordEncoder.class);
+        when(slow.encode(any())).thenAnswer(invocation -> {
+            hashing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "hash";
+        });
+        encoder = new BoundedPasswordEncoder(slow, meterRegistry, 1, 1, 5_000);
+
+        callers.submit(() -> encoder.encode("first"));
+        assertTrue(hashing.await(5, TimeUnit.SECONDS));
+        callers.submit(() -> encoder.encode("queued"));
+        waitForQueueDepth(1);
+
+        assertThrows(PasswordHashingBusyException.class, () -> encoder.encode("rejected"));
+        assertEquals(1, meterRegistry.counter("password.hashing.rejected").count());
+        release.countDown();
+    }
+
+    @Test
+    void givesUpOnCallsThatWaitTooLong() throws Exception {
+        CountDownLatch hashing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slow = mock(PasswordEncoder.class);
+        when(slow.matches(any(), any())).thenAnswer(invocation -> {
+            hashing.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        });
+        encoder = new BoundedPasswordEncoder(slow, meterRegistry, 1, 4, 50);
+        callers.submit(() -> encoder.matches("first", "hash"));
+        assertTrue(hashing.await(5, TimeUnit.SECONDS));
+
+        assertThrows(PasswordHashingBusyException.class, () -> encoder.matches("raw", "hash"));
+        assertEquals(1, meterRegistry.counter("password.hashing.rejected").count());
+        assertEquals(0, meterRegistry.get("password.hashing.queue.depth").gauge().value());
+        release.countDown();
+    }
+
+    @Test
+    void callThatGotAThreadRunsPastTheTimeout() {
+        PasswordEncoder slow = mock(PasswordEncoder.class);
+        when(slow.matches(any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(150);
+            return true;
+        });
+        encoder = new BoundedPasswordEncoder(slow, meterRegistry, 1, 4, 50);
+
+        assertTrue(encoder.matches("raw", "hash"));
+        assertEquals(0, meterRegistry.counter("password.hashing.rejected").count());
+        assertEquals(1, meterRegistry.timer("password.hashing.queue.wait").count());
+    }
+
+    private void waitForQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (meterRegistry.get("password.hashing.queue.depth").gauge().value() < depth
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
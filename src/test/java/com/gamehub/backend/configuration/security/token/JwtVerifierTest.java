@@ -0,0 +1,90 @@
+package com.gamehub.backend.configuration.security.token;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtVerifierTest {
+
+    private static final String SECRET = "VUd1Jy4wHKG/+wLCqYgn4FMMfvTolPu3UW+1xFMqg0DrxoOplm9EonicfqCc0FgmpE2ukHO1NJMyQw/QsxoM";
+
+    private SimpleMeterRegistry meterRegistry;
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        jwtUtil = new JwtUtil(SECRET, 60_000);
+    }
+
+    private String tokenFor(long userId) {
+        return jwtUtil.generateToken(userId, "user" + userId, List.of("USER"));
+    }
+
+    @Test
+    void repeatedTokenIsParsedOnce() {
+        JwtVerifier verifier = new JwtVerifier(jwtUtil, meterRegistry, 100);
+        String token = tokenFor(5L);
+
+        Claims first = verifier.verify(token);
+        Claims second = verifier.verify(token);
+
+        assertSame(first, second);
+        assertEquals("user5", second.getSubject());
+        assertEquals(1, meterRegistry.counter("jwt.verified.cache.miss").count());
+        assertEquals(1, meterRegistry.counter("jwt.verified.cache.hit").count());
+    }
+
+    @Test
+    void tokensWithABadSignatureAreRejectedAndNotCached() {
+        JwtVerifier verifier = new JwtVerifier(jwtUtil, meterRegistry, 100);
+        String forged = Jwts.builder()
+                .setSubject("user5")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.secretKeyFor(SignatureAlgorithm.HS512))
+                .compact();
+
+        assertThrows(JwtException.class, () -> verifier.verify(forged));
+        assertThrows(JwtException.class, () -> verifier.verify(forged));
+        assertEquals(0, verifier.cachedTokenCount());
+    }
+
+    @Test
+    void cachedTokenIsNotServedPastItsExpiry() throws InterruptedException {
+        JwtVerifier verifier = new JwtVerifier(jwtUtil, meterRegistry, 100);
+        long expiresAt = (System.currentTimeMillis() / 1000 + 2) * 1000;
+        String token = Jwts.builder()
+                .setSubject("user5")
+                .setExpiration(new Date(expiresAt))
+                .signWith(jwtUtil.getSigningKey())
+                .compact();
+        verifier.verify(token);
+
+        Thread.sleep(expiresAt - System.currentTimeMillis() + 50);
+
+        assertThrows(ExpiredJwtException.class, () -> verifier.verify(token));
+        assertEquals(0, verifier.cachedTokenCount());
+    }
+
+    @Test
+    void cacheStaysWithinItsBound() {
+        JwtVerifier verifier = new JwtVerifier(jwtUtil, meterRegistry, 2);
+
+        for (long userId = 1; userId <= 5; userId++) {
+            verifier.verify(tokenFor(userId));
+        }
+
+        assertEquals(2, verifier.cachedTokenCount());
+    }
+}
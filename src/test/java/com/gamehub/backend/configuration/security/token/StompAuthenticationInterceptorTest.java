@@ -0,0 +1,112 @@
+package com.gamehub.backend.configuration.security.token;
+
+import com.gamehub.backend.configuration.security.CustomUserDetails;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StompAuthenticationInterceptorTest {
+
+    @Mock
+    private TokenUserResolver tokenUserResolver;
+
+    private StompAuthenticationInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new StompAuthenticationInterceptor(tokenUserResolver);
+    }
+
+    private Message<byte[]> frame(StompCommand command, String authorization, String destination, Principal user) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        if (authorization != null) {
+            accessor.setNativeHeader("Authorization", authorization);
+        }
+        accessor.setDestination(destination);
+        accessor.setUser(user);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private Principal principalFor(long id, String username) {
+        CustomUserDetails user = new CustomUserDetails(id, username, null, List.of(new SimpleGrantedAuthority("USER")));
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+
+    @Test
+    void connectWithValidTokenBindsUserToSession() {
+        when(tokenUserResolver.resolve("token"))
+                .thenReturn(new CustomUserDetails(5L, "alice", "hash", List.of(new SimpleGrantedAuthority("USER"))));
+
+        Message<?> connect = interceptor.preSend(frame(StompCommand.CONNECT, "Bearer token", null, null), null);
+
+        Principal user = MessageHeaderAccessor.getAccessor(connect, StompHeaderAccessor.class).getUser();
+        CustomUserDetails details = StompAuthenticationInterceptor.userOf(user);
+        assertEquals(5L, details.getId());
+        assertEquals("alice", details.getUsername());
+        assertNull(details.getPassword());
+        assertEquals("alice", user.getName());
+    }
+
+    @Test
+    void connectWithoutTokenIsRejected() {
+        Message<byte[]> connect = frame(StompCommand.CONNECT, null, null, null);
+
+        assertThrows(BadCredentialsException.class, () -> interceptor.preSend(connect, null));
+        verifyNoInteractions(tokenUserResolver);
+    }
+
+    @Test
+    void connectWithInvalidOrRevokedTokenIsRejected() {
+        when(tokenUserResolver.resolve("forged")).thenReturn(null);
+
+        assertThrows(BadCredentialsException.class, () -> interceptor.preSend(frame(StompCommand.CONNECT, "Bearer forged", null, null), null));
+    }
+
+    @Test
+    void subscribingToOwnUserQueueIsAllowed() {
+        Message<byte[]> subscribe = frame(StompCommand.SUBSCRIBE, null, "/user/5/queue/messages", principalFor(5L, "alice"));
+
+        assertSame(subscribe, interceptor.preSend(subscribe, null));
+    }
+
+    @Test
+    void subscribingToAnotherUsersQueueIsRefused() {
+        Message<byte[]> subscribe = frame(StompCommand.SUBSCRIBE, null, "/user/6/queue/messages", principalFor(5L, "alice"));
+
+        assertThrows(AccessDeniedException.class, () -> interceptor.preSend(subscribe, null));
+    }
+
+    @Test
+    void topicSubscriptionsAreNotRestricted() {
+        Message<byte[]> subscribe = frame(StompCommand.SUBSCRIBE, null, "/topic/events", principalFor(5L, "alice"));
+
+        assertSame(subscribe, interceptor.preSend(subscribe, null));
+    }
+
+    @Test
+    void sendFramesPassThroughWithoutTokenChecks() {
+        Message<byte[]> send = frame(StompCommand.SEND, null, "/app/chat.send", principalFor(5L, "alice"));
+
+        assertSame(send, interceptor.preSend(send, null));
+        verifyNoInteractions(tokenUserResolver);
+    }
+}
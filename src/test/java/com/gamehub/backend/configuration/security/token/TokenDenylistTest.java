@@ -0,0 +1,93 @@
+package com.gamehub.backend.configuration.security.token;
+
+import com.gamehub.backend.configuration.cluster.LoopbackClusterRelay;
+import com.gamehub.backend.configuration.cluster.SocketClusterRelay;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenDenylistTest {
+
+    private static Date secondsAgo(long seconds) {
+        return new Date(System.currentTimeMillis() - seconds * 1000);
+    }
+
+    @Test
+    void revocationOnlyAffectsOlderTokensOfThatUser() {
+        TokenDenylist denylist = new TokenDenylist(new LoopbackClusterRelay("node-a"), new SimpleMeterRegistry(), 60_000);
+
+        denylist.revoke(5L);
+
+        assertTrue(denylist.isRevoked(5L, secondsAgo(2)));
+        assertFalse(denylist.isRevoked(5L, secondsAgo(-2)));
+        assertFalse(denylist.isRevoked(6L, secondsAgo(2)));
+    }
+
+    @Test
+    void revokeAllRejectsNewTokensToo() {
+        TokenDenylist denylist = new TokenDenylist(new LoopbackClusterRelay("node-a"), new SimpleMeterRegistry(), 60_000);
+
+        denylist.revokeAll(5L);
+
+        assertTrue(denylist.isRevoked(5L, secondsAgo(-60)));
+    }
+
+    @Test
+    void entriesExpireAfterTheirTtl() {
+        TokenDenylist denylist = new TokenDenylist(new LoopbackClusterRelay("node-a"), new SimpleMeterRegistry(), 0);
+
+        denylist.revokeAll(5L);
+
+        assertFalse(denylist.isRevoked(5L, secondsAgo(2)));
+        denylist.purgeExpired();
+    }
+
+    @Test
+    void revocationsReachTheOtherNodes() {
+        LoopbackClusterRelay relayA = new LoopbackClusterRelay("node-a");
+        LoopbackClusterRelay relayB = relayA.join("node-b");
+        TokenDenylist nodeA = new TokenDenylist(relayA, new SimpleMeterRegistry(), 60_000);
+        TokenDenylist nodeB = new TokenDenylist(relayB, new SimpleMeterRegistry(), 60_000);
+
+        nodeA.revoke(5L);
+
+        assertTrue(nodeB.isRevoked(5L, secondsAgo(2)));
+        assertFalse(nodeB.isRevoked(5L, secondsAgo(-2)));
+    }
+
+    @Test
+    void revocationsMadeBeforeAPeerConnectedAreSentToItOnConnect() throws Exception {
+        SocketClusterRelay relayB = new SocketClusterRelay("node-b", 0, List.of(), 50);
+        SocketClusterRelay relayA = null;
+        try {
+            relayB.start();
+            TokenDenylist nodeB = new TokenDenylist(relayB, new SimpleMeterRegistry(), 60_000);
+            relayA = new SocketClusterRelay("node-a", 0, List.of(new InetSocketAddress("localhost", relayB.localPort())), 50);
+            TokenDenylist nodeA = new TokenDenylist(relayA, new SimpleMeterRegistry(), 60_000);
+            nodeA.revoke(5L);
+            nodeA.revokeAll(6L);
+            assertFalse(nodeB.isRevoked(5L, secondsAgo(2)));
+
+            relayA.start();
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!nodeB.isRevoked(6L, secondsAgo(-60)) && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(nodeB.isRevoked(6L, secondsAgo(-60)));
+            assertTrue(nodeB.isRevoked(5L, secondsAgo(2)));
+            assertFalse(nodeB.isRevoked(5L, secondsAgo(-2)));
+        } finally {
+            relayB.close();
+            if (relayA != null) {
+                relayA.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.gamehub.backend.configuration.security.token;
+
+import com.gamehub.backend.configuration.cluster.LoopbackClusterRelay;
+import com.gamehub.backend.configuration.security.CustomUserDetails;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenUserResolverTest {
+
+    private static final String SECRET = "VUd1Jy4wHKG/+wLCqYgn4FMMfvTolPu3UW+1xFMqg0DrxoOplm9EonicfqCc0FgmpE2ukHO1NJMyQw/QsxoM";
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    private JwtUtil jwtUtil;
+    private TokenDenylist tokenDenylist;
+    private TokenUserResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 60_000);
+        tokenDenylist = new TokenDenylist(new LoopbackClusterRelay("node-a"), new SimpleMeterRegistry(), 60_000);
+        resolver = new TokenUserResolver(new JwtVerifier(jwtUtil, new SimpleMeterRegistry(), 100), userDetailsService, tokenDenylist);
+    }
+
+    private String tokenIssuedAt(long issuedAtMillis, Long userId) {
+        return Jwts.builder()
+                .setSubject("alice")
+                .claim(JwtUtil.USER_ID_CLAIM, userId)
+                .claim(JwtUtil.ROLES_CLAIM, List.of("USER"))
+                .setIssuedAt(new Date(issuedAtMillis))
+                .setExpiration(new Date(issuedAtMillis + 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .compact();
+    }
+
+    @Test
+    void claimsTokenIsResolvedWithoutUserLookup() {
+        String token = jwtUtil.generateToken(5L, "alice", List.of("USER", "ADMINISTRATOR"));
+
+        UserDetails user = resolver.resolve(token);
+
+        CustomUserDetails details = assertInstanceOf(CustomUserDetails.class, user);
+        assertEquals(5L, details.getId());
+        assertEquals("alice", details.getUsername());
+        assertNull(details.getPassword());
+        assertEquals(List.of("USER", "ADMINISTRATOR"), details.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void tokenWithoutClaimsFallsBackToUserLookup() {
+        String legacy = Jwts.builder()
+                .setSubject("alice")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .compact();
+        CustomUserDetails stored = new CustomUserDetails(5L, "alice", "hash", List.of(new SimpleGrantedAuthority("USER")));
+        when(userDetailsService.loadUserByUsername("alice")).thenReturn(stored);
+
+        assertSame(stored, resolver.resolve(legacy));
+    }
+
+    @Test
+    void tokenWithoutClaimsForDeletedUserIsRejected() {
+        String legacy = Jwts.builder()
+                .setSubject("ghost")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .compact();
+        when(userDetailsService.loadUserByUsername("ghost")).thenThrow(new UsernameNotFoundException("ghost"));
+
+        assertNull(resolver.resolve(legacy));
+    }
+
+    @Test
+    void invalidOrExpiredTokensAreRejected() {
+        String forged = Jwts.builder()
+                .setSubject("alice")
+                .claim(JwtUtil.USER_ID_CLAIM, 5L)
+                .claim(JwtUtil.ROLES_CLAIM, List.of("ADMINISTRATOR"))
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.secretKeyFor(SignatureAlgorithm.HS512))
+                .compact();
+
+        assertNull(resolver.resolve(forged));
+        assertNull(resolver.resolve("not-a-token"));
+        assertNull(resolver.resolve(tokenIssuedAt(System.currentTimeMillis() - 120_000, 5L)));
+    }
+
+    @Test
+    void tokensIssuedBeforeRevocationAreRejected() {
+        String before = tokenIssuedAt(System.currentTimeMillis() - 5_000, 5L);
+        String otherUser = tokenIssuedAt(System.currentTimeMillis() - 5_000, 6L);
+
+        tokenDenylist.revoke(5L);
+
+        assertNull(resolver.resolve(before));
+        assertNotNull(resolver.resolve(otherUser));
+        assertNotNull(resolver.resolve(tokenIssuedAt(System.currentTimeMillis() + 1_000, 5L)));
+    }
+
+    @Test
+    void deletedUserLosesEveryToken() {
+        tokenDenylist.revokeAll(5L);
+
+        assertNull(resolver.resolve(jwtUtil.generateToken(5L, "alice", List.of("USER"))));
+    }
+}
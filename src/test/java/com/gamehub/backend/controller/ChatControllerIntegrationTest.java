@@ -0,0 +1,136 @@
+package com.gamehub.backend.controller;
+
+import com.gamehub.backend.business.ConversationService;
+import com.gamehub.backend.configuration.security.CustomUserDetails;
+import com.gamehub.backend.domain.ChatMessage;
+import com.gamehub.backend.domain.User;
+import com.gamehub.backend.persistence.ChatMessageRepository;
+import com.gamehub.backend.persistence.UserRepository;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@ExtendWith(SpringExtension.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class ChatControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    private User sender;
+    private User receiver;
+    private CustomUserDetails receiverDetails;
+
+    @BeforeEach
+    void setup() {
+        sender = createUser("inboxSender", "inbox-sender@example.com");
+        receiver = createUser("inboxReceiver", "inbox-receiver@example.com");
+        receiverDetails = new CustomUserDetails(receiver.getId(), receiver.getUsername(), receiver.getPasswordHash(),
+                List.of(new SimpleGrantedAuthority("USER")));
+    }
+
+    private User createUser(String username, String email) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setPasswordHash("hashedPassword");
+        return userRepository.save(user);
+    }
+
+    @Test
+    void inboxKeepsTheNewestPreviewWhenAnOlderMessageIsRecordedLate() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        conversationService.recordMessage(sender.getId(), receiver.getId(), "Newer", now);
+        conversationService.recordMessage(sender.getId(), receiver.getId(), "Older", now.minusSeconds(5));
+
+        mockMvc.perform(get("/chat/inbox")
+                        .param("userId", receiver.getId().toString())
+                        .with(user(receiverDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].lastMessagePreview").value("Newer"))
+                .andExpect(jsonPath("$[0].unreadCount").value(2));
+    }
+
+    @Test
+    void historyPagesThroughMessagesSentInTheSameInstant() throws Exception {
+        LocalDateTime sameInstant = LocalDateTime.of(2024, 5, 1, 12, 0);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            ChatMessage message = new ChatMessage();
+            message.setSender(sender);
+            message.setReceiver(receiver);
+            message.setConversationKey(ChatMessage.conversationKeyOf(sender.getId(), receiver.getId()));
+            message.setContent("Burst " + i);
+            message.setTimestamp(sameInstant);
+            ids.add(chatMessageRepository.save(message).getId());
+        }
+
+        mockMvc.perform(get("/chat/history")
+                        .param("userId", receiver.getId().toString())
+                        .param("friendId", sender.getId().toString())
+                        .param("limit", "2")
+                        .with(user(receiverDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(ids.get(2)))
+                .andExpect(jsonPath("$[1].id").value(ids.get(3)));
+
+        mockMvc.perform(get("/chat/history")
+                        .param("userId", receiver.getId().toString())
+                        .param("friendId", sender.getId().toString())
+                        .param("before", sameInstant.toString())
+                        .param("beforeId", ids.get(2).toString())
+                        .param("limit", "2")
+                        .with(user(receiverDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(ids.get(0)))
+                .andExpect(jsonPath("$[1].id").value(ids.get(1)));
+    }
+
+    @Test
+    void inboxOfAnotherUserIsForbidden() throws Exception {
+        mockMvc.perform(get("/chat/inbox")
+                        .param("userId", sender.getId().toString())
+                        .with(user(receiverDetails)))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void markingAnotherUsersConversationReadIsForbidden() throws Exception {
+        mockMvc.perform(post("/chat/inbox/read")
+                        .param("userId", sender.getId().toString())
+                        .param("peerId", receiver.getId().toString())
+                        .with(user(receiverDetails)))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -1,6 +1,8 @@
 package com.gamehub.backend.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gamehub.backend.configuration.serialization.CBORConfig;
 import com.gamehub.backend.configuration.security.CustomUserDetails;
 import com.gamehub.backend.domain.Game;
 import com.gamehub.backend.domain.Genre;
@@ -29,6 +31,7 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.*;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.BDDMockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -121,6 +124,33 @@ class GameControllerIntegrationTest {
                 .andExpect(jsonPath("$.developer").value("FromSoftware"));
     }
 
+    @Test
+    void getGameByIdAsCborTest() throws Exception {
+        setupAuthentication("admin", "ADMINISTRATOR");
+
+        byte[] body = mockMvc.perform(get("/games/{id}", 1L).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode game = CBORConfig.cborMapper().readTree(body);
+        assertEquals("Elden Ring", game.get("title").asText());
+        assertEquals("FromSoftware", game.get("developer").asText());
+    }
+
+    @Test
+    @WithMockUser(username="admin", roles={"ADMINISTRATOR"})
+    void createGameFromCborTest() throws Exception {
+        setupAuthentication("admin", "ADMINISTRATOR");
+
+        mockMvc.perform(post("/games")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(CBORConfig.cborMapper().writeValueAsBytes(sampleGame)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.title").value("Elden Ring"));
+    }
+
     @Test
     void getGameByIdNotFoundTest() throws Exception {
         setupAuthentication("admin", "ADMINISTRATOR");
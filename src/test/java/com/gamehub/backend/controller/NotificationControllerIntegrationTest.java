@@ -0,0 +1,201 @@
+package com.gamehub.backend.controller;
+
+import com.gamehub.backend.configuration.security.CustomUserDetails;
+import com.gamehub.backend.domain.Notification;
+import com.gamehub.backend.domain.User;
+import com.gamehub.backend.persistence.BroadcastReadWatermarkRepository;
+import com.gamehub.backend.persistence.NotificationRepository;
+import com.gamehub.backend.persistence.UserRepository;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@ExtendWith(SpringExtension.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class NotificationControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private BroadcastReadWatermarkRepository broadcastReadWatermarkRepository;
+
+    private User owner;
+    private User other;
+    private Notification first;
+    private Notification second;
+    private Notification third;
+    private Notification othersNotification;
+    private CustomUserDetails ownerDetails;
+
+    @BeforeEach
+    void setup() {
+        owner = createUser("notifOwner", "notif-owner@example.com");
+        other = createUser("notifOther", "notif-other@example.com");
+        ownerDetails = new CustomUserDetails(owner.getId(), owner.getUsername(), owner.getPasswordHash(),
+                List.of(new SimpleGrantedAuthority("USER")));
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        first = notificationRepository.save(notification(owner, now.minusHours(3)));
+        second = notificationRepository.save(notification(owner, now.minusHours(2)));
+        third = notificationRepository.save(notification(owner, now.minusHours(1)));
+        othersNotification = notificationRepository.save(notification(other, now.minusHours(3)));
+    }
+
+    private User createUser(String username, String email) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setPasswordHash("hashedPassword");
+        return userRepository.save(user);
+    }
+
+    private Notification notification(User user, LocalDateTime timestamp) {
+        return new Notification(null, user, "You have a new message", timestamp, false, "message", null, null);
+    }
+
+    @Test
+    void markListOfIdsOnlyTouchesTheCallersNotifications() throws Exception {
+        mockMvc.perform(post("/notifications/read")
+                        .param("userId", owner.getId().toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + first.getId() + "," + second.getId() + "," + othersNotification.getId() + "]")
+                        .with(user(ownerDetails)))
+                .andExpect(status().isOk())
+                .andExpect(content().string("2"));
+
+        assertEquals(1, notificationRepository.countByUserIdAndIsReadFalse(owner.getId()));
+        assertEquals(1, notificationRepository.countByUserIdAndIsReadFalse(other.getId()));
+    }
+
+    @Test
+    void markReadUpToId() throws Exception {
+        mockMvc.perform(post("/notifications/read-up-to")
+                        .param("userId", owner.getId().toString())
+                        .param("id", second.getId().toString())
+                        .with(user(ownerDetails)))
+                .andExpect(status().isOk())
+                .andExpect(content().string("2"));
+
+        assertEquals(1, notificationRepository.countByUserIdAndIsReadFalse(owner.getId()));
+    }
+
+    @Test
+    void markReadUpToTimestamp() throws Exception {
+        mockMvc.perform(post("/notifications/read-up-to")
+                        .param("userId", owner.getId().toString())
+                        .param("before", third.getTimestamp().toString())
+                        .with(user(ownerDetails)))
+                .andExpect(status().isOk())
+                .andExpect(content().string("3"));
+
+        assertEquals(0, notificationRepository.countByUserIdAndIsReadFalse(owner.getId()));
+        assertEquals(1, notificationRepository.countByUserIdAndIsReadFalse(other.getId()));
+    }
+
+    @Test
+    void markReadUpToWithoutABoundIsRejected() throws Exception {
+        mockMvc.perform(post("/notifications/read-up-to")
+                        .param("userId", owner.getId().toString())
+                        .with(user(ownerDetails)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void markBroadcastsReadAdvancesTheCallersWatermark() throws Exception {
+        mockMvc.perform(post("/notifications/broadcasts/read/5")
+                        .param("userId", owner.getId().toString())
+                        .with(user(ownerDetails)))
+                .andExpect(status().isOk());
+
+        assertEquals(5L, broadcastReadWatermarkRepository.findById(owner.getId()).orElseThrow().getLastReadId());
+    }
+
+    @Test
+    void markingAnotherUsersBroadcastsReadIsForbidden() throws Exception {
+        mockMvc.perform(post("/notifications/broadcasts/read/5")
+                        .param("userId", other.getId().toString())
+                        .with(user(ownerDetails)))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(post("/notifications/broadcasts/read/5")
+                        .param("userId", other.getId().toString()))
+                .andExpect(status().is4xxClientError());
+
+        assertTrue(broadcastReadWatermarkRepository.findById(other.getId()).isEmpty());
+    }
+
+    @Test
+    void unreadCountFollowsBulkReads() throws Exception {
+        mockMvc.perform(get("/notifications/unread-count").param("userId", owner.getId().toString()).with(user(ownerDetails)))
+                .andExpect(status().isOk())
+                .andExpect(content().string("3"));
+
+        mockMvc.perform(post("/notifications/read-up-to")
+                        .param("userId", owner.getId().toString())
+                        .param("id", first.getId().toString())
+                        .with(user(ownerDetails)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/notifications/unread-count").param("userId", owner.getId().toString()).with(user(ownerDetails)))
+                .andExpect(status().isOk())
+                .andExpect(content().string("2"));
+    }
+
+    @Test
+    void unreadCountOfAnotherUserIsForbidden() throws Exception {
+        mockMvc.perform(get("/notifications/unread-count")
+                        .param("userId", other.getId().toString())
+                        .with(user(ownerDetails)))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/notifications/unread-count")
+                        .param("userId", owner.getId().toString()))
+                .andExpect(status().is4xxClientError());
+    }
+
+    @Test
+    void markingAnotherUsersNotificationsReadIsForbidden() throws Exception {
+        mockMvc.perform(post("/notifications/read")
+                        .param("userId", other.getId().toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + othersNotification.getId() + "]")
+                        .with(user(ownerDetails)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/notifications/read-up-to")
+                        .param("userId", other.getId().toString())
+                        .param("id", othersNotification.getId().toString())
+                        .with(user(ownerDetails)))
+                .andExpect(status().isForbidden());
+
+        assertEquals(1, notificationRepository.countByUserIdAndIsReadFalse(other.getId()));
+    }
+}
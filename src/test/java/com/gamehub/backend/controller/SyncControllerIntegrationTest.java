@@ -0,0 +1,229 @@
+package com.gamehub.backend.controller;
+
+import com.gamehub.backend.configuration.security.CustomUserDetails;
+import com.gamehub.backend.domain.BroadcastNotification;
+import com.gamehub.backend.domain.ChatMessage;
+import com.gamehub.backend.domain.Notification;
+import com.gamehub.backend.domain.User;
+import com.gamehub.backend.persistence.BroadcastNotificationRepository;
+import com.gamehub.backend.persistence.ChatMessageRepository;
+import com.gamehub.backend.persistence.NotificationRepository;
+import com.gamehub.backend.persistence.UserRepository;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@ExtendWith(SpringExtension.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class SyncControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private BroadcastNotificationRepository broadcastNotificationRepository;
+
+    private User sender;
+    private User receiver;
+    private CustomUserDetails receiverDetails;
+    private ChatMessage firstMessage;
+    private ChatMessage secondMessage;
+    private Notification notification;
+
+    @BeforeEach
+    void setup() {
+        sender = createUser("syncSender", "sync-sender@example.com");
+        receiver = createUser("syncReceiver", "sync-receiver@example.com");
+        receiverDetails = new CustomUserDetails(receiver.getId(), receiver.getUsername(), receiver.getPasswordHash(),
+                List.of(new SimpleGrantedAuthority("USER")));
+
+        // Columns and cursors keep microseconds, like the timestamps the chat controller assigns.
+        LocalDateTime tenMinutesAgo = LocalDateTime.now().minusMinutes(10).truncatedTo(ChronoUnit.MICROS);
+        firstMessage = chatMessageRepository.save(message("First", tenMinutesAgo));
+        secondMessage = chatMessageRepository.save(message("Second", tenMinutesAgo.plusMinutes(1)));
+
+        notification = new Notification(null, receiver, "You have a new message from syncSender", tenMinutesAgo.plusMinutes(2), false, "message", sender.getId(), null);
+        notification = notificationRepository.save(notification);
+    }
+
+    private User createUser(String username, String email) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setPasswordHash("hashedPassword");
+        return userRepository.save(user);
+    }
+
+    private ChatMessage message(String content, LocalDateTime timestamp) {
+        ChatMessage message = new ChatMessage();
+        message.setSender(sender);
+        message.setReceiver(receiver);
+        message.setConversationKey(ChatMessage.conversationKeyOf(sender.getId(), receiver.getId()));
+        message.setContent(content);
+        message.setTimestamp(timestamp);
+        return message;
+    }
+
+    private String sync(String since, int limit) throws Exception {
+        String body = mockMvc.perform(get("/sync")
+                        .param("userId", receiver.getId().toString())
+                        .param("since", since)
+                        .param("limit", String.valueOf(limit))
+                        .with(user(receiverDetails)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(body, "$.cursor");
+    }
+
+    @Test
+    void syncWithoutCursorReturnsEverything() throws Exception {
+        mockMvc.perform(get("/sync")
+                        .param("userId", receiver.getId().toString())
+                        .with(user(receiverDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.messages.length()").value(2))
+                .andExpect(jsonPath("$.messages[0].content").value("First"))
+                .andExpect(jsonPath("$.messages[0].messageKey").value(firstMessage.getMessageKey()))
+                .andExpect(jsonPath("$.notifications.length()").value(1))
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    @Test
+    void syncPagesWithLimitAndContinuesAfterTheCursor() throws Exception {
+        mockMvc.perform(get("/sync")
+                        .param("userId", receiver.getId().toString())
+                        .param("limit", "1")
+                        .with(user(receiverDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.messages.length()").value(1))
+                .andExpect(jsonPath("$.messages[0].id").value(firstMessage.getId()))
+                .andExpect(jsonPath("$.hasMore").value(true));
+        String cursor = sync("", 1);
+
+        mockMvc.perform(get("/sync")
+                        .param("userId", receiver.getId().toString())
+                        .param("since", cursor)
+                        .param("limit", "1")
+                        .with(user(receiverDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.messages.length()").value(1))
+                .andExpect(jsonPath("$.messages[0].id").value(secondMessage.getId()))
+                .andExpect(jsonPath("$.notifications.length()").value(0))
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    @Test
+    void syncReturnsRowsCommittedLateWithinTheSettleWindow() throws Exception {
+        String cursor = sync("", 10);
+        ChatMessage late = chatMessageRepository.save(message("Late", LocalDateTime.now().minusSeconds(5)));
+
+        mockMvc.perform(get("/sync")
+                        .param("userId", receiver.getId().toString())
+                        .param("since", cursor)
+                        .with(user(receiverDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.messages.length()").value(1))
+                .andExpect(jsonPath("$.messages[0].id").value(late.getId()))
+                .andExpect(jsonPath("$.notifications.length()").value(0));
+    }
+
+    @Test
+    void syncReturnsNotificationsUpdatedInPlace() throws Exception {
+        String cursor = sync("", 10);
+        notification.setTimestamp(LocalDateTime.now());
+        notification.setCoalescedCount(2);
+        notificationRepository.saveAndFlush(notification);
+
+        mockMvc.perform(get("/sync")
+                        .param("userId", receiver.getId().toString())
+                        .param("since", cursor)
+                        .with(user(receiverDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notifications.length()").value(1))
+                .andExpect(jsonPath("$.notifications[0].id").value(notification.getId()))
+                .andExpect(jsonPath("$.notifications[0].count").value(2));
+    }
+
+    @Test
+    void syncIncludesBroadcastsAfterTheBroadcastCursor() throws Exception {
+        String cursor = sync("", 10);
+        BroadcastNotification broadcast = broadcastNotificationRepository.save(
+                new BroadcastNotification(null, "A new event has been created: LAN", LocalDateTime.now(), "event", null, 5L));
+
+        mockMvc.perform(get("/sync")
+                        .param("userId", receiver.getId().toString())
+                        .param("since", cursor)
+                        .with(user(receiverDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.messages.length()").value(0))
+                .andExpect(jsonPath("$.notifications.length()").value(1))
+                .andExpect(jsonPath("$.notifications[0].id").value(broadcast.getId()))
+                .andExpect(jsonPath("$.notifications[0].userId").value(receiver.getId()))
+                .andExpect(jsonPath("$.notifications[0].broadcast").value(true));
+    }
+
+    @Test
+    void syncRejectsIdOnlyCursors() throws Exception {
+        mockMvc.perform(get("/sync")
+                        .param("userId", receiver.getId().toString())
+                        .param("since", secondMessage.getId() + "-" + notification.getId() + "-0")
+                        .with(user(receiverDetails)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/sync")
+                        .param("userId", receiver.getId().toString())
+                        .param("since", secondMessage.getId() + "-" + notification.getId())
+                        .with(user(receiverDetails)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void syncRejectsMalformedCursor() throws Exception {
+        mockMvc.perform(get("/sync")
+                        .param("userId", receiver.getId().toString())
+                        .param("since", "abc")
+                        .with(user(receiverDetails)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/sync")
+                        .param("userId", receiver.getId().toString())
+                        .param("since", "1.2-3")
+                        .with(user(receiverDetails)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void syncForAnotherUserIsForbidden() throws Exception {
+        mockMvc.perform(get("/sync")
+                        .param("userId", sender.getId().toString())
+                        .with(user(receiverDetails)))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,147 @@
+package com.gamehub.backend.persistence.partition;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WeeklyPartitionManagerTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 5, 13);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private void partitions(String table, String... names) {
+        when(jdbcTemplate.queryForList(contains("information_schema.PARTITIONS"), eq(String.class), eq(table)))
+                .thenReturn(List.of(names));
+    }
+
+    private WeeklyPartitionManager activeManager() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("MySQL");
+        partitions("chat_messages", "p20240506", "p20240513", "p20240520", "p20240527", "pmax");
+        partitions("notifications", "p20240506", "p20240513", "p20240520", "p20240527", "pmax");
+        WeeklyPartitionManager manager = new WeeklyPartitionManager(jdbcTemplate, true, false, 2);
+        manager.preparePartitions();
+        clearInvocations(jdbcTemplate);
+        return manager;
+    }
+
+    @Test
+    void disabledManagerNeverTouchesTheDatabase() {
+        WeeklyPartitionManager manager = new WeeklyPartitionManager(jdbcTemplate, false, false, 2);
+
+        manager.preparePartitions();
+        manager.dropPartitionsBefore(LocalDateTime.now());
+
+        assertFalse(manager.isActive());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void nonMySqlDatabaseStaysOnRowDeletes() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+        WeeklyPartitionManager manager = new WeeklyPartitionManager(jdbcTemplate, true, false, 2);
+
+        manager.preparePartitions();
+
+        assertFalse(manager.isActive());
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void unpartitionedTablesAreLeftAloneWithoutTheConversionOptIn() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("MySQL");
+        partitions("chat_messages");
+        partitions("notifications");
+        WeeklyPartitionManager manager = new WeeklyPartitionManager(jdbcTemplate, true, false, 2);
+
+        manager.preparePartitions();
+
+        assertFalse(manager.isActive());
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void conversionOptInPartitionsTheTables() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("MySQL");
+        partitions("chat_messages");
+        partitions("notifications");
+        when(jdbcTemplate.queryForList(contains("REFERENTIAL_CONSTRAINTS"), eq(String.class), anyString())).thenReturn(List.of());
+        WeeklyPartitionManager manager = new WeeklyPartitionManager(jdbcTemplate, true, true, 2);
+
+        manager.preparePartitions();
+
+        assertTrue(manager.isActive());
+        verify(jdbcTemplate).execute(startsWith("ALTER TABLE chat_messages PARTITION BY RANGE COLUMNS(timestamp)"));
+        verify(jdbcTemplate).execute(startsWith("ALTER TABLE notifications PARTITION BY RANGE COLUMNS(timestamp)"));
+    }
+
+    @Test
+    void conversionDropsUniqueKeysWithoutTheTimestampBeforePartitioning() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("MySQL");
+        partitions("chat_messages");
+        partitions("notifications");
+        when(jdbcTemplate.queryForList(contains("REFERENTIAL_CONSTRAINTS"), eq(String.class), anyString())).thenReturn(List.of());
+        when(jdbcTemplate.queryForList(contains("TABLE_CONSTRAINTS"), eq(String.class), eq("chat_messages"))).thenReturn(List.of());
+        when(jdbcTemplate.queryForList(contains("TABLE_CONSTRAINTS"), eq(String.class), eq("notifications")))
+                .thenReturn(List.of("uk_notifications_coalesce_key"));
+        WeeklyPartitionManager manager = new WeeklyPartitionManager(jdbcTemplate, true, true, 2);
+
+        manager.preparePartitions();
+
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE notifications DROP INDEX `uk_notifications_coalesce_key`");
+        inOrder.verify(jdbcTemplate).execute(startsWith("ALTER TABLE notifications PARTITION BY RANGE COLUMNS(timestamp)"));
+        verify(jdbcTemplate, never()).execute(startsWith("ALTER TABLE chat_messages DROP INDEX"));
+    }
+
+    @Test
+    void dropsOnlyWeeksEntirelyBeforeTheCutoff() {
+        WeeklyPartitionManager manager = activeManager();
+
+        manager.dropPartitionsBefore(LocalDateTime.of(2024, 5, 21, 0, 0));
+
+        verify(jdbcTemplate).execute("ALTER TABLE chat_messages DROP PARTITION p20240506");
+        verify(jdbcTemplate).execute("ALTER TABLE chat_messages DROP PARTITION p20240513");
+        verify(jdbcTemplate).execute("ALTER TABLE notifications DROP PARTITION p20240506");
+        verify(jdbcTemplate, never()).execute("ALTER TABLE chat_messages DROP PARTITION p20240520");
+        verify(jdbcTemplate, never()).execute(contains("pmax"));
+    }
+
+    @Test
+    void reorganizesTheCatchAllPartitionForUpcomingWeeks() {
+        WeeklyPartitionManager manager = activeManager();
+
+        manager.createUpcomingPartitions(MONDAY.plusWeeks(1));
+
+        verify(jdbcTemplate).execute("ALTER TABLE chat_messages REORGANIZE PARTITION pmax INTO (" +
+                "PARTITION p20240603 VALUES LESS THAN ('2024-06-10 00:00:00'), " +
+                "PARTITION pmax VALUES LESS THAN (MAXVALUE))");
+    }
+
+    @Test
+    void weekStartIsMonday() {
+        assertEquals(MONDAY, WeeklyPartitionManager.weekStart(LocalDate.of(2024, 5, 19)));
+        assertEquals(MONDAY, WeeklyPartitionManager.weekStart(MONDAY));
+        assertTrue(WeeklyPartitionManager.PARTITIONED_TABLES.contains("notifications"));
+    }
+}